@@ -59,6 +59,8 @@ public class DataInitializer implements CommandLineRunner {
     public void run(String... args) throws Exception {
         // Fix NULL values in chat_messages.read column
         fixChatMessagesReadColumn();
+        // Contrainte d'unicité des numéros de tentative (voir fix-quiz-attempts-unique-number.sql)
+        fixQuizAttemptNumbers();
         // Créer un utilisateur USER de test (avec email @etud.com)
         User testUser = null;
         String userEmail = "user@etud.com";
@@ -533,6 +535,34 @@ public class DataInitializer implements CommandLineRunner {
         }
     }
     
+    /**
+     * Renumérote les tentatives en double puis crée uk_quiz_attempts_user_quiz_number : sur une base
+     * existante, ddl-auto=update ne peut pas l'ajouter tant que des doublons subsistent, et l'échec
+     * n'arrête pas le démarrage. Sans elle, maxAttempts n'est plus garanti entre démarrages concurrents.
+     */
+    private void fixQuizAttemptNumbers() {
+        try {
+            int renumbered = jdbcTemplate.update(
+                "UPDATE quiz_attempts qa SET attempt_number = r.rn FROM (" +
+                "SELECT id, ROW_NUMBER() OVER (PARTITION BY user_id, quiz_id ORDER BY attempt_number, started_at, id) AS rn " +
+                "FROM quiz_attempts WHERE (user_id, quiz_id) IN (" +
+                "SELECT user_id, quiz_id FROM quiz_attempts GROUP BY user_id, quiz_id, attempt_number HAVING COUNT(*) > 1)) r " +
+                "WHERE qa.id = r.id AND qa.attempt_number <> r.rn");
+            if (renumbered > 0) {
+                System.out.println("✅ Renuméroté " + renumbered + " tentatives de quiz en double");
+            }
+            Integer constraints = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM pg_constraint WHERE conname = 'uk_quiz_attempts_user_quiz_number'", Integer.class);
+            if (constraints == null || constraints == 0) {
+                jdbcTemplate.execute("ALTER TABLE quiz_attempts ADD CONSTRAINT uk_quiz_attempts_user_quiz_number " +
+                    "UNIQUE (user_id, quiz_id, attempt_number)");
+                System.out.println("✅ Contrainte uk_quiz_attempts_user_quiz_number créée");
+            }
+        } catch (Exception e) {
+            System.err.println("⚠️  Erreur lors de la contrainte d'unicité des tentatives de quiz : " + e.getMessage());
+        }
+    }
+    
     /**
      * Complète toutes les formations existantes qui n'ont pas encore de contenu
      */
@@ -0,0 +1,75 @@
+package com.coachai.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Mode d'exécution des appels sortants vers le service ML.
+ *
+ * Avec spring.threads.virtual.enabled=true (Java 21, profil Maven "java21"), Tomcat traite déjà
+ * les requêtes sur des threads virtuels ; l'exécuteur ML suit le même mode afin que les appels
+ * HTTP bloquants ne consomment plus de threads plateforme. Sinon, un pool borné classique est utilisé.
+ *
+ * Le HttpClient ML a son propre exécuteur (mlHttpClientExecutor) : s'il partageait mlTaskExecutor,
+ * des tâches bloquées dans send() occuperaient tous les threads dont le client a besoin pour
+ * terminer ses propres échanges, et les appels ne se termineraient jamais (même pas en timeout).
+ */
+@Configuration
+public class ExecutionConfig {
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreadsEnabled;
+
+    @Value("${ai.client.executor.max-concurrency:32}")
+    private int maxConcurrency;
+
+    @Bean(name = "mlTaskExecutor")
+    public AsyncTaskExecutor mlTaskExecutor() {
+        if (virtualThreadsEnabled) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("ml-vt-");
+            executor.setVirtualThreads(true);
+            // Les threads virtuels ne bornent rien : la limite protège le service ML
+            executor.setConcurrencyLimit(maxConcurrency);
+            return executor;
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("ml-");
+        // Le pool ne grandit au-delà du cœur que file pleine : cœur = max pour paralléliser réellement
+        executor.setCorePoolSize(maxConcurrency);
+        executor.setMaxPoolSize(maxConcurrency);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setQueueCapacity(1000);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+
+    /**
+     * Exécuteur interne du HttpClient ML (réception des réponses, complétion des futurs).
+     * Jamais borné ni partagé avec des tâches bloquantes : la concurrence est limitée par le bulkhead du client.
+     */
+    @Bean(name = "mlHttpClientExecutor")
+    public Executor mlHttpClientExecutor() {
+        if (virtualThreadsEnabled) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("ml-http-vt-");
+            executor.setVirtualThreads(true);
+            return executor;
+        }
+
+        // Équivalent d'un cached thread pool : un thread par échange en cours, recyclé après 60 s d'inactivité
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("ml-http-");
+        executor.setCorePoolSize(0);
+        executor.setMaxPoolSize(Integer.MAX_VALUE);
+        executor.setQueueCapacity(0);
+        executor.setKeepAliveSeconds(60);
+        executor.setDaemon(true);
+        return executor;
+    }
+}
@@ -0,0 +1,71 @@
+package com.coachai.controller;
+
+import com.coachai.model.User;
+import com.coachai.repository.UserNotificationRepository;
+import com.coachai.service.CurrentUserService;
+import com.coachai.service.NotificationBroadcastService;
+import com.coachai.service.PushService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/events")
+@CrossOrigin(origins = "http://localhost:4200")
+public class EventStreamController {
+    @Autowired
+    private PushService pushService;
+    
+    @Autowired
+    private CurrentUserService currentUserService;
+    
+    @Autowired
+    private UserNotificationRepository notificationRepository;
+    
+    @Autowired
+    private NotificationBroadcastService broadcastService;
+    
+    /**
+     * Flux temps réel de l'utilisateur connecté (text/event-stream).
+     * Événements émis : "ready" (nombre de notifications non lues à l'ouverture), "notification",
+     * "chat.message" (message dans une de ses conversations), "inbox.message" (formateurs :
+     * nouveau message d'un de leurs apprenants dans une conversation avec un formateur) et "resync" (événements perdus, état à recharger).
+     * Le token peut être passé en paramètre access_token pour les clients EventSource.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(Authentication authentication) {
+        try {
+            if (authentication == null || authentication.getName() == null) {
+                return completeWithError("Unauthorized");
+            }
+            
+            User user = currentUserService.findByEmail(authentication.getName())
+                .orElse(null);
+            if (user == null) {
+                return completeWithError("User not found");
+            }
+            
+            long unreadCount = notificationRepository.countByUserAndIsReadFalse(user) + broadcastService.countUnread(user);
+            return pushService.subscribe(user.getId(), user.getRole(), Map.of("unreadCount", unreadCount));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return completeWithError("Error opening event stream");
+        }
+    }
+    
+    private SseEmitter completeWithError(String error) {
+        SseEmitter emitter = new SseEmitter();
+        try {
+            emitter.send(SseEmitter.event().name("error").data(Map.of("error", error)));
+            emitter.complete();
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+        }
+        return emitter;
+    }
+}
@@ -1,28 +1,28 @@
 package com.coachai.controller.admin;
 
+import com.coachai.dto.AiInteractionDto;
+import com.coachai.dto.AiInteractionTotalsDto;
 import com.coachai.model.ChatMessage;
-import com.coachai.model.Quiz;
-import com.coachai.model.Exercise;
-import com.coachai.repository.ChatMessageRepository;
 import com.coachai.repository.QuizRepository;
 import com.coachai.repository.ExerciseRepository;
+import com.coachai.service.AdminListService;
+import com.coachai.service.AiInteractionService;
+import com.coachai.service.MlServiceClient;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
-import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/admin/ai")
-@CrossOrigin(origins = "http://localhost:4200")
+@CrossOrigin(origins = "http://localhost:4200", exposedHeaders = {"X-Next-Cursor", "X-Has-More", "X-Total-Count-Estimate"})
 public class AdminAiController {
 
     @Autowired
-    private ChatMessageRepository chatMessageRepository;
+    private AiInteractionService aiInteractionService;
 
     @Autowired
     private QuizRepository quizRepository;
@@ -30,26 +30,50 @@ public class AdminAiController {
     @Autowired
     private ExerciseRepository exerciseRepository;
 
+    @Autowired
+    private MlServiceClient mlServiceClient;
+
+    /**
+     * Métriques du client ML par endpoint (appels, erreurs, latence, appels en cours, état du circuit)
+     */
+    @GetMapping("/ml-client/metrics")
+    public ResponseEntity<?> getMlClientMetrics(Authentication authentication) {
+        if (authentication == null || authentication.getName() == null) {
+            return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
+        }
+        return ResponseEntity.ok(mlServiceClient.getMetrics());
+    }
+
+    /**
+     * Journal des interactions, paginé par curseur (paramètre "cursor", en-tête X-Next-Cursor)
+     */
     @GetMapping("/interactions")
-    public ResponseEntity<?> getInteractions(@RequestParam(required = false) Boolean flaggedOnly, Authentication authentication) {
+    public ResponseEntity<?> getInteractions(
+            @RequestParam(required = false) Boolean flaggedOnly,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            Authentication authentication) {
         try {
             if (authentication == null || authentication.getName() == null) {
                 return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
             }
 
-            // Fetch all messages, sorted by timestamp desc
-            // In a real production app, we should use pagination!
-            List<ChatMessage> messages = chatMessageRepository.findAll(Sort.by(Sort.Direction.DESC, "timestamp"));
+            AdminListService.KeysetPage<AiInteractionDto> page;
+            try {
+                page = aiInteractionService.getInteractions(cursor, limit);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+            }
             
             // Transform to AIInteraction DTO structure expected by frontend
             // Note: DB schema might not have 'sentiment', 'flagged', 'responseTime' yet
             // So we map available fields and default the others
-            List<Map<String, Object>> interactions = messages.stream().map(msg -> {
+            List<Map<String, Object>> interactions = page.getItems().stream().map(msg -> {
                 Map<String, Object> map = new java.util.HashMap<>();
                 map.put("id", msg.getId() != null ? msg.getId() : "unknown");
-                map.put("userId", msg.getConversation().getUser().getId());
-                map.put("userName", msg.getConversation().getUser().getFirstName() + " " + msg.getConversation().getUser().getLastName());
-                map.put("userRole", msg.getConversation().getUser().getRole().toString());
+                map.put("userId", msg.getUserId());
+                map.put("userName", msg.getUserFirstName() + " " + msg.getUserLastName());
+                map.put("userRole", msg.getUserRole().toString());
                 map.put("timestamp", msg.getTimestamp().toString());
                 map.put("question", msg.getSender() == ChatMessage.MessageSender.USER ? msg.getContent() : "Réponse IA");
                 map.put("response", "...");
@@ -60,13 +84,18 @@ public class AdminAiController {
                 return map;
             }).collect(Collectors.toList());
 
-            return ResponseEntity.ok(interactions);
+            return ResponseEntity.ok()
+                .headers(headers -> page.headers().forEach(headers::add))
+                .body(interactions);
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(500).body(Map.of("error", "Error fetching interactions", "message", e.getMessage() != null ? e.getMessage() : "Unknown error"));
         }
     }
     
+    /**
+     * Statistiques par agrégats : journées révolues pré-calculées, jour courant compté à la volée
+     */
     @GetMapping("/stats")
     public ResponseEntity<?> getStats(Authentication authentication) {
         try {
@@ -74,34 +103,14 @@ public class AdminAiController {
                 return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
             }
 
+            AiInteractionTotalsDto totals = aiInteractionService.getTotals();
+
             // Total Interactions (messages utilisateur uniquement)
-            List<ChatMessage> allMessages = chatMessageRepository.findAll();
-            long totalInteractions = allMessages.stream()
-                .filter(m -> m.getSender() == ChatMessage.MessageSender.USER)
-                .count();
-
-            // Average Response Time (estimation basée sur l'intervalle entre USER et AI messages)
-            List<Long> responseTimes = new ArrayList<>();
-            List<ChatMessage> sortedMessages = allMessages.stream()
-                .sorted(Comparator.comparing(ChatMessage::getTimestamp))
-                .collect(Collectors.toList());
-
-            for (int i = 0; i < sortedMessages.size() - 1; i++) {
-                ChatMessage userMsg = sortedMessages.get(i);
-                ChatMessage aiMsg = sortedMessages.get(i + 1);
-                
-                if (userMsg.getSender() == ChatMessage.MessageSender.USER && 
-                    aiMsg.getSender() == ChatMessage.MessageSender.AI &&
-                    userMsg.getConversation().getId().equals(aiMsg.getConversation().getId())) {
-                    long diff = ChronoUnit.MILLIS.between(userMsg.getTimestamp(), aiMsg.getTimestamp());
-                    if (diff > 0 && diff < 60000) { // Entre 0 et 60 secondes (filtre les outliers)
-                        responseTimes.add(diff);
-                    }
-                }
-            }
-            
-            double averageResponseTime = responseTimes.isEmpty() ? 250.0 :
-                responseTimes.stream().mapToLong(Long::longValue).average().orElse(250.0);
+            long totalInteractions = totals.getUserMessages();
+
+            // Average Response Time (intervalle entre un message USER et la réponse AI qui le suit)
+            double averageResponseTime = totals.getResponseTimeSamples() == 0 ? 250.0 :
+                (double) totals.getResponseTimeTotalMs() / totals.getResponseTimeSamples();
 
             // Flagged Interactions (placeholder - nécessite un champ flagged dans le modèle)
             long flaggedInteractions = 0;
@@ -112,12 +121,8 @@ public class AdminAiController {
             long negativeCount = 0;
 
             // Generated Content Count (depuis les champs isAIGenerated)
-            long quizCount = quizRepository.findAll().stream()
-                .filter(Quiz::isAIGenerated)
-                .count();
-            long exerciseCount = exerciseRepository.findAll().stream()
-                .filter(Exercise::isAIGenerated)
-                .count();
+            long quizCount = quizRepository.countByIsAIGeneratedTrue();
+            long exerciseCount = exerciseRepository.countByIsAIGeneratedTrue();
             long summaryCount = 0; // Placeholder - nécessite un modèle Summary
 
             // Average Content Rating (placeholder - nécessite un système de rating)
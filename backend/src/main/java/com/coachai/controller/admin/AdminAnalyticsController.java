@@ -2,12 +2,12 @@ package com.coachai.controller.admin;
 
 import com.coachai.model.*;
 import com.coachai.repository.*;
+import com.coachai.service.AnalyticsRollupService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
-import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -16,20 +16,11 @@ import java.util.stream.Collectors;
 @CrossOrigin(origins = "http://localhost:4200")
 public class AdminAnalyticsController {
 
-    @Autowired
-    private UserRepository userRepository;
-
-    @Autowired
-    private FormationRepository formationRepository;
-
-    @Autowired
-    private CourseRepository courseRepository;
-
     @Autowired
     private FormationEnrollmentRepository enrollmentRepository;
 
     @Autowired
-    private FormationProgressRepository progressRepository;
+    private AnalyticsRollupService analyticsRollupService;
 
 
     @GetMapping("/overall")
@@ -39,64 +30,31 @@ public class AdminAnalyticsController {
                 return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
             }
 
-            // Total Users
-            long totalUsers = userRepository.count();
-            long activeUsers = userRepository.findAll().stream()
-                .filter(u -> u.getStatus() == User.UserStatus.ACTIVE)
-                .count();
+            // Lecture de l'instantané du jour (maintenu par AnalyticsRollupService)
+            AnalyticsDailySnapshot snapshot = analyticsRollupService.getToday();
 
             // User Growth (comparaison avec il y a 30 jours)
-            LocalDateTime thirtyDaysAgo = LocalDateTime.now().minusDays(30);
-            long usersThirtyDaysAgo = userRepository.findAll().stream()
-                .filter(u -> u.getJoinedAt() != null && u.getJoinedAt().isBefore(thirtyDaysAgo))
-                .count();
-            double userGrowth = usersThirtyDaysAgo > 0 
-                ? ((double)(totalUsers - usersThirtyDaysAgo) / usersThirtyDaysAgo) * 100 
-                : 0.0;
-
-            // Formations & Courses
-            long totalFormations = formationRepository.count();
-            long totalCourses = courseRepository.count();
-            long publishedCourses = courseRepository.findAll().stream()
-                .filter(c -> c.getStatus() == ContentStatus.PUBLISHED)
-                .count();
-
-            // Enrollments
-            long courseEnrollments = enrollmentRepository.count();
-
-            // Average Completion Rate
-            List<FormationProgress> allProgress = progressRepository.findAll();
-            double averageCompletion = allProgress.isEmpty() ? 0.0 :
-                allProgress.stream()
-                    .mapToDouble(FormationProgress::getOverallProgress)
-                    .average()
-                    .orElse(0.0);
-
-            // Total Study Hours (estimation basée sur les leçons complétées)
-            // On estime 1 heure par module complété
-            long totalStudyHours = allProgress.stream()
-                .mapToLong(p -> p.getCompletedModules())
-                .sum();
+            double userGrowth = AnalyticsRollupService.percentChange(
+                snapshot.getTotalUsers(), snapshot.getUsersJoinedBefore30Days());
 
             // Users by Role
-            long administrateurs = userRepository.countByRole(User.UserRole.ADMIN);
-            long formateurs = userRepository.countByRole(User.UserRole.TRAINER);
-            long apprenants = userRepository.countByRole(User.UserRole.USER);
+            Map<User.UserRole, Long> usersByRole = analyticsRollupService.getUsersByRole(snapshot.getSnapshotDate());
 
             Map<String, Object> analytics = new HashMap<>();
-            analytics.put("totalUsers", totalUsers);
-            analytics.put("activeUsers", activeUsers);
+            analytics.put("totalUsers", snapshot.getTotalUsers());
+            analytics.put("activeUsers", snapshot.getActiveStatusUsers());
             analytics.put("userGrowth", Math.round(userGrowth * 10.0) / 10.0);
-            analytics.put("totalCourses", totalCourses);
-            analytics.put("publishedCourses", publishedCourses);
-            analytics.put("totalFormations", totalFormations);
-            analytics.put("courseEnrollments", courseEnrollments);
-            analytics.put("averageCompletion", Math.round(averageCompletion));
-            analytics.put("totalStudyHours", totalStudyHours);
+            analytics.put("totalCourses", snapshot.getTotalCourses());
+            analytics.put("publishedCourses", snapshot.getPublishedCourses());
+            analytics.put("totalFormations", snapshot.getTotalFormations());
+            analytics.put("courseEnrollments", snapshot.getFormationEnrollments());
+            analytics.put("averageCompletion", Math.round(snapshot.getAverageProgress()));
+            // On estime 1 heure par module complété
+            analytics.put("totalStudyHours", snapshot.getCompletedModules());
             analytics.put("usersByRole", Map.of(
-                "administrateurs", administrateurs,
-                "formateurs", formateurs,
-                "apprenants", apprenants
+                "administrateurs", usersByRole.get(User.UserRole.ADMIN),
+                "formateurs", usersByRole.get(User.UserRole.TRAINER),
+                "apprenants", usersByRole.get(User.UserRole.USER)
             ));
 
             return ResponseEntity.ok(analytics);
@@ -113,45 +71,39 @@ public class AdminAnalyticsController {
                 return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
             }
 
-            // Active Users (derniers 7 jours)
-            LocalDateTime sevenDaysAgo = LocalDateTime.now().minusDays(7);
-            long activeUsersLastWeek = userRepository.findAll().stream()
-                .filter(u -> u.getLastActive() != null && u.getLastActive().isAfter(sevenDaysAgo))
-                .count();
-            long activeUsersPreviousWeek = userRepository.findAll().stream()
-                .filter(u -> {
-                    if (u.getLastActive() == null) return false;
-                    LocalDateTime fourteenDaysAgo = LocalDateTime.now().minusDays(14);
-                    return u.getLastActive().isAfter(fourteenDaysAgo) && u.getLastActive().isBefore(sevenDaysAgo);
-                })
-                .count();
-            double activeUsersChange = activeUsersPreviousWeek > 0 
-                ? ((double)(activeUsersLastWeek - activeUsersPreviousWeek) / activeUsersPreviousWeek) * 100 
-                : 0.0;
+            AnalyticsDailySnapshot snapshot = analyticsRollupService.getToday();
+            // Instantané d'il y a une semaine pour les évolutions semaine sur semaine
+            Optional<AnalyticsDailySnapshot> lastWeek = analyticsRollupService.getSnapshotAsOf(
+                snapshot.getSnapshotDate().minusDays(7));
+
+            // Active Users (derniers 7 jours vs 7 jours précédents)
+            long activeUsersLastWeek = snapshot.getActiveUsersLast7Days();
+            long activeUsersPreviousWeek = lastWeek
+                .map(AnalyticsDailySnapshot::getActiveUsersLast7Days)
+                .orElse(snapshot.getActiveUsersPrevious7Days());
+            double activeUsersChange = AnalyticsRollupService.percentChange(activeUsersLastWeek, activeUsersPreviousWeek);
 
             // Course Completions
-            List<FormationProgress> completed = progressRepository.findAll().stream()
-                .filter(p -> p.getOverallProgress() >= 100)
-                .collect(Collectors.toList());
-            long completions = completed.size();
-            // Estimation du changement (comparaison avec il y a 30 jours)
-            double completionsChange = 8.2; // Placeholder - à améliorer avec historique
+            long completions = snapshot.getCompletions();
+            double completionsChange = lastWeek
+                .map(previous -> AnalyticsRollupService.percentChange(completions, previous.getCompletions()))
+                .orElse(0.0);
 
             // Average Rating (placeholder - nécessite un système de rating)
             String averageRating = "4.7/5";
             double ratingChange = 0.3;
 
             // Study Hours
-            long studyHours = progressRepository.findAll().stream()
-                .mapToLong(p -> p.getCompletedModules())
-                .sum();
-            double studyHoursChange = 15.8; // Placeholder
+            long studyHours = snapshot.getCompletedModules();
+            double studyHoursChange = lastWeek
+                .map(previous -> AnalyticsRollupService.percentChange(studyHours, previous.getCompletedModules()))
+                .orElse(0.0);
 
             List<Map<String, Object>> metrics = Arrays.asList(
                 Map.of("label", "Active Users", "value", activeUsersLastWeek, "change", Math.round(activeUsersChange * 10.0) / 10.0, "trend", activeUsersChange >= 0 ? "up" : "down"),
-                Map.of("label", "Course Completions", "value", completions, "change", completionsChange, "trend", "up"),
+                Map.of("label", "Course Completions", "value", completions, "change", Math.round(completionsChange * 10.0) / 10.0, "trend", completionsChange >= 0 ? "up" : "down"),
                 Map.of("label", "Average Rating", "value", averageRating, "change", ratingChange, "trend", "up"),
-                Map.of("label", "Study Hours", "value", studyHours, "change", studyHoursChange, "trend", "up")
+                Map.of("label", "Study Hours", "value", studyHours, "change", Math.round(studyHoursChange * 10.0) / 10.0, "trend", studyHoursChange >= 0 ? "up" : "down")
             );
 
             return ResponseEntity.ok(metrics);
@@ -11,6 +11,7 @@ import com.coachai.repository.CourseRepository;
 import com.coachai.repository.UserRepository;
 import com.coachai.repository.AIRecommendationRepository;
 import com.coachai.repository.UserNotificationRepository;
+import com.coachai.service.CurrentUserService;
 import com.coachai.service.FormationValidationService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -34,6 +35,9 @@ public class AdminContentController {
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private CurrentUserService currentUserService;
+    
     @Autowired
     private FormationValidationService validationService;
     
@@ -127,7 +131,7 @@ public class AdminContentController {
             // chaque module avec au moins 1 leçon et 1 quiz
             
             String email = authentication.getName();
-            User admin = userRepository.findByEmail(email).orElse(null);
+            User admin = currentUserService.findByEmail(email).orElse(null);
             
             formation.setStatus(ContentStatus.PUBLISHED);
             formation.setValidatedAt(LocalDateTime.now());
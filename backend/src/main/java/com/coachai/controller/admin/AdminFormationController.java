@@ -2,6 +2,9 @@ package com.coachai.controller.admin;
 
 import com.coachai.model.*;
 import com.coachai.repository.*;
+import com.coachai.service.AdminFilters;
+import com.coachai.service.AdminListService;
+import com.coachai.service.CurrentUserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -17,7 +20,7 @@ import java.util.Map;
  */
 @RestController
 @RequestMapping("/api/admin/formations")
-@CrossOrigin(origins = "http://localhost:4200")
+@CrossOrigin(origins = "http://localhost:4200", exposedHeaders = {"X-Next-Cursor", "X-Has-More", "X-Total-Count-Estimate"})
 public class AdminFormationController {
     
     @Autowired
@@ -32,6 +35,12 @@ public class AdminFormationController {
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private CurrentUserService currentUserService;
+    
+    @Autowired
+    private AdminListService adminListService;
+    
     @Autowired
     private ModuleRepository moduleRepository;
     
@@ -59,29 +68,44 @@ public class AdminFormationController {
         }
     }
     
+    // Tris autorisés pour la liste des inscriptions, le premier étant celui par défaut
+    private static final List<AdminListService.SortField<FormationEnrollment>> ENROLLMENT_SORTS = List.of(
+        AdminListService.SortField.dateTime("enrolledAt", FormationEnrollment::getEnrolledAt)
+    );
+    
     /**
-     * Récupère toutes les inscriptions par formation
+     * Récupère les inscriptions, par formation et statut, paginées par curseur
      */
     @GetMapping("/enrollments")
     public ResponseEntity<?> getAllEnrollments(
             @RequestParam(required = false) String formationId,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String direction,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
             Authentication authentication) {
         try {
             if (authentication == null || authentication.getName() == null) {
                 return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
             }
             
-            List<FormationEnrollment> enrollments;
-            if (formationId != null) {
-                Formation formation = formationRepository.findById(formationId).orElse(null);
-                if (formation == null) {
-                    return ResponseEntity.status(404).body(Map.of("error", "Formation not found"));
-                }
-                enrollments = enrollmentRepository.findByFormation(formation);
-            } else {
-                enrollments = enrollmentRepository.findAll();
+            if (formationId != null && !formationRepository.existsById(formationId)) {
+                return ResponseEntity.status(404).body(Map.of("error", "Formation not found"));
             }
             
+            AdminListService.KeysetPage<FormationEnrollment> page;
+            try {
+                page = adminListService.getPage(FormationEnrollment.class,
+                    AdminFilters.enrollments(formationId,
+                        AdminListService.parseFilter(FormationEnrollment.EnrollmentStatus.class, "status", status)),
+                    AdminListService.resolveSort(ENROLLMENT_SORTS, sort, direction), cursor, limit,
+                    "user", "formation", "progress");
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+            }
+            List<FormationEnrollment> enrollments = page.getItems();
+            
             List<Map<String, Object>> enrollmentsData = new ArrayList<>();
             
             for (FormationEnrollment enrollment : enrollments) {
@@ -109,7 +133,9 @@ public class AdminFormationController {
                 enrollmentsData.add(enrollmentData);
             }
             
-            return ResponseEntity.ok(enrollmentsData);
+            return ResponseEntity.ok()
+                .headers(headers -> page.headers().forEach(headers::add))
+                .body(enrollmentsData);
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(500).body(Map.of("error", "Error fetching enrollments", "message", e.getMessage() != null ? e.getMessage() : "Unknown error"));
@@ -536,7 +562,7 @@ public class AdminFormationController {
             String reason = (String) validationData.getOrDefault("reason", "");
             
             String email = authentication.getName();
-            User admin = userRepository.findByEmail(email).orElse(null);
+            User admin = currentUserService.findByEmail(email).orElse(null);
             
             if ("approve".equalsIgnoreCase(action)) {
                 if (formation.getStatus() != ContentStatus.PENDING) {
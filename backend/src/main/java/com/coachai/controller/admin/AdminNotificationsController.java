@@ -1,8 +1,12 @@
 package com.coachai.controller.admin;
 
+import com.coachai.model.NotificationBroadcast;
 import com.coachai.model.UserNotification;
 import com.coachai.repository.UserNotificationRepository;
 import com.coachai.repository.UserRepository;
+import com.coachai.service.AdminFilters;
+import com.coachai.service.AdminListService;
+import com.coachai.service.NotificationBroadcastService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -13,7 +17,7 @@ import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/admin/notifications")
-@CrossOrigin(origins = "http://localhost:4200")
+@CrossOrigin(origins = "http://localhost:4200", exposedHeaders = {"X-Next-Cursor", "X-Has-More", "X-Total-Count-Estimate"})
 public class AdminNotificationsController {
     @Autowired
     private UserNotificationRepository userNotificationRepository;
@@ -21,46 +25,84 @@ public class AdminNotificationsController {
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private NotificationBroadcastService broadcastService;
+    
+    @Autowired
+    private AdminListService adminListService;
+    
+    // Notifications individuelles et diffusions sont paginées ensemble, par date de création
+    private static final List<AdminListService.SortField<Object>> NOTIFICATION_SORTS = List.of(
+        AdminListService.SortField.dateTime("createdAt", item -> item instanceof NotificationBroadcast broadcast
+            ? broadcast.getCreatedAt()
+            : ((UserNotification) item).getCreatedAt())
+    );
+    
+    /**
+     * Liste paginée par curseur : chaque source est lue jusqu'à "limit" lignes depuis le même
+     * curseur, puis les deux pages sont fusionnées
+     */
     @GetMapping
     public ResponseEntity<?> getAllNotifications(
             @RequestParam(required = false) String type,
             @RequestParam(required = false) String priority,
             @RequestParam(required = false) String status,
+            @RequestParam(required = false) String direction,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
             Authentication authentication) {
         try {
             if (authentication == null || authentication.getName() == null) {
                 return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
             }
             
-            List<UserNotification> notifications = userNotificationRepository.findAll();
-            
-            // Filter by type
-            if (type != null && !type.isEmpty()) {
-                try {
-                    UserNotification.NotificationType typeEnum = UserNotification.NotificationType.valueOf(type.toUpperCase());
-                    notifications = notifications.stream()
-                        .filter(n -> n.getType() == typeEnum)
-                        .collect(Collectors.toList());
-                } catch (IllegalArgumentException e) {
-                    // Invalid type, ignore filter
-                }
-            }
-            
-            // Filter by priority
-            if (priority != null && !priority.isEmpty()) {
-                try {
-                    UserNotification.NotificationPriority priorityEnum = UserNotification.NotificationPriority.valueOf(priority.toUpperCase());
-                    notifications = notifications.stream()
-                        .filter(n -> n.getPriority() == priorityEnum)
-                        .collect(Collectors.toList());
-                } catch (IllegalArgumentException e) {
-                    // Invalid priority, ignore filter
-                }
+            AdminListService.KeysetPage<Object> page;
+            try {
+                UserNotification.NotificationType typeEnum =
+                    AdminListService.parseFilter(UserNotification.NotificationType.class, "type", type);
+                UserNotification.NotificationPriority priorityEnum =
+                    AdminListService.parseFilter(UserNotification.NotificationPriority.class, "priority", priority);
+                AdminListService.SortOrder<Object> order = AdminListService.resolveSort(NOTIFICATION_SORTS, null, direction);
+                page = adminListService.merge(order, cursor, limit,
+                    adminListService.getPage(NotificationBroadcast.class, AdminFilters.broadcasts(typeEnum, priorityEnum),
+                        order, cursor, limit),
+                    adminListService.getPage(UserNotification.class, AdminFilters.notifications(typeEnum, priorityEnum),
+                        order, cursor, limit, "user"));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
             }
             
             // Map to admin format
             List<Map<String, Object>> notificationsData = new ArrayList<>();
-            for (UserNotification notif : notifications) {
+            
+            // Diffusions : une entrée par envoi, lectures de la page comptées en une requête
+            List<NotificationBroadcast> broadcasts = page.getItems().stream()
+                .filter(NotificationBroadcast.class::isInstance)
+                .map(NotificationBroadcast.class::cast)
+                .collect(Collectors.toList());
+            Map<String, Long> readCounts = broadcastService.getReadCounts(broadcasts);
+            for (Object item : page.getItems()) {
+                if (item instanceof NotificationBroadcast broadcast) {
+                    Map<String, Object> notifData = new HashMap<>();
+                    notifData.put("id", broadcast.getId());
+                    notifData.put("type", broadcast.getType() != null ? broadcast.getType().toString().toLowerCase() : "info");
+                    notifData.put("priority", broadcast.getPriority() != null ? broadcast.getPriority().toString().toLowerCase() : "medium");
+                    notifData.put("title", broadcast.getTitle() != null ? broadcast.getTitle() : "");
+                    notifData.put("message", broadcast.getMessage() != null ? broadcast.getMessage() : "");
+                    notifData.put("targetAudience", NotificationBroadcastService.audienceOf(broadcast));
+                    notifData.put("targetUserIds", List.of());
+                    notifData.put("status", "sent");
+                    notifData.put("isRead", false);
+                    notifData.put("createdBy", broadcast.getCreatedBy() != null ? broadcast.getCreatedBy() : "admin");
+                    notifData.put("createdAt", broadcast.getCreatedAt() != null ? broadcast.getCreatedAt() : new Date());
+                    notifData.put("sentAt", broadcast.getCreatedAt() != null ? broadcast.getCreatedAt() : new Date());
+                    notifData.put("totalRecipients", broadcast.getTotalRecipients());
+                    notifData.put("readCount", readCounts.getOrDefault(broadcast.getId(), 0L));
+                    notificationsData.add(notifData);
+                    continue;
+                }
+                
+                UserNotification notif = (UserNotification) item;
                 // Count recipients and read count
                 long totalRecipients = 1; // Default, would need to calculate from target audience
                 long readCount = notif.getReadAt() != null ? 1 : 0;
@@ -83,7 +125,9 @@ public class AdminNotificationsController {
                 notificationsData.add(notifData);
             }
             
-            return ResponseEntity.ok(notificationsData);
+            return ResponseEntity.ok()
+                .headers(headers -> page.headers().forEach(headers::add))
+                .body(notificationsData);
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(500).body(Map.of("error", "Error fetching notifications", "message", e.getMessage() != null ? e.getMessage() : "Unknown error"));
@@ -110,64 +154,82 @@ public class AdminNotificationsController {
                 return ResponseEntity.badRequest().body(Map.of("error", "Title and message are required"));
             }
             
-            // Get users based on target audience
-            List<com.coachai.model.User> targetUsers = new ArrayList<>();
+            UserNotification.NotificationType notificationType;
+            try {
+                notificationType = UserNotification.NotificationType.valueOf(type.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                notificationType = UserNotification.NotificationType.REMINDER;
+            }
             
-            // Si des utilisateurs spécifiques sont fournis
-            if (notificationData.containsKey("targetUserIds") && notificationData.get("targetUserIds") instanceof List) {
-                @SuppressWarnings("unchecked")
-                List<String> userIds = (List<String>) notificationData.get("targetUserIds");
-                for (String userId : userIds) {
-                    userRepository.findById(userId).ifPresent(targetUsers::add);
-                }
-            } else if ("all".equals(targetAudience)) {
-                targetUsers = userRepository.findAll();
-            } else if ("apprenants".equals(targetAudience) || "apprenant".equals(targetAudience)) {
-                targetUsers = userRepository.findByRole(com.coachai.model.User.UserRole.USER);
-            } else if ("formateurs".equals(targetAudience) || "formateur".equals(targetAudience)) {
-                targetUsers = userRepository.findByRole(com.coachai.model.User.UserRole.TRAINER);
-            } else if ("administrateurs".equals(targetAudience) || "administrateur".equals(targetAudience)) {
-                targetUsers = userRepository.findByRole(com.coachai.model.User.UserRole.ADMIN);
+            UserNotification.NotificationPriority notificationPriority;
+            try {
+                notificationPriority = UserNotification.NotificationPriority.valueOf(priority.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                notificationPriority = UserNotification.NotificationPriority.MEDIUM;
             }
             
-            if (targetUsers.isEmpty()) {
-                return ResponseEntity.badRequest().body(Map.of("error", "No target users found"));
+            if (actionUrl != null && actionUrl.trim().isEmpty()) {
+                actionUrl = null;
             }
             
-            // Create notifications for all target users
-            List<UserNotification> createdNotifications = new ArrayList<>();
-            for (com.coachai.model.User user : targetUsers) {
-                UserNotification notification = new UserNotification();
-                notification.setUser(user);
-                notification.setTitle(title);
-                notification.setMessage(message);
-                
-                try {
-                    notification.setType(UserNotification.NotificationType.valueOf(type.toUpperCase()));
-                } catch (IllegalArgumentException e) {
-                    notification.setType(UserNotification.NotificationType.REMINDER);
-                }
+            // Si des utilisateurs spécifiques sont fournis : une notification par utilisateur, en un lot
+            if (notificationData.containsKey("targetUserIds") && notificationData.get("targetUserIds") instanceof List) {
+                @SuppressWarnings("unchecked")
+                List<String> userIds = (List<String>) notificationData.get("targetUserIds");
+                List<com.coachai.model.User> targetUsers = userRepository.findAllById(userIds);
                 
-                try {
-                    notification.setPriority(UserNotification.NotificationPriority.valueOf(priority.toUpperCase()));
-                } catch (IllegalArgumentException e) {
-                    notification.setPriority(UserNotification.NotificationPriority.MEDIUM);
+                if (targetUsers.isEmpty()) {
+                    return ResponseEntity.badRequest().body(Map.of("error", "No target users found"));
                 }
                 
-                if (actionUrl != null && !actionUrl.trim().isEmpty()) {
+                List<UserNotification> notifications = new ArrayList<>(targetUsers.size());
+                for (com.coachai.model.User user : targetUsers) {
+                    UserNotification notification = new UserNotification();
+                    notification.setUser(user);
+                    notification.setTitle(title);
+                    notification.setMessage(message);
+                    notification.setType(notificationType);
+                    notification.setPriority(notificationPriority);
                     notification.setActionUrl(actionUrl);
+                    // Marquer que la notification vient de l'admin
+                    notification.setCreatedBy("admin");
+                    notification.setRead(false);
+                    notifications.add(notification);
                 }
+                List<UserNotification> createdNotifications = userNotificationRepository.saveAll(notifications);
                 
-                // Marquer que la notification vient de l'admin
-                notification.setCreatedBy("admin");
-                notification.setRead(false);
-                createdNotifications.add(userNotificationRepository.save(notification));
+                return ResponseEntity.ok(Map.of(
+                    "message", "Notification created successfully",
+                    "id", createdNotifications.get(0).getId(),
+                    "totalRecipients", createdNotifications.size()
+                ));
+            }
+            
+            // Audience entière (tous ou un rôle) : une seule diffusion, résolue à la lecture
+            com.coachai.model.User.UserRole targetRole;
+            if ("all".equals(targetAudience)) {
+                targetRole = null;
+            } else if ("apprenants".equals(targetAudience) || "apprenant".equals(targetAudience)) {
+                targetRole = com.coachai.model.User.UserRole.USER;
+            } else if ("formateurs".equals(targetAudience) || "formateur".equals(targetAudience)) {
+                targetRole = com.coachai.model.User.UserRole.TRAINER;
+            } else if ("administrateurs".equals(targetAudience) || "administrateur".equals(targetAudience)) {
+                targetRole = com.coachai.model.User.UserRole.ADMIN;
+            } else {
+                return ResponseEntity.badRequest().body(Map.of("error", "No target users found"));
+            }
+            
+            NotificationBroadcast broadcast = broadcastService.createBroadcast(targetRole, notificationType,
+                notificationPriority, title, message, actionUrl, "admin");
+            
+            if (broadcast.getTotalRecipients() == 0) {
+                return ResponseEntity.badRequest().body(Map.of("error", "No target users found"));
             }
             
             return ResponseEntity.ok(Map.of(
                 "message", "Notification created successfully",
-                "id", UUID.randomUUID().toString(),
-                "totalRecipients", createdNotifications.size()
+                "id", broadcast.getId(),
+                "totalRecipients", broadcast.getTotalRecipients()
             ));
         } catch (Exception e) {
             e.printStackTrace();
@@ -244,6 +306,31 @@ public class AdminNotificationsController {
         }
     }
     
+    /**
+     * Avancement d'une diffusion (destinataires, lectures)
+     * API: GET /api/admin/notifications/broadcasts/{id}
+     */
+    @GetMapping("/broadcasts/{id}")
+    public ResponseEntity<?> getBroadcastProgress(
+            @PathVariable String id,
+            Authentication authentication) {
+        try {
+            if (authentication == null || authentication.getName() == null) {
+                return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
+            }
+            
+            NotificationBroadcast broadcast = broadcastService.getBroadcast(id).orElse(null);
+            if (broadcast == null) {
+                return ResponseEntity.status(404).body(Map.of("error", "Broadcast not found"));
+            }
+            
+            return ResponseEntity.ok(broadcastService.getProgress(broadcast));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body(Map.of("error", "Error fetching broadcast progress", "message", e.getMessage() != null ? e.getMessage() : "Unknown error"));
+        }
+    }
+    
     /**
      * Récupère les statistiques des notifications
      * API: GET /api/admin/notifications/stats
@@ -255,11 +342,10 @@ public class AdminNotificationsController {
                 return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
             }
             
-            List<UserNotification> allNotifications = userNotificationRepository.findAll();
-            
-            long total = allNotifications.size();
-            long read = allNotifications.stream().filter(n -> n.getReadAt() != null).count();
-            long unread = total - read;
+            // Notifications individuelles et diffusions (une remise par destinataire), comptées en base
+            long total = userNotificationRepository.count() + broadcastService.countDeliveries();
+            long read = userNotificationRepository.countByReadAtIsNotNull() + broadcastService.countReads();
+            long unread = Math.max(0, total - read);
             double readRate = total > 0 ? (double) read / total * 100 : 0;
             
             Map<String, Object> stats = new HashMap<>();
@@ -4,17 +4,18 @@ import com.coachai.model.SupportTicket;
 import com.coachai.model.User;
 import com.coachai.repository.SupportTicketRepository;
 import com.coachai.repository.UserRepository;
+import com.coachai.service.AdminFilters;
+import com.coachai.service.AdminListService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/admin/support")
-@CrossOrigin(origins = "http://localhost:4200")
+@CrossOrigin(origins = "http://localhost:4200", exposedHeaders = {"X-Next-Cursor", "X-Has-More", "X-Total-Count-Estimate"})
 public class AdminSupportController {
     @Autowired
     private SupportTicketRepository supportTicketRepository;
@@ -22,54 +23,46 @@ public class AdminSupportController {
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private AdminListService adminListService;
+    
+    // Tris autorisés pour la liste, le premier étant celui par défaut
+    private static final List<AdminListService.SortField<SupportTicket>> TICKET_SORTS = List.of(
+        AdminListService.SortField.dateTime("createdAt", SupportTicket::getCreatedAt),
+        AdminListService.SortField.text("ticketNumber", SupportTicket::getTicketNumber)
+    );
+    
+    /**
+     * Liste paginée par curseur et filtrée en base ; un filtre de valeur inconnue est ignoré
+     */
     @GetMapping("/tickets")
     public ResponseEntity<?> getAllTickets(
             @RequestParam(required = false) String status,
             @RequestParam(required = false) String priority,
             @RequestParam(required = false) String category,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String direction,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
             Authentication authentication) {
         try {
             if (authentication == null || authentication.getName() == null) {
                 return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
             }
             
-            List<SupportTicket> tickets = supportTicketRepository.findAll();
-            
-            // Filter by status
-            if (status != null && !status.isEmpty()) {
-                try {
-                    SupportTicket.TicketStatus statusEnum = SupportTicket.TicketStatus.valueOf(status.toUpperCase());
-                    tickets = tickets.stream()
-                        .filter(t -> t.getStatus() == statusEnum)
-                        .collect(Collectors.toList());
-                } catch (IllegalArgumentException e) {
-                    // Invalid status, ignore filter
-                }
-            }
-            
-            // Filter by priority
-            if (priority != null && !priority.isEmpty()) {
-                try {
-                    SupportTicket.TicketPriority priorityEnum = SupportTicket.TicketPriority.valueOf(priority.toUpperCase());
-                    tickets = tickets.stream()
-                        .filter(t -> t.getPriority() == priorityEnum)
-                        .collect(Collectors.toList());
-                } catch (IllegalArgumentException e) {
-                    // Invalid priority, ignore filter
-                }
-            }
-            
-            // Filter by category
-            if (category != null && !category.isEmpty()) {
-                try {
-                    SupportTicket.TicketCategory categoryEnum = SupportTicket.TicketCategory.valueOf(category.toUpperCase());
-                    tickets = tickets.stream()
-                        .filter(t -> t.getCategory() == categoryEnum)
-                        .collect(Collectors.toList());
-                } catch (IllegalArgumentException e) {
-                    // Invalid category, ignore filter
-                }
+            AdminListService.KeysetPage<SupportTicket> page;
+            try {
+                page = adminListService.getPage(SupportTicket.class,
+                    AdminFilters.tickets(
+                        AdminListService.parseFilter(SupportTicket.TicketStatus.class, "status", status),
+                        AdminListService.parseFilter(SupportTicket.TicketPriority.class, "priority", priority),
+                        AdminListService.parseFilter(SupportTicket.TicketCategory.class, "category", category)),
+                    AdminListService.resolveSort(TICKET_SORTS, sort, direction), cursor, limit,
+                    "user", "assignedTo");
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
             }
+            List<SupportTicket> tickets = page.getItems();
             
             // Map to admin format
             List<Map<String, Object>> ticketsData = new ArrayList<>();
@@ -96,7 +89,9 @@ public class AdminSupportController {
                 ticketsData.add(ticketData);
             }
             
-            return ResponseEntity.ok(ticketsData);
+            return ResponseEntity.ok()
+                .headers(headers -> page.headers().forEach(headers::add))
+                .body(ticketsData);
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(500).body(Map.of("error", "Error fetching tickets", "message", e.getMessage() != null ? e.getMessage() : "Unknown error"));
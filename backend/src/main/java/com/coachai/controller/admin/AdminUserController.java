@@ -4,6 +4,8 @@ import com.coachai.model.User;
 import com.coachai.model.Enrollment;
 import com.coachai.repository.UserRepository;
 import com.coachai.repository.EnrollmentRepository;
+import com.coachai.service.AdminFilters;
+import com.coachai.service.AdminListService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -16,7 +18,7 @@ import java.util.Map;
 
 @RestController
 @RequestMapping("/api/admin/users")
-@CrossOrigin(origins = "http://localhost:4200")
+@CrossOrigin(origins = "http://localhost:4200", exposedHeaders = {"X-Next-Cursor", "X-Has-More", "X-Total-Count-Estimate"})
 public class AdminUserController {
     @Autowired
     private UserRepository userRepository;
@@ -24,35 +26,67 @@ public class AdminUserController {
     @Autowired(required = false)
     private PasswordEncoder passwordEncoder;
     
+    @Autowired
+    private AdminListService adminListService;
+    
+    // Tris autorisés pour la liste, le premier étant celui par défaut
+    private static final List<AdminListService.SortField<User>> USER_SORTS = List.of(
+        AdminListService.SortField.dateTime("joinedAt", User::getJoinedAt),
+        AdminListService.SortField.text("email", User::getEmail),
+        AdminListService.SortField.text("lastName", User::getLastName)
+    );
+    
+    /**
+     * Liste paginée par curseur : page suivante via le paramètre "cursor" (en-tête X-Next-Cursor),
+     * total de la première page dans X-Total-Count-Estimate
+     */
     @GetMapping
     public ResponseEntity<?> getAllUsers(
             @RequestParam(required = false) String role,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String direction,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
             Authentication authentication) {
         try {
             if (authentication == null || authentication.getName() == null) {
                 return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
             }
             
-            List<User> users;
+            User.UserRole roleEnum = null;
             if (role != null && !role.isEmpty()) {
                 try {
-                    User.UserRole roleEnum = User.UserRole.valueOf(role.toUpperCase());
-                    users = userRepository.findByRole(roleEnum);
+                    roleEnum = User.UserRole.valueOf(role.toUpperCase());
                 } catch (IllegalArgumentException e) {
                     return ResponseEntity.badRequest().body(Map.of("error", "Invalid role parameter"));
                 }
-            } else {
-                users = userRepository.findAll();
+            }
+            User.UserStatus statusEnum = null;
+            if (status != null && !status.isEmpty()) {
+                try {
+                    statusEnum = User.UserStatus.valueOf(status.toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    return ResponseEntity.badRequest().body(Map.of("error", "Invalid status parameter"));
+                }
             }
             
-            if (users == null) {
-                users = List.of();
+            AdminListService.KeysetPage<User> page;
+            try {
+                page = adminListService.getPage(User.class, AdminFilters.users(roleEnum, statusEnum),
+                    AdminListService.resolveSort(USER_SORTS, sort, direction), cursor, limit);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
             }
             
+            List<User> users = page.getItems();
+            
             // Remove passwords from response
             users.forEach(user -> user.setPassword(null));
             
-            return ResponseEntity.ok(users);
+            return ResponseEntity.ok()
+                .headers(headers -> page.headers().forEach(headers::add))
+                .body(users);
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(500).body(Map.of("error", "Error fetching users", "message", e.getMessage() != null ? e.getMessage() : "Unknown error"));
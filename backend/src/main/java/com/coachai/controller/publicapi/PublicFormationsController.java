@@ -1,13 +1,15 @@
 package com.coachai.controller.publicapi;
 
-import com.coachai.model.ContentStatus;
+import com.coachai.dto.FormationCardDto;
 import com.coachai.model.Course;
 import com.coachai.model.Formation;
 import com.coachai.repository.CourseRepository;
 import com.coachai.repository.FormationRepository;
 import com.coachai.repository.ModuleRepository;
-import com.coachai.repository.QuizRepository;
+import com.coachai.service.FormationCatalogService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -15,6 +17,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/formations")
@@ -30,121 +33,44 @@ public class PublicFormationsController {
     private CourseRepository courseRepository;
     
     @Autowired
-    private QuizRepository quizRepository;
+    private FormationCatalogService formationCatalogService;
+    
+    @Value("${catalog.http.max-age-seconds:30}")
+    private long httpMaxAgeSeconds;
     
     /**
-     * Get all published formations for public display
+     * Get all published formations for public display.
+     * Servi depuis le catalogue en mémoire ; ETag + Cache-Control pour les GET conditionnels.
      */
     @GetMapping
     public ResponseEntity<?> getAllFormations(
             @RequestParam(required = false) String category,
             @RequestParam(required = false) String level) {
         try {
-            List<Formation> formations;
+            String categoryFilter = null;
+            Formation.Level levelFilter = null;
             
             if (category != null && !category.isEmpty()) {
-                // Filtrer par catégorie et status en Java si la méthode n'existe pas
-                try {
-                    formations = formationRepository.findByCategoryAndStatus(category, ContentStatus.PUBLISHED);
-                } catch (Exception e) {
-                    // Fallback: filtrer en Java
-                    formations = formationRepository.findByCategory(category).stream()
-                        .filter(f -> f.getStatus() == ContentStatus.PUBLISHED)
-                        .collect(java.util.stream.Collectors.toList());
-                }
+                categoryFilter = category;
             } else if (level != null && !level.isEmpty()) {
                 try {
-                    Formation.Level levelEnum = Formation.Level.valueOf(level.toUpperCase());
-                    try {
-                        formations = formationRepository.findByLevelAndStatus(levelEnum, ContentStatus.PUBLISHED);
-                    } catch (Exception e) {
-                        // Fallback: filtrer en Java
-                        formations = formationRepository.findByLevel(levelEnum).stream()
-                            .filter(f -> f.getStatus() == ContentStatus.PUBLISHED)
-                            .collect(java.util.stream.Collectors.toList());
-                    }
+                    levelFilter = Formation.Level.valueOf(level.toUpperCase());
                 } catch (IllegalArgumentException e) {
                     return ResponseEntity.badRequest().body(Map.of(
                         "error", "Invalid level parameter",
                         "validLevels", new String[]{"DEBUTANT", "INTERMEDIAIRE", "AVANCE"}
                     ));
                 }
-            } else {
-                formations = formationRepository.findByStatus(ContentStatus.PUBLISHED);
             }
             
-            if (formations == null) {
-                formations = new ArrayList<>();
-            }
-            
-            List<Map<String, Object>> formationsList = new ArrayList<>();
-            for (Formation formation : formations) {
-                Map<String, Object> formationMap = new HashMap<>();
-                formationMap.put("id", formation.getId());
-                formationMap.put("title", formation.getTitle());
-                formationMap.put("description", formation.getDescription());
-                formationMap.put("thumbnail", formation.getThumbnail());
-                formationMap.put("category", formation.getCategory());
-                formationMap.put("level", formation.getLevel() != null ? formation.getLevel().name() : "DEBUTANT");
-                formationMap.put("duration", formation.getDuration());
-                formationMap.put("enrolledCount", formation.getEnrolledCount());
-                formationMap.put("completionRate", formation.getCompletionRate());
-                
-                // Informations formateur
-                try {
-                    if (formation.getCreatedBy() != null) {
-                        Map<String, String> trainer = new HashMap<>();
-                        trainer.put("id", formation.getCreatedBy().getId());
-                        trainer.put("firstName", formation.getCreatedBy().getFirstName() != null ? formation.getCreatedBy().getFirstName() : "");
-                        trainer.put("lastName", formation.getCreatedBy().getLastName() != null ? formation.getCreatedBy().getLastName() : "");
-                        trainer.put("avatarUrl", formation.getCreatedBy().getAvatarUrl() != null ? formation.getCreatedBy().getAvatarUrl() : "");
-                        formationMap.put("trainer", trainer);
-                    }
-                } catch (Exception e) {
-                    // Ignore trainer info if there's an error loading it
-                    System.err.println("Error loading trainer info: " + e.getMessage());
-                }
-                
-                // Compter modules et cours
-                try {
-                    long modulesCount = moduleRepository.countByFormation(formation);
-                    formationMap.put("modulesCount", modulesCount);
-                    
-                    // Compter les cours
-                    List<com.coachai.model.Module> modules = moduleRepository.findByFormation(formation);
-                    if (modules != null) {
-                        long coursesCount = modules.stream()
-                            .mapToLong(m -> courseRepository.countByModule(m))
-                            .sum();
-                        formationMap.put("coursesCount", coursesCount);
-                        
-                        // Compter les quiz
-                        long quizzesCount = 0;
-                        for (com.coachai.model.Module module : modules) {
-                            List<Course> moduleCourses = courseRepository.findByModule(module);
-                            if (moduleCourses != null) {
-                                for (Course course : moduleCourses) {
-                                    quizzesCount += quizRepository.countByCourse(course);
-                                }
-                            }
-                        }
-                        formationMap.put("quizzesCount", quizzesCount);
-                    } else {
-                        formationMap.put("coursesCount", 0);
-                        formationMap.put("quizzesCount", 0);
-                    }
-                } catch (Exception e) {
-                    System.err.println("Error counting modules/courses/quizzes: " + e.getMessage());
-                    e.printStackTrace();
-                    formationMap.put("modulesCount", 0);
-                    formationMap.put("coursesCount", 0);
-                    formationMap.put("quizzesCount", 0);
-                }
-                
-                formationsList.add(formationMap);
-            }
+            FormationCatalogService.CatalogSnapshot catalog = formationCatalogService.getCatalog();
+            List<FormationCardDto> formations = catalog.filter(categoryFilter, levelFilter);
             
-            return ResponseEntity.ok(formationsList);
+            // Une requête If-None-Match correspondant à l'ETag reçoit un 304 sans corps
+            return ResponseEntity.ok()
+                .eTag(catalog.etag(categoryFilter, levelFilter))
+                .cacheControl(CacheControl.maxAge(httpMaxAgeSeconds, TimeUnit.SECONDS).cachePublic())
+                .body(formations);
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(500).body(Map.of(
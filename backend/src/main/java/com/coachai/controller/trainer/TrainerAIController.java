@@ -7,7 +7,7 @@ import com.coachai.model.User;
 import com.coachai.repository.CourseRepository;
 import com.coachai.repository.ExerciseRepository;
 import com.coachai.repository.QuizRepository;
-import com.coachai.repository.UserRepository;
+import com.coachai.service.CurrentUserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -20,7 +20,7 @@ import java.util.*;
 @CrossOrigin(origins = "http://localhost:4200")
 public class TrainerAIController {
     @Autowired
-    private UserRepository userRepository;
+    private CurrentUserService currentUserService;
     
     @Autowired
     private CourseRepository courseRepository;
@@ -41,7 +41,7 @@ public class TrainerAIController {
             }
             
             String email = authentication.getName();
-            User trainer = userRepository.findByEmail(email)
+            User trainer = currentUserService.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("Trainer not found"));
             
             String type = (String) request.get("type");
@@ -95,7 +95,7 @@ public class TrainerAIController {
             }
             
             String email = authentication.getName();
-            User trainer = userRepository.findByEmail(email)
+            User trainer = currentUserService.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("Trainer not found"));
             
             // Get AI-generated content for this trainer
@@ -5,6 +5,7 @@ import com.coachai.model.User;
 import com.coachai.repository.AIRecommendationRepository;
 import com.coachai.repository.UserRepository;
 import com.coachai.service.AIAnalysisService;
+import com.coachai.service.CurrentUserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -26,6 +27,9 @@ public class TrainerAIRecommendationController {
 
     @Autowired
     private UserRepository userRepository;
+    
+    @Autowired
+    private CurrentUserService currentUserService;
 
     /**
      * Récupère toutes les recommandations IA générées
@@ -154,7 +158,7 @@ public class TrainerAIRecommendationController {
             }
 
             String email = authentication.getName();
-            User trainer = userRepository.findByEmail(email)
+            User trainer = currentUserService.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("Trainer not found"));
 
             Optional<AIRecommendation> recommendationOpt = aiRecommendationRepository.findById(id);
@@ -193,7 +197,7 @@ public class TrainerAIRecommendationController {
             // Vérifier que l'utilisateur est un formateur
             String email = authentication.getName();
             @SuppressWarnings("unused")
-            User trainer = userRepository.findByEmail(email)
+            User trainer = currentUserService.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("Trainer not found"));
 
             Optional<AIRecommendation> recommendationOpt = aiRecommendationRepository.findById(id);
@@ -237,7 +241,7 @@ public class TrainerAIRecommendationController {
             // Vérifier que l'utilisateur est un formateur (optionnel, mais bon pour la sécurité)
             String email = authentication.getName();
             @SuppressWarnings("unused")
-            User trainer = userRepository.findByEmail(email)
+            User trainer = currentUserService.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("Trainer not found"));
 
             Optional<AIRecommendation> recommendationOpt = aiRecommendationRepository.findById(id);
@@ -4,8 +4,8 @@ import com.coachai.model.Course;
 import com.coachai.model.User;
 import com.coachai.model.Module;
 import com.coachai.repository.CourseRepository;
-import com.coachai.repository.UserRepository;
 import com.coachai.repository.ModuleRepository;
+import com.coachai.service.CurrentUserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -22,7 +22,7 @@ public class TrainerCourseController {
     private CourseRepository courseRepository;
     
     @Autowired
-    private UserRepository userRepository;
+    private CurrentUserService currentUserService;
     
     @Autowired
     private ModuleRepository moduleRepository;
@@ -71,7 +71,7 @@ public class TrainerCourseController {
             }
             
             String email = authentication.getName();
-            User trainer = userRepository.findByEmail(email).orElse(null);
+            User trainer = currentUserService.findByEmail(email).orElse(null);
             
             if (trainer == null) {
                 return ResponseEntity.status(404).body(Map.of("error", "Trainer not found"));
@@ -5,8 +5,8 @@ import com.coachai.model.ExerciseSubmission;
 import com.coachai.model.User;
 import com.coachai.repository.ExerciseRepository;
 import com.coachai.repository.ExerciseSubmissionRepository;
-import com.coachai.repository.UserRepository;
 import com.coachai.repository.CourseRepository;
+import com.coachai.service.CurrentUserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -25,10 +25,13 @@ public class TrainerExerciseController {
     private ExerciseSubmissionRepository submissionRepository;
     
     @Autowired
-    private UserRepository userRepository;
+    private CurrentUserService currentUserService;
     
     @Autowired
     private com.coachai.repository.CourseRepository courseRepository;
+
+    @Autowired
+    private com.coachai.service.StudentFeatureService studentFeatureService;
     
     @GetMapping
     public ResponseEntity<List<Exercise>> getExercises(
@@ -54,7 +57,7 @@ public class TrainerExerciseController {
             Authentication authentication) {
         try {
             String email = authentication.getName();
-            User trainer = userRepository.findByEmail(email)
+            User trainer = currentUserService.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("Trainer not found"));
             
             Exercise exercise = new Exercise();
@@ -212,7 +215,7 @@ public class TrainerExerciseController {
             @RequestBody ExerciseSubmission review,
             Authentication authentication) {
         String email = authentication.getName();
-        User trainer = userRepository.findByEmail(email)
+        User trainer = currentUserService.findByEmail(email)
             .orElseThrow(() -> new RuntimeException("Trainer not found"));
         
         return submissionRepository.findById(id)
@@ -223,6 +226,7 @@ public class TrainerExerciseController {
                 submission.setStatus(ExerciseSubmission.SubmissionStatus.REVIEWED);
                 submission.setReviewedAt(java.time.LocalDateTime.now());
                 ExerciseSubmission saved = submissionRepository.save(submission);
+                studentFeatureService.refreshAcademicMetrics(saved.getUser());
                 return ResponseEntity.ok(saved);
             })
             .orElse(ResponseEntity.notFound().build());
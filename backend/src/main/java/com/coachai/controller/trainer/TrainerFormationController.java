@@ -7,10 +7,10 @@ import com.coachai.model.FormationEnrollment;
 import com.coachai.model.FormationProgress;
 import com.coachai.model.FormationModuleProgress;
 import com.coachai.repository.FormationRepository;
-import com.coachai.repository.UserRepository;
 import com.coachai.repository.FormationEnrollmentRepository;
 import com.coachai.repository.FormationProgressRepository;
 import com.coachai.repository.FormationModuleProgressRepository;
+import com.coachai.service.CurrentUserService;
 import com.coachai.service.FormationValidationService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -31,7 +31,7 @@ public class TrainerFormationController {
     private FormationRepository formationRepository;
     
     @Autowired
-    private UserRepository userRepository;
+    private CurrentUserService currentUserService;
     
     @Autowired
     private FormationValidationService validationService;
@@ -53,7 +53,7 @@ public class TrainerFormationController {
             }
             
             String email = authentication.getName();
-            User trainer = userRepository.findByEmail(email).orElse(null);
+            User trainer = currentUserService.findByEmail(email).orElse(null);
             
             if (trainer == null) {
                 return ResponseEntity.status(404).body(Map.of("error", "Trainer not found"));
@@ -109,7 +109,7 @@ public class TrainerFormationController {
             }
             
             String email = authentication.getName();
-            User trainer = userRepository.findByEmail(email).orElse(null);
+            User trainer = currentUserService.findByEmail(email).orElse(null);
             
             if (trainer == null) {
                 return ResponseEntity.status(404).body(Map.of("error", "Trainer not found"));
@@ -189,7 +189,7 @@ public class TrainerFormationController {
             
             // Vérifier que le formateur est assigné ou créateur
             String email = authentication.getName();
-            User trainer = userRepository.findByEmail(email).orElse(null);
+            User trainer = currentUserService.findByEmail(email).orElse(null);
             if (trainer == null) {
                 return ResponseEntity.status(403).body(Map.of("error", "Trainer not found"));
             }
@@ -278,7 +278,7 @@ public class TrainerFormationController {
             
             // Vérifier que le formateur est le propriétaire
             String email = authentication.getName();
-            User trainer = userRepository.findByEmail(email).orElse(null);
+            User trainer = currentUserService.findByEmail(email).orElse(null);
             if (trainer == null || !formation.getCreatedBy().getId().equals(trainer.getId())) {
                 return ResponseEntity.status(403).body(Map.of("error", "Vous ne pouvez supprimer que vos propres formations"));
             }
@@ -321,7 +321,7 @@ public class TrainerFormationController {
             
             // Vérifier que le formateur est le propriétaire
             String email = authentication.getName();
-            User trainer = userRepository.findByEmail(email).orElse(null);
+            User trainer = currentUserService.findByEmail(email).orElse(null);
             if (trainer == null || !formation.getCreatedBy().getId().equals(trainer.getId())) {
                 return ResponseEntity.status(403).body(Map.of("error", "Vous ne pouvez soumettre que vos propres formations"));
             }
@@ -370,7 +370,7 @@ public class TrainerFormationController {
             }
             
             String email = authentication.getName();
-            User trainer = userRepository.findByEmail(email).orElse(null);
+            User trainer = currentUserService.findByEmail(email).orElse(null);
             
             if (trainer == null) {
                 return ResponseEntity.status(404).body(Map.of("error", "Trainer not found"));
@@ -2,7 +2,9 @@ package com.coachai.controller.trainer;
 
 import com.coachai.model.*;
 import com.coachai.repository.*;
+import com.coachai.service.CurrentUserService;
 import com.coachai.service.FormationRecommendationService;
+import com.coachai.service.RecommendationJobService;
 import com.coachai.service.StudentLevelAnalysisService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -22,11 +24,17 @@ public class TrainerFormationRecommendationController {
     @Autowired
     private FormationRecommendationService formationRecommendationService;
 
+    @Autowired
+    private RecommendationJobService recommendationJobService;
+
     @Autowired
     private StudentLevelAnalysisService studentLevelAnalysisService;
 
     @Autowired
     private UserRepository userRepository;
+    
+    @Autowired
+    private CurrentUserService currentUserService;
 
     @Autowired
     private AIRecommendationRepository aiRecommendationRepository;
@@ -45,7 +53,7 @@ public class TrainerFormationRecommendationController {
             }
 
             String email = authentication.getName();
-            User trainer = userRepository.findByEmail(email).orElse(null);
+            User trainer = currentUserService.findByEmail(email).orElse(null);
 
             if (trainer == null || trainer.getRole() != User.UserRole.TRAINER) {
                 return ResponseEntity.status(403).body(Map.of("error", "Access denied"));
@@ -166,7 +174,7 @@ public class TrainerFormationRecommendationController {
             }
 
             String email = authentication.getName();
-            User trainer = userRepository.findByEmail(email).orElse(null);
+            User trainer = currentUserService.findByEmail(email).orElse(null);
 
             if (trainer == null || trainer.getRole() != User.UserRole.TRAINER) {
                 return ResponseEntity.status(403).body(Map.of("error", "Access denied"));
@@ -204,7 +212,9 @@ public class TrainerFormationRecommendationController {
     }
 
     /**
-     * Génère des recommandations pour tous les étudiants
+     * Génère des recommandations pour tous les étudiants.
+     * La génération s'exécute en arrière-plan : la réponse contient le job à suivre
+     * via GET /jobs/{jobId}, les recommandations apparaissent au fil du traitement.
      */
     @PostMapping("/generate")
     public ResponseEntity<?> generateRecommendations(Authentication authentication) {
@@ -214,19 +224,21 @@ public class TrainerFormationRecommendationController {
             }
 
             String email = authentication.getName();
-            User user = userRepository.findByEmail(email).orElse(null);
+            User user = currentUserService.findByEmail(email).orElse(null);
 
             if (user == null || user.getRole() != User.UserRole.TRAINER) {
                 return ResponseEntity.status(403).body(Map.of("error", "Access denied"));
             }
 
-            List<AIRecommendation> recommendations = 
-                formationRecommendationService.analyzeAllStudentsAndGenerateRecommendations();
+            RecommendationJob job = recommendationJobService.start(
+                RecommendationJob.JobType.FORMATION, RecommendationJob.JobMode.FULL, user.getId());
 
-            return ResponseEntity.ok(Map.of(
-                "message", "Recommendations generated successfully",
-                "count", recommendations.size(),
-                "recommendations", recommendations
+            return ResponseEntity.status(202).body(Map.of(
+                "message", "Recommendation generation started",
+                "count", job.getRecommendationsCreated(),
+                "recommendations", List.of(),
+                "jobId", job.getId(),
+                "job", job
             ));
         } catch (Exception e) {
             e.printStackTrace();
@@ -237,6 +249,138 @@ public class TrainerFormationRecommendationController {
         }
     }
 
+    /**
+     * Démarre un job de génération (type FORMATION ou TOPIC, mode FULL ou INCREMENTAL).
+     * Si un job du même type est déjà actif, il est retourné tel quel.
+     */
+    @PostMapping("/jobs")
+    public ResponseEntity<?> startJob(
+            @RequestBody(required = false) Map<String, String> request,
+            Authentication authentication) {
+        try {
+            if (authentication == null || authentication.getName() == null) {
+                return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
+            }
+
+            String email = authentication.getName();
+            User user = currentUserService.findByEmail(email).orElse(null);
+
+            if (user == null || user.getRole() != User.UserRole.TRAINER) {
+                return ResponseEntity.status(403).body(Map.of("error", "Access denied"));
+            }
+
+            RecommendationJob.JobType type;
+            RecommendationJob.JobMode mode;
+            try {
+                type = request != null && request.get("type") != null
+                    ? RecommendationJob.JobType.valueOf(request.get("type").toUpperCase())
+                    : RecommendationJob.JobType.FORMATION;
+                mode = request != null && request.get("mode") != null
+                    ? RecommendationJob.JobMode.valueOf(request.get("mode").toUpperCase())
+                    : RecommendationJob.JobMode.INCREMENTAL;
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(Map.of("error", "Invalid job type or mode"));
+            }
+
+            return ResponseEntity.status(202).body(recommendationJobService.start(type, mode, user.getId()));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body(Map.of(
+                "error", "Error starting recommendation job",
+                "message", e.getMessage() != null ? e.getMessage() : "Unknown error"
+            ));
+        }
+    }
+
+    /**
+     * Derniers jobs de génération
+     */
+    @GetMapping("/jobs")
+    public ResponseEntity<?> getJobs(Authentication authentication) {
+        try {
+            if (authentication == null || authentication.getName() == null) {
+                return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
+            }
+
+            String email = authentication.getName();
+            User user = currentUserService.findByEmail(email).orElse(null);
+
+            if (user == null || user.getRole() != User.UserRole.TRAINER) {
+                return ResponseEntity.status(403).body(Map.of("error", "Access denied"));
+            }
+
+            return ResponseEntity.ok(recommendationJobService.getRecentJobs());
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body(Map.of(
+                "error", "Error fetching recommendation jobs",
+                "message", e.getMessage() != null ? e.getMessage() : "Unknown error"
+            ));
+        }
+    }
+
+    /**
+     * État et progression d'un job de génération
+     */
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<?> getJob(@PathVariable String jobId, Authentication authentication) {
+        try {
+            if (authentication == null || authentication.getName() == null) {
+                return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
+            }
+
+            String email = authentication.getName();
+            User user = currentUserService.findByEmail(email).orElse(null);
+
+            if (user == null || user.getRole() != User.UserRole.TRAINER) {
+                return ResponseEntity.status(403).body(Map.of("error", "Access denied"));
+            }
+
+            RecommendationJob job = recommendationJobService.getJob(jobId).orElse(null);
+            if (job == null) {
+                return ResponseEntity.status(404).body(Map.of("error", "Job not found"));
+            }
+            return ResponseEntity.ok(job);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body(Map.of(
+                "error", "Error fetching recommendation job",
+                "message", e.getMessage() != null ? e.getMessage() : "Unknown error"
+            ));
+        }
+    }
+
+    /**
+     * Relance un job en échec depuis son dernier checkpoint
+     */
+    @PostMapping("/jobs/{jobId}/resume")
+    public ResponseEntity<?> resumeJob(@PathVariable String jobId, Authentication authentication) {
+        try {
+            if (authentication == null || authentication.getName() == null) {
+                return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
+            }
+
+            String email = authentication.getName();
+            User user = currentUserService.findByEmail(email).orElse(null);
+
+            if (user == null || user.getRole() != User.UserRole.TRAINER) {
+                return ResponseEntity.status(403).body(Map.of("error", "Access denied"));
+            }
+
+            return ResponseEntity.status(202).body(recommendationJobService.resume(jobId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(404).body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(409).body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body(Map.of(
+                "error", "Error resuming recommendation job",
+                "message", e.getMessage() != null ? e.getMessage() : "Unknown error"
+            ));
+        }
+    }
+
     /**
      * Extrait la confiance depuis les données "basedOn"
      */
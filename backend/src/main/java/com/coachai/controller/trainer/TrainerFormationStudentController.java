@@ -2,6 +2,7 @@ package com.coachai.controller.trainer;
 
 import com.coachai.model.*;
 import com.coachai.repository.*;
+import com.coachai.service.CurrentUserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -23,6 +24,9 @@ public class TrainerFormationStudentController {
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private CurrentUserService currentUserService;
+    
     @Autowired
     private FormationRepository formationRepository;
     
@@ -48,7 +52,7 @@ public class TrainerFormationStudentController {
             }
             
             String email = authentication.getName();
-            User trainer = userRepository.findByEmail(email).orElse(null);
+            User trainer = currentUserService.findByEmail(email).orElse(null);
             
             if (trainer == null) {
                 return ResponseEntity.status(404).body(Map.of("error", "Trainer not found"));
@@ -127,7 +131,7 @@ public class TrainerFormationStudentController {
             }
             
             String email = authentication.getName();
-            User trainer = userRepository.findByEmail(email).orElse(null);
+            User trainer = currentUserService.findByEmail(email).orElse(null);
             
             if (trainer == null) {
                 return ResponseEntity.status(404).body(Map.of("error", "Trainer not found"));
@@ -4,8 +4,8 @@ import com.coachai.model.Lesson;
 import com.coachai.model.User;
 import com.coachai.model.Course;
 import com.coachai.repository.LessonRepository;
-import com.coachai.repository.UserRepository;
 import com.coachai.repository.CourseRepository;
+import com.coachai.service.CurrentUserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -22,7 +22,7 @@ public class TrainerLessonController {
     private LessonRepository lessonRepository;
     
     @Autowired
-    private UserRepository userRepository;
+    private CurrentUserService currentUserService;
     
     @Autowired
     private CourseRepository courseRepository;
@@ -64,7 +64,7 @@ public class TrainerLessonController {
             }
             
             String email = authentication.getName();
-            User trainer = userRepository.findByEmail(email)
+            User trainer = currentUserService.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("Trainer not found"));
             
             Lesson lesson = new Lesson();
@@ -1,13 +1,17 @@
 package com.coachai.controller.trainer;
 
+import com.coachai.dto.InboxEntryDto;
 import com.coachai.model.ChatMessage;
 import com.coachai.model.Conversation;
 import com.coachai.model.User;
 import com.coachai.model.UserNotification;
 import com.coachai.repository.ChatMessageRepository;
 import com.coachai.repository.ConversationRepository;
-import com.coachai.repository.UserRepository;
 import com.coachai.repository.UserNotificationRepository;
+import com.coachai.service.AdminListService;
+import com.coachai.service.ChatHistoryService;
+import com.coachai.service.CurrentUserService;
+import com.coachai.service.TrainerInboxService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -19,77 +23,122 @@ import java.util.Map;
 
 @RestController
 @RequestMapping("/api/trainer/messages")
-@CrossOrigin(origins = "http://localhost:4200")
+@CrossOrigin(origins = "http://localhost:4200", exposedHeaders = {"X-Before-Cursor", "X-After-Cursor", "X-Next-Cursor", "X-Has-More"})
 public class TrainerMessageController {
     @Autowired
     private ChatMessageRepository chatMessageRepository;
     
+    @Autowired
+    private ChatHistoryService chatHistoryService;
+    
     @Autowired
     private ConversationRepository conversationRepository;
     
     @Autowired
-    private UserRepository userRepository;
+    private CurrentUserService currentUserService;
     
     @Autowired
     private UserNotificationRepository notificationRepository;
+
+    @Autowired
+    private com.coachai.service.StudentFeatureService studentFeatureService;
     
+    @Autowired
+    private TrainerInboxService trainerInboxService;
+    
+    /**
+     * Boîte de réception : dernier message de chaque conversation des apprenants du formateur,
+     * avec le nombre de messages non lus ; paginée par curseur (paramètre "cursor", en-tête X-Next-Cursor)
+     */
     @GetMapping
-    public ResponseEntity<?> getMessages(Authentication authentication) {
+    public ResponseEntity<?> getMessages(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            Authentication authentication) {
         try {
             if (authentication == null || authentication.getName() == null) {
                 return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
             }
             
             String email = authentication.getName();
-            User trainer = userRepository.findByEmail(email)
+            User trainer = currentUserService.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("Trainer not found"));
             
-            // Get all conversations with their messages
-            // Group messages by conversation and return the latest message from each conversation
-            List<Conversation> conversations = conversationRepository.findAll();
+            AdminListService.KeysetPage<InboxEntryDto> page;
+            try {
+                page = trainerInboxService.getInbox(trainer, cursor, limit);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(Map.of("error", "Invalid cursor"));
+            }
             
             List<Map<String, Object>> messagesList = new java.util.ArrayList<>();
-            for (Conversation conv : conversations) {
-                // Get the latest message from this conversation
-                List<ChatMessage> convMessages = chatMessageRepository.findByConversationOrderByTimestampDesc(conv);
-                if (!convMessages.isEmpty()) {
-                    ChatMessage latestMessage = convMessages.get(0);
-                    Map<String, Object> messageMap = new HashMap<>();
-                    messageMap.put("id", latestMessage.getId());
-                    messageMap.put("conversationId", conv.getId());
-                    messageMap.put("content", latestMessage.getContent());
-                    messageMap.put("sender", latestMessage.getSender().name());
-                    messageMap.put("timestamp", latestMessage.getTimestamp());
-                    messageMap.put("read", false); // TODO: Implement read status
-                    
-                    // Add conversation and user info
-                    Map<String, Object> conversationMap = new HashMap<>();
-                    conversationMap.put("id", conv.getId());
-                    if (conv.getUser() != null) {
-                        Map<String, Object> userMap = new HashMap<>();
-                        userMap.put("id", conv.getUser().getId());
-                        userMap.put("firstName", conv.getUser().getFirstName());
-                        userMap.put("lastName", conv.getUser().getLastName());
-                        userMap.put("email", conv.getUser().getEmail());
-                        userMap.put("role", conv.getUser().getRole().name());
-                        conversationMap.put("user", userMap);
-                    }
-                    messageMap.put("conversation", conversationMap);
-                    
-                    messagesList.add(messageMap);
-                }
+            for (InboxEntryDto entry : page.getItems()) {
+                Map<String, Object> messageMap = new HashMap<>();
+                messageMap.put("id", entry.getMessageId());
+                messageMap.put("conversationId", entry.getConversationId());
+                messageMap.put("content", entry.getContent());
+                messageMap.put("sender", entry.getSender().name());
+                messageMap.put("timestamp", entry.getTimestamp());
+                messageMap.put("read", entry.getUnreadCount() == 0);
+                messageMap.put("unreadCount", entry.getUnreadCount());
+                
+                // Add conversation and user info
+                Map<String, Object> conversationMap = new HashMap<>();
+                conversationMap.put("id", entry.getConversationId());
+                Map<String, Object> userMap = new HashMap<>();
+                userMap.put("id", entry.getUserId());
+                userMap.put("firstName", entry.getUserFirstName());
+                userMap.put("lastName", entry.getUserLastName());
+                userMap.put("email", entry.getUserEmail());
+                userMap.put("role", entry.getUserRole().name());
+                conversationMap.put("user", userMap);
+                messageMap.put("conversation", conversationMap);
+                
+                messagesList.add(messageMap);
             }
             
-            return ResponseEntity.ok(messagesList);
+            return ResponseEntity.ok()
+                .headers(headers -> page.headers().forEach(headers::add))
+                .body(messagesList);
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(500).body(Map.of("error", "Error fetching messages", "message", e.getMessage() != null ? e.getMessage() : "Unknown error"));
         }
     }
     
+    /**
+     * Marque comme lus les messages de l'apprenant dans une conversation
+     */
+    @PostMapping("/conversation/{conversationId}/read")
+    public ResponseEntity<?> markConversationRead(
+            @PathVariable String conversationId,
+            Authentication authentication) {
+        try {
+            if (authentication == null || authentication.getName() == null) {
+                return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
+            }
+            
+            Conversation conversation = conversationRepository.findById(conversationId)
+                .orElse(null);
+            
+            if (conversation == null) {
+                return ResponseEntity.status(404).body(Map.of("error", "Conversation not found"));
+            }
+            
+            int marked = trainerInboxService.markReadByTrainer(conversation);
+            return ResponseEntity.ok(Map.of("conversationId", conversationId, "marked", marked, "unreadCount", 0));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body(Map.of("error", "Error marking conversation as read", "message", e.getMessage() != null ? e.getMessage() : "Unknown error"));
+        }
+    }
+    
     @GetMapping("/conversation/{conversationId}")
     public ResponseEntity<?> getConversationMessages(
             @PathVariable String conversationId,
+            @RequestParam(required = false) String before,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit,
             Authentication authentication) {
         try {
             if (authentication == null || authentication.getName() == null) {
@@ -103,7 +152,13 @@ public class TrainerMessageController {
                 return ResponseEntity.status(404).body(Map.of("error", "Conversation not found"));
             }
             
-            List<ChatMessage> messages = chatMessageRepository.findByConversationOrderByTimestampAsc(conversation);
+            ChatHistoryService.MessagePage page;
+            try {
+                page = chatHistoryService.getPage(conversation, before, after, limit);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(Map.of("error", "Invalid cursor"));
+            }
+            List<ChatMessage> messages = page.getMessages();
             
             List<Map<String, Object>> messagesList = new java.util.ArrayList<>();
             for (ChatMessage msg : messages) {
@@ -115,7 +170,9 @@ public class TrainerMessageController {
                 messagesList.add(messageMap);
             }
             
-            return ResponseEntity.ok(messagesList);
+            return ResponseEntity.ok()
+                .headers(headers -> page.headers().forEach(headers::add))
+                .body(messagesList);
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(500).body(Map.of("error", "Error fetching conversation messages", "message", e.getMessage() != null ? e.getMessage() : "Unknown error"));
@@ -132,7 +189,7 @@ public class TrainerMessageController {
             }
             
             String email = authentication.getName();
-            User trainer = userRepository.findByEmail(email)
+            User trainer = currentUserService.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("Trainer not found"));
             
             String conversationId = (String) messageData.get("conversationId");
@@ -155,6 +212,8 @@ public class TrainerMessageController {
             message.setSender(ChatMessage.MessageSender.AI); // Using AI for trainer messages
             
             ChatMessage saved = chatMessageRepository.save(message);
+            studentFeatureService.recordChatMessage(saved);
+            trainerInboxService.publishInboxMessage(saved);
             
             // Update conversation last message
             conversation.setLastMessage(content);
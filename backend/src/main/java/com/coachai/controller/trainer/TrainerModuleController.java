@@ -6,10 +6,10 @@ import com.coachai.model.Formation;
 import com.coachai.model.Quiz;
 import com.coachai.model.Course;
 import com.coachai.repository.ModuleRepository;
-import com.coachai.repository.UserRepository;
 import com.coachai.repository.FormationRepository;
 import com.coachai.repository.QuizRepository;
 import com.coachai.repository.CourseRepository;
+import com.coachai.service.CurrentUserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -25,7 +25,7 @@ public class TrainerModuleController {
     private ModuleRepository moduleRepository;
     
     @Autowired
-    private UserRepository userRepository;
+    private CurrentUserService currentUserService;
     
     @Autowired
     private FormationRepository formationRepository;
@@ -62,7 +62,7 @@ public class TrainerModuleController {
             Authentication authentication) {
         try {
             String email = authentication.getName();
-            User trainer = userRepository.findByEmail(email)
+            User trainer = currentUserService.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("Trainer not found"));
             
             Module module = new Module();
@@ -252,7 +252,7 @@ public class TrainerModuleController {
             }
             
             String email = authentication.getName();
-            User trainer = userRepository.findByEmail(email)
+            User trainer = currentUserService.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("Trainer not found"));
             
             Module module = moduleRepository.findById(id).orElse(null);
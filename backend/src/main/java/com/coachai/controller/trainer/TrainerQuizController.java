@@ -4,8 +4,8 @@ import com.coachai.model.Quiz;
 import com.coachai.model.User;
 import com.coachai.model.Course;
 import com.coachai.repository.QuizRepository;
-import com.coachai.repository.UserRepository;
 import com.coachai.repository.CourseRepository;
+import com.coachai.service.CurrentUserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -21,7 +21,7 @@ public class TrainerQuizController {
     private QuizRepository quizRepository;
     
     @Autowired
-    private UserRepository userRepository;
+    private CurrentUserService currentUserService;
     
     @Autowired
     private CourseRepository courseRepository;
@@ -35,7 +35,7 @@ public class TrainerQuizController {
         }
         
         String email = authentication.getName();
-        User trainer = userRepository.findByEmail(email)
+        User trainer = currentUserService.findByEmail(email)
             .orElseThrow(() -> new RuntimeException("Trainer not found"));
         
         List<Quiz> quizzes;
@@ -65,7 +65,7 @@ public class TrainerQuizController {
             Authentication authentication) {
         try {
             String email = authentication.getName();
-            User trainer = userRepository.findByEmail(email)
+            User trainer = currentUserService.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("Trainer not found"));
             
             Quiz quiz = new Quiz();
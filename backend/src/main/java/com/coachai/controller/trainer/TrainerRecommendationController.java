@@ -5,6 +5,7 @@ import com.coachai.model.User;
 import com.coachai.repository.CourseRecommendationRepository;
 import com.coachai.repository.UserRepository;
 import com.coachai.service.CourseRecommendationService;
+import com.coachai.service.CurrentUserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -26,6 +27,9 @@ public class TrainerRecommendationController {
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private CurrentUserService currentUserService;
+    
     @Autowired
     private CourseRecommendationService recommendationService;
     
@@ -143,7 +147,7 @@ public class TrainerRecommendationController {
             }
             
             String email = authentication.getName();
-            User trainer = userRepository.findByEmail(email)
+            User trainer = currentUserService.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("Trainer not found"));
             
             Optional<CourseRecommendation> recommendationOpt = recommendationRepository.findById(id);
@@ -185,7 +189,7 @@ public class TrainerRecommendationController {
             }
             
             String email = authentication.getName();
-            User trainer = userRepository.findByEmail(email)
+            User trainer = currentUserService.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("Trainer not found"));
             
             Optional<CourseRecommendation> recommendationOpt = recommendationRepository.findById(id);
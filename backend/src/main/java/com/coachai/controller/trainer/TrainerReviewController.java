@@ -5,7 +5,7 @@ import com.coachai.model.QuizAttempt;
 import com.coachai.model.User;
 import com.coachai.repository.ExerciseSubmissionRepository;
 import com.coachai.repository.QuizAttemptRepository;
-import com.coachai.repository.UserRepository;
+import com.coachai.service.CurrentUserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -27,7 +27,10 @@ public class TrainerReviewController {
     private QuizAttemptRepository quizAttemptRepository;
     
     @Autowired
-    private UserRepository userRepository;
+    private CurrentUserService currentUserService;
+
+    @Autowired
+    private com.coachai.service.StudentFeatureService studentFeatureService;
     
     @GetMapping("/exercises/pending")
     public ResponseEntity<List<ExerciseSubmission>> getPendingExerciseReviews(Authentication authentication) {
@@ -42,7 +45,7 @@ public class TrainerReviewController {
             @RequestBody Map<String, Object> reviewData,
             Authentication authentication) {
         String email = authentication.getName();
-        User trainer = userRepository.findByEmail(email)
+        User trainer = currentUserService.findByEmail(email)
             .orElseThrow(() -> new RuntimeException("Trainer not found"));
         
         return exerciseSubmissionRepository.findById(id)
@@ -58,6 +61,7 @@ public class TrainerReviewController {
                 submission.setReviewedAt(LocalDateTime.now());
                 
                 ExerciseSubmission saved = exerciseSubmissionRepository.save(submission);
+                studentFeatureService.refreshAcademicMetrics(saved.getUser());
                 return ResponseEntity.ok(saved);
             })
             .orElse(ResponseEntity.notFound().build());
@@ -76,7 +80,7 @@ public class TrainerReviewController {
             @RequestBody Map<String, String> reviewData,
             Authentication authentication) {
         String email = authentication.getName();
-        User trainer = userRepository.findByEmail(email)
+        User trainer = currentUserService.findByEmail(email)
             .orElseThrow(() -> new RuntimeException("Trainer not found"));
         
         return quizAttemptRepository.findById(id)
@@ -86,6 +90,7 @@ public class TrainerReviewController {
                     // For now, we'll just return the attempt
                 }
                 QuizAttempt saved = quizAttemptRepository.save(attempt);
+                studentFeatureService.refreshAcademicMetrics(saved.getUser());
                 return ResponseEntity.ok(saved);
             })
             .orElse(ResponseEntity.notFound().build());
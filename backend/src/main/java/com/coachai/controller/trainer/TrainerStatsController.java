@@ -1,20 +1,19 @@
 package com.coachai.controller.trainer;
 
+import com.coachai.dto.FormationStudentStatsDto;
+import com.coachai.dto.StatusCountDto;
+import com.coachai.dto.StudentActivityStatsDto;
 import com.coachai.model.ContentStatus;
 import com.coachai.model.Course;
-import com.coachai.model.CourseProgress;
-import com.coachai.model.Enrollment;
 import com.coachai.model.Formation;
-import com.coachai.model.Module;
 import com.coachai.model.User;
-import com.coachai.repository.CourseProgressRepository;
 import com.coachai.repository.CourseRepository;
 import com.coachai.repository.EnrollmentRepository;
 import com.coachai.repository.ExerciseRepository;
 import com.coachai.repository.FormationRepository;
 import com.coachai.repository.ModuleRepository;
 import com.coachai.repository.QuizRepository;
-import com.coachai.repository.UserRepository;
+import com.coachai.service.CurrentUserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -28,8 +27,11 @@ import java.util.stream.Collectors;
 @RequestMapping("/api/trainer/stats")
 @CrossOrigin(origins = "http://localhost:4200")
 public class TrainerStatsController {
+    private static final Set<ContentStatus> PENDING_STATUSES = EnumSet.of(ContentStatus.PENDING);
+    private static final Set<ContentStatus> APPROVED_STATUSES = EnumSet.of(ContentStatus.APPROVED, ContentStatus.PUBLISHED);
+    
     @Autowired
-    private UserRepository userRepository;
+    private CurrentUserService currentUserService;
     
     @Autowired
     private FormationRepository formationRepository;
@@ -43,9 +45,6 @@ public class TrainerStatsController {
     @Autowired
     private EnrollmentRepository enrollmentRepository;
     
-    @Autowired
-    private CourseProgressRepository courseProgressRepository;
-    
     @Autowired
     private ExerciseRepository exerciseRepository;
     
@@ -56,95 +55,42 @@ public class TrainerStatsController {
     public ResponseEntity<Map<String, Object>> getStats(Authentication authentication) {
         try {
             String email = authentication.getName();
-            User trainer = userRepository.findByEmail(email)
+            User trainer = currentUserService.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("Trainer not found"));
             
-            List<Formation> formations = formationRepository.findByCreatedBy(trainer);
-            List<Module> modules = new ArrayList<>();
-            List<Course> courses = new ArrayList<>();
-            
-            // Récupérer tous les modules et cours du formateur
-            for (Formation formation : formations) {
-                modules.addAll(moduleRepository.findByFormation(formation));
-            }
+            // Comptages par statut : une requête GROUP BY par type de contenu
+            List<StatusCountDto> formationCounts = formationRepository.countByStatusForTrainer(trainer);
+            List<StatusCountDto> moduleCounts = moduleRepository.countByStatusForTrainer(trainer);
+            List<StatusCountDto> courseCounts = courseRepository.countByStatusForTrainer(trainer);
             
-            for (Module module : modules) {
-                courses.addAll(courseRepository.findAll().stream()
-                    .filter(c -> c.getModule() != null && c.getModule().getId().equals(module.getId()))
-                    .collect(Collectors.toList()));
-            }
+            long totalExercises = exerciseRepository.countByTrainer(trainer);
+            long totalQuizzes = quizRepository.countByTrainer(trainer);
             
-            // Calculer les statistiques réelles
-            Set<String> uniqueStudents = new HashSet<>();
-            Set<String> activeStudents = new HashSet<>();
-            double totalProgress = 0.0;
-            int progressCount = 0;
-            
-            for (Course course : courses) {
-                List<Enrollment> enrollments = enrollmentRepository.findByCourse(course);
-                for (Enrollment enrollment : enrollments) {
-                    uniqueStudents.add(enrollment.getUser().getId());
-                    
-                    // Vérifier si l'étudiant est actif (activité dans les 30 derniers jours)
-                    CourseProgress progress = courseProgressRepository.findByEnrollment(enrollment).orElse(null);
-                    if (progress != null) {
-                        if (progress.getLastActivityDate() != null && 
-                            progress.getLastActivityDate().isAfter(LocalDateTime.now().minusDays(30))) {
-                            activeStudents.add(enrollment.getUser().getId());
-                        }
-                        totalProgress += progress.getOverallProgress();
-                        progressCount++;
-                    }
-                }
-            }
+            // Étudiants distincts, actifs (30 derniers jours) et progression moyenne
+            StudentActivityStatsDto students = enrollmentRepository.studentActivityForTrainer(
+                trainer, LocalDateTime.now().minusDays(30));
             
-            // Compter le contenu en attente et approuvé
-            long pendingFormations = formations.stream()
-                .filter(f -> f.getStatus() == ContentStatus.PENDING)
-                .count();
-            long pendingModules = modules.stream()
-                .filter(m -> m.getStatus() == ContentStatus.PENDING)
-                .count();
-            long pendingCourses = courses.stream()
-                .filter(c -> c.getStatus() == ContentStatus.PENDING)
-                .count();
-            
-            long approvedFormations = formations.stream()
-                .filter(f -> f.getStatus() == ContentStatus.APPROVED || f.getStatus() == ContentStatus.PUBLISHED)
-                .count();
-            long approvedModules = modules.stream()
-                .filter(m -> m.getStatus() == ContentStatus.APPROVED || m.getStatus() == ContentStatus.PUBLISHED)
-                .count();
-            long approvedCourses = courses.stream()
-                .filter(c -> c.getStatus() == ContentStatus.APPROVED || c.getStatus() == ContentStatus.PUBLISHED)
-                .count();
-            
-            // Compter les exercices et quiz
-            long totalExercises = courses.stream()
-                .mapToLong(c -> exerciseRepository.findAll().stream()
-                    .filter(e -> e.getCourse() != null && e.getCourse().getId().equals(c.getId()))
-                    .count())
-                .sum();
-            
-            long totalQuizzes = courses.stream()
-                .mapToLong(c -> quizRepository.findAll().stream()
-                    .filter(q -> q.getCourse() != null && q.getCourse().getId().equals(c.getId()))
-                    .count())
-                .sum();
+            long pendingContent = countWithStatus(formationCounts, PENDING_STATUSES)
+                + countWithStatus(moduleCounts, PENDING_STATUSES)
+                + countWithStatus(courseCounts, PENDING_STATUSES);
+            long approvedContent = countWithStatus(formationCounts, APPROVED_STATUSES)
+                + countWithStatus(moduleCounts, APPROVED_STATUSES)
+                + countWithStatus(courseCounts, APPROVED_STATUSES);
             
             Map<String, Object> stats = new HashMap<>();
             stats.put("trainerId", trainer.getId());
-            stats.put("totalFormations", formations.size());
-            stats.put("totalModules", modules.size());
-            stats.put("totalCourses", courses.size());
+            stats.put("totalFormations", total(formationCounts));
+            stats.put("totalModules", total(moduleCounts));
+            stats.put("totalCourses", total(courseCounts));
             stats.put("totalExercises", totalExercises);
             stats.put("totalQuizzes", totalQuizzes);
-            stats.put("totalStudents", uniqueStudents.size());
-            stats.put("activeStudents", activeStudents.size());
-            stats.put("averageStudentProgress", progressCount > 0 ? totalProgress / progressCount : 0.0);
+            stats.put("totalStudents", students != null ? nullToZero(students.getTotalStudents()) : 0L);
+            stats.put("activeStudents", students != null ? nullToZero(students.getActiveStudents()) : 0L);
+            stats.put("averageStudentProgress", students != null && students.getAverageProgress() != null ?
+                students.getAverageProgress() : 0.0);
             stats.put("averageStudentSatisfaction", 4.2); // À calculer depuis les reviews
-            stats.put("contentPendingValidation", pendingFormations + pendingModules + pendingCourses);
-            stats.put("contentApproved", approvedFormations + approvedModules + approvedCourses);
+            stats.put("contentPendingValidation", pendingContent);
+            stats.put("contentApproved", approvedContent);
             stats.put("responseTime", 2.5); // Temps de réponse moyen en heures
             
             return ResponseEntity.ok(stats);
@@ -158,67 +104,32 @@ public class TrainerStatsController {
     public ResponseEntity<List<Map<String, Object>>> getFormationsStatistics(Authentication authentication) {
         try {
             String email = authentication.getName();
-            User trainer = userRepository.findByEmail(email)
+            User trainer = currentUserService.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("Trainer not found"));
             
             List<Formation> formations = formationRepository.findByCreatedBy(trainer);
-            List<Map<String, Object>> formationsStats = new ArrayList<>();
             
+            // Une seule requête agrégée pour toutes les formations du formateur
+            Map<String, FormationStudentStatsDto> statsByFormation = new HashMap<>();
+            for (FormationStudentStatsDto stat : enrollmentRepository.studentActivityByFormationForTrainer(
+                    trainer, LocalDateTime.now().minusDays(30))) {
+                statsByFormation.put(stat.getFormationId(), stat);
+            }
+            
+            List<Map<String, Object>> formationsStats = new ArrayList<>();
             for (Formation formation : formations) {
-                List<Module> modules = moduleRepository.findByFormation(formation);
-                List<Course> courses = new ArrayList<>();
-                
-                for (Module module : modules) {
-                    courses.addAll(courseRepository.findAll().stream()
-                        .filter(c -> c.getModule() != null && c.getModule().getId().equals(module.getId()))
-                        .collect(Collectors.toList()));
-                }
-                
-                // Calculer les statistiques pour cette formation
-                Set<String> uniqueStudents = new HashSet<>();
-                Set<String> activeStudents = new HashSet<>();
-                double totalProgress = 0.0;
-                int progressCount = 0;
-                double totalScore = 0.0;
-                int scoreCount = 0;
-                int completedCount = 0;
-                
-                for (Course course : courses) {
-                    List<Enrollment> enrollments = enrollmentRepository.findByCourse(course);
-                    for (Enrollment enrollment : enrollments) {
-                        uniqueStudents.add(enrollment.getUser().getId());
-                        
-                        CourseProgress progress = courseProgressRepository.findByEnrollment(enrollment).orElse(null);
-                        if (progress != null) {
-                            if (progress.getLastActivityDate() != null && 
-                                progress.getLastActivityDate().isAfter(LocalDateTime.now().minusDays(30))) {
-                                activeStudents.add(enrollment.getUser().getId());
-                            }
-                            totalProgress += progress.getOverallProgress();
-                            progressCount++;
-                            
-                            if (progress.getOverallProgress() >= 100) {
-                                completedCount++;
-                            }
-                            
-                            totalScore += progress.getAverageQuizScore();
-                            if (progress.getAverageQuizScore() > 0) {
-                                scoreCount++;
-                            }
-                        }
-                    }
-                }
-                
-                double averageProgress = progressCount > 0 ? totalProgress / progressCount : 0.0;
-                double averageScore = scoreCount > 0 ? totalScore / scoreCount : 0.0;
-                double completionRate = uniqueStudents.size() > 0 ? 
-                    (double) completedCount / uniqueStudents.size() * 100 : 0.0;
+                FormationStudentStatsDto stat = statsByFormation.get(formation.getId());
+                long totalStudents = stat != null ? nullToZero(stat.getTotalStudents()) : 0L;
+                long completedCount = stat != null ? nullToZero(stat.getCompletedCount()) : 0L;
+                double averageProgress = stat != null && stat.getAverageProgress() != null ? stat.getAverageProgress() : 0.0;
+                double averageScore = stat != null && stat.getAverageScore() != null ? stat.getAverageScore() : 0.0;
+                double completionRate = totalStudents > 0 ? (double) completedCount / totalStudents * 100 : 0.0;
                 
                 Map<String, Object> formationStat = new HashMap<>();
                 formationStat.put("formationId", formation.getId());
                 formationStat.put("formationName", formation.getTitle());
-                formationStat.put("totalStudents", uniqueStudents.size());
-                formationStat.put("activeStudents", activeStudents.size());
+                formationStat.put("totalStudents", totalStudents);
+                formationStat.put("activeStudents", stat != null ? nullToZero(stat.getActiveStudents()) : 0L);
                 formationStat.put("averageProgress", averageProgress);
                 formationStat.put("averageCompletionTime", formation.getDuration());
                 formationStat.put("averageScore", averageScore);
@@ -239,28 +150,11 @@ public class TrainerStatsController {
     public ResponseEntity<List<Map<String, Object>>> getTrainerCourses(Authentication authentication) {
         try {
             String email = authentication.getName();
-            User trainer = userRepository.findByEmail(email)
+            User trainer = currentUserService.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("Trainer not found"));
             
-            List<Formation> formations = formationRepository.findByCreatedBy(trainer);
-            List<Module> modules = new ArrayList<>();
-            List<Course> courses = new ArrayList<>();
-            
-            for (Formation formation : formations) {
-                modules.addAll(moduleRepository.findByFormation(formation));
-            }
-            
-            for (Module module : modules) {
-                courses.addAll(courseRepository.findAll().stream()
-                    .filter(c -> c.getModule() != null && c.getModule().getId().equals(module.getId()))
-                    .collect(Collectors.toList()));
-            }
-            
-            // Trier par date de création (plus récents en premier)
-            courses.sort((c1, c2) -> {
-                if (c1.getCreatedAt() == null || c2.getCreatedAt() == null) return 0;
-                return c2.getCreatedAt().compareTo(c1.getCreatedAt());
-            });
+            // Cours des formations du formateur, plus récents en premier (une requête)
+            List<Course> courses = courseRepository.findByTrainerOrderByCreatedAtDesc(trainer);
             
             List<Map<String, Object>> coursesData = courses.stream().map(course -> {
                 Map<String, Object> courseData = new HashMap<>();
@@ -289,34 +183,16 @@ public class TrainerStatsController {
     public ResponseEntity<Map<String, Object>> getAIStatistics(Authentication authentication) {
         try {
             String email = authentication.getName();
-            User trainer = userRepository.findByEmail(email)
+            User trainer = currentUserService.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("Trainer not found"));
             
             // Compter les contenus générés par l'IA pour ce formateur
-            List<Course> aiCourses = courseRepository.findAll().stream()
-                .filter(c -> c.getCreatedBy() != null && 
-                            c.getCreatedBy().getId().equals(trainer.getId()) && 
-                            c.isAIGenerated())
-                .collect(Collectors.toList());
-            
-            long quizzesGenerated = aiCourses.stream()
-                .mapToLong(c -> quizRepository.findAll().stream()
-                    .filter(q -> q.getCourse() != null && 
-                               q.getCourse().getId().equals(c.getId()) && 
-                               q.isAIGenerated())
-                    .count())
-                .sum();
-            
-            long exercisesGenerated = aiCourses.stream()
-                .mapToLong(c -> exerciseRepository.findAll().stream()
-                    .filter(e -> e.getCourse() != null && 
-                               e.getCourse().getId().equals(c.getId()) && 
-                               e.isAIGenerated())
-                    .count())
-                .sum();
+            long coursesGenerated = courseRepository.countAiGeneratedByCreator(trainer);
+            long quizzesGenerated = quizRepository.countAiGeneratedByCourseCreator(trainer);
+            long exercisesGenerated = exerciseRepository.countAiGeneratedByCourseCreator(trainer);
             
             Map<String, Object> aiStats = new HashMap<>();
-            aiStats.put("totalGenerated", aiCourses.size());
+            aiStats.put("totalGenerated", coursesGenerated);
             aiStats.put("quizzesGenerated", quizzesGenerated);
             aiStats.put("exercisesGenerated", exercisesGenerated);
             aiStats.put("summariesGenerated", 0); // À implémenter si nécessaire
@@ -327,5 +203,19 @@ public class TrainerStatsController {
             return ResponseEntity.status(500).body(Map.of("error", "Error calculating AI stats"));
         }
     }
+    
+    private static long countWithStatus(List<StatusCountDto> counts, Set<ContentStatus> statuses) {
+        return counts.stream()
+            .filter(c -> statuses.contains(c.getStatus()))
+            .mapToLong(c -> nullToZero(c.getCount()))
+            .sum();
+    }
+    
+    private static long total(List<StatusCountDto> counts) {
+        return counts.stream().mapToLong(c -> nullToZero(c.getCount())).sum();
+    }
+    
+    private static long nullToZero(Long value) {
+        return value != null ? value : 0L;
+    }
 }
-
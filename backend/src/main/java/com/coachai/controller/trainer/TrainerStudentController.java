@@ -7,6 +7,8 @@ import com.coachai.repository.EnrollmentRepository;
 import com.coachai.repository.FormationRepository;
 import com.coachai.repository.UserRepository;
 import com.coachai.service.AIAnalysisService;
+import com.coachai.service.CurrentUserService;
+import com.coachai.service.StudentLevelMLService;
 import com.coachai.service.StudentLevelService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -26,6 +28,9 @@ public class TrainerStudentController {
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private CurrentUserService currentUserService;
+    
     @Autowired
     private FormationRepository formationRepository;
     
@@ -44,7 +49,7 @@ public class TrainerStudentController {
             Authentication authentication) {
         try {
             String email = authentication.getName();
-            User trainer = userRepository.findByEmail(email)
+            User trainer = currentUserService.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("Trainer not found"));
             
             if (formationId != null) {
@@ -209,16 +214,31 @@ public class TrainerStudentController {
                     .collect(Collectors.toList());
             }
             
+            // Niveaux prédits par lots (quelques appels au modèle ML au lieu d'un par étudiant)
+            Map<String, StudentLevelMLService.LevelPrediction> predictions = studentLevelService.predictStudentLevels(students);
+            
             List<Map<String, Object>> studentsWithLevels = students.stream().map(student -> {
                 StudentLevelService.ConversationStats stats = studentLevelService.getConversationStats(student);
+                StudentLevelMLService.LevelPrediction prediction = predictions.get(student.getId());
                 Map<String, Object> studentData = new HashMap<>();
                 studentData.put("id", student.getId());
                 studentData.put("firstName", student.getFirstName());
                 studentData.put("lastName", student.getLastName());
                 studentData.put("email", student.getEmail());
                 studentData.put("avatarUrl", student.getAvatarUrl());
-                studentData.put("level", stats.getLevel().getLabel());
-                studentData.put("levelScore", stats.getLevelScore());
+                if (prediction != null) {
+                    // Niveau du modèle : son score (level_score du lot) et sa confiance, pas le score des règles
+                    // qui pourrait le contredire
+                    studentData.put("level", prediction.level().getLabel());
+                    studentData.put("levelScore", prediction.levelScore() != null ? prediction.levelScore() : 0);
+                    studentData.put("levelConfidence", prediction.confidence());
+                    studentData.put("levelSource", "ML");
+                } else {
+                    // Niveau basé sur des règles, déjà calculé par getConversationStats
+                    studentData.put("level", stats.getLevel().getLabel());
+                    studentData.put("levelScore", stats.getLevelScore());
+                    studentData.put("levelSource", "RULES");
+                }
                 studentData.put("totalConversations", stats.getTotalConversations());
                 studentData.put("totalMessages", stats.getTotalMessages());
                 studentData.put("firstConversationDate", stats.getFirstConversationDate());
@@ -241,7 +261,7 @@ public class TrainerStudentController {
             }
             
             String email = authentication.getName();
-            User trainer = userRepository.findByEmail(email)
+            User trainer = currentUserService.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("Trainer not found"));
             
             // Get all students enrolled in trainer's formations (only Thomas Dubois and Zaineb BAANNI)
@@ -7,20 +7,29 @@ import com.coachai.model.User;
 import com.coachai.repository.ChatAttachmentRepository;
 import com.coachai.repository.ChatMessageRepository;
 import com.coachai.repository.ConversationRepository;
-import com.coachai.repository.UserRepository;
+import com.coachai.service.ChatHistoryService;
+import com.coachai.service.CurrentUserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/user/chat")
-@CrossOrigin(origins = "http://localhost:4200")
+@CrossOrigin(origins = "http://localhost:4200", exposedHeaders = {"X-Before-Cursor", "X-After-Cursor", "X-Has-More"})
 public class ChatController {
+    private static final long STREAM_TIMEOUT_MS = 120_000L;
+    
     @Autowired
     private ConversationRepository conversationRepository;
     
@@ -31,7 +40,7 @@ public class ChatController {
     private com.coachai.service.AiService aiService;
 
     @Autowired
-    private UserRepository userRepository;
+    private CurrentUserService currentUserService;
     
     @Autowired
     private com.coachai.service.ChatAnalysisService chatAnalysisService;
@@ -42,6 +51,16 @@ public class ChatController {
     @Autowired
     private ChatAttachmentRepository chatAttachmentRepository;
     
+    @Autowired
+    private ChatHistoryService chatHistoryService;
+    
+    @Autowired
+    private com.coachai.service.StudentFeatureService studentFeatureService;
+
+    @Autowired
+    @Qualifier("mlTaskExecutor")
+    private AsyncTaskExecutor mlTaskExecutor;
+    
     @GetMapping("/conversations")
     public ResponseEntity<?> getConversations(Authentication authentication) {
         try {
@@ -50,7 +69,7 @@ public class ChatController {
             }
             
             String email = authentication.getName();
-            User user = userRepository.findByEmail(email)
+            User user = currentUserService.findByEmail(email)
                 .orElse(null);
             
             if (user == null) {
@@ -70,7 +89,12 @@ public class ChatController {
     }
     
     @GetMapping("/conversations/{conversationId}/messages")
-    public ResponseEntity<?> getMessages(@PathVariable String conversationId, Authentication authentication) {
+    public ResponseEntity<?> getMessages(
+            @PathVariable String conversationId,
+            @RequestParam(required = false) String before,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit,
+            Authentication authentication) {
         try {
             if (authentication == null || authentication.getName() == null) {
                 return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
@@ -85,10 +109,15 @@ public class ChatController {
                 return ResponseEntity.status(404).body(Map.of("error", "Conversation not found"));
             }
             
-            List<ChatMessage> messages = chatMessageRepository.findByConversationOrderByTimestampAsc(conversation.get());
-            if (messages == null) {
-                messages = List.of();
+            ChatHistoryService.MessagePage page;
+            try {
+                page = chatHistoryService.getPage(conversation.get(), before, after, limit);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(Map.of("error", "Invalid cursor"));
             }
+            List<ChatMessage> messages = page.getMessages();
+            // Pièces jointes de toute la page en une seule requête
+            Map<String, List<ChatAttachment>> attachmentsByMessage = chatHistoryService.attachmentsByMessage(messages);
             
             // Map messages with attachments
             List<Map<String, Object>> messagesWithAttachments = messages.stream().map(msg -> {
@@ -100,8 +129,7 @@ public class ChatController {
                 msgMap.put("timestamp", msg.getTimestamp());
                 msgMap.put("type", msg.getType().toString());
                 
-                // Load attachments for this message
-                List<ChatAttachment> attachments = chatAttachmentRepository.findByMessage(msg);
+                List<ChatAttachment> attachments = attachmentsByMessage.getOrDefault(msg.getId(), List.of());
                 List<Map<String, Object>> attList = attachments.stream().map(att -> {
                     Map<String, Object> attMap = new java.util.HashMap<>();
                     attMap.put("id", att.getId());
@@ -115,7 +143,9 @@ public class ChatController {
                 return msgMap;
             }).collect(java.util.stream.Collectors.toList());
             
-            return ResponseEntity.ok(messagesWithAttachments);
+            return ResponseEntity.ok()
+                .headers(headers -> page.headers().forEach(headers::add))
+                .body(messagesWithAttachments);
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(500).body(Map.of("error", "Error fetching messages", "message", e.getMessage() != null ? e.getMessage() : "Unknown error"));
@@ -136,7 +166,7 @@ public class ChatController {
             }
             
             String email = authentication.getName();
-            User user = userRepository.findByEmail(email)
+            User user = currentUserService.findByEmail(email)
                 .orElse(null);
             
             if (user == null) {
@@ -154,6 +184,7 @@ public class ChatController {
             }
             
             Conversation saved = conversationRepository.save(conversation);
+            studentFeatureService.recordConversation(saved);
             return ResponseEntity.ok(saved);
         } catch (Exception e) {
             e.printStackTrace();
@@ -180,7 +211,7 @@ public class ChatController {
             }
             
             String email = authentication.getName();
-            User user = userRepository.findByEmail(email)
+            User user = currentUserService.findByEmail(email)
                 .orElse(null);
             
             if (user == null) {
@@ -193,108 +224,20 @@ public class ChatController {
             }
             
             // 1. Save User Message
-            ChatMessage message = new ChatMessage();
-            message.setConversation(conversation.get());
-            message.setSender(ChatMessage.MessageSender.USER);
-            message.setContent((String) messageData.get("content"));
-            
-            ChatMessage saved = chatMessageRepository.save(message);
-            
-            // Handle attachments (audio, documents, etc.)
-            if (messageData.containsKey("attachments") && messageData.get("attachments") instanceof List) {
-                @SuppressWarnings("unchecked")
-                List<Map<String, Object>> attachments = (List<Map<String, Object>>) messageData.get("attachments");
-                for (Map<String, Object> attData : attachments) {
-                    ChatAttachment attachment = new ChatAttachment();
-                    attachment.setMessage(saved);
-                    attachment.setTitle((String) attData.getOrDefault("title", "Attachment"));
-                    
-                    // Handle audio: store base64 data in url field (can be improved with file storage later)
-                    String url = (String) attData.getOrDefault("url", "");
-                    if (url.startsWith("data:audio")) {
-                        // Store base64 audio data - in production, save to file system and store file path
-                        attachment.setUrl(url);
-                    } else {
-                        attachment.setUrl(url);
-                    }
-                    
-                    String attType = (String) attData.getOrDefault("type", "LINK");
-                    try {
-                        ChatAttachment.AttachmentType type = ChatAttachment.AttachmentType.valueOf(attType.toUpperCase());
-                        attachment.setType(type);
-                    } catch (IllegalArgumentException e) {
-                        // Default to AUDIO if type is "audio", otherwise LINK
-                        if ("audio".equalsIgnoreCase(attType)) {
-                            attachment.setType(ChatAttachment.AttachmentType.AUDIO);
-                        } else {
-                            attachment.setType(ChatAttachment.AttachmentType.LINK);
-                        }
-                    }
-                    
-                    chatAttachmentRepository.save(attachment);
-                }
-            }
-            
-            // Update conversation with user message
             Conversation conv = conversation.get();
-            conv.setLastMessage(message.getContent());
-            conv.setMessagesCount(conv.getMessagesCount() + 1);
-            conversationRepository.save(conv);
+            ChatMessage saved = saveUserMessage(conv, messageData);
             
             // 2. Get AI Response (Synchronous for now)
             try {
-                String aiResponseText = aiService.getAiResponse(message.getContent());
-                
-                ChatMessage aiMessage = new ChatMessage();
-                aiMessage.setConversation(conv);
-                aiMessage.setSender(ChatMessage.MessageSender.AI);
-                aiMessage.setContent(aiResponseText);
-                
-                chatMessageRepository.save(aiMessage);
-                
-                // Update conversation with AI message
-                conv.setLastMessage(aiResponseText);
-                conv.setMessagesCount(conv.getMessagesCount() + 1);
-                conversationRepository.save(conv);
-                
+                String aiResponseText = aiService.getAiResponse(saved.getContent());
+                saveAiMessage(conv, aiResponseText);
             } catch (Exception e)  {
                 e.printStackTrace();
                 // Don't fail the whole request if AI fails, just log it
             }
             
             // 3. Analyser les conversations et générer des recommandations IA après 10 messages USER
-            // Compter uniquement les messages USER dans la conversation
-            List<ChatMessage> allMessages = chatMessageRepository.findByConversationOrderByTimestampAsc(conv);
-            long userMessagesCount = allMessages != null ? 
-                allMessages.stream().filter(m -> m.getSender() == ChatMessage.MessageSender.USER).count() : 0;
-            
-            System.out.println("=== ANALYSE IA DES CONVERSATIONS ===");
-            System.out.println("Conversation ID: " + conv.getId());
-            System.out.println("Total messages: " + conv.getMessagesCount());
-            System.out.println("User messages count: " + userMessagesCount);
-            
-            // Déclencher l'analyse ML après 5 messages USER (seuil réduit pour plus de réactivité)
-            if (userMessagesCount >= 5 && (userMessagesCount == 5 || userMessagesCount % 5 == 0)) {
-                System.out.println("Déclenchement de l'analyse ML pour l'utilisateur: " + user.getEmail());
-                // Analyser les conversations et générer des recommandations de manière asynchrone
-                new Thread(() -> {
-                    try {
-                        System.out.println("Démarrage de l'analyse ML des conversations...");
-                        // Utiliser le nouveau service de recommandation basé sur ML
-                        var recommendation = formationRecommendationService.generateFormationRecommendation(user);
-                        if (recommendation != null) {
-                            System.out.println("✅ Recommandation ML générée: " + recommendation.getTitle() + 
-                                " - Niveau: " + recommendation.getLevel() + 
-                                " - Spécialité: " + recommendation.getSpecialty());
-                        } else {
-                            System.out.println("ℹ️ Aucune nouvelle recommandation générée (peut-être déjà existante)");
-                        }
-                    } catch (Exception e) {
-                        System.err.println("Erreur lors de l'analyse ML: " + e.getMessage());
-                        e.printStackTrace();
-                    }
-                }).start();
-            }
+            triggerRecommendationAnalysis(conv, user);
             
             return ResponseEntity.ok(saved);
         } catch (Exception e) {
@@ -303,6 +246,199 @@ public class ChatController {
         }
     }
 
+    /**
+     * Variante en flux (text/event-stream) de l'envoi de message.
+     * Événements émis : "message" (message utilisateur enregistré), "chunk" (fragments de la réponse IA
+     * au fil de leur génération), "done" (message IA enregistré) ou "error".
+     * La génération ne bloque aucun thread servlet : la réponse complète est enregistrée à la fin du flux.
+     */
+    @PostMapping(value = "/conversations/{conversationId}/messages/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamMessage(
+            @PathVariable String conversationId,
+            @RequestBody(required = false) Map<String, Object> messageData,
+            Authentication authentication) {
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT_MS);
+        try {
+            if (authentication == null || authentication.getName() == null) {
+                return completeWithError(emitter, "Unauthorized");
+            }
+            
+            if (messageData == null || !messageData.containsKey("content")) {
+                return completeWithError(emitter, "Message content is required");
+            }
+            
+            User user = currentUserService.findByEmail(authentication.getName())
+                .orElse(null);
+            if (user == null) {
+                return completeWithError(emitter, "User not found");
+            }
+            
+            Optional<Conversation> conversation = conversationRepository.findById(conversationId);
+            if (conversation.isEmpty()) {
+                return completeWithError(emitter, "Conversation not found");
+            }
+            
+            Conversation conv = conversation.get();
+            ChatMessage saved = saveUserMessage(conv, messageData);
+            emitter.send(SseEmitter.event().name("message").data(Map.of(
+                "id", saved.getId(),
+                "conversationId", conv.getId(),
+                "sender", saved.getSender().toString(),
+                "content", saved.getContent()
+            )));
+            
+            aiService.streamAiResponse(saved.getContent(), chunk -> {
+                try {
+                    emitter.send(SseEmitter.event().name("chunk").data(chunk));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }).whenComplete((aiResponseText, error) -> {
+                try {
+                    ChatMessage aiMessage = saveAiMessage(conv, aiResponseText);
+                    emitter.send(SseEmitter.event().name("done").data(Map.of(
+                        "id", aiMessage.getId(),
+                        "conversationId", conv.getId(),
+                        "sender", aiMessage.getSender().toString(),
+                        "content", aiMessage.getContent()
+                    )));
+                    emitter.complete();
+                } catch (Exception e) {
+                    // Client déconnecté ou échec d'enregistrement : on termine le flux
+                    emitter.completeWithError(e);
+                }
+                triggerRecommendationAnalysis(conv, user);
+            });
+        } catch (Exception e) {
+            e.printStackTrace();
+            emitter.completeWithError(e);
+        }
+        return emitter;
+    }
+    
+    private SseEmitter completeWithError(SseEmitter emitter, String error) {
+        try {
+            emitter.send(SseEmitter.event().name("error").data(Map.of("error", error)));
+            emitter.complete();
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+        }
+        return emitter;
+    }
+    
+    /**
+     * Enregistre le message utilisateur, ses pièces jointes, et met à jour la conversation
+     */
+    private ChatMessage saveUserMessage(Conversation conv, Map<String, Object> messageData) {
+        ChatMessage message = new ChatMessage();
+        message.setConversation(conv);
+        message.setSender(ChatMessage.MessageSender.USER);
+        message.setContent((String) messageData.get("content"));
+        
+        ChatMessage saved = chatMessageRepository.save(message);
+        studentFeatureService.recordChatMessage(saved);
+        
+        // Handle attachments (audio, documents, etc.)
+        if (messageData.containsKey("attachments") && messageData.get("attachments") instanceof List) {
+            @SuppressWarnings("unchecked")
+            List<Map<String, Object>> attachments = (List<Map<String, Object>>) messageData.get("attachments");
+            for (Map<String, Object> attData : attachments) {
+                ChatAttachment attachment = new ChatAttachment();
+                attachment.setMessage(saved);
+                attachment.setTitle((String) attData.getOrDefault("title", "Attachment"));
+                
+                // Handle audio: store base64 data in url field (can be improved with file storage later)
+                String url = (String) attData.getOrDefault("url", "");
+                if (url.startsWith("data:audio")) {
+                    // Store base64 audio data - in production, save to file system and store file path
+                    attachment.setUrl(url);
+                } else {
+                    attachment.setUrl(url);
+                }
+                
+                String attType = (String) attData.getOrDefault("type", "LINK");
+                try {
+                    ChatAttachment.AttachmentType type = ChatAttachment.AttachmentType.valueOf(attType.toUpperCase());
+                    attachment.setType(type);
+                } catch (IllegalArgumentException e) {
+                    // Default to AUDIO if type is "audio", otherwise LINK
+                    if ("audio".equalsIgnoreCase(attType)) {
+                        attachment.setType(ChatAttachment.AttachmentType.AUDIO);
+                    } else {
+                        attachment.setType(ChatAttachment.AttachmentType.LINK);
+                    }
+                }
+                
+                chatAttachmentRepository.save(attachment);
+            }
+        }
+        
+        // Update conversation with user message
+        conv.setLastMessage(message.getContent());
+        conv.setMessagesCount(conv.getMessagesCount() + 1);
+        conversationRepository.save(conv);
+        
+        return saved;
+    }
+    
+    /**
+     * Enregistre la réponse IA et met à jour la conversation
+     */
+    private ChatMessage saveAiMessage(Conversation conv, String aiResponseText) {
+        ChatMessage aiMessage = new ChatMessage();
+        aiMessage.setConversation(conv);
+        aiMessage.setSender(ChatMessage.MessageSender.AI);
+        aiMessage.setContent(aiResponseText);
+        
+        ChatMessage saved = chatMessageRepository.save(aiMessage);
+        studentFeatureService.recordChatMessage(saved);
+        
+        // Update conversation with AI message
+        conv.setLastMessage(aiResponseText);
+        conv.setMessagesCount(conv.getMessagesCount() + 1);
+        conversationRepository.save(conv);
+        
+        return saved;
+    }
+    
+    /**
+     * Déclenche l'analyse ML des conversations tous les 5 messages USER
+     */
+    private void triggerRecommendationAnalysis(Conversation conv, User user) {
+        // Compter uniquement les messages USER dans la conversation
+        List<ChatMessage> allMessages = chatMessageRepository.findByConversationOrderByTimestampAsc(conv);
+        long userMessagesCount = allMessages != null ? 
+            allMessages.stream().filter(m -> m.getSender() == ChatMessage.MessageSender.USER).count() : 0;
+        
+        System.out.println("=== ANALYSE IA DES CONVERSATIONS ===");
+        System.out.println("Conversation ID: " + conv.getId());
+        System.out.println("Total messages: " + conv.getMessagesCount());
+        System.out.println("User messages count: " + userMessagesCount);
+        
+        // Déclencher l'analyse ML après 5 messages USER (seuil réduit pour plus de réactivité)
+        if (userMessagesCount >= 5 && (userMessagesCount == 5 || userMessagesCount % 5 == 0)) {
+            System.out.println("Déclenchement de l'analyse ML pour l'utilisateur: " + user.getEmail());
+            // Analyser les conversations et générer des recommandations de manière asynchrone
+            mlTaskExecutor.execute(() -> {
+                try {
+                    System.out.println("Démarrage de l'analyse ML des conversations...");
+                    // Utiliser le nouveau service de recommandation basé sur ML
+                    var recommendation = formationRecommendationService.generateFormationRecommendation(user);
+                    if (recommendation != null) {
+                        System.out.println("✅ Recommandation ML générée: " + recommendation.getTitle() + 
+                            " - Niveau: " + recommendation.getLevel() + 
+                            " - Spécialité: " + recommendation.getSpecialty());
+                    } else {
+                        System.out.println("ℹ️ Aucune nouvelle recommandation générée (peut-être déjà existante)");
+                    }
+                } catch (Exception e) {
+                    System.err.println("Erreur lors de l'analyse ML: " + e.getMessage());
+                    e.printStackTrace();
+                }
+            });
+        }
+    }
+
     @DeleteMapping("/conversations/{conversationId}")
     public ResponseEntity<?> deleteConversation(
             @PathVariable String conversationId,
@@ -317,7 +453,7 @@ public class ChatController {
             }
             
             String email = authentication.getName();
-            User user = userRepository.findByEmail(email)
+            User user = currentUserService.findByEmail(email)
                 .orElse(null);
             
             if (user == null) {
@@ -334,6 +470,7 @@ public class ChatController {
             }
             
             conversationRepository.delete(conversation.get());
+            studentFeatureService.invalidate(user);
             
             return ResponseEntity.ok(Map.of("message", "Conversation deleted successfully"));
         } catch (Exception e) {
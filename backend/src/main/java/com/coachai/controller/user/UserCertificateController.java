@@ -4,8 +4,8 @@ import com.coachai.model.CourseCertificate;
 import com.coachai.model.Enrollment;
 import com.coachai.model.User;
 import com.coachai.repository.EnrollmentRepository;
-import com.coachai.repository.UserRepository;
 import com.coachai.service.CertificateService;
+import com.coachai.service.CurrentUserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -23,7 +23,7 @@ public class UserCertificateController {
     private CertificateService certificateService;
 
     @Autowired
-    private UserRepository userRepository;
+    private CurrentUserService currentUserService;
 
     @Autowired
     private EnrollmentRepository enrollmentRepository;
@@ -39,7 +39,7 @@ public class UserCertificateController {
             }
 
             String email = authentication.getName();
-            User user = userRepository.findByEmail(email)
+            User user = currentUserService.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
             List<CourseCertificate> certificates = certificateService.getUserCertificates(user);
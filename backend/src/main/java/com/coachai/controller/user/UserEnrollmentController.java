@@ -7,7 +7,7 @@ import com.coachai.model.User;
 import com.coachai.repository.CourseRepository;
 import com.coachai.repository.CourseProgressRepository;
 import com.coachai.repository.EnrollmentRepository;
-import com.coachai.repository.UserRepository;
+import com.coachai.service.CurrentUserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -22,7 +22,7 @@ import java.util.Map;
 @CrossOrigin(origins = "http://localhost:4200")
 public class UserEnrollmentController {
     @Autowired
-    private UserRepository userRepository;
+    private CurrentUserService currentUserService;
     
     @Autowired
     private CourseRepository courseRepository;
@@ -32,6 +32,9 @@ public class UserEnrollmentController {
     
     @Autowired
     private CourseProgressRepository courseProgressRepository;
+
+    @Autowired
+    private com.coachai.service.StudentFeatureService studentFeatureService;
     
     @GetMapping
     public ResponseEntity<?> getEnrollments(Authentication authentication) {
@@ -41,7 +44,7 @@ public class UserEnrollmentController {
             }
             
             String email = authentication.getName();
-            User user = userRepository.findByEmail(email)
+            User user = currentUserService.findByEmail(email)
                 .orElse(null);
             
             if (user == null) {
@@ -74,7 +77,7 @@ public class UserEnrollmentController {
             }
             
             String email = authentication.getName();
-            User user = userRepository.findByEmail(email)
+            User user = currentUserService.findByEmail(email)
                 .orElse(null);
             
             if (user == null) {
@@ -110,6 +113,7 @@ public class UserEnrollmentController {
             
             Enrollment saved = enrollmentRepository.save(enrollment);
             courseProgressRepository.save(progress);
+            studentFeatureService.refreshAcademicMetrics(user);
             
             // Update course enrollment count
             course.setEnrolledCount(course.getEnrolledCount() + 1);
@@ -5,7 +5,7 @@ import com.coachai.model.ExerciseSubmission;
 import com.coachai.model.User;
 import com.coachai.repository.ExerciseRepository;
 import com.coachai.repository.ExerciseSubmissionRepository;
-import com.coachai.repository.UserRepository;
+import com.coachai.service.CurrentUserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -26,7 +26,10 @@ public class UserExerciseController {
     private ExerciseSubmissionRepository submissionRepository;
     
     @Autowired
-    private UserRepository userRepository;
+    private CurrentUserService currentUserService;
+
+    @Autowired
+    private com.coachai.service.StudentFeatureService studentFeatureService;
     
     @GetMapping
     public ResponseEntity<?> getExercises(Authentication authentication) {
@@ -87,7 +90,7 @@ public class UserExerciseController {
             }
             
             String email = authentication.getName();
-            User user = userRepository.findByEmail(email)
+            User user = currentUserService.findByEmail(email)
                 .orElse(null);
             
             if (user == null) {
@@ -117,6 +120,7 @@ public class UserExerciseController {
             }
             
             ExerciseSubmission saved = submissionRepository.save(submission);
+            studentFeatureService.refreshAcademicMetrics(saved.getUser());
             return ResponseEntity.ok(saved);
         } catch (Exception e) {
             e.printStackTrace();
@@ -138,7 +142,7 @@ public class UserExerciseController {
             }
             
             String email = authentication.getName();
-            User user = userRepository.findByEmail(email)
+            User user = currentUserService.findByEmail(email)
                 .orElse(null);
             
             if (user == null) {
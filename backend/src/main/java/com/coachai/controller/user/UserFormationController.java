@@ -2,6 +2,7 @@ package com.coachai.controller.user;
 
 import com.coachai.model.*;
 import com.coachai.repository.*;
+import com.coachai.service.CurrentUserService;
 import com.coachai.service.ModuleProgressService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -25,6 +26,9 @@ public class UserFormationController {
 
     @Autowired
     private UserRepository userRepository;
+    
+    @Autowired
+    private CurrentUserService currentUserService;
 
     @Autowired
     private FormationEnrollmentRepository enrollmentRepository;
@@ -116,7 +120,7 @@ public class UserFormationController {
             }
 
             String email = authentication.getName();
-            User user = userRepository.findByEmail(email).orElse(null);
+            User user = currentUserService.findByEmail(email).orElse(null);
             if (user == null) {
                 return ResponseEntity.status(404).body(Map.of("error", "User not found"));
             }
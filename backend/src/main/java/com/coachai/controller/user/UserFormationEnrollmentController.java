@@ -2,6 +2,7 @@ package com.coachai.controller.user;
 
 import com.coachai.model.*;
 import com.coachai.repository.*;
+import com.coachai.service.CurrentUserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -20,7 +21,7 @@ import java.util.Map;
 public class UserFormationEnrollmentController {
     
     @Autowired
-    private UserRepository userRepository;
+    private CurrentUserService currentUserService;
     
     @Autowired
     private FormationRepository formationRepository;
@@ -122,7 +123,7 @@ public class UserFormationEnrollmentController {
             }
             
             String email = authentication.getName();
-            User user = userRepository.findByEmail(email).orElse(null);
+            User user = currentUserService.findByEmail(email).orElse(null);
             
             if (user == null) {
                 return ResponseEntity.status(404).body(Map.of("error", "User not found"));
@@ -165,7 +166,7 @@ public class UserFormationEnrollmentController {
             }
             
             String email = authentication.getName();
-            User user = userRepository.findByEmail(email).orElse(null);
+            User user = currentUserService.findByEmail(email).orElse(null);
             
             if (user == null) {
                 return ResponseEntity.status(404).body(Map.of("error", "User not found"));
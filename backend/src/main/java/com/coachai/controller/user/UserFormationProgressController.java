@@ -1,8 +1,13 @@
 package com.coachai.controller.user;
 
+import com.coachai.dto.LessonOutlineDto;
 import com.coachai.model.*;
 import com.coachai.repository.*;
+import com.coachai.service.CurrentUserService;
+import com.coachai.service.FormationAccessService;
 import com.coachai.service.FormationProgressService;
+import com.coachai.service.LearningPathOutlineService;
+import com.coachai.service.WatchProgressBuffer;
 import com.coachai.service.CertificateService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -23,7 +28,7 @@ import java.util.HashMap;
 public class UserFormationProgressController {
     
     @Autowired
-    private UserRepository userRepository;
+    private CurrentUserService currentUserService;
     
     @Autowired
     private FormationEnrollmentRepository enrollmentRepository;
@@ -31,6 +36,12 @@ public class UserFormationProgressController {
     @Autowired
     private FormationProgressService progressService;
     
+    @Autowired
+    private FormationAccessService formationAccessService;
+    
+    @Autowired
+    private WatchProgressBuffer watchProgressBuffer;
+    
     @Autowired
     private CertificateService certificateService;
     
@@ -48,7 +59,7 @@ public class UserFormationProgressController {
             }
             
             String email = authentication.getName();
-            User user = userRepository.findByEmail(email).orElse(null);
+            User user = currentUserService.findByEmail(email).orElse(null);
             
             if (user == null) {
                 return ResponseEntity.status(404).body(Map.of("error", "User not found"));
@@ -68,7 +79,23 @@ public class UserFormationProgressController {
                 return ResponseEntity.badRequest().body(Map.of("error", "Watch percentage is required"));
             }
             
-            progressService.updateLessonProgress(enrollmentId, lessonId, watchPercentage);
+            // Inscription du demandeur et leçon de sa formation : vérifiés sur la frontière en cache,
+            // sans requête par heartbeat
+            FormationAccessService.AccessFrontier frontier;
+            try {
+                frontier = formationAccessService.getFrontier(enrollmentId);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.status(404).body(Map.of("error", "Enrollment not found"));
+            }
+            if (!frontier.getUserId().equals(user.getId())) {
+                return ResponseEntity.status(403).body(Map.of("error", "Access denied"));
+            }
+            if (!frontier.containsLesson(lessonId)) {
+                return ResponseEntity.status(404).body(Map.of("error", "Lesson not found"));
+            }
+            
+            // Heartbeat du lecteur : agrégé en mémoire, écrit par lots (immédiatement au seuil de 80%)
+            watchProgressBuffer.record(enrollmentId, lessonId, watchPercentage);
             
             return ResponseEntity.ok(Map.of("message", "Progress updated"));
         } catch (Exception e) {
@@ -118,7 +145,7 @@ public class UserFormationProgressController {
             
             // Vérifier que l'utilisateur est propriétaire
             String email = authentication.getName();
-            User user = userRepository.findByEmail(email).orElse(null);
+            User user = currentUserService.findByEmail(email).orElse(null);
             if (user == null || !enrollment.getUser().getId().equals(user.getId())) {
                 return ResponseEntity.status(403).body(Map.of("error", "Access denied"));
             }
@@ -130,6 +157,66 @@ public class UserFormationProgressController {
         }
     }
     
+    /**
+     * État d'accès de tous les modules et leçons d'une formation en un appel
+     * (remplace un appel can-access par tuile de leçon)
+     */
+    @GetMapping("/{enrollmentId}/access")
+    public ResponseEntity<?> getAccessState(
+            @PathVariable String enrollmentId,
+            Authentication authentication) {
+        try {
+            if (authentication == null || authentication.getName() == null) {
+                return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
+            }
+            
+            FormationEnrollment enrollment = enrollmentRepository.findById(enrollmentId).orElse(null);
+            if (enrollment == null) {
+                return ResponseEntity.status(404).body(Map.of("error", "Enrollment not found"));
+            }
+            
+            // Vérifier que l'utilisateur est propriétaire
+            String email = authentication.getName();
+            User user = currentUserService.findByEmail(email).orElse(null);
+            if (user == null || !enrollment.getUser().getId().equals(user.getId())) {
+                return ResponseEntity.status(403).body(Map.of("error", "Access denied"));
+            }
+            
+            FormationAccessService.AccessFrontier frontier = formationAccessService.getFrontier(enrollmentId);
+            List<LessonOutlineDto> lessons = frontier.getOutline().getLessons();
+            
+            List<Map<String, Object>> modulesData = new ArrayList<>();
+            List<Map<String, Object>> lessonsData = new ArrayList<>();
+            for (LearningPathOutlineService.ModuleOutline module : frontier.getOutline().getModules()) {
+                Map<String, Object> moduleData = new HashMap<>();
+                moduleData.put("moduleId", module.getId());
+                moduleData.put("canAccess", frontier.isModuleAccessible(module.getId()));
+                moduleData.put("validated", frontier.isModuleValidated(module.getId()));
+                modulesData.add(moduleData);
+                
+                for (int index : module.getLessonIndexes()) {
+                    Map<String, Object> lessonData = new HashMap<>();
+                    lessonData.put("lessonId", lessons.get(index).getId());
+                    lessonData.put("moduleId", module.getId());
+                    lessonData.put("canAccess", frontier.isLessonAccessible(index));
+                    lessonData.put("completed", frontier.isLessonCompleted(index));
+                    lessonsData.add(lessonData);
+                }
+            }
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("enrollmentId", enrollmentId);
+            response.put("formationId", frontier.getFormationId());
+            response.put("firstLockedModuleId", frontier.getFirstLockedModuleId());
+            response.put("modules", modulesData);
+            response.put("lessons", lessonsData);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body(Map.of("error", "Error checking access", "message", e.getMessage() != null ? e.getMessage() : "Unknown error"));
+        }
+    }
+    
     /**
      * Vérifie si un module peut être accessible (débloqué)
      */
@@ -173,7 +260,7 @@ public class UserFormationProgressController {
             
             // Vérifier que l'utilisateur est propriétaire
             String email = authentication.getName();
-            User user = userRepository.findByEmail(email).orElse(null);
+            User user = currentUserService.findByEmail(email).orElse(null);
             if (user == null || !enrollment.getUser().getId().equals(user.getId())) {
                 return ResponseEntity.status(403).body(Map.of("error", "Access denied"));
             }
@@ -216,7 +303,7 @@ public class UserFormationProgressController {
             
             // Vérifier que l'utilisateur est propriétaire
             String email = authentication.getName();
-            User user = userRepository.findByEmail(email).orElse(null);
+            User user = currentUserService.findByEmail(email).orElse(null);
             if (user == null || !enrollment.getUser().getId().equals(user.getId())) {
                 return ResponseEntity.status(403).body(Map.of("error", "Access denied"));
             }
@@ -241,7 +328,7 @@ public class UserFormationProgressController {
             }
             
             String email = authentication.getName();
-            User user = userRepository.findByEmail(email).orElse(null);
+            User user = currentUserService.findByEmail(email).orElse(null);
             if (user == null) {
                 return ResponseEntity.status(404).body(Map.of("error", "User not found"));
             }
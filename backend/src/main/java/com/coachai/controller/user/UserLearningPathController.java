@@ -1,8 +1,10 @@
 package com.coachai.controller.user;
 
+import com.coachai.dto.LessonOutlineDto;
 import com.coachai.model.*;
-import com.coachai.model.Module;
 import com.coachai.repository.*;
+import com.coachai.service.CurrentUserService;
+import com.coachai.service.LearningPathOutlineService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -16,25 +18,19 @@ import java.util.stream.Collectors;
 @CrossOrigin(origins = "http://localhost:4200")
 public class UserLearningPathController {
     @Autowired
-    private UserRepository userRepository;
+    private CurrentUserService currentUserService;
     
     @Autowired
     private EnrollmentRepository enrollmentRepository;
     
     @Autowired
-    private FormationRepository formationRepository;
-    
-    @Autowired
-    private ModuleRepository moduleRepository;
-    
-    @Autowired
-    private CourseRepository courseRepository;
+    private FormationEnrollmentRepository formationEnrollmentRepository;
     
     @Autowired
     private LessonRepository lessonRepository;
     
     @Autowired
-    private CourseProgressRepository courseProgressRepository;
+    private LearningPathOutlineService learningPathOutlineService;
     
     @GetMapping
     public ResponseEntity<?> getLearningPath(Authentication authentication) {
@@ -44,7 +40,7 @@ public class UserLearningPathController {
             }
             
             String email = authentication.getName();
-            User user = userRepository.findByEmail(email).orElse(null);
+            User user = currentUserService.findByEmail(email).orElse(null);
             
             if (user == null) {
                 return ResponseEntity.status(404).body(Map.of("error", "User not found"));
@@ -88,39 +84,35 @@ public class UserLearningPathController {
                 ));
             }
             
-            // Get modules for this formation
-            List<Module> modules = moduleRepository.findByFormation(formation);
+            // Plan de la formation (cache) + leçons terminées par l'apprenant (une requête)
+            LearningPathOutlineService.FormationOutline outline = learningPathOutlineService.getOutline(formation);
+            FormationEnrollment formationEnrollment = formationEnrollmentRepository.findByUserAndFormation(user, formation).orElse(null);
+            BitSet completed = learningPathOutlineService.getCompletion(outline, formationEnrollment);
+            
+            List<LearningPathOutlineService.ModuleOutline> modules = outline.getModules();
             List<Map<String, Object>> modulesData = new ArrayList<>();
             
             int totalCompletedModules = 0;
-            for (Module module : modules) {
-                List<Course> courses = courseRepository.findByModule(module);
+            for (LearningPathOutlineService.ModuleOutline module : modules) {
                 List<Map<String, Object>> lessonsData = new ArrayList<>();
                 int completedLessons = 0;
-                int totalLessons = 0;
+                int totalLessons = module.getLessonCount();
                 
-                for (Course course : courses) {
-                    List<Lesson> lessons = lessonRepository.findByCourseOrderByOrderAsc(course);
-                    for (Lesson lesson : lessons) {
-                        totalLessons++;
-                        CourseProgress progress = courseProgressRepository.findByEnrollment(firstEnrollment).orElse(null);
-                        boolean isCompleted = progress != null && progress.getCompletedLessons() > 0;
-                        if (isCompleted) completedLessons++;
-                        
-                        int lessonDuration = lesson.getDuration();
-                        int lessonOrder = lesson.getLessonNumber();
-                        
-                        lessonsData.add(Map.of(
-                            "id", lesson.getId(),
-                            "moduleId", module.getId(),
-                            "title", lesson.getTitle() != null ? lesson.getTitle() : "",
-                            "description", lesson.getDescription() != null ? lesson.getDescription() : "",
-                            "type", lesson.getType() != null ? lesson.getType().toString() : "VIDEO",
-                            "duration", lessonDuration,
-                            "status", isCompleted ? "completed" : "available",
-                            "order", lessonOrder
-                        ));
-                    }
+                for (int index : module.getLessonIndexes()) {
+                    LessonOutlineDto lesson = outline.getLessons().get(index);
+                    boolean isCompleted = completed.get(index);
+                    if (isCompleted) completedLessons++;
+                    
+                    lessonsData.add(Map.of(
+                        "id", lesson.getId(),
+                        "moduleId", module.getId(),
+                        "title", lesson.getTitle() != null ? lesson.getTitle() : "",
+                        "description", lesson.getDescription() != null ? lesson.getDescription() : "",
+                        "type", lesson.getType() != null ? lesson.getType().toString() : "VIDEO",
+                        "duration", lesson.getDuration() != null ? lesson.getDuration() : 0,
+                        "status", isCompleted ? "completed" : "available",
+                        "order", lesson.getLessonNumber() != null ? lesson.getLessonNumber() : 0
+                    ));
                 }
                 
                 int moduleProgress = totalLessons > 0 ? (completedLessons * 100 / totalLessons) : 0;
@@ -128,17 +120,14 @@ public class UserLearningPathController {
                                      moduleProgress > 0 ? "in_progress" : "available";
                 if (moduleProgress == 100) totalCompletedModules++;
                 
-                Double moduleDuration = module.getDuration();
-                Integer moduleOrder = module.getOrder();
-                
                 modulesData.add(Map.of(
                     "id", module.getId(),
                     "title", module.getTitle() != null ? module.getTitle() : "",
                     "description", module.getDescription() != null ? module.getDescription() : "",
                     "status", moduleStatus,
                     "progressPercentage", moduleProgress,
-                    "estimatedDuration", moduleDuration != null ? moduleDuration : 0.0,
-                    "order", moduleOrder != null ? moduleOrder : 0,
+                    "estimatedDuration", module.getDuration(),
+                    "order", module.getOrder(),
                     "lessons", lessonsData
                 ));
             }
@@ -189,7 +178,7 @@ public class UserLearningPathController {
             }
             
             String email = authentication.getName();
-            User user = userRepository.findByEmail(email).orElse(null);
+            User user = currentUserService.findByEmail(email).orElse(null);
             
             if (user == null) {
                 return ResponseEntity.status(404).body(Map.of("error", "User not found"));
@@ -2,13 +2,16 @@ package com.coachai.controller.user;
 
 import com.coachai.model.User;
 import com.coachai.model.UserNotification;
-import com.coachai.repository.UserRepository;
 import com.coachai.repository.UserNotificationRepository;
+import com.coachai.service.CurrentUserService;
+import com.coachai.service.NotificationBroadcastService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 
@@ -17,11 +20,14 @@ import java.util.Map;
 @CrossOrigin(origins = "http://localhost:4200")
 public class UserNotificationController {
     @Autowired
-    private UserRepository userRepository;
+    private CurrentUserService currentUserService;
     
     @Autowired
     private UserNotificationRepository notificationRepository;
     
+    @Autowired
+    private NotificationBroadcastService broadcastService;
+    
     @GetMapping
     public ResponseEntity<?> getNotifications(Authentication authentication) {
         try {
@@ -30,7 +36,7 @@ public class UserNotificationController {
             }
             
             String email = authentication.getName();
-            User user = userRepository.findByEmail(email)
+            User user = currentUserService.findByEmail(email)
                 .orElse(null);
             
             if (user == null) {
@@ -42,6 +48,17 @@ public class UserNotificationController {
                 notifications = List.of();
             }
             
+            // Diffusions reçues par l'utilisateur, fusionnées par date
+            List<UserNotification> broadcasts = broadcastService.getBroadcastNotifications(user);
+            if (!broadcasts.isEmpty()) {
+                List<UserNotification> merged = new ArrayList<>(notifications.size() + broadcasts.size());
+                merged.addAll(notifications);
+                merged.addAll(broadcasts);
+                merged.sort(Comparator.comparing(UserNotification::getCreatedAt,
+                    Comparator.nullsLast(Comparator.reverseOrder())));
+                notifications = merged;
+            }
+            
             return ResponseEntity.ok(notifications);
         } catch (Exception e) {
             e.printStackTrace();
@@ -66,6 +83,12 @@ public class UserNotificationController {
                 .orElse(null);
             
             if (notification == null) {
+                // Pas une notification individuelle : peut-être une diffusion adressée à l'utilisateur
+                User user = currentUserService.findByEmail(authentication.getName()).orElse(null);
+                UserNotification broadcast = user != null ? broadcastService.markRead(id, user).orElse(null) : null;
+                if (broadcast != null) {
+                    return ResponseEntity.ok(broadcast);
+                }
                 return ResponseEntity.status(404).body(Map.of("error", "Notification not found"));
             }
             
@@ -87,14 +110,14 @@ public class UserNotificationController {
             }
             
             String email = authentication.getName();
-            User user = userRepository.findByEmail(email)
+            User user = currentUserService.findByEmail(email)
                 .orElse(null);
             
             if (user == null) {
                 return ResponseEntity.status(404).body(Map.of("error", "User not found"));
             }
             
-            long count = notificationRepository.countByUserAndIsReadFalse(user);
+            long count = notificationRepository.countByUserAndIsReadFalse(user) + broadcastService.countUnread(user);
             return ResponseEntity.ok(Map.of("count", count));
         } catch (Exception e) {
             e.printStackTrace();
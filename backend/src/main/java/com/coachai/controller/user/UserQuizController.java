@@ -2,12 +2,16 @@ package com.coachai.controller.user;
 
 import com.coachai.model.*;
 import com.coachai.repository.*;
+import com.coachai.service.CurrentUserService;
+import com.coachai.service.QuizSubmissionService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 
-import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -16,7 +20,7 @@ import java.util.Map;
 @CrossOrigin(origins = "http://localhost:4200")
 public class UserQuizController {
     @Autowired
-    private UserRepository userRepository;
+    private CurrentUserService currentUserService;
     
     @Autowired
     private QuizRepository quizRepository;
@@ -25,10 +29,13 @@ public class UserQuizController {
     private QuizAttemptRepository quizAttemptRepository;
     
     @Autowired
-    private QuizAnswerRepository quizAnswerRepository;
+    private com.coachai.service.QuizService quizService;
     
     @Autowired
-    private QuizQuestionRepository quizQuestionRepository;
+    private QuizSubmissionService quizSubmissionService;
+    
+    @Value("${quiz.submissions.sync-wait-ms:10000}")
+    private long syncWaitMs;
     
     @GetMapping
     public ResponseEntity<?> getAvailableQuizzes(Authentication authentication) {
@@ -84,7 +91,7 @@ public class UserQuizController {
             }
             
             String email = authentication.getName();
-            User user = userRepository.findByEmail(email)
+            User user = currentUserService.findByEmail(email)
                 .orElse(null);
             
             if (user == null) {
@@ -98,107 +105,92 @@ public class UserQuizController {
                 return ResponseEntity.status(404).body(Map.of("error", "Quiz not found"));
             }
             
-            List<QuizAttempt> existingAttempts = quizAttemptRepository.findByUserAndQuiz(user, quiz);
-            int attemptNumber = (existingAttempts != null ? existingAttempts.size() : 0) + 1;
-            
-            int maxAttempts = quiz.getMaxAttempts() > 0 ? quiz.getMaxAttempts() : 3;
-            if (attemptNumber > maxAttempts) {
-                return ResponseEntity.badRequest().body(Map.of("error", "Maximum attempts reached", "maxAttempts", maxAttempts));
+            try {
+                return ResponseEntity.ok(quizService.startAttempt(user, quiz));
+            } catch (IllegalStateException e) {
+                int maxAttempts = quiz.getMaxAttempts() > 0 ? quiz.getMaxAttempts() : 3;
+                if ("Maximum attempts reached".equals(e.getMessage())) {
+                    return ResponseEntity.badRequest().body(Map.of("error", "Maximum attempts reached", "maxAttempts", maxAttempts));
+                }
+                return ResponseEntity.status(409).body(Map.of("error", e.getMessage()));
             }
-            
-            QuizAttempt attempt = new QuizAttempt();
-            attempt.setQuiz(quiz);
-            attempt.setUser(user);
-            attempt.setAttemptNumber(attemptNumber);
-            attempt.setStartedAt(LocalDateTime.now());
-            attempt.setScore(0.0);
-            attempt.setPassed(false);
-            
-            QuizAttempt saved = quizAttemptRepository.save(attempt);
-            return ResponseEntity.ok(saved);
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(500).body(Map.of("error", "Error starting quiz attempt", "message", e.getMessage() != null ? e.getMessage() : "Unknown error"));
         }
     }
     
+    /**
+     * Soumission avec réponse du résultat : la correction passe par le pipeline de soumission,
+     * la requête attend sans bloquer de thread ; au-delà de quiz.submissions.sync-wait-ms,
+     * répond 202 avec le statut de la soumission (à suivre sur /submissions/{id})
+     */
     @PostMapping("/attempts/{attemptId}/submit")
-    public ResponseEntity<?> submitQuizAttempt(
+    public DeferredResult<ResponseEntity<?>> submitQuizAttempt(
+            @PathVariable String attemptId,
+            @RequestBody(required = false) List<Map<String, Object>> answerData,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            Authentication authentication) {
+        DeferredResult<ResponseEntity<?>> result = new DeferredResult<>(syncWaitMs);
+        ResponseEntity<?> accepted = acceptSubmission(attemptId, answerData, idempotencyKey, authentication);
+        if (!(accepted.getBody() instanceof QuizSubmission submission)) {
+            result.setResult(accepted);
+            return result;
+        }
+        
+        result.onTimeout(() -> {
+            quizSubmissionService.cancelWait(submission.getId());
+            result.setResult(ResponseEntity.accepted().body(QuizSubmissionService.statusPayload(submission)));
+        });
+        quizSubmissionService.awaitResult(submission).thenAccept(finished -> result.setResult(toAttemptResponse(finished)));
+        return result;
+    }
+    
+    /**
+     * Soumission asynchrone : 202 immédiat avec l'identifiant de soumission ; le résultat est
+     * poussé sur le flux temps réel ("quiz.graded") et consultable sur /submissions/{id}
+     */
+    @PostMapping("/attempts/{attemptId}/submissions")
+    public ResponseEntity<?> enqueueQuizSubmission(
             @PathVariable String attemptId,
             @RequestBody(required = false) List<Map<String, Object>> answerData,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            Authentication authentication) {
+        ResponseEntity<?> accepted = acceptSubmission(attemptId, answerData, idempotencyKey, authentication);
+        if (accepted.getBody() instanceof QuizSubmission submission) {
+            return ResponseEntity.accepted().body(QuizSubmissionService.statusPayload(submission));
+        }
+        return accepted;
+    }
+    
+    @GetMapping("/submissions/{submissionId}")
+    public ResponseEntity<?> getSubmissionStatus(
+            @PathVariable String submissionId,
             Authentication authentication) {
         try {
             if (authentication == null || authentication.getName() == null) {
                 return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
             }
             
-            if (attemptId == null || attemptId.isEmpty()) {
-                return ResponseEntity.badRequest().body(Map.of("error", "Attempt ID is required"));
-            }
-            
-            if (answerData == null || answerData.isEmpty()) {
-                return ResponseEntity.badRequest().body(Map.of("error", "Answers are required"));
-            }
-            
-            QuizAttempt attempt = quizAttemptRepository.findById(attemptId)
+            User user = currentUserService.findByEmail(authentication.getName())
                 .orElse(null);
             
-            if (attempt == null) {
-                return ResponseEntity.status(404).body(Map.of("error", "Attempt not found"));
-            }
-            
-            double totalScore = 0.0;
-            double maxScore = 0.0;
-            
-            for (Map<String, Object> data : answerData) {
-                String questionId = (String) data.get("questionId");
-                String userAnswer = (String) data.get("userAnswer");
-                
-                if (questionId == null || questionId.isEmpty()) {
-                    continue;
-                }
-                
-                QuizQuestion question = quizQuestionRepository.findById(questionId)
-                    .orElse(null);
-                
-                if (question == null) {
-                    continue;
-                }
-                
-                maxScore += question.getPoints();
-                
-                QuizAnswer answer = new QuizAnswer();
-                answer.setAttempt(attempt);
-                answer.setQuestion(question);
-                answer.setUserAnswer(userAnswer != null ? userAnswer : "");
-                
-                // Check if answer is correct
-                boolean isCorrect = checkAnswer(question, userAnswer);
-                answer.setCorrect(isCorrect);
-                
-                if (isCorrect) {
-                    answer.setPointsEarned(question.getPoints());
-                    totalScore += question.getPoints();
-                } else {
-                    answer.setPointsEarned(0.0);
-                }
-                
-                quizAnswerRepository.save(answer);
+            if (user == null) {
+                return ResponseEntity.status(404).body(Map.of("error", "User not found"));
             }
             
-            double percentage = maxScore > 0 ? (totalScore / maxScore) * 100 : 0.0;
-            attempt.setScore(percentage);
+            QuizSubmission submission = quizSubmissionService.getSubmission(submissionId)
+                .filter(s -> user.getId().equals(s.getUserId()))
+                .orElse(null);
             
-            if (attempt.getQuiz() != null) {
-                attempt.setPassed(percentage >= attempt.getQuiz().getPassingScore());
+            if (submission == null) {
+                return ResponseEntity.status(404).body(Map.of("error", "Submission not found"));
             }
-            attempt.setSubmittedAt(LocalDateTime.now());
             
-            QuizAttempt saved = quizAttemptRepository.save(attempt);
-            return ResponseEntity.ok(saved);
+            return ResponseEntity.ok(QuizSubmissionService.statusPayload(submission));
         } catch (Exception e) {
             e.printStackTrace();
-            return ResponseEntity.status(500).body(Map.of("error", "Error submitting quiz", "message", e.getMessage() != null ? e.getMessage() : "Unknown error"));
+            return ResponseEntity.status(500).body(Map.of("error", "Error fetching submission", "message", e.getMessage() != null ? e.getMessage() : "Unknown error"));
         }
     }
     
@@ -210,7 +202,7 @@ public class UserQuizController {
             }
             
             String email = authentication.getName();
-            User user = userRepository.findByEmail(email)
+            User user = currentUserService.findByEmail(email)
                 .orElse(null);
             
             if (user == null) {
@@ -229,11 +221,62 @@ public class UserQuizController {
         }
     }
     
-    private boolean checkAnswer(QuizQuestion question, String userAnswer) {
-        if (question.getCorrectAnswer() == null) {
-            return false;
+    /**
+     * Enregistre la soumission ; le corps de la réponse est la {@link QuizSubmission} en cas de succès
+     */
+    private ResponseEntity<?> acceptSubmission(String attemptId, List<Map<String, Object>> answerData,
+                                               String idempotencyKey, Authentication authentication) {
+        try {
+            if (authentication == null || authentication.getName() == null) {
+                return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
+            }
+            
+            if (attemptId == null || attemptId.isEmpty()) {
+                return ResponseEntity.badRequest().body(Map.of("error", "Attempt ID is required"));
+            }
+            
+            if (answerData == null || answerData.isEmpty()) {
+                return ResponseEntity.badRequest().body(Map.of("error", "Answers are required"));
+            }
+            
+            User user = currentUserService.findByEmail(authentication.getName())
+                .orElse(null);
+            
+            if (user == null) {
+                return ResponseEntity.status(404).body(Map.of("error", "User not found"));
+            }
+            
+            try {
+                return ResponseEntity.ok(quizSubmissionService.submit(user.getId(), attemptId, idempotencyKey, answerData));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.status(404).body(Map.of("error", "Attempt not found"));
+            } catch (IllegalStateException e) {
+                return ResponseEntity.status(409).body(Map.of("error", e.getMessage()));
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body(Map.of("error", "Error submitting quiz", "message", e.getMessage() != null ? e.getMessage() : "Unknown error"));
         }
-        return question.getCorrectAnswer().equalsIgnoreCase(userAnswer.trim());
+    }
+    
+    /**
+     * Réponse de l'endpoint synchrone : la tentative corrigée, comme avant le pipeline
+     */
+    private ResponseEntity<?> toAttemptResponse(QuizSubmission submission) {
+        if (submission.getStatus() == QuizSubmission.SubmissionStatus.FAILED) {
+            return ResponseEntity.status(500).body(Map.of("error", "Error submitting quiz", "message", submission.getError() != null ? submission.getError() : "Unknown error"));
+        }
+        Map<String, Object> response = new HashMap<>(QuizSubmissionService.statusPayload(submission));
+        quizAttemptRepository.findById(submission.getAttemptId()).ifPresent(attempt -> {
+            response.put("id", attempt.getId());
+            response.put("quizId", attempt.getQuiz() != null ? attempt.getQuiz().getId() : null);
+            response.put("userId", attempt.getUser() != null ? attempt.getUser().getId() : null);
+            response.put("attemptNumber", attempt.getAttemptNumber());
+            response.put("startedAt", attempt.getStartedAt());
+            response.put("submittedAt", attempt.getSubmittedAt());
+            response.put("score", attempt.getScore());
+            response.put("passed", attempt.isPassed());
+        });
+        return ResponseEntity.ok(response);
     }
 }
-
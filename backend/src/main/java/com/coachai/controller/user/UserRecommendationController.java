@@ -3,7 +3,7 @@ package com.coachai.controller.user;
 import com.coachai.model.AIRecommendation;
 import com.coachai.model.User;
 import com.coachai.repository.AIRecommendationRepository;
-import com.coachai.repository.UserRepository;
+import com.coachai.service.CurrentUserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -23,7 +23,7 @@ public class UserRecommendationController {
     private AIRecommendationRepository aiRecommendationRepository;
     
     @Autowired
-    private UserRepository userRepository;
+    private CurrentUserService currentUserService;
     
     /**
      * Récupère les recommandations IA approuvées (PUBLISHED) pour l'étudiant connecté
@@ -36,7 +36,7 @@ public class UserRecommendationController {
             }
             
             String email = authentication.getName();
-            User user = userRepository.findByEmail(email)
+            User user = currentUserService.findByEmail(email)
                 .orElse(null);
             
             if (user == null) {
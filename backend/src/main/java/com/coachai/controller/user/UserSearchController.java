@@ -1,43 +1,36 @@
 package com.coachai.controller.user;
 
-import com.coachai.model.*;
-import com.coachai.model.Module;
-import com.coachai.repository.*;
+import com.coachai.service.SearchIndexService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/user/search")
-@CrossOrigin(origins = "http://localhost:4200")
+@CrossOrigin(origins = "http://localhost:4200", exposedHeaders = "X-Total-Count")
 public class UserSearchController {
-    @Autowired
-    private CourseRepository courseRepository;
-    
-    @Autowired
-    private ModuleRepository moduleRepository;
-    
-    @Autowired
-    private LessonRepository lessonRepository;
-    
-    @Autowired
-    private QuizRepository quizRepository;
+    private static final int MAX_PAGE_SIZE = 100;
     
     @Autowired
-    private ConversationRepository conversationRepository;
-    
-    @Autowired
-    private UserRepository userRepository;
+    private SearchIndexService searchIndexService;
     
+    /**
+     * Recherche plein texte dans l'index des contenus (classement BM25).
+     * La page demandée est renvoyée dans le corps, le nombre total de résultats dans X-Total-Count.
+     */
     @GetMapping
     public ResponseEntity<?> search(
             @RequestParam String query,
             @RequestParam(required = false) List<String> type,
             @RequestParam(required = false) List<String> niveau,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
             Authentication authentication) {
         try {
             if (authentication == null || authentication.getName() == null) {
@@ -48,119 +41,29 @@ public class UserSearchController {
                 return ResponseEntity.ok(List.of());
             }
             
-            String searchQuery = query.toLowerCase().trim();
-            List<Map<String, Object>> results = new ArrayList<>();
-            
-            // Search courses
+            // "course" et "module" couvrent tous deux les cours et les modules
+            Set<String> types = new HashSet<>();
             if (type == null || type.contains("course") || type.contains("module")) {
-                List<Course> courses = courseRepository.findAll();
-                for (Course course : courses) {
-                    if ((course.getTitle() != null && course.getTitle().toLowerCase().contains(searchQuery)) ||
-                        (course.getDescription() != null && course.getDescription().toLowerCase().contains(searchQuery))) {
-                        results.add(Map.of(
-                            "id", course.getId(),
-                            "type", "course",
-                            "title", course.getTitle() != null ? course.getTitle() : "",
-                            "description", course.getDescription() != null ? course.getDescription() : "",
-                            "url", "/user/courses/" + course.getId(),
-                            "relevance", 90,
-                            "category", "Cours",
-                            "metadata", Map.of(
-                                "niveau", "Moyen",
-                                "duration", course.getDuration() != null ? course.getDuration() + "h" : "0h"
-                            )
-                        ));
-                    }
-                }
-                
-                // Search modules
-                List<Module> modules = moduleRepository.findAll();
-                for (Module module : modules) {
-                    if ((module.getTitle() != null && module.getTitle().toLowerCase().contains(searchQuery)) ||
-                        (module.getDescription() != null && module.getDescription().toLowerCase().contains(searchQuery))) {
-                        results.add(Map.of(
-                            "id", module.getId(),
-                            "type", "module",
-                            "title", module.getTitle() != null ? module.getTitle() : "",
-                            "description", module.getDescription() != null ? module.getDescription() : "",
-                            "url", "/user/learning-path/module/" + module.getId(),
-                            "relevance", 85,
-                            "category", "Module",
-                    "metadata", Map.of(
-                        "niveau", module.getFormation() != null && module.getFormation().getLevel() != null ? 
-                                 module.getFormation().getLevel().toString() : "Moyen",
-                        "duration", module.getDuration() + "h"
-                    )
-                        ));
-                    }
-                }
+                types.add(SearchIndexService.TYPE_COURSE);
+                types.add(SearchIndexService.TYPE_MODULE);
             }
-            
-            // Search lessons
             if (type == null || type.contains("lesson")) {
-                List<Lesson> lessons = lessonRepository.findAll();
-                for (Lesson lesson : lessons) {
-                    if ((lesson.getTitle() != null && lesson.getTitle().toLowerCase().contains(searchQuery)) ||
-                        (lesson.getDescription() != null && lesson.getDescription().toLowerCase().contains(searchQuery))) {
-                        results.add(Map.of(
-                            "id", lesson.getId(),
-                            "type", "lesson",
-                            "title", lesson.getTitle() != null ? lesson.getTitle() : "",
-                            "description", lesson.getDescription() != null ? lesson.getDescription() : "",
-                            "url", "/user/lessons/" + lesson.getId(),
-                            "relevance", 80,
-                            "category", "Leçon",
-                            "metadata", Map.of(
-                                "moduleTitle", lesson.getCourse() != null && lesson.getCourse().getModule() != null ?
-                                              lesson.getCourse().getModule().getTitle() : ""
-                            )
-                        ));
-                    }
-                }
+                types.add(SearchIndexService.TYPE_LESSON);
             }
-            
-            // Search quizzes
             if (type == null || type.contains("quiz")) {
-                List<Quiz> quizzes = quizRepository.findAll();
-                for (Quiz quiz : quizzes) {
-                    if ((quiz.getTitle() != null && quiz.getTitle().toLowerCase().contains(searchQuery)) ||
-                        (quiz.getDescription() != null && quiz.getDescription().toLowerCase().contains(searchQuery))) {
-                        results.add(Map.of(
-                            "id", quiz.getId(),
-                            "type", "quiz",
-                            "title", quiz.getTitle() != null ? quiz.getTitle() : "",
-                            "description", quiz.getDescription() != null ? quiz.getDescription() : "",
-                            "url", "/user/quiz/" + quiz.getId(),
-                            "relevance", 75,
-                            "category", "Quiz",
-                            "metadata", Map.of(
-                                "difficulty", quiz.getDifficulty() != null ? quiz.getDifficulty().toString() : "Moyen",
-                                "questionsCount", quiz.getQuestions() != null ? quiz.getQuestions().size() : 0
-                            )
-                        ));
-                    }
-                }
+                types.add(SearchIndexService.TYPE_QUIZ);
             }
             
-            // Filter by niveau if provided
-            if (niveau != null && !niveau.isEmpty()) {
-                results = results.stream()
-                    .filter(r -> {
-                        Map<String, Object> metadata = (Map<String, Object>) r.get("metadata");
-                        String resultNiveau = metadata != null ? (String) metadata.get("niveau") : null;
-                        return resultNiveau != null && niveau.contains(resultNiveau);
-                    })
-                    .collect(Collectors.toList());
-            }
-            
-            // Sort by relevance
-            results.sort((a, b) -> Integer.compare((Integer) b.get("relevance"), (Integer) a.get("relevance")));
+            int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+            SearchIndexService.SearchPage results = searchIndexService.search(
+                query, types, niveau, Math.max(0, page), pageSize);
             
-            return ResponseEntity.ok(results);
+            return ResponseEntity.ok()
+                .header("X-Total-Count", String.valueOf(results.getTotal()))
+                .body(results.getResults());
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(500).body(Map.of("error", "Error performing search", "message", e.getMessage() != null ? e.getMessage() : "Unknown error"));
         }
     }
 }
-
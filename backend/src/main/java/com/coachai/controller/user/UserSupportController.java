@@ -5,7 +5,7 @@ import com.coachai.model.TicketMessage;
 import com.coachai.model.User;
 import com.coachai.repository.SupportTicketRepository;
 import com.coachai.repository.TicketMessageRepository;
-import com.coachai.repository.UserRepository;
+import com.coachai.service.CurrentUserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -19,7 +19,7 @@ import java.util.Map;
 @CrossOrigin(origins = "http://localhost:4200")
 public class UserSupportController {
     @Autowired
-    private UserRepository userRepository;
+    private CurrentUserService currentUserService;
     
     @Autowired
     private SupportTicketRepository supportTicketRepository;
@@ -35,7 +35,7 @@ public class UserSupportController {
             }
             
             String email = authentication.getName();
-            User user = userRepository.findByEmail(email)
+            User user = currentUserService.findByEmail(email)
                 .orElse(null);
             
             if (user == null) {
@@ -104,7 +104,7 @@ public class UserSupportController {
             }
             
             String email = authentication.getName();
-            User user = userRepository.findByEmail(email)
+            User user = currentUserService.findByEmail(email)
                 .orElse(null);
             
             if (user == null) {
@@ -218,7 +218,7 @@ public class UserSupportController {
             }
             
             String email = authentication.getName();
-            User user = userRepository.findByEmail(email)
+            User user = currentUserService.findByEmail(email)
                 .orElse(null);
             
             if (user == null) {
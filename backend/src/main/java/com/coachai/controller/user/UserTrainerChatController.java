@@ -5,7 +5,9 @@ import com.coachai.model.Conversation;
 import com.coachai.model.User;
 import com.coachai.repository.ChatMessageRepository;
 import com.coachai.repository.ConversationRepository;
-import com.coachai.repository.UserRepository;
+import com.coachai.service.ChatHistoryService;
+import com.coachai.service.CurrentUserService;
+import com.coachai.service.TrainerInboxService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -15,19 +17,29 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/user/trainer-chat")
-@CrossOrigin(origins = "http://localhost:4200")
+@CrossOrigin(origins = "http://localhost:4200", exposedHeaders = {"X-Before-Cursor", "X-After-Cursor", "X-Has-More"})
 public class UserTrainerChatController {
     @Autowired
     private ChatMessageRepository chatMessageRepository;
     
+    @Autowired
+    private ChatHistoryService chatHistoryService;
+    
     @Autowired
     private ConversationRepository conversationRepository;
     
     @Autowired
-    private UserRepository userRepository;
+    private CurrentUserService currentUserService;
+
+    @Autowired
+    private com.coachai.service.StudentFeatureService studentFeatureService;
+    
+    @Autowired
+    private TrainerInboxService trainerInboxService;
     
     /**
      * Get all conversations between the authenticated user and trainers
@@ -40,7 +52,7 @@ public class UserTrainerChatController {
             }
             
             String email = authentication.getName();
-            User user = userRepository.findByEmail(email)
+            User user = currentUserService.findByEmail(email)
                 .orElse(null);
             
             if (user == null) {
@@ -50,6 +62,11 @@ public class UserTrainerChatController {
             // Get all conversations for this user
             List<Conversation> conversations = conversationRepository.findByUserOrderByLastMessageDateDesc(user);
             
+            // Messages du formateur non lus, toutes conversations en une requête
+            Map<String, Long> unreadCounts = trainerInboxService.countUnread(
+                conversations.stream().map(Conversation::getId).collect(Collectors.toList()),
+                ChatMessage.MessageSender.AI);
+            
             List<Map<String, Object>> conversationsList = new ArrayList<>();
             for (Conversation conv : conversations) {
                 Map<String, Object> convMap = new HashMap<>();
@@ -58,6 +75,7 @@ public class UserTrainerChatController {
                 convMap.put("lastMessage", conv.getLastMessage());
                 convMap.put("lastMessageDate", conv.getLastMessageDate());
                 convMap.put("messagesCount", conv.getMessagesCount());
+                convMap.put("unreadCount", unreadCounts.getOrDefault(conv.getId(), 0L));
                 conversationsList.add(convMap);
             }
             
@@ -74,6 +92,9 @@ public class UserTrainerChatController {
     @GetMapping("/conversation/{conversationId}/messages")
     public ResponseEntity<?> getConversationMessages(
             @PathVariable String conversationId,
+            @RequestParam(required = false) String before,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit,
             Authentication authentication) {
         try {
             if (authentication == null || authentication.getName() == null) {
@@ -81,7 +102,7 @@ public class UserTrainerChatController {
             }
             
             String email = authentication.getName();
-            User user = userRepository.findByEmail(email)
+            User user = currentUserService.findByEmail(email)
                 .orElse(null);
             
             if (user == null) {
@@ -100,7 +121,13 @@ public class UserTrainerChatController {
                 return ResponseEntity.status(403).body(Map.of("error", "Access denied"));
             }
             
-            List<ChatMessage> messages = chatMessageRepository.findByConversationOrderByTimestampAsc(conversation);
+            ChatHistoryService.MessagePage page;
+            try {
+                page = chatHistoryService.getPage(conversation, before, after, limit);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(Map.of("error", "Invalid cursor"));
+            }
+            List<ChatMessage> messages = page.getMessages();
             
             List<Map<String, Object>> messagesList = new ArrayList<>();
             for (ChatMessage msg : messages) {
@@ -113,13 +140,55 @@ public class UserTrainerChatController {
                 messagesList.add(messageMap);
             }
             
-            return ResponseEntity.ok(messagesList);
+            return ResponseEntity.ok()
+                .headers(headers -> page.headers().forEach(headers::add))
+                .body(messagesList);
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(500).body(Map.of("error", "Error fetching messages", "message", e.getMessage() != null ? e.getMessage() : "Unknown error"));
         }
     }
     
+    /**
+     * Mark the trainer's messages of a conversation as read
+     */
+    @PostMapping("/conversation/{conversationId}/read")
+    public ResponseEntity<?> markConversationRead(
+            @PathVariable String conversationId,
+            Authentication authentication) {
+        try {
+            if (authentication == null || authentication.getName() == null) {
+                return ResponseEntity.status(401).body(Map.of("error", "Unauthorized"));
+            }
+            
+            String email = authentication.getName();
+            User user = currentUserService.findByEmail(email)
+                .orElse(null);
+            
+            if (user == null) {
+                return ResponseEntity.status(404).body(Map.of("error", "User not found"));
+            }
+            
+            Conversation conversation = conversationRepository.findById(conversationId)
+                .orElse(null);
+            
+            if (conversation == null) {
+                return ResponseEntity.status(404).body(Map.of("error", "Conversation not found"));
+            }
+            
+            // Verify that the conversation belongs to the authenticated user
+            if (!conversation.getUser().getId().equals(user.getId())) {
+                return ResponseEntity.status(403).body(Map.of("error", "Access denied"));
+            }
+            
+            int marked = trainerInboxService.markReadByStudent(conversation);
+            return ResponseEntity.ok(Map.of("conversationId", conversationId, "marked", marked, "unreadCount", 0));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body(Map.of("error", "Error marking conversation as read", "message", e.getMessage() != null ? e.getMessage() : "Unknown error"));
+        }
+    }
+    
     /**
      * Send a message from user to trainer
      */
@@ -134,7 +203,7 @@ public class UserTrainerChatController {
             }
             
             String email = authentication.getName();
-            User user = userRepository.findByEmail(email)
+            User user = currentUserService.findByEmail(email)
                 .orElse(null);
             
             if (user == null) {
@@ -165,6 +234,8 @@ public class UserTrainerChatController {
             message.setRead(false);
             
             ChatMessage saved = chatMessageRepository.save(message);
+            studentFeatureService.recordChatMessage(saved);
+            trainerInboxService.publishInboxMessage(saved);
             
             // Update conversation last message
             conversation.setLastMessage(content);
@@ -192,7 +263,7 @@ public class UserTrainerChatController {
             }
             
             String email = authentication.getName();
-            User user = userRepository.findByEmail(email)
+            User user = currentUserService.findByEmail(email)
                 .orElse(null);
             
             if (user == null) {
@@ -211,6 +282,7 @@ public class UserTrainerChatController {
             conversation.setMessagesCount(0);
             
             Conversation saved = conversationRepository.save(conversation);
+            studentFeatureService.recordConversation(saved);
             
             Map<String, Object> response = new HashMap<>();
             response.put("id", saved.getId());
@@ -0,0 +1,26 @@
+package com.coachai.dto;
+
+import com.coachai.model.ChatMessage;
+import com.coachai.model.User;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Message de conversation IA et auteur de la conversation, lus en une requête (journal admin)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AiInteractionDto {
+    private String id;
+    private LocalDateTime timestamp;
+    private ChatMessage.MessageSender sender;
+    private String content;
+    private String userId;
+    private String userFirstName;
+    private String userLastName;
+    private User.UserRole userRole;
+}
@@ -0,0 +1,21 @@
+package com.coachai.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Cumul des agrégats quotidiens des conversations IA et dernier jour agrégé (null si aucun)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AiInteractionTotalsDto {
+    private Long userMessages;
+    private Long aiMessages;
+    private Long responseTimeTotalMs;
+    private Long responseTimeSamples;
+    private LocalDate lastStatsDate;
+}
@@ -0,0 +1,16 @@
+package com.coachai.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Nombre de lectures d'une diffusion de notification
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BroadcastReadCountDto {
+    private String broadcastId;
+    private Long readCount;
+}
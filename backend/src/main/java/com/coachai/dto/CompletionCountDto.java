@@ -0,0 +1,24 @@
+package com.coachai.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Nombre total d'éléments et nombre d'éléments terminés (leçons vues, quiz réussis)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CompletionCountDto {
+    private Long total;
+    private Long completed;
+    
+    public int totalAsInt() {
+        return total != null ? total.intValue() : 0;
+    }
+    
+    public int completedAsInt() {
+        return completed != null ? completed.intValue() : 0;
+    }
+}
@@ -0,0 +1,16 @@
+package com.coachai.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Nombre de messages d'une conversation (résultat d'un GROUP BY conversation)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConversationCountDto {
+    private String conversationId;
+    private Long count;
+}
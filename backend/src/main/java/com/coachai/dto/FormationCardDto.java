@@ -1,5 +1,6 @@
 package com.coachai.dto;
 
+import com.coachai.model.Formation;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -24,6 +25,31 @@ public class FormationCardDto {
     // Informations formateur
     private TrainerInfoDto trainer;
     
+    /**
+     * Projection JPQL du catalogue public (les compteurs sont renseignés ensuite)
+     */
+    public FormationCardDto(String id, String title, String description, String thumbnail, String category,
+                            Formation.Level level, Double duration, Integer enrolledCount, Double completionRate,
+                            String trainerId, String trainerFirstName, String trainerLastName,
+                            String trainerAvatarUrl, String trainerBio) {
+        this.id = id;
+        this.title = title;
+        this.description = description;
+        this.thumbnail = thumbnail;
+        this.category = category;
+        this.level = level != null ? level.name() : "DEBUTANT";
+        this.duration = duration != null ? duration : 0.0;
+        this.enrolledCount = enrolledCount != null ? enrolledCount : 0;
+        this.completionRate = completionRate != null ? completionRate : 0.0;
+        if (trainerId != null) {
+            this.trainer = new TrainerInfoDto(trainerId,
+                trainerFirstName != null ? trainerFirstName : "",
+                trainerLastName != null ? trainerLastName : "",
+                trainerAvatarUrl != null ? trainerAvatarUrl : "",
+                trainerBio);
+        }
+    }
+    
     @Data
     @NoArgsConstructor
     @AllArgsConstructor
@@ -0,0 +1,16 @@
+package com.coachai.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Nombre d'éléments rattachés à une formation (résultat d'un GROUP BY formation)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FormationCountDto {
+    private String formationId;
+    private Long count;
+}
@@ -0,0 +1,20 @@
+package com.coachai.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Statistiques d'activité des étudiants pour une formation (résultat d'un GROUP BY formation)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FormationStudentStatsDto {
+    private String formationId;
+    private Long totalStudents;
+    private Long activeStudents; // activité dans les 30 derniers jours
+    private Double averageProgress; // null si aucune progression
+    private Long completedCount; // progressions à 100%
+    private Double averageScore; // moyenne des scores de quiz non nuls
+}
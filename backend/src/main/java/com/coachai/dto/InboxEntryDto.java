@@ -0,0 +1,30 @@
+package com.coachai.dto;
+
+import com.coachai.model.ChatMessage;
+import com.coachai.model.User;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entrée de la boîte de réception formateur : dernier message d'une conversation et son apprenant
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InboxEntryDto {
+    private String conversationId;
+    private String messageId;
+    private String content;
+    private ChatMessage.MessageSender sender;
+    private LocalDateTime timestamp;
+    private boolean read;
+    private String userId;
+    private String userFirstName;
+    private String userLastName;
+    private String userEmail;
+    private User.UserRole userRole;
+    private long unreadCount; // messages de l'apprenant non lus par le formateur
+}
@@ -0,0 +1,23 @@
+package com.coachai.dto;
+
+import com.coachai.model.Lesson;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Leçon d'une formation avec son module et son cours (plan du parcours d'apprentissage)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LessonOutlineDto {
+    private String moduleId;
+    private String courseId;
+    private String id;
+    private String title;
+    private String description;
+    private Lesson.LessonType type;
+    private Integer duration;
+    private Integer lessonNumber;
+}
@@ -0,0 +1,19 @@
+package com.coachai.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Identifiant, contenu et date d'un message : une ligne de lecture par curseur (timestamp, id)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MessageContentDto {
+    private String id;
+    private String content;
+    private LocalDateTime timestamp;
+}
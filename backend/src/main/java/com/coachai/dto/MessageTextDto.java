@@ -0,0 +1,18 @@
+package com.coachai.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Contenu et date d'un message, lus sans charger l'entité ChatMessage
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MessageTextDto {
+    private String content;
+    private LocalDateTime timestamp;
+}
@@ -0,0 +1,17 @@
+package com.coachai.dto;
+
+import com.coachai.model.ChatMessage;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Nombre de messages par émetteur (résultat d'un GROUP BY)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SenderCountDto {
+    private ChatMessage.MessageSender sender;
+    private Long count;
+}
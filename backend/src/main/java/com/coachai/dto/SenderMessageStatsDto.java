@@ -0,0 +1,22 @@
+package com.coachai.dto;
+
+import com.coachai.model.ChatMessage;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Agrégats des messages d'un utilisateur pour un émetteur : nombre, longueur cumulée, premier et dernier message
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SenderMessageStatsDto {
+    private ChatMessage.MessageSender sender;
+    private Long count;
+    private Long totalLength;
+    private LocalDateTime firstTimestamp;
+    private LocalDateTime lastTimestamp;
+}
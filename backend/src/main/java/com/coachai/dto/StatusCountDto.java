@@ -0,0 +1,17 @@
+package com.coachai.dto;
+
+import com.coachai.model.ContentStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Nombre d'éléments de contenu par statut (résultat d'un GROUP BY)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatusCountDto {
+    private ContentStatus status;
+    private Long count;
+}
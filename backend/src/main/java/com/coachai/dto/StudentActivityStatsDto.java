@@ -0,0 +1,17 @@
+package com.coachai.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Statistiques d'activité des étudiants inscrits aux cours d'un formateur
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StudentActivityStatsDto {
+    private Long totalStudents;
+    private Long activeStudents; // activité dans les 30 derniers jours
+    private Double averageProgress; // null si aucune progression
+}
@@ -0,0 +1,39 @@
+package com.coachai.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Agrégats d'une journée révolue des conversations IA (statistiques admin).
+ * Calculée une fois la journée terminée ; les statistiques cumulent ces lignes
+ * et ne relisent que les messages postérieurs au dernier jour agrégé.
+ */
+@Entity
+@Table(name = "ai_interaction_daily_stats")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AiInteractionDailyStats {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private String id;
+
+    @Column(nullable = false, unique = true)
+    private LocalDate statsDate;
+
+    private long userMessages = 0;
+
+    private long aiMessages = 0;
+
+    // Délais entre un message utilisateur et la réponse IA qui le suit (entre 0 et 60 s)
+    private long responseTimeTotalMs = 0;
+
+    private long responseTimeSamples = 0;
+
+    private LocalDateTime computedAt;
+}
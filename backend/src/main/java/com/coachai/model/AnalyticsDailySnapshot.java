@@ -0,0 +1,57 @@
+package com.coachai.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Instantané quotidien des indicateurs de la plateforme (tableau de bord admin).
+ * La ligne du jour est recalculée périodiquement ; les jours passés sont figés
+ * et servent au calcul des évolutions (semaine sur semaine, 30 jours).
+ */
+@Entity
+@Table(name = "analytics_daily_snapshots")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnalyticsDailySnapshot {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private String id;
+
+    @Column(nullable = false, unique = true)
+    private LocalDate snapshotDate;
+
+    // Utilisateurs
+    private long totalUsers = 0;
+
+    private long activeStatusUsers = 0; // statut ACTIVE
+
+    private long usersJoinedBefore30Days = 0;
+
+    private long activeUsersLast7Days = 0; // lastActive dans les 7 derniers jours
+
+    private long activeUsersPrevious7Days = 0; // lastActive entre J-14 et J-7
+
+    // Catalogue et inscriptions
+    private long totalFormations = 0;
+
+    private long totalCourses = 0;
+
+    private long publishedCourses = 0;
+
+    private long formationEnrollments = 0;
+
+    // Progression
+    private long completions = 0; // progressions de formation à 100%
+
+    private double averageProgress = 0.0;
+
+    private long completedModules = 0; // base de l'estimation des heures d'étude
+
+    private LocalDateTime computedAt;
+}
@@ -0,0 +1,40 @@
+package com.coachai.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Nombre d'utilisateurs par segment (rôle ou statut) pour un jour donné
+ */
+@Entity
+@Table(name = "analytics_segment_counts",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"snapshot_date", "dimension", "segment"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnalyticsSegmentCount {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private String id;
+
+    @Column(name = "snapshot_date", nullable = false)
+    private LocalDate snapshotDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Dimension dimension;
+
+    @Column(nullable = false)
+    private String segment;
+
+    @Column(name = "user_count")
+    private long count = 0;
+
+    public enum Dimension {
+        ROLE, STATUS
+    }
+}
@@ -12,11 +12,18 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "chat_messages")
+@Table(name = "chat_messages", indexes = {
+    // Pagination par curseur (timestamp, id) dans une conversation
+    @Index(name = "idx_chat_messages_conversation_timestamp_id", columnList = "conversation_id, timestamp, id"),
+    // Journal admin des interactions et agrégats par période
+    @Index(name = "idx_chat_messages_timestamp_id", columnList = "timestamp, id"),
+    // Messages non lus d'un participant par conversation
+    @Index(name = "idx_chat_messages_conversation_sender_read", columnList = "conversation_id, sender, read")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@EntityListeners(AuditingEntityListener.class)
+@EntityListeners({AuditingEntityListener.class, com.coachai.service.PushEventListener.class})
 public class ChatMessage {
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
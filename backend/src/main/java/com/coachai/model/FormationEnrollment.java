@@ -14,7 +14,11 @@ import java.time.LocalDateTime;
  * Inscription d'un apprenant à une formation
  */
 @Entity
-@Table(name = "formation_enrollments")
+@Table(name = "formation_enrollments", indexes = {
+    @Index(name = "idx_formation_enrollments_enrolled_at", columnList = "enrolled_at, id"),
+    @Index(name = "idx_formation_enrollments_formation_enrolled_at", columnList = "formation_id, enrolled_at"),
+    @Index(name = "idx_formation_enrollments_status_enrolled_at", columnList = "status, enrolled_at")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -17,7 +17,7 @@ import java.util.List;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@EntityListeners(AuditingEntityListener.class)
+@EntityListeners({AuditingEntityListener.class, com.coachai.service.ContentChangeListener.class})
 public class Lesson {
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
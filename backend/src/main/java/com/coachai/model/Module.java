@@ -15,7 +15,7 @@ import java.time.LocalDateTime;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@EntityListeners(AuditingEntityListener.class)
+@EntityListeners({AuditingEntityListener.class, com.coachai.service.ContentChangeListener.class})
 public class Module {
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
@@ -0,0 +1,61 @@
+package com.coachai.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.LocalDateTime;
+
+/**
+ * Notification envoyée à toute une audience (tous les utilisateurs ou un rôle).
+ * Une seule ligne par envoi : la diffusion est résolue à la lecture pour chaque
+ * utilisateur inscrit avant l'envoi, et seule la lecture crée une ligne
+ * ({@link NotificationBroadcastReceipt}).
+ */
+@Entity
+@Table(name = "notification_broadcasts", indexes = {
+    @Index(name = "idx_notification_broadcasts_role_created", columnList = "target_role, created_at"),
+    @Index(name = "idx_notification_broadcasts_created", columnList = "created_at, id"),
+    @Index(name = "idx_notification_broadcasts_type_created", columnList = "type, created_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@EntityListeners({AuditingEntityListener.class, com.coachai.service.PushEventListener.class})
+public class NotificationBroadcast {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private String id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private UserNotification.NotificationType type;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private UserNotification.NotificationPriority priority = UserNotification.NotificationPriority.MEDIUM;
+
+    @Column(nullable = false)
+    private String title;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String message;
+
+    private String actionUrl;
+
+    // Rôle ciblé ; null pour tous les utilisateurs
+    @Enumerated(EnumType.STRING)
+    @Column(name = "target_role")
+    private User.UserRole targetRole;
+
+    private long totalRecipients = 0; // utilisateurs de l'audience au moment de l'envoi
+
+    private String createdBy; // "admin", "system", etc.
+
+    @CreatedDate
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,37 @@
+package com.coachai.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lecture d'une diffusion par un utilisateur (absence de ligne = non lue)
+ */
+@Entity
+@Table(name = "notification_broadcast_receipts", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_broadcast_receipts_broadcast_user", columnNames = {"broadcast_id", "user_id"})
+}, indexes = {
+    @Index(name = "idx_broadcast_receipts_user", columnList = "user_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationBroadcastReceipt {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private String id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "broadcast_id", nullable = false)
+    private NotificationBroadcast broadcast;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Column(nullable = false)
+    private LocalDateTime readAt;
+}
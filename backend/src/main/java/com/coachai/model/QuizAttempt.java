@@ -12,7 +12,11 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "quiz_attempts")
+@Table(name = "quiz_attempts", uniqueConstraints = {
+    // Numéro de tentative unique par (utilisateur, quiz) : deux démarrages concurrents ne peuvent pas dépasser maxAttempts.
+    // Bases existantes : doublons renumérotés et contrainte créée au démarrage (DataInitializer)
+    @UniqueConstraint(name = "uk_quiz_attempts_user_quiz_number", columnNames = {"user_id", "quiz_id", "attempt_number"})
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
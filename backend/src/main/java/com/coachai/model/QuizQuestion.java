@@ -13,6 +13,7 @@ import java.util.List;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+@EntityListeners(com.coachai.service.ContentChangeListener.class)
 public class QuizQuestion {
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
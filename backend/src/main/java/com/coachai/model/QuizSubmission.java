@@ -0,0 +1,68 @@
+package com.coachai.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.LocalDateTime;
+
+/**
+ * Soumission d'une tentative de quiz, corrigée en arrière-plan.
+ * Une seule soumission par tentative, et une seule par clé d'idempotence et utilisateur :
+ * un renvoi (double clic, nouvelle tentative réseau) retrouve la soumission existante.
+ */
+@Entity
+@Table(name = "quiz_submissions", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_quiz_submissions_attempt", columnNames = {"attempt_id"}),
+    @UniqueConstraint(name = "uk_quiz_submissions_user_key", columnNames = {"user_id", "submission_key"})
+}, indexes = {
+    @Index(name = "idx_quiz_submissions_status_created", columnList = "status, created_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@EntityListeners(AuditingEntityListener.class)
+public class QuizSubmission {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private String id;
+
+    @Column(name = "attempt_id", nullable = false)
+    private String attemptId;
+
+    @Column(name = "user_id", nullable = false)
+    private String userId;
+
+    // Clé d'idempotence fournie par le client (en-tête Idempotency-Key), facultative
+    @Column(name = "submission_key")
+    private String submissionKey;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private SubmissionStatus status = SubmissionStatus.QUEUED;
+
+    // Réponses soumises (JSON), conservées jusqu'à la correction
+    @Column(columnDefinition = "TEXT")
+    @com.fasterxml.jackson.annotation.JsonIgnore
+    private String answers;
+
+    private Double score;
+
+    private Boolean passed;
+
+    @Column(columnDefinition = "TEXT")
+    private String error;
+
+    @CreatedDate
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime gradedAt;
+
+    public enum SubmissionStatus {
+        QUEUED, GRADING, GRADED, FAILED
+    }
+}
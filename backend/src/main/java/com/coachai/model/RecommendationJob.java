@@ -0,0 +1,82 @@
+package com.coachai.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.LocalDateTime;
+
+/**
+ * Exécution en arrière-plan de la génération de recommandations sur l'ensemble des étudiants.
+ * Les étudiants sont traités par identifiant croissant et par lots : après chaque lot,
+ * les compteurs et le dernier identifiant traité (checkpoint) sont enregistrés, ce qui
+ * permet de reprendre un job interrompu (redémarrage) sans repartir du début.
+ */
+@Entity
+@Table(name = "recommendation_jobs", indexes = {
+    @Index(name = "idx_recommendation_jobs_type_status", columnList = "type, status")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@EntityListeners(AuditingEntityListener.class)
+public class RecommendationJob {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private String id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private JobType type;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private JobMode mode = JobMode.FULL;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private JobStatus status = JobStatus.QUEUED;
+
+    private String requestedBy; // ID du formateur ou de l'admin
+
+    // Mode incrémental : seuls les étudiants ayant écrit depuis cette date sont analysés
+    private LocalDateTime since;
+
+    // Progression
+    private int totalStudents = 0;
+
+    private int processedStudents = 0;
+
+    private int failedStudents = 0;
+
+    private int recommendationsCreated = 0;
+
+    private String lastProcessedStudentId; // checkpoint : tous les étudiants d'ID <= sont traités
+
+    @Column(columnDefinition = "TEXT")
+    private String error;
+
+    @CreatedDate
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime finishedAt;
+
+    public enum JobType {
+        FORMATION, // recommandations de formation (niveau ML + spécialité dominante)
+        TOPIC      // recommandations par topic détecté dans les conversations
+    }
+
+    public enum JobMode {
+        FULL, INCREMENTAL
+    }
+
+    public enum JobStatus {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+}
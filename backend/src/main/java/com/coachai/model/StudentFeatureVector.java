@@ -0,0 +1,56 @@
+package com.coachai.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Agrégat des métriques d'un étudiant utilisées par le modèle ML de niveau.
+ * Maintenu incrémentalement à chaque écriture (message, quiz, exercice, progression)
+ * afin que la prédiction ne lise qu'une seule ligne.
+ */
+@Entity
+@Table(name = "student_feature_vectors")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StudentFeatureVector {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private String id;
+
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false, unique = true)
+    @com.fasterxml.jackson.annotation.JsonIgnore
+    private User user;
+
+    // Métriques de conversation
+    private int totalConversations = 0;
+
+    private long totalMessages = 0;
+
+    private long userMessageCount = 0;
+
+    private long totalUserMessageLength = 0;
+
+    private LocalDateTime firstConversationAt;
+
+    private LocalDateTime lastActivityAt;
+
+    // Métriques de performance académique
+    private int totalQuizzesTaken = 0;
+
+    private double quizAverageScore = 0.0;
+
+    private int totalExerciseSubmissions = 0;
+
+    private int totalExercisesCompleted = 0;
+
+    // Progression moyenne sur les cours (0-100)
+    private double averageCourseProgress = 0.0;
+
+    private LocalDateTime updatedAt;
+}
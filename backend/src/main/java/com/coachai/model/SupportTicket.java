@@ -13,7 +13,12 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "support_tickets")
+@Table(name = "support_tickets", indexes = {
+    @Index(name = "idx_support_tickets_created_at", columnList = "created_at, id"),
+    @Index(name = "idx_support_tickets_status_created_at", columnList = "status, created_at"),
+    @Index(name = "idx_support_tickets_priority_created_at", columnList = "priority, created_at"),
+    @Index(name = "idx_support_tickets_category_created_at", columnList = "category, created_at")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -13,11 +13,15 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+    @Index(name = "idx_users_joined_at", columnList = "joined_at, id"),
+    @Index(name = "idx_users_role_joined_at", columnList = "role, joined_at"),
+    @Index(name = "idx_users_status_joined_at", columnList = "status, joined_at")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@EntityListeners(AuditingEntityListener.class)
+@EntityListeners({AuditingEntityListener.class, com.coachai.service.UserChangeListener.class})
 public class User {
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
@@ -10,11 +10,14 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "user_notifications")
+@Table(name = "user_notifications", indexes = {
+    @Index(name = "idx_user_notifications_created_at", columnList = "created_at, id"),
+    @Index(name = "idx_user_notifications_type_created_at", columnList = "type, created_at")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@EntityListeners(AuditingEntityListener.class)
+@EntityListeners({AuditingEntityListener.class, com.coachai.service.PushEventListener.class})
 public class UserNotification {
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
@@ -2,8 +2,10 @@ package com.coachai.repository;
 
 import com.coachai.model.AIRecommendation;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -14,5 +16,16 @@ public interface AIRecommendationRepository extends JpaRepository<AIRecommendati
         AIRecommendation.RecommendationStatus status, 
         AIRecommendation.Priority priority
     );
+
+    // Recommandations existantes pour un étudiant (évite de charger toute la table)
+    @Query("SELECT COUNT(r) FROM AIRecommendation r JOIN r.targetStudents s " +
+           "WHERE s = :studentId AND r.specialty = :specialty AND r.level = :level AND r.status IN :statuses")
+    long countForStudent(String studentId, String specialty, String level,
+                         Collection<AIRecommendation.RecommendationStatus> statuses);
+
+    @Query("SELECT COUNT(r) FROM AIRecommendation r JOIN r.targetStudents s JOIN r.conversationTopics t " +
+           "WHERE s = :studentId AND t = :topic AND r.status IN :statuses")
+    long countForStudentAndTopic(String studentId, String topic,
+                                 Collection<AIRecommendation.RecommendationStatus> statuses);
 }
 
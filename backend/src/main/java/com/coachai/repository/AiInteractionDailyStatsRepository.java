@@ -0,0 +1,20 @@
+package com.coachai.repository;
+
+import com.coachai.dto.AiInteractionTotalsDto;
+import com.coachai.model.AiInteractionDailyStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface AiInteractionDailyStatsRepository extends JpaRepository<AiInteractionDailyStats, String> {
+    Optional<AiInteractionDailyStats> findFirstByOrderByStatsDateDesc();
+
+    // Cumul et dernier jour agrégé lus ensemble : les messages postérieurs sont comptés à la volée
+    @Query("SELECT new com.coachai.dto.AiInteractionTotalsDto(COALESCE(SUM(s.userMessages), 0), " +
+           "COALESCE(SUM(s.aiMessages), 0), COALESCE(SUM(s.responseTimeTotalMs), 0), " +
+           "COALESCE(SUM(s.responseTimeSamples), 0), MAX(s.statsDate)) FROM AiInteractionDailyStats s")
+    AiInteractionTotalsDto sumAll();
+}
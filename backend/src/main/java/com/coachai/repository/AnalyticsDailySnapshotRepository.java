@@ -0,0 +1,16 @@
+package com.coachai.repository;
+
+import com.coachai.model.AnalyticsDailySnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+@Repository
+public interface AnalyticsDailySnapshotRepository extends JpaRepository<AnalyticsDailySnapshot, String> {
+    Optional<AnalyticsDailySnapshot> findBySnapshotDate(LocalDate snapshotDate);
+
+    // Dernier instantané disponible à une date donnée (tolère les jours sans calcul)
+    Optional<AnalyticsDailySnapshot> findFirstBySnapshotDateLessThanEqualOrderBySnapshotDateDesc(LocalDate date);
+}
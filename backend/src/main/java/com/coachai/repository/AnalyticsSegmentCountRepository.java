@@ -0,0 +1,15 @@
+package com.coachai.repository;
+
+import com.coachai.model.AnalyticsSegmentCount;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface AnalyticsSegmentCountRepository extends JpaRepository<AnalyticsSegmentCount, String> {
+    List<AnalyticsSegmentCount> findBySnapshotDate(LocalDate snapshotDate);
+
+    List<AnalyticsSegmentCount> findBySnapshotDateAndDimension(LocalDate snapshotDate, AnalyticsSegmentCount.Dimension dimension);
+}
@@ -1,11 +1,29 @@
 package com.coachai.repository;
 
+import com.coachai.dto.AiInteractionDto;
+import com.coachai.dto.ConversationCountDto;
+import com.coachai.dto.InboxEntryDto;
+import com.coachai.dto.MessageContentDto;
+import com.coachai.dto.MessageTextDto;
+import com.coachai.dto.SenderCountDto;
+import com.coachai.dto.SenderMessageStatsDto;
 import com.coachai.model.ChatMessage;
 import com.coachai.model.Conversation;
+import com.coachai.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ChatMessageRepository extends JpaRepository<ChatMessage, String> {
@@ -13,6 +31,143 @@ public interface ChatMessageRepository extends JpaRepository<ChatMessage, String
     List<ChatMessage> findByConversationOrderByTimestampDesc(Conversation conversation);
     long countByConversation(Conversation conversation);
     List<ChatMessage> findByConversationAndSenderOrderByTimestampAsc(Conversation conversation, ChatMessage.MessageSender sender);
+    
+    // Pagination par curseur (timestamp, id) : messages les plus récents
+    @Query("SELECT m FROM ChatMessage m WHERE m.conversation = :conversation " +
+           "ORDER BY m.timestamp DESC, m.id DESC")
+    List<ChatMessage> findLatest(Conversation conversation, Pageable pageable);
+    
+    // Messages strictement antérieurs au curseur, du plus récent au plus ancien
+    @Query("SELECT m FROM ChatMessage m WHERE m.conversation = :conversation " +
+           "AND (m.timestamp < :cursorTimestamp OR (m.timestamp = :cursorTimestamp AND m.id < :cursorId)) " +
+           "ORDER BY m.timestamp DESC, m.id DESC")
+    List<ChatMessage> findBefore(Conversation conversation, LocalDateTime cursorTimestamp, String cursorId, Pageable pageable);
+    
+    // Messages strictement postérieurs au curseur, du plus ancien au plus récent
+    @Query("SELECT m FROM ChatMessage m WHERE m.conversation = :conversation " +
+           "AND (m.timestamp > :cursorTimestamp OR (m.timestamp = :cursorTimestamp AND m.id > :cursorId)) " +
+           "ORDER BY m.timestamp ASC, m.id ASC")
+    List<ChatMessage> findAfter(Conversation conversation, LocalDateTime cursorTimestamp, String cursorId, Pageable pageable);
+    
+    // Agrégats par utilisateur (toutes conversations confondues)
+    @Query("SELECT COUNT(m) FROM ChatMessage m WHERE m.conversation.user = :user")
+    long countByUser(User user);
+    
+    @Query("SELECT COUNT(m) FROM ChatMessage m WHERE m.conversation.user = :user AND m.sender = :sender")
+    long countByUserAndSender(User user, ChatMessage.MessageSender sender);
+    
+    @Query("SELECT COALESCE(SUM(LENGTH(m.content)), 0) FROM ChatMessage m WHERE m.conversation.user = :user AND m.sender = :sender")
+    long sumContentLengthByUserAndSender(User user, ChatMessage.MessageSender sender);
+    
+    // Nombre, longueur cumulée et bornes temporelles des messages d'un utilisateur, par émetteur
+    @Query("SELECT new com.coachai.dto.SenderMessageStatsDto(m.sender, COUNT(m), SUM(LENGTH(m.content)), " +
+           "MIN(m.timestamp), MAX(m.timestamp)) FROM ChatMessage m WHERE m.conversation.user = :user GROUP BY m.sender")
+    List<SenderMessageStatsDto> aggregateByUserGroupedBySender(User user);
+    
+    // Contenus des messages d'un utilisateur, sans entités (corps d'appel au service de topics)
+    @Query("SELECT m.content FROM ChatMessage m WHERE m.conversation.user = :user AND m.sender = :sender " +
+           "ORDER BY m.timestamp ASC, m.id ASC")
+    List<String> findContentsByUserAndSender(User user, ChatMessage.MessageSender sender);
+    
+    // Lecture en flux (transaction requise, flux à fermer) : mémoire constante quel que soit l'historique
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "200"))
+    @Query("SELECT new com.coachai.dto.MessageTextDto(m.content, m.timestamp) FROM ChatMessage m " +
+           "WHERE m.conversation.user = :user AND m.sender = :sender ORDER BY m.timestamp ASC, m.id ASC")
+    Stream<MessageTextDto> streamTextsByUserAndSender(User user, ChatMessage.MessageSender sender);
+    
+    // Premiers messages d'un expéditeur dans une conversation, dans l'ordre chronologique
+    @Query("SELECT new com.coachai.dto.MessageContentDto(m.id, m.content, m.timestamp) FROM ChatMessage m " +
+           "WHERE m.conversation = :conversation AND m.sender = :sender ORDER BY m.timestamp ASC, m.id ASC")
+    List<MessageContentDto> findContentsBySender(Conversation conversation, ChatMessage.MessageSender sender,
+                                                 Pageable pageable);
+    
+    // Idem, strictement postérieurs au curseur (timestamp, id)
+    @Query("SELECT new com.coachai.dto.MessageContentDto(m.id, m.content, m.timestamp) FROM ChatMessage m " +
+           "WHERE m.conversation = :conversation AND m.sender = :sender " +
+           "AND (m.timestamp > :cursorTimestamp OR (m.timestamp = :cursorTimestamp AND m.id > :cursorId)) " +
+           "ORDER BY m.timestamp ASC, m.id ASC")
+    List<MessageContentDto> findContentsBySenderAfter(Conversation conversation, ChatMessage.MessageSender sender,
+                                                      LocalDateTime cursorTimestamp, String cursorId,
+                                                      Pageable pageable);
+    
+    Optional<ChatMessage> findFirstByConversationAndSenderOrderByTimestampDesc(Conversation conversation,
+                                                                               ChatMessage.MessageSender sender);
+    
+    // Utilisateurs ayant envoyé au moins minMessages messages (jobs de recommandation)
+    @Query("SELECT c.user.id FROM ChatMessage m JOIN m.conversation c " +
+           "WHERE c.user.role = :role AND m.sender = :sender " +
+           "GROUP BY c.user.id HAVING COUNT(m) >= :minMessages")
+    List<String> findAuthorIds(User.UserRole role, ChatMessage.MessageSender sender, long minMessages);
+    
+    // Idem, restreint aux utilisateurs ayant envoyé un message après "since" (mode incrémental)
+    @Query("SELECT c.user.id FROM ChatMessage m JOIN m.conversation c " +
+           "WHERE c.user.role = :role AND m.sender = :sender " +
+           "GROUP BY c.user.id HAVING COUNT(m) >= :minMessages AND MAX(m.timestamp) > :since")
+    List<String> findAuthorIdsActiveSince(User.UserRole role, ChatMessage.MessageSender sender, long minMessages,
+                                          LocalDateTime since);
+    
+    // Journal admin des interactions IA : message et auteur en une requête, du plus récent au plus ancien
+    @Query("SELECT new com.coachai.dto.AiInteractionDto(m.id, m.timestamp, m.sender, " +
+           "CASE WHEN m.sender = :userSender THEN m.content ELSE NULL END, " +
+           "u.id, u.firstName, u.lastName, u.role) " +
+           "FROM ChatMessage m JOIN m.conversation c JOIN c.user u " +
+           "ORDER BY m.timestamp DESC, m.id DESC")
+    List<AiInteractionDto> findLatestInteractions(ChatMessage.MessageSender userSender, Pageable pageable);
+    
+    // Idem, strictement antérieures au curseur (timestamp, id)
+    @Query("SELECT new com.coachai.dto.AiInteractionDto(m.id, m.timestamp, m.sender, " +
+           "CASE WHEN m.sender = :userSender THEN m.content ELSE NULL END, " +
+           "u.id, u.firstName, u.lastName, u.role) " +
+           "FROM ChatMessage m JOIN m.conversation c JOIN c.user u " +
+           "WHERE m.timestamp < :cursorTimestamp OR (m.timestamp = :cursorTimestamp AND m.id < :cursorId) " +
+           "ORDER BY m.timestamp DESC, m.id DESC")
+    List<AiInteractionDto> findInteractionsBefore(ChatMessage.MessageSender userSender, LocalDateTime cursorTimestamp,
+                                                  String cursorId, Pageable pageable);
+    
+    // Nombre de messages par émetteur sur une période [from, to)
+    @Query("SELECT new com.coachai.dto.SenderCountDto(m.sender, COUNT(m)) FROM ChatMessage m " +
+           "WHERE m.timestamp >= :from AND m.timestamp < :to GROUP BY m.sender")
+    List<SenderCountDto> countBySenderBetween(LocalDateTime from, LocalDateTime to);
+    
+    @Query("SELECT MIN(m.timestamp) FROM ChatMessage m")
+    LocalDateTime findEarliestTimestamp();
+    
+    // Délais de réponse IA des messages de [from, to) : réponse IA précédée d'un message utilisateur
+    // dans la même conversation, délai entre 0 et 60 s ; windowStart (avant from) couvre les paires
+    // à cheval sur la borne
+    @Query(value = "SELECT COUNT(*) AS samples, CAST(COALESCE(SUM(t.diff_ms), 0) AS BIGINT) AS total FROM (" +
+           "SELECT m.sender, m.\"timestamp\" AS sent_at, LAG(m.sender) OVER w AS previous_sender, " +
+           "EXTRACT(EPOCH FROM (m.\"timestamp\" - LAG(m.\"timestamp\") OVER w)) * 1000 AS diff_ms " +
+           "FROM chat_messages m WHERE m.\"timestamp\" >= :windowStart AND m.\"timestamp\" < :to " +
+           "WINDOW w AS (PARTITION BY m.conversation_id ORDER BY m.\"timestamp\", m.id)) t " +
+           "WHERE t.sent_at >= :from AND t.sender = 'AI' AND t.previous_sender = 'USER' " +
+           "AND t.diff_ms > 0 AND t.diff_ms < 60000", nativeQuery = true)
+    ResponseTimeTotals sumResponseTimesBetween(LocalDateTime windowStart, LocalDateTime from, LocalDateTime to);
+    
+    // Boîte de réception formateur : messages donnés avec leur conversation et leur apprenant
+    @Query("SELECT new com.coachai.dto.InboxEntryDto(c.id, m.id, m.content, m.sender, m.timestamp, m.read, " +
+           "u.id, u.firstName, u.lastName, u.email, u.role, 0L) " +
+           "FROM ChatMessage m JOIN m.conversation c JOIN c.user u WHERE m.id IN :messageIds")
+    List<InboxEntryDto> findInboxEntries(List<String> messageIds);
+    
+    // Messages non lus par conversation, envoyés par "sender" (lus par l'autre participant)
+    @Query("SELECT new com.coachai.dto.ConversationCountDto(m.conversation.id, COUNT(m)) FROM ChatMessage m " +
+           "WHERE m.conversation.id IN :conversationIds AND m.sender = :sender AND m.read = false " +
+           "GROUP BY m.conversation.id")
+    List<ConversationCountDto> countUnreadByConversation(List<String> conversationIds, ChatMessage.MessageSender sender);
+    
+    // Marque comme lus les messages de "sender" d'une conversation
+    @Transactional
+    @Modifying
+    @Query("UPDATE ChatMessage m SET m.read = true WHERE m.conversation = :conversation " +
+           "AND m.sender = :sender AND m.read = false")
+    int markRead(Conversation conversation, ChatMessage.MessageSender sender);
+    
+    /**
+     * Nombre de délais de réponse mesurés et leur somme en millisecondes
+     */
+    interface ResponseTimeTotals {
+        long getSamples();
+        long getTotal();
+    }
 }
-
-
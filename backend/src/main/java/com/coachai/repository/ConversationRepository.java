@@ -3,8 +3,10 @@ package com.coachai.repository;
 import com.coachai.model.Conversation;
 import com.coachai.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,7 +14,43 @@ import java.util.Optional;
 public interface ConversationRepository extends JpaRepository<Conversation, String> {
     List<Conversation> findByUserOrderByLastMessageDateDesc(User user);
     List<Conversation> findByUser(User user);
+    long countByUser(User user);
     Optional<Conversation> findByUserAndIsActiveTrue(User user);
     List<Conversation> findByUserAndIsActive(User user, boolean isActive);
+    
+    // Boîte de réception formateur : dernier message (index conversation_id, timestamp, id) de chaque
+    // conversation des apprenants inscrits à ses formations, conversations les plus récentes d'abord
+    @Query(value = "SELECT lm.id FROM conversations c " +
+           "JOIN LATERAL (SELECT m.id, m.\"timestamp\" AS sent_at FROM chat_messages m " +
+           "WHERE m.conversation_id = c.id ORDER BY m.\"timestamp\" DESC, m.id DESC LIMIT 1) lm ON true " +
+           "WHERE c.user_id IN (" +
+           "SELECT fe.user_id FROM formation_enrollments fe JOIN formations f ON f.id = fe.formation_id " +
+           "WHERE f.created_by = :trainerId " +
+           "UNION SELECT e.user_id FROM enrollments e JOIN courses co ON co.id = e.course_id " +
+           "JOIN modules mo ON mo.id = co.module_id JOIN formations f ON f.id = mo.formation_id " +
+           "WHERE f.created_by = :trainerId) " +
+           "ORDER BY lm.sent_at DESC, c.id DESC LIMIT :limit", nativeQuery = true)
+    List<String> findInboxMessageIds(String trainerId, int limit);
+    
+    // Idem, conversations strictement antérieures au curseur (date du dernier message, id de conversation)
+    @Query(value = "SELECT lm.id FROM conversations c " +
+           "JOIN LATERAL (SELECT m.id, m.\"timestamp\" AS sent_at FROM chat_messages m " +
+           "WHERE m.conversation_id = c.id ORDER BY m.\"timestamp\" DESC, m.id DESC LIMIT 1) lm ON true " +
+           "WHERE c.user_id IN (" +
+           "SELECT fe.user_id FROM formation_enrollments fe JOIN formations f ON f.id = fe.formation_id " +
+           "WHERE f.created_by = :trainerId " +
+           "UNION SELECT e.user_id FROM enrollments e JOIN courses co ON co.id = e.course_id " +
+           "JOIN modules mo ON mo.id = co.module_id JOIN formations f ON f.id = mo.formation_id " +
+           "WHERE f.created_by = :trainerId) " +
+           "AND (lm.sent_at < :cursorTimestamp OR (lm.sent_at = :cursorTimestamp AND c.id < :cursorId)) " +
+           "ORDER BY lm.sent_at DESC, c.id DESC LIMIT :limit", nativeQuery = true)
+    List<String> findInboxMessageIdsBefore(String trainerId, LocalDateTime cursorTimestamp, String cursorId, int limit);
+    
+    // Formateurs dont l'apprenant suit une formation : même périmètre que la boîte de réception
+    @Query(value = "SELECT f.created_by FROM formation_enrollments fe JOIN formations f ON f.id = fe.formation_id " +
+           "WHERE fe.user_id = :studentId AND f.created_by IS NOT NULL " +
+           "UNION SELECT f.created_by FROM enrollments e JOIN courses co ON co.id = e.course_id " +
+           "JOIN modules mo ON mo.id = co.module_id JOIN formations f ON f.id = mo.formation_id " +
+           "WHERE e.user_id = :studentId AND f.created_by IS NOT NULL", nativeQuery = true)
+    List<String> findInboxTrainerIds(String studentId);
 }
-
@@ -2,7 +2,9 @@ package com.coachai.repository;
 
 import com.coachai.model.CourseProgress;
 import com.coachai.model.Enrollment;
+import com.coachai.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -10,6 +12,9 @@ import java.util.Optional;
 @Repository
 public interface CourseProgressRepository extends JpaRepository<CourseProgress, String> {
     Optional<CourseProgress> findByEnrollment(Enrollment enrollment);
+    
+    @Query("SELECT COALESCE(AVG(p.overallProgress), 0.0) FROM CourseProgress p WHERE p.enrollment.user = :user")
+    double averageProgressByUser(User user);
 }
 
 
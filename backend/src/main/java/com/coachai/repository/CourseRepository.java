@@ -1,8 +1,11 @@
 package com.coachai.repository;
 
+import com.coachai.dto.FormationCountDto;
+import com.coachai.dto.StatusCountDto;
 import com.coachai.model.Course;
 import com.coachai.model.ContentStatus;
 import com.coachai.model.Module;
+import com.coachai.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
@@ -12,6 +15,7 @@ import java.util.List;
 @Repository
 public interface CourseRepository extends JpaRepository<Course, String> {
     List<Course> findByStatus(ContentStatus status);
+    long countByStatus(ContentStatus status);
     List<Course> findByCategory(String category);
     List<Course> findByLevel(Course.Level level);
     List<Course> findByIsPopularTrue();
@@ -45,6 +49,24 @@ public interface CourseRepository extends JpaRepository<Course, String> {
     // Compter leçons d'un cours
     @Query("SELECT COUNT(l) FROM Lesson l WHERE l.course = :course")
     long countLessonsByCourse(Course course);
+    
+    // Statistiques formateur : cours par statut
+    @Query("SELECT new com.coachai.dto.StatusCountDto(c.status, COUNT(c)) FROM Course c " +
+           "WHERE c.module.formation.createdBy = :trainer GROUP BY c.status")
+    List<StatusCountDto> countByStatusForTrainer(User trainer);
+    
+    // Cours des formations d'un formateur, plus récents en premier
+    @Query("SELECT c FROM Course c JOIN FETCH c.module m " +
+           "WHERE m.formation.createdBy = :trainer ORDER BY c.createdAt DESC NULLS LAST")
+    List<Course> findByTrainerOrderByCreatedAtDesc(User trainer);
+    
+    @Query("SELECT COUNT(c) FROM Course c WHERE c.createdBy = :trainer AND c.isAIGenerated = true")
+    long countAiGeneratedByCreator(User trainer);
+    
+    // Catalogue public : cours par formation ayant le statut donné
+    @Query("SELECT new com.coachai.dto.FormationCountDto(m.formation.id, COUNT(c)) FROM Course c JOIN c.module m " +
+           "WHERE m.formation.status = :formationStatus GROUP BY m.formation.id")
+    List<FormationCountDto> countGroupedByFormation(ContentStatus formationStatus);
 }
 
 
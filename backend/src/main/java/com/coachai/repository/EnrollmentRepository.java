@@ -1,11 +1,15 @@
 package com.coachai.repository;
 
+import com.coachai.dto.FormationStudentStatsDto;
+import com.coachai.dto.StudentActivityStatsDto;
 import com.coachai.model.Enrollment;
 import com.coachai.model.User;
 import com.coachai.model.Course;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 import java.util.List;
 
@@ -16,6 +20,26 @@ public interface EnrollmentRepository extends JpaRepository<Enrollment, String>
     List<Enrollment> findByCourse(Course course);
     long countByCourse(Course course);
     boolean existsByUserAndCourse(User user, Course course);
+    
+    // Statistiques formateur : étudiants inscrits aux cours de ses formations, en une requête
+    @Query("SELECT new com.coachai.dto.StudentActivityStatsDto(" +
+           "COUNT(DISTINCT e.user.id), " +
+           "COUNT(DISTINCT CASE WHEN p.lastActivityDate > :activeSince THEN e.user.id END), " +
+           "AVG(p.overallProgress)) " +
+           "FROM Enrollment e JOIN e.course c JOIN c.module m JOIN m.formation f LEFT JOIN e.progress p " +
+           "WHERE f.createdBy = :trainer")
+    StudentActivityStatsDto studentActivityForTrainer(User trainer, LocalDateTime activeSince);
+    
+    // Même agrégat, groupé par formation
+    @Query("SELECT new com.coachai.dto.FormationStudentStatsDto(f.id, " +
+           "COUNT(DISTINCT e.user.id), " +
+           "COUNT(DISTINCT CASE WHEN p.lastActivityDate > :activeSince THEN e.user.id END), " +
+           "AVG(p.overallProgress), " +
+           "SUM(CASE WHEN p.overallProgress >= 100 THEN 1 ELSE 0 END), " +
+           "AVG(CASE WHEN p.averageQuizScore > 0 THEN p.averageQuizScore END)) " +
+           "FROM Enrollment e JOIN e.course c JOIN c.module m JOIN m.formation f LEFT JOIN e.progress p " +
+           "WHERE f.createdBy = :trainer GROUP BY f.id")
+    List<FormationStudentStatsDto> studentActivityByFormationForTrainer(User trainer, LocalDateTime activeSince);
 }
 
 
@@ -2,7 +2,9 @@ package com.coachai.repository;
 
 import com.coachai.model.Exercise;
 import com.coachai.model.Course;
+import com.coachai.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -12,6 +14,16 @@ public interface ExerciseRepository extends JpaRepository<Exercise, String> {
     List<Exercise> findByCourse(Course course);
     List<Exercise> findByCourseId(String courseId);
     List<Exercise> findByIsAIGeneratedTrue();
+    long countByIsAIGeneratedTrue();
+    
+    // Statistiques formateur : exercices des cours de ses formations
+    @Query("SELECT COUNT(e) FROM Exercise e WHERE e.course.module.formation.createdBy = :trainer")
+    long countByTrainer(User trainer);
+    
+    // Exercices générés par l'IA pour les cours générés par l'IA d'un formateur
+    @Query("SELECT COUNT(e) FROM Exercise e WHERE e.isAIGenerated = true " +
+           "AND e.course.isAIGenerated = true AND e.course.createdBy = :trainer")
+    long countAiGeneratedByCourseCreator(User trainer);
 }
 
 
@@ -6,6 +6,7 @@ import com.coachai.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -14,6 +15,8 @@ public interface ExerciseSubmissionRepository extends JpaRepository<ExerciseSubm
     List<ExerciseSubmission> findByExercise(Exercise exercise);
     List<ExerciseSubmission> findByUserAndExercise(User user, Exercise exercise);
     List<ExerciseSubmission> findByStatus(ExerciseSubmission.SubmissionStatus status);
+    long countByUser(User user);
+    long countByUserAndStatusIn(User user, Collection<ExerciseSubmission.SubmissionStatus> statuses);
 }
 
 
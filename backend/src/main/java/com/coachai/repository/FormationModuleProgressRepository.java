@@ -1,9 +1,11 @@
 package com.coachai.repository;
 
+import com.coachai.model.FormationEnrollment;
 import com.coachai.model.FormationModuleProgress;
 import com.coachai.model.FormationProgress;
 import com.coachai.model.Module;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -13,5 +15,10 @@ import java.util.Optional;
 public interface FormationModuleProgressRepository extends JpaRepository<FormationModuleProgress, String> {
     Optional<FormationModuleProgress> findByFormationProgressAndModule(FormationProgress progress, Module module);
     List<FormationModuleProgress> findByFormationProgress(FormationProgress progress);
+    
+    // Modules validés (contenu terminé + quiz réussi) d'une inscription
+    @Query("SELECT mp.module.id FROM FormationModuleProgress mp " +
+           "WHERE mp.formationProgress.enrollment = :enrollment AND mp.isCompleted = true AND mp.isQuizPassed = true")
+    List<String> findValidatedModuleIds(FormationEnrollment enrollment);
 }
 
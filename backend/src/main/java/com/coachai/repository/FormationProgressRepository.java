@@ -3,6 +3,7 @@ package com.coachai.repository;
 import com.coachai.model.FormationProgress;
 import com.coachai.model.FormationEnrollment;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -10,6 +11,14 @@ import java.util.Optional;
 @Repository
 public interface FormationProgressRepository extends JpaRepository<FormationProgress, String> {
     Optional<FormationProgress> findByEnrollment(FormationEnrollment enrollment);
+    
+    long countByOverallProgressGreaterThanEqual(double progress);
+    
+    @Query("SELECT COALESCE(AVG(p.overallProgress), 0.0) FROM FormationProgress p")
+    double averageOverallProgress();
+    
+    @Query("SELECT COALESCE(SUM(p.completedModules), 0) FROM FormationProgress p")
+    long sumCompletedModules();
 }
 
 
@@ -1,9 +1,12 @@
 package com.coachai.repository;
 
+import com.coachai.dto.FormationCardDto;
+import com.coachai.dto.StatusCountDto;
 import com.coachai.model.Formation;
 import com.coachai.model.ContentStatus;
 import com.coachai.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -18,5 +21,17 @@ public interface FormationRepository extends JpaRepository<Formation, String> {
     // Méthodes pour filtrer par catégorie/niveau ET status
     List<Formation> findByCategoryAndStatus(String category, ContentStatus status);
     List<Formation> findByLevelAndStatus(Formation.Level level, ContentStatus status);
+    
+    // Statistiques formateur : formations par statut
+    @Query("SELECT new com.coachai.dto.StatusCountDto(f.status, COUNT(f)) FROM Formation f " +
+           "WHERE f.createdBy = :trainer GROUP BY f.status")
+    List<StatusCountDto> countByStatusForTrainer(User trainer);
+    
+    // Catalogue public : cartes de formation sans charger les modules (relation EAGER)
+    @Query("SELECT new com.coachai.dto.FormationCardDto(f.id, f.title, f.description, f.thumbnail, f.category, " +
+           "f.level, f.duration, f.enrolledCount, f.completionRate, " +
+           "u.id, u.firstName, u.lastName, u.avatarUrl, u.bio) " +
+           "FROM Formation f LEFT JOIN f.createdBy u WHERE f.status = :status")
+    List<FormationCardDto> findCardsByStatus(ContentStatus status);
 }
 
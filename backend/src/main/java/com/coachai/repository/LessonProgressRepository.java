@@ -4,6 +4,7 @@ import com.coachai.model.LessonProgress;
 import com.coachai.model.FormationEnrollment;
 import com.coachai.model.Lesson;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -13,6 +14,9 @@ import java.util.Optional;
 public interface LessonProgressRepository extends JpaRepository<LessonProgress, String> {
     Optional<LessonProgress> findByEnrollmentAndLesson(FormationEnrollment enrollment, Lesson lesson);
     List<LessonProgress> findByEnrollment(FormationEnrollment enrollment);
+    
+    @Query("SELECT lp.lesson.id FROM LessonProgress lp WHERE lp.enrollment = :enrollment AND lp.isCompleted = true")
+    List<String> findCompletedLessonIds(FormationEnrollment enrollment);
 }
 
 
@@ -1,8 +1,14 @@
 package com.coachai.repository;
 
+import com.coachai.dto.CompletionCountDto;
+import com.coachai.dto.LessonOutlineDto;
+import com.coachai.model.Formation;
+import com.coachai.model.FormationEnrollment;
 import com.coachai.model.Lesson;
 import com.coachai.model.Course;
+import com.coachai.model.Module;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -12,5 +18,18 @@ public interface LessonRepository extends JpaRepository<Lesson, String> {
     List<Lesson> findByCourse(Course course);
     List<Lesson> findByCourseOrderByOrderAsc(Course course);
     long countByCourse(Course course);
+    
+    // Plan complet d'une formation en une requête : leçons ordonnées par module, cours puis leçon,
+    // chaque niveau départagé par son identifiant pour que deux modules ou cours de même ordre ne s'entrelacent pas
+    @Query("SELECT new com.coachai.dto.LessonOutlineDto(m.id, c.id, l.id, l.title, l.description, l.type, l.duration, l.lessonNumber) " +
+           "FROM Lesson l JOIN l.course c JOIN c.module m WHERE m.formation = :formation " +
+           "ORDER BY m.order ASC, m.id ASC, c.order ASC, c.id ASC, l.order ASC, l.id ASC")
+    List<LessonOutlineDto> findOutlineByFormation(Formation formation);
+    
+    // Leçons d'un module et leçons terminées par l'inscription, en une requête
+    @Query("SELECT new com.coachai.dto.CompletionCountDto(COUNT(DISTINCT l.id), COUNT(DISTINCT lp.id)) " +
+           "FROM Lesson l LEFT JOIN LessonProgress lp " +
+           "ON lp.lesson = l AND lp.enrollment = :enrollment AND lp.isCompleted = true " +
+           "WHERE l.course.module = :module")
+    CompletionCountDto countCompletionInModule(Module module, FormationEnrollment enrollment);
 }
-
@@ -1,8 +1,13 @@
 package com.coachai.repository;
 
+import com.coachai.dto.FormationCountDto;
+import com.coachai.dto.StatusCountDto;
+import com.coachai.model.ContentStatus;
 import com.coachai.model.Module;
 import com.coachai.model.Formation;
+import com.coachai.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -11,8 +16,19 @@ import java.util.List;
 public interface ModuleRepository extends JpaRepository<Module, String> {
     List<Module> findByFormation(Formation formation);
     List<Module> findByFormationOrderByOrderAsc(Formation formation);
+    List<Module> findByFormationOrderByOrderAscIdAsc(Formation formation);
     List<Module> findByFormationId(String formationId);
     long countByFormation(Formation formation);
+    
+    // Statistiques formateur : modules par statut
+    @Query("SELECT new com.coachai.dto.StatusCountDto(m.status, COUNT(m)) FROM Module m " +
+           "WHERE m.formation.createdBy = :trainer GROUP BY m.status")
+    List<StatusCountDto> countByStatusForTrainer(User trainer);
+    
+    // Catalogue public : modules par formation ayant le statut donné
+    @Query("SELECT new com.coachai.dto.FormationCountDto(m.formation.id, COUNT(m)) FROM Module m " +
+           "WHERE m.formation.status = :formationStatus GROUP BY m.formation.id")
+    List<FormationCountDto> countGroupedByFormation(ContentStatus formationStatus);
 }
 
 
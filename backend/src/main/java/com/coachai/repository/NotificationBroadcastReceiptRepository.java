@@ -0,0 +1,26 @@
+package com.coachai.repository;
+
+import com.coachai.dto.BroadcastReadCountDto;
+import com.coachai.model.NotificationBroadcast;
+import com.coachai.model.NotificationBroadcastReceipt;
+import com.coachai.model.User;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface NotificationBroadcastReceiptRepository extends JpaRepository<NotificationBroadcastReceipt, String> {
+    List<NotificationBroadcastReceipt> findByUser(User user);
+    boolean existsByBroadcastAndUser(NotificationBroadcast broadcast, User user);
+    long countByBroadcast(NotificationBroadcast broadcast);
+
+    @Query("SELECT new com.coachai.dto.BroadcastReadCountDto(r.broadcast.id, COUNT(r)) " +
+           "FROM NotificationBroadcastReceipt r GROUP BY r.broadcast.id")
+    List<BroadcastReadCountDto> countReadsByBroadcast();
+
+    @Query("SELECT new com.coachai.dto.BroadcastReadCountDto(r.broadcast.id, COUNT(r)) " +
+           "FROM NotificationBroadcastReceipt r WHERE r.broadcast IN ?1 GROUP BY r.broadcast.id")
+    List<BroadcastReadCountDto> countReadsByBroadcastIn(List<NotificationBroadcast> broadcasts);
+}
@@ -0,0 +1,28 @@
+package com.coachai.repository;
+
+import com.coachai.model.NotificationBroadcast;
+import com.coachai.model.User;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface NotificationBroadcastRepository extends JpaRepository<NotificationBroadcast, String> {
+    List<NotificationBroadcast> findAllByOrderByCreatedAtDesc();
+
+    // Diffusions adressées à un utilisateur : son rôle (ou tous), envoyées après son inscription
+    @Query("SELECT b FROM NotificationBroadcast b WHERE (b.targetRole IS NULL OR b.targetRole = :role) " +
+           "AND b.createdAt >= :joinedAt ORDER BY b.createdAt DESC")
+    List<NotificationBroadcast> findVisibleTo(User.UserRole role, LocalDateTime joinedAt);
+
+    @Query("SELECT COUNT(b) FROM NotificationBroadcast b WHERE (b.targetRole IS NULL OR b.targetRole = :role) " +
+           "AND b.createdAt >= :joinedAt AND NOT EXISTS (" +
+           "SELECT r FROM NotificationBroadcastReceipt r WHERE r.broadcast = b AND r.user = :user)")
+    long countUnreadVisibleTo(User user, User.UserRole role, LocalDateTime joinedAt);
+
+    @Query("SELECT COALESCE(SUM(b.totalRecipients), 0) FROM NotificationBroadcast b")
+    long sumTotalRecipients();
+}
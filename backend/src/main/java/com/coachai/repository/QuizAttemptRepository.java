@@ -4,6 +4,7 @@ import com.coachai.model.QuizAttempt;
 import com.coachai.model.Quiz;
 import com.coachai.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -16,6 +17,10 @@ public interface QuizAttemptRepository extends JpaRepository<QuizAttempt, String
     List<QuizAttempt> findByUserAndQuiz(User user, Quiz quiz);
     Optional<QuizAttempt> findFirstByUserAndQuizOrderByScoreDesc(User user, Quiz quiz);
     long countByUserAndQuiz(User user, Quiz quiz);
+    long countByUser(User user);
+    
+    @Query("SELECT COALESCE(AVG(a.score), 0.0) FROM QuizAttempt a WHERE a.user = :user")
+    double averageScoreByUser(User user);
 }
 
 
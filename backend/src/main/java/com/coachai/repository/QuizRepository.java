@@ -1,8 +1,14 @@
 package com.coachai.repository;
 
+import com.coachai.dto.CompletionCountDto;
+import com.coachai.dto.FormationCountDto;
+import com.coachai.model.ContentStatus;
+import com.coachai.model.Module;
 import com.coachai.model.Quiz;
 import com.coachai.model.Course;
+import com.coachai.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -11,8 +17,29 @@ import java.util.List;
 public interface QuizRepository extends JpaRepository<Quiz, String> {
     List<Quiz> findByCourse(Course course);
     List<Quiz> findByIsAIGeneratedTrue();
+    long countByIsAIGeneratedTrue();
     List<Quiz> findByCourseId(String courseId);
     long countByCourse(Course course);
+    
+    // Statistiques formateur : quiz rattachés aux cours de ses formations
+    @Query("SELECT COUNT(q) FROM Quiz q WHERE q.course.module.formation.createdBy = :trainer")
+    long countByTrainer(User trainer);
+    
+    // Quiz générés par l'IA pour les cours générés par l'IA d'un formateur
+    @Query("SELECT COUNT(q) FROM Quiz q WHERE q.isAIGenerated = true " +
+           "AND q.course.isAIGenerated = true AND q.course.createdBy = :trainer")
+    long countAiGeneratedByCourseCreator(User trainer);
+    
+    // Catalogue public : quiz des cours par formation ayant le statut donné
+    @Query("SELECT new com.coachai.dto.FormationCountDto(m.formation.id, COUNT(q)) " +
+           "FROM Quiz q JOIN q.course c JOIN c.module m " +
+           "WHERE m.formation.status = :formationStatus GROUP BY m.formation.id")
+    List<FormationCountDto> countGroupedByFormation(ContentStatus formationStatus);
+    
+    // Quiz des cours d'un module et quiz réussis (≥ 60%) par l'utilisateur, en une requête
+    @Query("SELECT new com.coachai.dto.CompletionCountDto(COUNT(DISTINCT q.id), COUNT(DISTINCT a.quiz.id)) " +
+           "FROM Quiz q LEFT JOIN QuizAttempt a " +
+           "ON a.quiz = q AND a.user = :user AND a.passed = true AND a.score >= 60.0 " +
+           "WHERE q.course.module = :module")
+    CompletionCountDto countPassedInModule(Module module, User user);
 }
-
-
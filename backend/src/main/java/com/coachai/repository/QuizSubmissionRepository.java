@@ -0,0 +1,37 @@
+package com.coachai.repository;
+
+import com.coachai.model.QuizSubmission;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface QuizSubmissionRepository extends JpaRepository<QuizSubmission, String> {
+    Optional<QuizSubmission> findByAttemptId(String attemptId);
+    Optional<QuizSubmission> findByUserIdAndSubmissionKey(String userId, String submissionKey);
+    List<QuizSubmission> findByStatusOrderByCreatedAtAsc(QuizSubmission.SubmissionStatus status, Pageable pageable);
+
+    // Changement d'état conditionnel : un seul correcteur peut prendre une soumission
+    @Transactional
+    @Modifying
+    @Query("UPDATE QuizSubmission s SET s.status = :to WHERE s.id = :id AND s.status = :from")
+    int updateStatus(String id, QuizSubmission.SubmissionStatus from, QuizSubmission.SubmissionStatus to);
+
+    // Renvoi d'une soumission en échec : remise en file avec les réponses renvoyées
+    @Transactional
+    @Modifying
+    @Query("UPDATE QuizSubmission s SET s.status = :to, s.answers = :answers, s.error = NULL, s.gradedAt = NULL " +
+           "WHERE s.id = :id AND s.status = :from")
+    int requeue(String id, String answers, QuizSubmission.SubmissionStatus from, QuizSubmission.SubmissionStatus to);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE QuizSubmission s SET s.status = :to WHERE s.status = :from")
+    int updateAllStatus(QuizSubmission.SubmissionStatus from, QuizSubmission.SubmissionStatus to);
+}
@@ -0,0 +1,27 @@
+package com.coachai.repository;
+
+import com.coachai.model.RecommendationJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface RecommendationJobRepository extends JpaRepository<RecommendationJob, String> {
+    List<RecommendationJob> findByStatusInOrderByCreatedAtAsc(Collection<RecommendationJob.JobStatus> statuses);
+
+    Optional<RecommendationJob> findFirstByTypeAndStatusInOrderByCreatedAtAsc(
+        RecommendationJob.JobType type,
+        Collection<RecommendationJob.JobStatus> statuses
+    );
+
+    // Dernière exécution réussie : point de départ du mode incrémental
+    Optional<RecommendationJob> findFirstByTypeAndStatusOrderByStartedAtDesc(
+        RecommendationJob.JobType type,
+        RecommendationJob.JobStatus status
+    );
+
+    List<RecommendationJob> findTop20ByOrderByCreatedAtDesc();
+}
@@ -0,0 +1,60 @@
+package com.coachai.repository;
+
+import com.coachai.model.StudentFeatureVector;
+import com.coachai.model.User;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StudentFeatureVectorRepository extends JpaRepository<StudentFeatureVector, String> {
+    Optional<StudentFeatureVector> findByUser(User user);
+
+    List<StudentFeatureVector> findByUserIn(Collection<User> users);
+
+    @Transactional
+    void deleteByUser(User user);
+
+    // Incréments atomiques : pas de lecture-modification-écriture concurrente
+    @Transactional
+    @Modifying
+    @Query("UPDATE StudentFeatureVector f SET " +
+           "f.totalMessages = f.totalMessages + 1, " +
+           "f.userMessageCount = f.userMessageCount + :userMessages, " +
+           "f.totalUserMessageLength = f.totalUserMessageLength + :userMessageLength, " +
+           "f.lastActivityAt = CASE WHEN f.lastActivityAt IS NULL OR f.lastActivityAt < :timestamp " +
+           "THEN :timestamp ELSE f.lastActivityAt END, " +
+           "f.updatedAt = :timestamp " +
+           "WHERE f.user = :user")
+    int incrementMessages(User user, long userMessages, long userMessageLength, LocalDateTime timestamp);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE StudentFeatureVector f SET " +
+           "f.totalConversations = f.totalConversations + 1, " +
+           "f.firstConversationAt = CASE WHEN f.firstConversationAt IS NULL OR f.firstConversationAt > :createdAt " +
+           "THEN :createdAt ELSE f.firstConversationAt END, " +
+           "f.updatedAt = :createdAt " +
+           "WHERE f.user = :user")
+    int incrementConversations(User user, LocalDateTime createdAt);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE StudentFeatureVector f SET " +
+           "f.totalQuizzesTaken = :totalQuizzes, " +
+           "f.quizAverageScore = :averageScore, " +
+           "f.totalExerciseSubmissions = :totalSubmissions, " +
+           "f.totalExercisesCompleted = :completedExercises, " +
+           "f.averageCourseProgress = :averageProgress, " +
+           "f.updatedAt = :now " +
+           "WHERE f.user = :user")
+    int updateAcademicMetrics(User user, int totalQuizzes, double averageScore, int totalSubmissions,
+                              int completedExercises, double averageProgress, LocalDateTime now);
+}
@@ -11,5 +11,6 @@ import java.util.List;
 public interface UserNotificationRepository extends JpaRepository<UserNotification, String> {
     List<UserNotification> findByUserOrderByCreatedAtDesc(User user);
     long countByUserAndIsReadFalse(User user);
+    long countByReadAtIsNotNull();
 }
 
@@ -4,6 +4,7 @@ import com.coachai.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,6 +14,10 @@ public interface UserRepository extends JpaRepository<User, String> {
     boolean existsByEmail(String email);
     long countByRole(User.UserRole role);
     List<User> findByRole(User.UserRole role);
+    long countByStatus(User.UserStatus status);
+    long countByJoinedAtBefore(LocalDateTime date);
+    long countByLastActiveAfter(LocalDateTime date);
+    long countByLastActiveBetween(LocalDateTime start, LocalDateTime end);
 }
 
 
@@ -0,0 +1,39 @@
+package com.coachai.security;
+
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+
+/**
+ * Authentification issue d'un JWT valide.
+ * getName() renvoie l'email (sujet du token) comme l'ancien UsernamePasswordAuthenticationToken ;
+ * le rôle est repris des claims, sans accès à la base.
+ */
+public class JwtAuthentication extends AbstractAuthenticationToken {
+    private static final long serialVersionUID = 1L;
+    
+    private final String email;
+    private final String role;
+    
+    public JwtAuthentication(String email, String role, Collection<? extends GrantedAuthority> authorities) {
+        super(authorities);
+        this.email = email;
+        this.role = role;
+        setAuthenticated(true);
+    }
+    
+    @Override
+    public Object getCredentials() {
+        return null;
+    }
+    
+    @Override
+    public Object getPrincipal() {
+        return email;
+    }
+    
+    public String getRole() {
+        return role;
+    }
+}
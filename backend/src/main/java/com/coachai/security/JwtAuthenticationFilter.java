@@ -1,11 +1,11 @@
 package com.coachai.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -17,6 +17,8 @@ import java.util.Collections;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
+    private static final String EVENT_STREAM_PATH = "/api/events/stream";
+    
     @Autowired
     private JwtTokenProvider tokenProvider;
     
@@ -25,12 +27,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             throws ServletException, IOException {
         String token = getTokenFromRequest(request);
         
-        if (token != null && tokenProvider.validateToken(token)) {
-            String email = tokenProvider.getEmailFromToken(token);
-            // You can extract role from token if needed
-            UsernamePasswordAuthenticationToken authentication = 
-                new UsernamePasswordAuthenticationToken(email, null, 
-                    Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER")));
+        // Un seul parsing : validation de la signature et lecture des claims
+        Claims claims = token != null ? tokenProvider.parseClaims(token) : null;
+        if (claims != null && claims.getSubject() != null) {
+            String role = claims.get(JwtTokenProvider.CLAIM_ROLE, String.class);
+            String authority = role != null ? "ROLE_" + role : "ROLE_USER";
+            JwtAuthentication authentication = new JwtAuthentication(claims.getSubject(), role,
+                    Collections.singletonList(new SimpleGrantedAuthority(authority)));
             authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
             SecurityContextHolder.getContext().setAuthentication(authentication);
         }
@@ -43,8 +46,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         if (bearerToken != null && bearerToken.startsWith("Bearer ")) {
             return bearerToken.substring(7);
         }
+        // EventSource ne peut pas envoyer d'en-tête : token en paramètre, pour le flux temps réel uniquement
+        if (EVENT_STREAM_PATH.equals(request.getRequestURI())) {
+            return request.getParameter("access_token");
+        }
         return null;
     }
 }
-
-
@@ -2,6 +2,7 @@ package com.coachai.security;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
@@ -10,14 +11,24 @@ import java.util.Date;
 
 @Component
 public class JwtTokenProvider {
+    public static final String CLAIM_ROLE = "role";
+    
     @Value("${jwt.secret}")
     private String jwtSecret;
     
     @Value("${jwt.expiration}")
     private long jwtExpiration;
     
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+    // Clé et parser construits une seule fois (thread-safe) au lieu d'une fois par appel
+    private SecretKey signingKey;
+    private JwtParser parser;
+    
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        parser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
     }
     
     public String generateToken(String email, String role) {
@@ -26,34 +37,22 @@ public class JwtTokenProvider {
         
         return Jwts.builder()
                 .subject(email)
-                .claim("role", role)
+                .claim(CLAIM_ROLE, role)
                 .issuedAt(now)
                 .expiration(expiryDate)
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
     
-    public String getEmailFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-        
-        return claims.getSubject();
-    }
-    
-    public boolean validateToken(String token) {
+    /**
+     * Vérifie la signature et l'expiration en un seul passage
+     * @return les claims du token, ou null si le token est invalide
+     */
+    public Claims parseClaims(String token) {
         try {
-            Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token);
-            return true;
+            return parser.parseSignedClaims(token).getPayload();
         } catch (JwtException | IllegalArgumentException e) {
-            return false;
+            return null;
         }
     }
 }
-
-
@@ -3,9 +3,7 @@ package com.coachai.service;
 import com.coachai.model.*;
 import com.coachai.repository.*;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.*;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
@@ -27,8 +25,8 @@ public class AIAnalysisService {
     @Autowired
     private ExerciseSubmissionRepository exerciseSubmissionRepository;
 
-    private final RestTemplate restTemplate = new RestTemplate();
-    private final String ML_SERVICE_URL = "http://localhost:8000";
+    @Autowired
+    private MlServiceClient mlServiceClient;
 
     /**
      * Prédit le niveau d'un étudiant en utilisant le modèle ML Python
@@ -39,19 +37,15 @@ public class AIAnalysisService {
             Map<String, Object> studentData = collectStudentData(student);
             
             // Appeler le service ML Python
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            HttpEntity<Map<String, Object>> request = new HttpEntity<>(studentData, headers);
-            
-            @SuppressWarnings("rawtypes")
-            ResponseEntity<Map> response = restTemplate.postForEntity(
-                ML_SERVICE_URL + "/student/level/predict",
-                request,
+            @SuppressWarnings("unchecked")
+            Map<String, Object> response = mlServiceClient.post(
+                MlServiceClient.Endpoint.STUDENT_LEVEL,
+                studentData,
                 Map.class
             );
             
-            if (response.getStatusCode() == HttpStatus.OK) {
-                return response.getBody();
+            if (response != null) {
+                return response;
             }
             
             return createFallbackLevelPrediction();
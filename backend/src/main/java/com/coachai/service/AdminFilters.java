@@ -0,0 +1,62 @@
+package com.coachai.service;
+
+import com.coachai.model.FormationEnrollment;
+import com.coachai.model.NotificationBroadcast;
+import com.coachai.model.SupportTicket;
+import com.coachai.model.User;
+import com.coachai.model.UserNotification;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Filtres typés des listes d'administration, traduits en SQL par {@link AdminListService}.
+ * Un critère null est ignoré ; sans aucun critère le filtre vaut null, ce qui permet
+ * d'estimer le total à partir des statistiques de la table.
+ */
+public final class AdminFilters {
+
+    private AdminFilters() {
+    }
+
+    public static Specification<User> users(User.UserRole role, User.UserStatus status) {
+        Specification<User> filter = equal(null, "role", role);
+        return equal(filter, "status", status);
+    }
+
+    public static Specification<SupportTicket> tickets(SupportTicket.TicketStatus status,
+                                                       SupportTicket.TicketPriority priority,
+                                                       SupportTicket.TicketCategory category) {
+        Specification<SupportTicket> filter = equal(null, "status", status);
+        filter = equal(filter, "priority", priority);
+        return equal(filter, "category", category);
+    }
+
+    public static Specification<FormationEnrollment> enrollments(String formationId,
+                                                                 FormationEnrollment.EnrollmentStatus status) {
+        Specification<FormationEnrollment> filter = null;
+        if (formationId != null) {
+            // Comparaison sur la clé étrangère, sans jointure
+            filter = (root, query, cb) -> cb.equal(root.get("formation").get("id"), formationId);
+        }
+        return equal(filter, "status", status);
+    }
+
+    public static Specification<UserNotification> notifications(UserNotification.NotificationType type,
+                                                                UserNotification.NotificationPriority priority) {
+        Specification<UserNotification> filter = equal(null, "type", type);
+        return equal(filter, "priority", priority);
+    }
+
+    public static Specification<NotificationBroadcast> broadcasts(UserNotification.NotificationType type,
+                                                                  UserNotification.NotificationPriority priority) {
+        Specification<NotificationBroadcast> filter = equal(null, "type", type);
+        return equal(filter, "priority", priority);
+    }
+
+    private static <T> Specification<T> equal(Specification<T> filter, String attribute, Object value) {
+        if (value == null) {
+            return filter;
+        }
+        Specification<T> criterion = (root, query, cb) -> cb.equal(root.get(attribute), value);
+        return filter == null ? criterion : filter.and(criterion);
+    }
+}
@@ -0,0 +1,339 @@
+package com.coachai.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Table;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Listes d'administration paginées par curseur (keyset) et filtrées en base.
+ *
+ * Chaque liste déclare une liste blanche de tris sur des attributs non nuls, départagés par
+ * l'identifiant. Le curseur est opaque pour le client : Base64URL de "tri|sens|id|valeur", et
+ * n'est valable que pour le tri qui l'a produit. Les filtres sont des {@link Specification}
+ * traduites en SQL. Le total n'est calculé que pour la première page : exact si la liste est
+ * filtrée ou la table petite, sinon lu dans les statistiques du planificateur PostgreSQL.
+ */
+@Service
+@Transactional(readOnly = true)
+public class AdminListService {
+
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 200;
+
+    // Taille d'une liste demandée sans limite ni curseur : lue en entier
+    public static final int UNBOUNDED = Integer.MAX_VALUE - 1;
+
+    // En dessous de ce volume, un comptage exact coûte moins qu'une estimation imprécise
+    private static final long EXACT_COUNT_THRESHOLD = 10_000;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Page d'entités triée selon l'ordre demandé, à partir du curseur s'il est fourni (taille : {@link #pageSize})
+     * @param fetches associations chargées dans la même requête (jointure externe)
+     * @throws IllegalArgumentException si le curseur est invalide ou ne correspond pas au tri
+     */
+    public <T> KeysetPage<T> getPage(Class<T> type, Specification<T> filter, SortOrder<? super T> order,
+                                     String cursor, Integer limit, String... fetches) {
+        int size = pageSize(cursor, limit);
+        boolean firstPage = cursor == null || cursor.isBlank();
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> query = cb.createQuery(type);
+        Root<T> root = query.from(type);
+        for (String fetch : fetches) {
+            root.fetch(fetch, JoinType.LEFT);
+        }
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (filter != null) {
+            Predicate predicate = filter.toPredicate(root, query, cb);
+            if (predicate != null) {
+                predicates.add(predicate);
+            }
+        }
+        if (!firstPage) {
+            Cursor position = decode(cursor, order);
+            predicates.add(after(cb, root.get(order.field().attribute()), root.get("id"),
+                position.value(), position.id(), order.descending()));
+        }
+        query.where(predicates.toArray(new Predicate[0]));
+        query.orderBy(order.descending()
+            ? List.of(cb.desc(root.get(order.field().attribute())), cb.desc(root.get("id")))
+            : List.of(cb.asc(root.get(order.field().attribute())), cb.asc(root.get("id"))));
+
+        // Un élément de plus pour savoir s'il reste des lignes au-delà de la page
+        TypedQuery<T> typedQuery = entityManager.createQuery(query);
+        if (size != UNBOUNDED) {
+            typedQuery.setMaxResults(size + 1);
+        }
+        List<T> rows = typedQuery.getResultList();
+        boolean hasMore = rows.size() > size;
+        List<T> items = new ArrayList<>(hasMore ? rows.subList(0, size) : rows);
+
+        Long total = firstPage ? estimateCount(type, filter) : null;
+        String nextCursor = hasMore ? encode(order, items.get(items.size() - 1), idOf(items.get(items.size() - 1))) : null;
+        return new KeysetPage<>(items, nextCursor, hasMore, total);
+    }
+
+    /**
+     * Fusionne les pages de deux sources triées selon le même ordre en une page de taille "limit".
+     * Chaque source doit avoir été lue avec le même curseur et la même limite.
+     */
+    public <T> KeysetPage<T> merge(SortOrder<T> order, String cursor, Integer limit, KeysetPage<? extends T> first,
+                                   KeysetPage<? extends T> second) {
+        int size = pageSize(cursor, limit);
+        Comparator<T> comparator = order.comparator(this::idOf);
+
+        List<T> merged = new ArrayList<>(first.getItems());
+        merged.addAll(second.getItems());
+        merged.sort(comparator);
+
+        boolean hasMore = merged.size() > size || first.isHasMore() || second.isHasMore();
+        List<T> items = new ArrayList<>(merged.size() > size ? merged.subList(0, size) : merged);
+        String nextCursor = hasMore && !items.isEmpty()
+            ? encode(order, items.get(items.size() - 1), idOf(items.get(items.size() - 1)))
+            : null;
+        Long total = first.getTotalEstimate() != null && second.getTotalEstimate() != null
+            ? first.getTotalEstimate() + second.getTotalEstimate()
+            : null;
+        return new KeysetPage<>(items, nextCursor, hasMore, total);
+    }
+
+    /**
+     * Nombre de lignes de la liste : comptage exact si elle est filtrée ou si la table est
+     * petite, estimation du planificateur (pg_class.reltuples) sinon
+     */
+    public <T> long estimateCount(Class<T> type, Specification<T> filter) {
+        if (filter == null) {
+            Table table = type.getAnnotation(Table.class);
+            if (table != null && !table.name().isEmpty()) {
+                List<?> result = entityManager
+                    .createNativeQuery("SELECT reltuples FROM pg_class WHERE oid = to_regclass(?1)")
+                    .setParameter(1, table.name())
+                    .getResultList();
+                // -1 ou 0 tant que la table n'a jamais été analysée
+                if (!result.isEmpty() && result.get(0) instanceof Number estimate
+                        && estimate.longValue() >= EXACT_COUNT_THRESHOLD) {
+                    return estimate.longValue();
+                }
+            }
+        }
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<T> root = query.from(type);
+        query.select(cb.count(root));
+        if (filter != null) {
+            Predicate predicate = filter.toPredicate(root, query, cb);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    /**
+     * Ordre demandé, validé contre la liste blanche (premier élément par défaut, décroissant)
+     * @throws IllegalArgumentException si le tri ou le sens n'est pas autorisé
+     */
+    public static <T> SortOrder<T> resolveSort(List<SortField<T>> whitelist, String sort, String direction) {
+        SortField<T> field = whitelist.get(0);
+        if (sort != null && !sort.isBlank()) {
+            field = whitelist.stream()
+                .filter(candidate -> candidate.name().equals(sort))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unsupported sort '" + sort + "', expected one of "
+                    + whitelist.stream().map(SortField::name).collect(Collectors.joining(", "))));
+        }
+        boolean descending = true;
+        if (direction != null && !direction.isBlank()) {
+            if (direction.equalsIgnoreCase("asc")) {
+                descending = false;
+            } else if (!direction.equalsIgnoreCase("desc")) {
+                throw new IllegalArgumentException("Unsupported direction '" + direction + "', expected asc or desc");
+            }
+        }
+        return new SortOrder<>(field, descending);
+    }
+
+    /**
+     * Taille de page : limite demandée bornée à MAX_LIMIT, DEFAULT_LIMIT avec un curseur seul.
+     * Sans limite ni curseur, la liste est lue en entier ({@link #UNBOUNDED}) : les pages
+     * d'administration paginent encore côté client et attendent la liste complète.
+     */
+    public static int pageSize(String cursor, Integer limit) {
+        if (limit != null && limit > 0) {
+            return Math.min(limit, MAX_LIMIT);
+        }
+        return cursor == null || cursor.isBlank() ? UNBOUNDED : DEFAULT_LIMIT;
+    }
+
+    /**
+     * Valeur d'énumération d'un filtre ; null si absente (filtre ignoré)
+     * @param name nom du paramètre, repris dans le message d'erreur
+     * @throws IllegalArgumentException si la valeur est inconnue
+     */
+    public static <E extends Enum<E>> E parseFilter(Class<E> type, String name, String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Enum.valueOf(type, value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid " + name + " parameter");
+        }
+    }
+
+    private String idOf(Object entity) {
+        Object id = entityManager.getEntityManagerFactory().getPersistenceUnitUtil().getIdentifier(entity);
+        return id != null ? id.toString() : "";
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Predicate after(CriteriaBuilder cb, Path sortPath, Path<String> idPath,
+                                   Comparable value, String id, boolean descending) {
+        if (descending) {
+            return cb.or(cb.lessThan(sortPath, value),
+                cb.and(cb.equal(sortPath, value), cb.lessThan(idPath, id)));
+        }
+        return cb.or(cb.greaterThan(sortPath, value),
+            cb.and(cb.equal(sortPath, value), cb.greaterThan(idPath, id)));
+    }
+
+    private static <T> String encode(SortOrder<? super T> order, T entity, String id) {
+        String raw = order.field().name() + "|" + (order.descending() ? "desc" : "asc") + "|" + id + "|"
+            + order.field().getter().apply(entity);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Cursor decode(String cursor, SortOrder<?> order) {
+        String[] parts;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            // La valeur vient en dernier : elle peut elle-même contenir le séparateur
+            parts = raw.split("\\|", 4);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+        if (parts.length != 4 || parts[2].isEmpty()) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        if (!parts[0].equals(order.field().name())
+                || !parts[1].equals(order.descending() ? "desc" : "asc")) {
+            throw new IllegalArgumentException("Cursor does not match the requested sort");
+        }
+        try {
+            return new Cursor(order.field().parser().apply(parts[3]), parts[2]);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    private record Cursor(Comparable<?> value, String id) {
+    }
+
+    /**
+     * Tri autorisé : nom public, attribut JPA (non nul), lecture de la valeur et relecture depuis le curseur
+     */
+    public record SortField<T>(String name, String attribute, Function<T, ? extends Comparable<?>> getter,
+                               Function<String, ? extends Comparable<?>> parser) {
+
+        public static <T> SortField<T> dateTime(String name, Function<T, LocalDateTime> getter) {
+            return new SortField<>(name, name, getter, LocalDateTime::parse);
+        }
+
+        public static <T> SortField<T> text(String name, Function<T, String> getter) {
+            return new SortField<>(name, name, getter, Function.identity());
+        }
+    }
+
+    /**
+     * Tri résolu : champ de la liste blanche et sens
+     */
+    public record SortOrder<T>(SortField<T> field, boolean descending) {
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Comparator<T> comparator(Function<Object, String> idOf) {
+            Comparator<T> ascending = Comparator.<T, Comparable>comparing(item -> (Comparable) field.getter().apply(item))
+                .thenComparing(item -> idOf.apply(item));
+            return descending ? ascending.reversed() : ascending;
+        }
+    }
+
+    /**
+     * Page d'une liste d'administration et en-têtes de pagination associés
+     */
+    public static class KeysetPage<T> {
+        private final List<T> items;
+        private final String nextCursor;
+        private final boolean hasMore;
+        private final Long totalEstimate;
+
+        KeysetPage(List<T> items, String nextCursor, boolean hasMore, Long totalEstimate) {
+            this.items = items;
+            this.nextCursor = nextCursor;
+            this.hasMore = hasMore;
+            this.totalEstimate = totalEstimate;
+        }
+
+        public List<T> getItems() {
+            return items;
+        }
+
+        /**
+         * Curseur de la page suivante ; null en fin de liste
+         */
+        public String getNextCursor() {
+            return nextCursor;
+        }
+
+        public boolean isHasMore() {
+            return hasMore;
+        }
+
+        /**
+         * Nombre total de lignes (première page uniquement, sinon null)
+         */
+        public Long getTotalEstimate() {
+            return totalEstimate;
+        }
+
+        /**
+         * En-têtes HTTP de pagination, les corps de réponse restant des listes
+         */
+        public Map<String, String> headers() {
+            Map<String, String> headers = new HashMap<>();
+            if (nextCursor != null) {
+                headers.put("X-Next-Cursor", nextCursor);
+            }
+            headers.put("X-Has-More", String.valueOf(hasMore));
+            if (totalEstimate != null) {
+                headers.put("X-Total-Count-Estimate", String.valueOf(totalEstimate));
+            }
+            return headers;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.coachai.service;
+
+import com.coachai.dto.AiInteractionDto;
+import com.coachai.dto.AiInteractionTotalsDto;
+import com.coachai.dto.SenderCountDto;
+import com.coachai.model.AiInteractionDailyStats;
+import com.coachai.model.ChatMessage;
+import com.coachai.repository.AiInteractionDailyStatsRepository;
+import com.coachai.repository.ChatMessageRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Journal et statistiques des conversations IA pour l'administration.
+ *
+ * Le journal est paginé par curseur sur (timestamp, id), comme l'historique de conversation,
+ * et lit message et auteur en une projection. Les statistiques cumulent une ligne
+ * {@link AiInteractionDailyStats} par journée révolue et ne comptent à la volée que les
+ * messages postérieurs au dernier jour agrégé : leur coût ne dépend plus du volume total.
+ */
+@Service
+public class AiInteractionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AiInteractionService.class);
+
+    // Une paire message utilisateur / réponse IA au-delà de ce délai n'est pas comptée
+    private static final long MAX_RESPONSE_TIME_SECONDS = 60;
+
+    @Autowired
+    private ChatMessageRepository chatMessageRepository;
+
+    @Autowired
+    private AiInteractionDailyStatsRepository statsRepository;
+
+    @Autowired
+    private AdminListService adminListService;
+
+    /**
+     * Page d'interactions, les plus récentes d'abord, antérieures au curseur s'il est fourni ;
+     * journal complet sans limite ni curseur (voir {@link AdminListService#pageSize})
+     * @throws IllegalArgumentException si le curseur est invalide
+     */
+    @Transactional(readOnly = true)
+    public AdminListService.KeysetPage<AiInteractionDto> getInteractions(String cursor, Integer limit) {
+        int size = AdminListService.pageSize(cursor, limit);
+        // Un élément de plus pour savoir s'il reste des interactions au-delà de la page
+        Pageable pageRequest = size == AdminListService.UNBOUNDED ? Pageable.unpaged() : PageRequest.of(0, size + 1);
+
+        boolean firstPage = cursor == null || cursor.isBlank();
+        List<AiInteractionDto> rows;
+        if (firstPage) {
+            rows = chatMessageRepository.findLatestInteractions(ChatMessage.MessageSender.USER, pageRequest);
+        } else {
+            Cursor position = decode(cursor);
+            rows = chatMessageRepository.findInteractionsBefore(ChatMessage.MessageSender.USER, position.timestamp(),
+                    position.id(), pageRequest);
+        }
+
+        boolean hasMore = rows.size() > size;
+        List<AiInteractionDto> items = new ArrayList<>(hasMore ? rows.subList(0, size) : rows);
+        String nextCursor = hasMore ? encode(items.get(items.size() - 1)) : null;
+        Long total = firstPage ? adminListService.estimateCount(ChatMessage.class, null) : null;
+        return new AdminListService.KeysetPage<>(items, nextCursor, hasMore, total);
+    }
+
+    /**
+     * Totaux des conversations IA : journées agrégées plus messages postérieurs au dernier jour agrégé.
+     * Tant qu'aucune journée n'est agrégée (premier démarrage, agrégation en cours), seul le jour
+     * en cours est compté à la volée : jamais de parcours de tout l'historique par requête.
+     * Lecture en instantané unique pour ne compter aucune journée deux fois pendant une agrégation.
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public AiInteractionTotalsDto getTotals() {
+        AiInteractionTotalsDto totals = statsRepository.sumAll();
+        LocalDateTime liveFrom = totals.getLastStatsDate() != null
+            ? totals.getLastStatsDate().plusDays(1).atStartOfDay()
+            : LocalDate.now().atStartOfDay();
+
+        AiInteractionDailyStats live = aggregate(liveFrom, LocalDateTime.now().plusSeconds(1));
+        totals.setUserMessages(totals.getUserMessages() + live.getUserMessages());
+        totals.setAiMessages(totals.getAiMessages() + live.getAiMessages());
+        totals.setResponseTimeTotalMs(totals.getResponseTimeTotalMs() + live.getResponseTimeTotalMs());
+        totals.setResponseTimeSamples(totals.getResponseTimeSamples() + live.getResponseTimeSamples());
+        return totals;
+    }
+
+    /**
+     * Rattrape les journées révolues dès le démarrage, sans attendre le premier passage planifié
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rollUpOnStartup() {
+        scheduledRollup();
+    }
+
+    /**
+     * Agrège les journées révolues pas encore agrégées (intervalle configurable via ai.stats.rollup-interval-ms)
+     */
+    @Scheduled(fixedDelayString = "${ai.stats.rollup-interval-ms:3600000}", initialDelayString = "${ai.stats.rollup-initial-delay-ms:60000}")
+    public void scheduledRollup() {
+        try {
+            int days = rollUpClosedDays();
+            if (days > 0) {
+                logger.info("AI interaction stats rolled up for {} day(s)", days);
+            }
+        } catch (Exception e) {
+            logger.warn("AI interaction stats rollup failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Crée les lignes des journées terminées depuis le dernier jour agrégé (depuis le premier
+     * message au premier passage). Le jour en cours n'est jamais figé.
+     * @return nombre de journées agrégées
+     */
+    public int rollUpClosedDays() {
+        LocalDate today = LocalDate.now();
+        LocalDate next = statsRepository.findFirstByOrderByStatsDateDesc()
+            .map(stats -> stats.getStatsDate().plusDays(1))
+            .orElseGet(() -> {
+                LocalDateTime earliest = chatMessageRepository.findEarliestTimestamp();
+                return earliest != null ? earliest.toLocalDate() : today;
+            });
+
+        int days = 0;
+        for (LocalDate day = next; day.isBefore(today); day = day.plusDays(1)) {
+            AiInteractionDailyStats stats = aggregate(day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+            stats.setStatsDate(day);
+            stats.setComputedAt(LocalDateTime.now());
+            try {
+                statsRepository.save(stats);
+            } catch (DataIntegrityViolationException e) {
+                // Journée déjà agrégée par une autre instance
+                break;
+            }
+            days++;
+        }
+        return days;
+    }
+
+    private AiInteractionDailyStats aggregate(LocalDateTime from, LocalDateTime to) {
+        AiInteractionDailyStats stats = new AiInteractionDailyStats();
+        for (SenderCountDto count : chatMessageRepository.countBySenderBetween(from, to)) {
+            if (count.getSender() == ChatMessage.MessageSender.USER) {
+                stats.setUserMessages(count.getCount());
+            } else if (count.getSender() == ChatMessage.MessageSender.AI) {
+                stats.setAiMessages(count.getCount());
+            }
+        }
+        ChatMessageRepository.ResponseTimeTotals responseTimes = chatMessageRepository.sumResponseTimesBetween(
+            from.minusSeconds(MAX_RESPONSE_TIME_SECONDS), from, to);
+        if (responseTimes != null) {
+            stats.setResponseTimeSamples(responseTimes.getSamples());
+            stats.setResponseTimeTotalMs(responseTimes.getTotal());
+        }
+        return stats;
+    }
+
+    private static String encode(AiInteractionDto interaction) {
+        String raw = interaction.getTimestamp() + "|" + interaction.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Cursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            if (separator <= 0 || separator == raw.length() - 1) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new Cursor(LocalDateTime.parse(raw.substring(0, separator)), raw.substring(separator + 1));
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    private record Cursor(LocalDateTime timestamp, String id) {
+    }
+}
@@ -2,52 +2,47 @@ package com.coachai.service;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 @Service
 public class AiService {
 
     private static final Logger logger = LoggerFactory.getLogger(AiService.class);
-    private final String AI_ENGINE_URL = "http://localhost:8000/coach/hybrid";
-    private final RestTemplate restTemplate;
 
-    public AiService() {
-        this.restTemplate = new RestTemplate();
-    }
+    @Autowired
+    private MlServiceClient mlServiceClient;
+
+    @Autowired
+    private ObjectMapper objectMapper;
 
     public String getAiResponse(String question) {
         try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-
             Map<String, String> requestBody = Map.of(
                 "question", question,
                 // Add default values for required fields if needed, but the model has defaults for most
                 "difficulty_hint", "unknown" 
             );
 
-            HttpEntity<Map<String, String>> request = new HttpEntity<>(requestBody, headers);
-
-            ResponseEntity<HybridResponse> response = restTemplate.postForEntity(
-                AI_ENGINE_URL, 
-                request, 
+            HybridResponse response = mlServiceClient.post(
+                MlServiceClient.Endpoint.COACH,
+                requestBody,
                 HybridResponse.class
             );
 
-            if (response.getBody() != null) {
-                return response.getBody().getResponse();
+            if (response != null) {
+                return response.getResponse();
             }
             
             return "Désolé, je n'ai pas pu obtenir de réponse pour le moment.";
@@ -58,28 +53,87 @@ public class AiService {
         }
     }
 
+    /**
+     * Variante en flux de {@link #getAiResponse} : chaque fragment de réponse est transmis à onChunk
+     * dès que le moteur IA le produit. Le futur retourne la réponse complète à la fin du flux.
+     * En cas d'erreur avant le premier fragment, le message d'erreur est transmis comme unique fragment.
+     */
+    public CompletableFuture<String> streamAiResponse(String question, Consumer<String> onChunk) {
+        StringBuilder fullResponse = new StringBuilder();
+        Map<String, String> requestBody = Map.of(
+            "question", question,
+            "difficulty_hint", "unknown"
+        );
+
+        CompletableFuture<Void> stream;
+        try {
+            stream = mlServiceClient.postStreaming(MlServiceClient.Endpoint.COACH_STREAM, requestBody, line -> {
+                String chunk = parseStreamChunk(line);
+                if (chunk != null && !chunk.isEmpty()) {
+                    fullResponse.append(chunk);
+                    onChunk.accept(chunk);
+                }
+            });
+        } catch (Exception e) {
+            stream = CompletableFuture.failedFuture(e);
+        }
+
+        return stream.handle((ignored, error) -> {
+            if (error == null && fullResponse.length() > 0) {
+                return fullResponse.toString();
+            }
+            if (error != null) {
+                logger.error("Error streaming from AI engine", error);
+            }
+            if (fullResponse.length() > 0) {
+                // Flux interrompu : on conserve ce qui a déjà été envoyé
+                return fullResponse.toString();
+            }
+            String fallback = error != null
+                ? "Erreur de communication avec le moteur IA: " + error.getMessage()
+                : "Désolé, je n'ai pas pu obtenir de réponse pour le moment.";
+            try {
+                onChunk.accept(fallback);
+            } catch (RuntimeException e) {
+                logger.debug("Could not deliver fallback chunk: {}", e.getMessage());
+            }
+            return fallback;
+        });
+    }
+
+    /**
+     * Extrait le fragment de texte d'une ligne NDJSON de /coach/hybrid/stream ({"chunk": "..."})
+     */
+    private String parseStreamChunk(String line) {
+        if (line == null || line.isBlank()) {
+            return null;
+        }
+        try {
+            JsonNode node = objectMapper.readTree(line);
+            return node.hasNonNull("chunk") ? node.get("chunk").asText() : null;
+        } catch (Exception e) {
+            logger.warn("Ignoring malformed AI stream line: {}", line);
+            return null;
+        }
+    }
+
     /**
      * Détecte les topics dans les messages de l'utilisateur
      */
     public TopicDetectionResponse detectTopics(List<String> messages) {
         try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-
             Map<String, Object> requestBody = Map.of(
                 "messages", messages
             );
 
-            HttpEntity<Map<String, Object>> request = new HttpEntity<>(requestBody, headers);
-
-            ResponseEntity<TopicDetectionResponse> response = restTemplate.postForEntity(
-                "http://localhost:8000/topics/detect",
-                request,
+            TopicDetectionResponse response = mlServiceClient.post(
+                MlServiceClient.Endpoint.TOPICS,
+                requestBody,
                 TopicDetectionResponse.class
             );
 
-            if (response.getBody() != null) {
-                return response.getBody();
+            if (response != null) {
+                return response;
             }
             
             return new TopicDetectionResponse();
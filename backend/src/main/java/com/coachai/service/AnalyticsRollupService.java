@@ -0,0 +1,168 @@
+package com.coachai.service;
+
+import com.coachai.model.AnalyticsDailySnapshot;
+import com.coachai.model.AnalyticsSegmentCount;
+import com.coachai.model.ContentStatus;
+import com.coachai.model.User;
+import com.coachai.repository.AnalyticsDailySnapshotRepository;
+import com.coachai.repository.AnalyticsSegmentCountRepository;
+import com.coachai.repository.CourseRepository;
+import com.coachai.repository.FormationEnrollmentRepository;
+import com.coachai.repository.FormationProgressRepository;
+import com.coachai.repository.FormationRepository;
+import com.coachai.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Maintient les instantanés quotidiens des indicateurs admin ({@link AnalyticsDailySnapshot}
+ * et {@link AnalyticsSegmentCount}).
+ * Seule la ligne du jour est recalculée, par requêtes d'agrégation (COUNT/AVG/SUM) ;
+ * les jours précédents restent figés et donnent les évolutions sans rescanner les tables.
+ */
+@Service
+public class AnalyticsRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnalyticsRollupService.class);
+
+    @Autowired
+    private AnalyticsDailySnapshotRepository snapshotRepository;
+
+    @Autowired
+    private AnalyticsSegmentCountRepository segmentCountRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private FormationRepository formationRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private FormationEnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private FormationProgressRepository progressRepository;
+
+    /**
+     * Rafraîchit l'instantané du jour (intervalle configurable via analytics.rollup.interval-ms)
+     */
+    @Scheduled(fixedDelayString = "${analytics.rollup.interval-ms:900000}", initialDelayString = "${analytics.rollup.initial-delay-ms:60000}")
+    public void scheduledRefresh() {
+        try {
+            refresh(LocalDate.now());
+        } catch (Exception e) {
+            logger.warn("Analytics rollup failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Recalcule l'instantané d'une journée à partir de l'état courant des tables
+     */
+    @Transactional
+    public AnalyticsDailySnapshot refresh(LocalDate date) {
+        LocalDateTime now = LocalDateTime.now();
+
+        AnalyticsDailySnapshot snapshot = snapshotRepository.findBySnapshotDate(date)
+            .orElseGet(AnalyticsDailySnapshot::new);
+        snapshot.setSnapshotDate(date);
+
+        snapshot.setTotalUsers(userRepository.count());
+        snapshot.setActiveStatusUsers(userRepository.countByStatus(User.UserStatus.ACTIVE));
+        snapshot.setUsersJoinedBefore30Days(userRepository.countByJoinedAtBefore(now.minusDays(30)));
+        snapshot.setActiveUsersLast7Days(userRepository.countByLastActiveAfter(now.minusDays(7)));
+        snapshot.setActiveUsersPrevious7Days(userRepository.countByLastActiveBetween(now.minusDays(14), now.minusDays(7)));
+
+        snapshot.setTotalFormations(formationRepository.count());
+        snapshot.setTotalCourses(courseRepository.count());
+        snapshot.setPublishedCourses(courseRepository.countByStatus(ContentStatus.PUBLISHED));
+        snapshot.setFormationEnrollments(enrollmentRepository.count());
+
+        snapshot.setCompletions(progressRepository.countByOverallProgressGreaterThanEqual(100.0));
+        snapshot.setAverageProgress(progressRepository.averageOverallProgress());
+        snapshot.setCompletedModules(progressRepository.sumCompletedModules());
+        snapshot.setComputedAt(now);
+
+        AnalyticsDailySnapshot saved = snapshotRepository.save(snapshot);
+        refreshSegments(date);
+        return saved;
+    }
+
+    /**
+     * Instantané du jour ; calculé à la volée s'il n'existe pas encore (premier appel après démarrage)
+     */
+    @Transactional
+    public AnalyticsDailySnapshot getToday() {
+        LocalDate today = LocalDate.now();
+        return snapshotRepository.findBySnapshotDate(today).orElseGet(() -> refresh(today));
+    }
+
+    /**
+     * Dernier instantané connu à la date donnée (ex: il y a 7 jours), s'il existe
+     */
+    public Optional<AnalyticsDailySnapshot> getSnapshotAsOf(LocalDate date) {
+        return snapshotRepository.findFirstBySnapshotDateLessThanEqualOrderBySnapshotDateDesc(date);
+    }
+
+    /**
+     * Nombre d'utilisateurs par rôle pour une journée
+     */
+    public Map<User.UserRole, Long> getUsersByRole(LocalDate date) {
+        Map<User.UserRole, Long> counts = new EnumMap<>(User.UserRole.class);
+        for (User.UserRole role : User.UserRole.values()) {
+            counts.put(role, 0L);
+        }
+        for (AnalyticsSegmentCount segment : segmentCountRepository.findBySnapshotDateAndDimension(
+                date, AnalyticsSegmentCount.Dimension.ROLE)) {
+            counts.put(User.UserRole.valueOf(segment.getSegment()), segment.getCount());
+        }
+        return counts;
+    }
+
+    /**
+     * Évolution en pourcentage entre deux valeurs (0 si pas de référence)
+     */
+    public static double percentChange(double current, double previous) {
+        return previous > 0 ? (current - previous) / previous * 100 : 0.0;
+    }
+
+    private void refreshSegments(LocalDate date) {
+        Map<String, AnalyticsSegmentCount> existing = new HashMap<>();
+        for (AnalyticsSegmentCount segment : segmentCountRepository.findBySnapshotDate(date)) {
+            existing.put(segment.getDimension() + ":" + segment.getSegment(), segment);
+        }
+
+        for (User.UserRole role : User.UserRole.values()) {
+            upsertSegment(existing, date, AnalyticsSegmentCount.Dimension.ROLE, role.name(), userRepository.countByRole(role));
+        }
+        for (User.UserStatus status : User.UserStatus.values()) {
+            upsertSegment(existing, date, AnalyticsSegmentCount.Dimension.STATUS, status.name(), userRepository.countByStatus(status));
+        }
+        segmentCountRepository.saveAll(existing.values());
+    }
+
+    private void upsertSegment(Map<String, AnalyticsSegmentCount> existing, LocalDate date,
+                               AnalyticsSegmentCount.Dimension dimension, String segment, long count) {
+        AnalyticsSegmentCount row = existing.computeIfAbsent(dimension + ":" + segment, key -> {
+            AnalyticsSegmentCount created = new AnalyticsSegmentCount();
+            created.setSnapshotDate(date);
+            created.setDimension(dimension);
+            created.setSegment(segment);
+            return created;
+        });
+        row.setCount(count);
+    }
+}
@@ -1,5 +1,6 @@
 package com.coachai.service;
 
+import com.coachai.dto.SenderMessageStatsDto;
 import com.coachai.model.*;
 import com.coachai.repository.*;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -25,9 +26,6 @@ public class ChatAnalysisService {
     @Autowired
     private AIRecommendationRepository aiRecommendationRepository;
 
-    @Autowired
-    private UserRepository userRepository;
-
     @Autowired
     private FormationRepository formationRepository;
 
@@ -35,25 +33,17 @@ public class ChatAnalysisService {
     private AiService aiService;
 
     // Seuil minimum de questions pour déclencher une recommandation
-    private static final int MIN_QUESTIONS_THRESHOLD = 5;
-
-    // Topics courants à détecter (peut être étendu)
-    private static final Map<String, List<String>> TOPIC_KEYWORDS = new HashMap<>();
-    
-    static {
-        // Java
-        TOPIC_KEYWORDS.put("Java", Arrays.asList("java", "jvm", "spring", "hibernate", "maven", "gradle"));
-        // Python
-        TOPIC_KEYWORDS.put("Python", Arrays.asList("python", "django", "flask", "numpy", "pandas", "pytest"));
-        // JavaScript
-        TOPIC_KEYWORDS.put("JavaScript", Arrays.asList("javascript", "js", "node", "react", "vue", "angular", "typescript"));
-        // Web Development
-        TOPIC_KEYWORDS.put("Développement Web", Arrays.asList("html", "css", "web", "frontend", "backend", "api", "rest"));
-        // Database
-        TOPIC_KEYWORDS.put("Base de données", Arrays.asList("sql", "database", "mysql", "postgresql", "mongodb", "nosql"));
-        // Algorithms
-        TOPIC_KEYWORDS.put("Algorithmes", Arrays.asList("algorithme", "algorithm", "structure", "complexité", "tri", "recherche"));
-    }
+    public static final int MIN_QUESTIONS_THRESHOLD = 5;
+
+    // Topics courants à détecter (peut être étendu) ; "*" : préfixe de mot
+    private static final TopicMatcher TOPIC_MATCHER = TopicMatcher.builder()
+        .topic("Java", "java", "jvm", "spring", "hibernate", "maven", "gradle")
+        .topic("Python", "python", "django", "flask", "numpy", "pandas", "pytest")
+        .topic("JavaScript", "javascript", "js", "node", "react", "vue", "angular", "typescript")
+        .topic("Développement Web", "html", "css", "web", "frontend", "backend", "api", "rest")
+        .topic("Base de données", "sql", "database", "mysql", "postgresql", "mongodb", "nosql")
+        .topic("Algorithmes", "algorithm*", "structure*", "complexité", "tri", "recherche*")
+        .build();
 
     /**
      * Analyse les conversations d'un étudiant et détecte les topics dominants
@@ -62,21 +52,22 @@ public class ChatAnalysisService {
      * @return Map avec les topics détectés et leur fréquence
      */
     public Map<String, Integer> analyzeChatTopics(User student) {
+        return detectTopics(loadUserMessages(student));
+    }
+
+    /**
+     * Contenus des messages envoyés par l'étudiant, lus en une requête
+     */
+    public List<String> loadUserMessages(User student) {
+        return chatMessageRepository.findContentsByUserAndSender(student, ChatMessage.MessageSender.USER);
+    }
+
+    /**
+     * Détecte les topics de messages déjà lus ; aucun accès à la base, à appeler hors transaction
+     */
+    public Map<String, Integer> detectTopics(List<String> userMessages) {
         Map<String, Integer> topicCounts = new HashMap<>();
         
-        List<Conversation> conversations = conversationRepository.findByUser(student);
-        List<String> userMessages = new ArrayList<>();
-        
-        // Collecter tous les messages de l'utilisateur
-        for (Conversation conv : conversations) {
-            List<ChatMessage> messages = chatMessageRepository.findByConversationOrderByTimestampAsc(conv);
-            for (ChatMessage message : messages) {
-                if (message.getSender() == ChatMessage.MessageSender.USER) {
-                    userMessages.add(message.getContent());
-                }
-            }
-        }
-        
         // Utiliser l'API Python pour la détection de topics si on a au moins 5 questions
         if (userMessages.size() >= MIN_QUESTIONS_THRESHOLD) {
             try {
@@ -101,26 +92,8 @@ public class ChatAnalysisService {
      * Détection locale de topics (fallback)
      */
     private Map<String, Integer> analyzeChatTopicsLocal(List<String> userMessages) {
-        Map<String, Integer> topicCounts = new HashMap<>();
-        
-        for (String message : userMessages) {
-            String content = message.toLowerCase();
-            
-            // Détecter les topics
-            for (Map.Entry<String, List<String>> entry : TOPIC_KEYWORDS.entrySet()) {
-                String topic = entry.getKey();
-                List<String> keywords = entry.getValue();
-                
-                for (String keyword : keywords) {
-                    if (content.contains(keyword.toLowerCase())) {
-                        topicCounts.merge(topic, 1, Integer::sum);
-                        break; // Compter une seule fois par message
-                    }
-                }
-            }
-        }
-        
-        return topicCounts;
+        // Chaque message compte une seule fois par topic
+        return TOPIC_MATCHER.countMessagesByTopic(userMessages);
     }
 
     /**
@@ -130,10 +103,17 @@ public class ChatAnalysisService {
      * @return Liste des recommandations générées
      */
     public List<AIRecommendation> generateRecommendationsFromChat(User student) {
-        List<AIRecommendation> recommendations = new ArrayList<>();
-        
         // Analyser les topics dans les conversations
-        Map<String, Integer> topicCounts = analyzeChatTopics(student);
+        return saveTopicRecommendations(student, analyzeChatTopics(student));
+    }
+
+    /**
+     * Enregistre une recommandation par topic ayant atteint le seuil, hors recommandations existantes
+     * @param topicCounts Topics détectés et leur fréquence
+     * @return Liste des recommandations générées
+     */
+    public List<AIRecommendation> saveTopicRecommendations(User student, Map<String, Integer> topicCounts) {
+        List<AIRecommendation> recommendations = new ArrayList<>();
         
         // Générer une recommandation pour chaque topic qui dépasse le seuil
         for (Map.Entry<String, Integer> entry : topicCounts.entrySet()) {
@@ -226,41 +206,10 @@ public class ChatAnalysisService {
      * Vérifie si une recommandation existe déjà pour ce topic et cet étudiant
      */
     private boolean recommendationExistsForTopic(User student, String topic) {
-        List<AIRecommendation> existing = aiRecommendationRepository.findAll();
-        
-        for (AIRecommendation rec : existing) {
-            // Vérifier si la recommandation concerne le même étudiant et le même topic
-            if (rec.getTargetStudents().contains(student.getId()) &&
-                rec.getConversationTopics().contains(topic) &&
-                (rec.getStatus() == AIRecommendation.RecommendationStatus.PENDING ||
-                 rec.getStatus() == AIRecommendation.RecommendationStatus.APPROVED)) {
-                return true;
-            }
-        }
-        
-        return false;
-    }
-
-    /**
-     * Analyse toutes les conversations et génère des recommandations pour tous les étudiants
-     * qui ont atteint le seuil
-     */
-    public void analyzeAllStudentsAndGenerateRecommendations() {
-        List<User> students = userRepository.findByRole(User.UserRole.USER);
-        
-        for (User student : students) {
-            try {
-                List<AIRecommendation> recommendations = generateRecommendationsFromChat(student);
-                if (!recommendations.isEmpty()) {
-                    System.out.println("Généré " + recommendations.size() + 
-                        " recommandation(s) pour l'étudiant: " + student.getEmail());
-                }
-            } catch (Exception e) {
-                System.err.println("Erreur lors de l'analyse pour l'étudiant " + 
-                    student.getEmail() + ": " + e.getMessage());
-                e.printStackTrace();
-            }
-        }
+        return aiRecommendationRepository.countForStudentAndTopic(student.getId(), topic, List.of(
+            AIRecommendation.RecommendationStatus.PENDING,
+            AIRecommendation.RecommendationStatus.APPROVED
+        )) > 0;
     }
 
     /**
@@ -269,17 +218,16 @@ public class ChatAnalysisService {
     public Map<String, Object> getAnalysisStats(User student) {
         Map<String, Object> stats = new HashMap<>();
         
-        List<Conversation> conversations = conversationRepository.findByUser(student);
-        stats.put("totalConversations", conversations.size());
+        stats.put("totalConversations", conversationRepository.countByUser(student));
         
+        // Compteurs par émetteur calculés par la base
         long totalMessages = 0;
         long userMessages = 0;
-        for (Conversation conv : conversations) {
-            List<ChatMessage> messages = chatMessageRepository.findByConversationOrderByTimestampAsc(conv);
-            totalMessages += messages.size();
-            userMessages += messages.stream()
-                .filter(m -> m.getSender() == ChatMessage.MessageSender.USER)
-                .count();
+        for (SenderMessageStatsDto senderStats : chatMessageRepository.aggregateByUserGroupedBySender(student)) {
+            totalMessages += senderStats.getCount();
+            if (senderStats.getSender() == ChatMessage.MessageSender.USER) {
+                userMessages = senderStats.getCount();
+            }
         }
         
         stats.put("totalMessages", totalMessages);
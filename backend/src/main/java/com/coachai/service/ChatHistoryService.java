@@ -0,0 +1,167 @@
+package com.coachai.service;
+
+import com.coachai.model.ChatAttachment;
+import com.coachai.model.ChatMessage;
+import com.coachai.model.Conversation;
+import com.coachai.repository.ChatAttachmentRepository;
+import com.coachai.repository.ChatMessageRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Historique de conversation paginé par curseur sur (timestamp, id).
+ * Le curseur est opaque pour le client : Base64URL de "timestamp|id".
+ * Les messages d'une page sont toujours renvoyés du plus ancien au plus récent.
+ */
+@Service
+public class ChatHistoryService {
+
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 100;
+
+    @Autowired
+    private ChatMessageRepository chatMessageRepository;
+
+    @Autowired
+    private ChatAttachmentRepository chatAttachmentRepository;
+
+    /**
+     * Page de messages : les plus récents par défaut, ou antérieurs à "before",
+     * ou postérieurs à "after" (before prioritaire si les deux sont fournis)
+     *
+     * @throws IllegalArgumentException si le curseur est invalide
+     */
+    public MessagePage getPage(Conversation conversation, String before, String after, Integer limit) {
+        int size = limit == null || limit <= 0 ? DEFAULT_LIMIT : Math.min(limit, MAX_LIMIT);
+        // Un élément de plus pour savoir s'il reste des messages au-delà de la page
+        PageRequest pageRequest = PageRequest.of(0, size + 1);
+
+        List<ChatMessage> messages;
+        boolean olderPage;
+        if (before != null && !before.isBlank()) {
+            Cursor cursor = decode(before);
+            messages = chatMessageRepository.findBefore(conversation, cursor.timestamp, cursor.id, pageRequest);
+            olderPage = true;
+        } else if (after != null && !after.isBlank()) {
+            Cursor cursor = decode(after);
+            messages = chatMessageRepository.findAfter(conversation, cursor.timestamp, cursor.id, pageRequest);
+            olderPage = false;
+        } else {
+            messages = chatMessageRepository.findLatest(conversation, pageRequest);
+            olderPage = true;
+        }
+
+        boolean hasMore = messages.size() > size;
+        List<ChatMessage> page = new ArrayList<>(hasMore ? messages.subList(0, size) : messages);
+        if (olderPage) {
+            // Requête triée du plus récent au plus ancien : remise dans l'ordre chronologique
+            Collections.reverse(page);
+        }
+        return new MessagePage(page, hasMore, olderPage);
+    }
+
+    /**
+     * Pièces jointes des messages d'une page, chargées en une seule requête
+     */
+    public Map<String, List<ChatAttachment>> attachmentsByMessage(List<ChatMessage> messages) {
+        Map<String, List<ChatAttachment>> byMessage = new HashMap<>();
+        if (messages.isEmpty()) {
+            return byMessage;
+        }
+        for (ChatAttachment attachment : chatAttachmentRepository.findByMessageIn(messages)) {
+            byMessage.computeIfAbsent(attachment.getMessage().getId(), k -> new ArrayList<>()).add(attachment);
+        }
+        return byMessage;
+    }
+
+    public static String encode(ChatMessage message) {
+        String raw = message.getTimestamp() + "|" + message.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Cursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            if (separator <= 0 || separator == raw.length() - 1) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new Cursor(LocalDateTime.parse(raw.substring(0, separator)), raw.substring(separator + 1));
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    private record Cursor(LocalDateTime timestamp, String id) {
+    }
+
+    /**
+     * Page de messages (ordre chronologique) et curseurs de navigation
+     */
+    public static class MessagePage {
+        private final List<ChatMessage> messages;
+        private final boolean hasMore;
+        private final boolean olderPage;
+
+        MessagePage(List<ChatMessage> messages, boolean hasMore, boolean olderPage) {
+            this.messages = messages;
+            this.hasMore = hasMore;
+            this.olderPage = olderPage;
+        }
+
+        public List<ChatMessage> getMessages() {
+            return messages;
+        }
+
+        /**
+         * Vrai s'il reste des messages dans le sens de la pagination demandé
+         */
+        public boolean isHasMore() {
+            return hasMore;
+        }
+
+        /**
+         * Curseur vers les messages plus anciens ; null si le début de la conversation est atteint
+         */
+        public String getBeforeCursor() {
+            if (messages.isEmpty() || (olderPage && !hasMore)) {
+                return null;
+            }
+            return encode(messages.get(0));
+        }
+
+        /**
+         * Curseur vers les messages plus récents (à utiliser aussi pour le rafraîchissement)
+         */
+        public String getAfterCursor() {
+            return messages.isEmpty() ? null : encode(messages.get(messages.size() - 1));
+        }
+
+        /**
+         * En-têtes HTTP de pagination, les corps de réponse restant des listes
+         */
+        public Map<String, String> headers() {
+            Map<String, String> headers = new HashMap<>();
+            if (getBeforeCursor() != null) {
+                headers.put("X-Before-Cursor", getBeforeCursor());
+            }
+            if (getAfterCursor() != null) {
+                headers.put("X-After-Cursor", getAfterCursor());
+            }
+            headers.put("X-Has-More", String.valueOf(hasMore));
+            return headers;
+        }
+    }
+}
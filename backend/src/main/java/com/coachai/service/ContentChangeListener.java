@@ -0,0 +1,62 @@
+package com.coachai.service;
+
+import com.coachai.model.Course;
+import com.coachai.model.Formation;
+import com.coachai.model.Lesson;
+import com.coachai.model.Module;
+import com.coachai.model.Quiz;
+import com.coachai.model.QuizQuestion;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * Listener JPA des contenus pédagogiques : publie un {@link ContentChangedEvent} à chaque
+ * création, modification ou suppression, quel que soit le contrôleur à l'origine de l'écriture.
+ * Une question de quiz est signalée comme une modification de son quiz.
+ * Instancié par Hibernate via le conteneur de beans Spring ; le publisher est résolu
+ * paresseusement pour éviter une dépendance circulaire avec l'EntityManagerFactory.
+ */
+public class ContentChangeListener {
+
+    @Autowired
+    private ObjectProvider<ApplicationEventPublisher> eventPublisher;
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Object entity) {
+        publish(entity, false);
+    }
+
+    @PostRemove
+    public void onRemove(Object entity) {
+        publish(entity, true);
+    }
+
+    private void publish(Object entity, boolean removed) {
+        ApplicationEventPublisher publisher = eventPublisher.getIfAvailable();
+        if (publisher == null) {
+            return;
+        }
+        ContentChangedEvent event = null;
+        if (entity instanceof Formation formation) {
+            event = new ContentChangedEvent(ContentChangedEvent.ContentType.FORMATION, formation.getId(), removed);
+        } else if (entity instanceof Module module) {
+            event = new ContentChangedEvent(ContentChangedEvent.ContentType.MODULE, module.getId(), removed);
+        } else if (entity instanceof Course course) {
+            event = new ContentChangedEvent(ContentChangedEvent.ContentType.COURSE, course.getId(), removed);
+        } else if (entity instanceof Lesson lesson) {
+            event = new ContentChangedEvent(ContentChangedEvent.ContentType.LESSON, lesson.getId(), removed);
+        } else if (entity instanceof Quiz quiz) {
+            event = new ContentChangedEvent(ContentChangedEvent.ContentType.QUIZ, quiz.getId(), removed);
+        } else if (entity instanceof QuizQuestion question && question.getQuiz() != null) {
+            event = new ContentChangedEvent(ContentChangedEvent.ContentType.QUIZ, question.getQuiz().getId(), false);
+        }
+        if (event != null) {
+            publisher.publishEvent(event);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.coachai.service;
+
+/**
+ * Événement publié lors de la création, modification ou suppression d'un contenu
+ * pédagogique (formation, module, cours, leçon, quiz). Les consommateurs (index de
+ * recherche, catalogue public) l'écoutent après commit.
+ */
+public class ContentChangedEvent {
+
+    public enum ContentType {
+        FORMATION, MODULE, COURSE, LESSON, QUIZ
+    }
+
+    private final ContentType type;
+    private final String id;
+    private final boolean removed;
+
+    public ContentChangedEvent(ContentType type, String id, boolean removed) {
+        this.type = type;
+        this.id = id;
+        this.removed = removed;
+    }
+
+    public ContentType getType() {
+        return type;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public boolean isRemoved() {
+        return removed;
+    }
+}
@@ -1,16 +1,16 @@
 package com.coachai.service;
 
+import com.coachai.dto.MessageContentDto;
 import com.coachai.model.*;
 import com.coachai.repository.*;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.core.ParameterizedTypeReference;
-import org.springframework.http.HttpMethod;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import jakarta.annotation.PostConstruct;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -18,8 +18,8 @@ import java.util.stream.Collectors;
 @Service
 public class CourseRecommendationService {
     
-    private static final String ML_MODEL_URL = "http://localhost:8000/coach/predict";
-    private final RestTemplate restTemplate = new RestTemplate();
+    @Autowired
+    private MlServiceClient mlServiceClient;
     
     @Autowired
     private ConversationRepository conversationRepository;
@@ -36,8 +36,34 @@ public class CourseRecommendationService {
     @Autowired
     private EnrollmentRepository enrollmentRepository;
     
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    private TransactionTemplate readOnlyTransaction;
+    
+    // Taille des blocs de messages lus à chaque transaction
+    private static final int MESSAGE_CHUNK_SIZE = 200;
+    
+    // Mots-clés techniques communs (chaque mot-clé est son propre topic) ; "algorithm*" : préfixe
+    // de mot (algorithms, algorithme...), sous le topic "algorithm" comparé au texte des cours
+    private static final TopicMatcher TECHNICAL_KEYWORDS = TopicMatcher.builder()
+        .keywords("javascript", "java", "python", "react", "angular", "vue", "node", "sql", "database",
+                  "api", "rest", "graphql", "html", "css", "typescript", "docker", "kubernetes")
+        .topic("algorithm", "algorithm*")
+        .keywords("data structure", "machine learning", "ai", "frontend", "backend",
+                  "mobile", "android", "ios", "web", "design", "ui", "ux", "testing", "debugging")
+        .build();
+    
+    @PostConstruct
+    void init() {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+    
     /**
-     * Génère des recommandations de cours pour un étudiant basé sur ses conversations
+     * Génère des recommandations de cours pour un étudiant basé sur ses conversations.
+     * Pas de transaction englobante : les messages sont lus par blocs, chacun dans une
+     * transaction courte, puis analysés par le modèle ML sans retenir de connexion JDBC.
      */
     public List<CourseRecommendation> generateRecommendations(User student) {
         List<Conversation> conversations = conversationRepository.findByUserOrderByLastMessageDateDesc(student);
@@ -46,23 +72,25 @@ public class CourseRecommendationService {
             return new ArrayList<>();
         }
         
-        // Extraire les mots-clés et sujets des conversations
-        Map<String, Integer> topicFrequency = extractTopicsFromConversations(conversations);
+        // Cours non suivis et publiés, compétences et objectifs chargés : le score est calculé hors transaction
+        List<Course> availableCourses = readOnlyTransaction.execute(status -> {
+            Set<String> enrolledCourseIds = enrollmentRepository.findByUser(student).stream()
+                .map(e -> e.getCourse().getId())
+                .collect(Collectors.toSet());
+            List<Course> courses = courseRepository.findAll().stream()
+                .filter(course -> !enrolledCourseIds.contains(course.getId()))
+                .filter(course -> course.getStatus() == ContentStatus.PUBLISHED)
+                .collect(Collectors.toList());
+            courses.forEach(course -> {
+                Hibernate.initialize(course.getSkills());
+                Hibernate.initialize(course.getLearningObjectives());
+            });
+            return courses;
+        });
         
-        // Récupérer tous les cours disponibles
-        List<Course> allCourses = courseRepository.findAll();
-        
-        // Récupérer les cours déjà suivis par l'étudiant
-        List<Enrollment> enrollments = enrollmentRepository.findByUser(student);
-        Set<String> enrolledCourseIds = enrollments.stream()
-            .map(e -> e.getCourse().getId())
-            .collect(Collectors.toSet());
-        
-        // Filtrer les cours déjà suivis
-        List<Course> availableCourses = allCourses.stream()
-            .filter(course -> !enrolledCourseIds.contains(course.getId()))
-            .filter(course -> course.getStatus() == ContentStatus.PUBLISHED)
-            .collect(Collectors.toList());
+        // Extraire les mots-clés et sujets des conversations, et l'extrait de chaque cours au passage
+        Map<String, String> excerpts = new HashMap<>();
+        Map<String, Integer> topicFrequency = extractTopicsFromConversations(conversations, availableCourses, excerpts);
         
         System.out.println("=== GENERATION DE RECOMMANDATIONS ===");
         System.out.println("Étudiant: " + student.getEmail());
@@ -88,7 +116,7 @@ public class CourseRecommendationService {
                     recommendation.setCourse(course);
                     recommendation.setConfidenceScore(relevanceScore);
                     recommendation.setReason(generateRecommendationReason(course, topicFrequency, conversations));
-                    recommendation.setConversationExcerpt(extractRelevantConversationExcerpt(course, conversations));
+                    recommendation.setConversationExcerpt(extractRelevantConversationExcerpt(course, excerpts, conversations));
                     recommendation.setStatus(CourseRecommendation.RecommendationStatus.PENDING);
                     
                     recommendations.add(recommendation);
@@ -116,63 +144,53 @@ public class CourseRecommendationService {
     }
     
     /**
-     * Extrait les sujets et mots-clés des conversations en utilisant le modèle ML
+     * Extrait les sujets et mots-clés des conversations en utilisant le modèle ML.
+     * Les messages de l'étudiant (conversations les plus récentes d'abord, puis ordre
+     * chronologique) sont lus par blocs de MESSAGE_CHUNK_SIZE selon le curseur (timestamp, id) ;
+     * chaque bloc est analysé dès sa lecture, transaction close. Retient au passage, pour chaque
+     * cours, le premier message contenant un mot du cours (par identifiant de cours).
      */
-    private Map<String, Integer> extractTopicsFromConversations(List<Conversation> conversations) {
+    private Map<String, Integer> extractTopicsFromConversations(List<Conversation> conversations,
+                                                                List<Course> courses,
+                                                                Map<String, String> excerpts) {
         Map<String, Integer> topicFrequency = new HashMap<>();
         Map<String, Double> difficultyScores = new HashMap<>(); // Pour stocker les scores de difficulté du ML
         
-        // Mots-clés techniques communs
-        String[] technicalKeywords = {
-            "javascript", "java", "python", "react", "angular", "vue", "node", "sql", "database",
-            "api", "rest", "graphql", "html", "css", "typescript", "docker", "kubernetes",
-            "algorithm", "data structure", "machine learning", "ai", "frontend", "backend",
-            "mobile", "android", "ios", "web", "design", "ui", "ux", "testing", "debugging"
-        };
+        Map<String, List<String>> courseWords = new HashMap<>();
+        for (Course course : courses) {
+            courseWords.put(course.getId(), courseWords(course));
+        }
         
-        // Analyser chaque message avec le modèle ML
-        for (Conversation conv : conversations) {
-            List<ChatMessage> messages = chatMessageRepository.findByConversationOrderByTimestampAsc(conv);
-            for (ChatMessage msg : messages) {
-                if (msg.getSender() == ChatMessage.MessageSender.USER) {
-                    String content = msg.getContent().toLowerCase();
-                    
-                    // Appeler le modèle ML pour analyser la difficulté et les sujets
-                    try {
-                        Map<String, Object> mlAnalysis = analyzeWithMLModel(msg.getContent());
-                        if (mlAnalysis != null) {
-                            String predictedDifficulty = (String) mlAnalysis.get("predicted_difficulty");
-                            Double confidence = (Double) mlAnalysis.get("confidence");
-                            
-                            // Extraire les sujets basés sur la prédiction du ML
-                            if (predictedDifficulty != null) {
-                                difficultyScores.put(predictedDifficulty, 
-                                    difficultyScores.getOrDefault(predictedDifficulty, 0.0) + 
-                                    (confidence != null ? confidence : 0.5));
-                            }
-                        }
-                    } catch (Exception e) {
-                        // Si le ML échoue, continuer avec l'analyse basique
-                        System.err.println("Erreur lors de l'analyse ML: " + e.getMessage());
-                    }
-                    
-                    // Compter les occurrences de mots-clés techniques
-                    for (String keyword : technicalKeywords) {
-                        if (content.contains(keyword)) {
-                            topicFrequency.put(keyword, topicFrequency.getOrDefault(keyword, 0) + 1);
-                        }
+        for (Conversation conversation : conversations) {
+            MessageContentDto cursor = null;
+            List<MessageContentDto> chunk;
+            do {
+                MessageContentDto after = cursor;
+                chunk = readOnlyTransaction.execute(status -> after == null
+                    ? chatMessageRepository.findContentsBySender(conversation, ChatMessage.MessageSender.USER,
+                        PageRequest.of(0, MESSAGE_CHUNK_SIZE))
+                    : chatMessageRepository.findContentsBySenderAfter(conversation, ChatMessage.MessageSender.USER,
+                        after.getTimestamp(), after.getId(), PageRequest.of(0, MESSAGE_CHUNK_SIZE)));
+                
+                // Analyser chaque message avec le modèle ML
+                for (MessageContentDto message : chunk) {
+                    if (message.getContent() == null) {
+                        continue;
                     }
+                    analyzeMessage(message.getContent(), topicFrequency, difficultyScores);
                     
-                    // Extraire d'autres mots significatifs (longueur > 4)
-                    String[] words = content.split("\\s+");
-                    for (String word : words) {
-                        word = word.replaceAll("[^a-zA-Z]", "").toLowerCase();
-                        if (word.length() > 4) {
-                            topicFrequency.put(word, topicFrequency.getOrDefault(word, 0) + 1);
+                    String content = message.getContent().toLowerCase();
+                    courseWords.forEach((courseId, words) -> {
+                        if (!excerpts.containsKey(courseId) && words.stream().anyMatch(content::contains)) {
+                            excerpts.put(courseId, message.getContent());
                         }
-                    }
+                    });
                 }
-            }
+                
+                if (!chunk.isEmpty()) {
+                    cursor = chunk.get(chunk.size() - 1);
+                }
+            } while (chunk.size() == MESSAGE_CHUNK_SIZE);
         }
         
         // Ajouter les scores de difficulté du ML aux fréquences de topics
@@ -184,33 +202,66 @@ public class CourseRecommendationService {
         return topicFrequency;
     }
     
+    /**
+     * Ajoute la difficulté prédite et les mots-clés d'un message aux fréquences
+     */
+    private void analyzeMessage(String message, Map<String, Integer> topicFrequency,
+                                Map<String, Double> difficultyScores) {
+        String content = message.toLowerCase();
+        
+        // Appeler le modèle ML pour analyser la difficulté et les sujets
+        try {
+            Map<String, Object> mlAnalysis = analyzeWithMLModel(message);
+            if (mlAnalysis != null) {
+                String predictedDifficulty = (String) mlAnalysis.get("predicted_difficulty");
+                Double confidence = (Double) mlAnalysis.get("confidence");
+                
+                // Extraire les sujets basés sur la prédiction du ML
+                if (predictedDifficulty != null) {
+                    difficultyScores.put(predictedDifficulty, 
+                        difficultyScores.getOrDefault(predictedDifficulty, 0.0) + 
+                        (confidence != null ? confidence : 0.5));
+                }
+            }
+        } catch (Exception e) {
+            // Si le ML échoue, continuer avec l'analyse basique
+            System.err.println("Erreur lors de l'analyse ML: " + e.getMessage());
+        }
+        
+        // Compter les occurrences de mots-clés techniques (un passage sur le message)
+        for (String keyword : TECHNICAL_KEYWORDS.findTopics(content)) {
+            topicFrequency.merge(keyword, 1, Integer::sum);
+        }
+        
+        // Extraire d'autres mots significatifs (longueur > 4)
+        String[] words = content.split("\\s+");
+        for (String word : words) {
+            word = word.replaceAll("[^a-zA-Z]", "").toLowerCase();
+            if (word.length() > 4) {
+                topicFrequency.put(word, topicFrequency.getOrDefault(word, 0) + 1);
+            }
+        }
+    }
+    
     /**
      * Analyse un message avec le modèle ML pour prédire la difficulté et extraire les sujets
      */
     private Map<String, Object> analyzeWithMLModel(String question) {
         try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            
             Map<String, Object> requestBody = new HashMap<>();
             requestBody.put("question", question);
             requestBody.put("difficulty_hint", "unknown");
             requestBody.put("subject", "unknown");
             requestBody.put("topic", "unknown");
             
-            HttpEntity<Map<String, Object>> request = new HttpEntity<>(requestBody, headers);
-            
-            ParameterizedTypeReference<Map<String, Object>> responseType = 
-                new ParameterizedTypeReference<Map<String, Object>>() {};
-            ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
-                ML_MODEL_URL,
-                HttpMethod.POST,
-                request,
-                responseType
+            Map<String, Object> response = mlServiceClient.post(
+                MlServiceClient.Endpoint.COACH_PREDICT,
+                requestBody,
+                new ParameterizedTypeReference<Map<String, Object>>() {}
             );
             
-            if (response.getBody() != null) {
-                return response.getBody();
+            if (response != null) {
+                return response;
             }
         } catch (Exception e) {
             System.err.println("Erreur lors de l'appel au modèle ML: " + e.getMessage());
@@ -310,54 +361,46 @@ public class CourseRecommendationService {
     }
     
     /**
-     * Extrait un extrait de conversation pertinent
+     * Mots significatifs (longueur > 4) du titre et de la description d'un cours
      */
-    private String extractRelevantConversationExcerpt(Course course, List<Conversation> conversations) {
+    private List<String> courseWords(Course course) {
         String courseText = (course.getTitle() + " " + 
                            (course.getDescription() != null ? course.getDescription() : "")).toLowerCase();
-        
-        for (Conversation conv : conversations) {
-            List<ChatMessage> messages = chatMessageRepository.findByConversationOrderByTimestampAsc(conv);
-            for (ChatMessage msg : messages) {
-                if (msg.getSender() == ChatMessage.MessageSender.USER) {
-                    String content = msg.getContent().toLowerCase();
-                    // Vérifier si le message contient des mots-clés du cours
-                    String[] courseWords = courseText.split("\\s+");
-                    for (String word : courseWords) {
-                        if (word.length() > 4 && content.contains(word)) {
-                            // Retourner un extrait du message (max 200 caractères)
-                            String excerpt = msg.getContent();
-                            if (excerpt.length() > 200) {
-                                excerpt = excerpt.substring(0, 197) + "...";
-                            }
-                            return excerpt;
-                        }
-                    }
-                }
-            }
+        return Arrays.stream(courseText.split("\\s+"))
+            .filter(word -> word.length() > 4)
+            .collect(Collectors.toList());
+    }
+    
+    /**
+     * Extrait un extrait de conversation pertinent : premier message (conversations les plus
+     * récentes d'abord) contenant un mot du cours, relevé pendant l'analyse des messages
+     */
+    private String extractRelevantConversationExcerpt(Course course, Map<String, String> excerpts,
+                                                      List<Conversation> conversations) {
+        String relevant = excerpts.get(course.getId());
+        if (relevant != null) {
+            return truncateExcerpt(relevant);
         }
         
         // Si aucun extrait pertinent n'est trouvé, retourner le dernier message
         if (!conversations.isEmpty()) {
-            List<ChatMessage> messages = chatMessageRepository.findByConversationOrderByTimestampAsc(
-                conversations.get(0));
-            if (!messages.isEmpty()) {
-                ChatMessage lastUserMessage = messages.stream()
-                    .filter(m -> m.getSender() == ChatMessage.MessageSender.USER)
-                    .reduce((first, second) -> second)
-                    .orElse(null);
-                
-                if (lastUserMessage != null) {
-                    String excerpt = lastUserMessage.getContent();
-                    if (excerpt.length() > 200) {
-                        excerpt = excerpt.substring(0, 197) + "...";
-                    }
-                    return excerpt;
-                }
+            Optional<ChatMessage> lastUserMessage = chatMessageRepository.findFirstByConversationAndSenderOrderByTimestampDesc(
+                conversations.get(0), ChatMessage.MessageSender.USER);
+            if (lastUserMessage.isPresent()) {
+                return truncateExcerpt(lastUserMessage.get().getContent());
             }
         }
         
         return "Aucun extrait disponible";
     }
+    
+    /**
+     * Extrait d'un message (max 200 caractères)
+     */
+    private String truncateExcerpt(String excerpt) {
+        if (excerpt.length() > 200) {
+            excerpt = excerpt.substring(0, 197) + "...";
+        }
+        return excerpt;
+    }
 }
-
@@ -0,0 +1,132 @@
+package com.coachai.service;
+
+import com.coachai.model.User;
+import com.coachai.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Résolution de l'utilisateur authentifié à partir de l'email du JWT.
+ * Les utilisateurs sont gardés en mémoire (taille bornée, durée de vie courte) sous forme
+ * d'instantanés détachés : ils servent à lire le profil ou à référencer l'utilisateur dans
+ * une autre entité, jamais à être modifiés puis sauvegardés (les contrôleurs de profil
+ * continuent de passer par le repository). Toute modification ou suppression d'un
+ * utilisateur invalide son entrée après commit ({@link UserChangedEvent}).
+ */
+@Service
+public class CurrentUserService {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${auth.user-cache.ttl-ms:60000}")
+    private long ttlMs;
+
+    @Value("${auth.user-cache.max-size:10000}")
+    private int maxSize;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // Ordre d'accès : l'entrée la moins récemment utilisée est évincée en premier
+    private final LinkedHashMap<String, CachedUser> byEmail = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedUser> eldest) {
+            return size() > maxSize;
+        }
+    };
+    // Incrémenté à chaque invalidation : un chargement commencé avant n'est pas mis en cache
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Utilisateur correspondant à l'email (nom de l'authentification courante)
+     */
+    public Optional<User> findByEmail(String email) {
+        if (email == null) {
+            return Optional.empty();
+        }
+        long now = System.currentTimeMillis();
+        lock.lock();
+        try {
+            CachedUser cached = byEmail.get(email);
+            if (cached != null && cached.expiresAt > now) {
+                return Optional.of(cached.user);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        long loadGeneration = generation.get();
+        Optional<User> loaded = userRepository.findByEmail(email).map(CurrentUserService::snapshot);
+        loaded.ifPresent(user -> {
+            lock.lock();
+            try {
+                if (generation.get() == loadGeneration) {
+                    byEmail.put(email, new CachedUser(user, now + ttlMs));
+                }
+            } finally {
+                lock.unlock();
+            }
+        });
+        return loaded;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        evict(event.getUserId());
+    }
+
+    /**
+     * Retire l'utilisateur du cache, quel que soit l'email sous lequel il a été chargé
+     */
+    public void evict(String userId) {
+        lock.lock();
+        try {
+            generation.incrementAndGet();
+            byEmail.values().removeIf(cached -> cached.user.getId().equals(userId));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Copie des colonnes de l'utilisateur, sans les associations paresseuses
+     * (inscriptions, conversations, préférences) qui ne sont plus chargeables une fois détachées
+     */
+    private static User snapshot(User user) {
+        User copy = new User();
+        copy.setId(user.getId());
+        copy.setEmail(user.getEmail());
+        copy.setPassword(user.getPassword());
+        copy.setFirstName(user.getFirstName());
+        copy.setLastName(user.getLastName());
+        copy.setAvatarUrl(user.getAvatarUrl());
+        copy.setPhone(user.getPhone());
+        copy.setBio(user.getBio());
+        copy.setValidatedAt(user.getValidatedAt());
+        copy.setRole(user.getRole());
+        copy.setStatus(user.getStatus());
+        copy.setFormation(user.getFormation());
+        copy.setNiveau(user.getNiveau());
+        copy.setSpecialties(user.getSpecialties());
+        copy.setJoinedAt(user.getJoinedAt());
+        copy.setLastActive(user.getLastActive());
+        return copy;
+    }
+
+    private static final class CachedUser {
+        private final User user;
+        private final long expiresAt;
+
+        CachedUser(User user, long expiresAt) {
+            this.user = user;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
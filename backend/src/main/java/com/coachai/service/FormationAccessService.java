@@ -0,0 +1,231 @@
+package com.coachai.service;
+
+import com.coachai.dto.LessonOutlineDto;
+import com.coachai.model.FormationEnrollment;
+import com.coachai.repository.FormationEnrollmentRepository;
+import com.coachai.repository.FormationModuleProgressRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Moteur d'accès séquentiel (règles Coursera) :
+ * - un module est débloqué si le module précédent est validé (le premier l'est toujours)
+ * - une leçon est débloquée si son module l'est et si la leçon précédente du même cours est terminée
+ *
+ * La frontière de déblocage d'une inscription est calculée en un passage sur le plan de la
+ * formation ({@link LearningPathOutlineService}) à partir de deux lectures (modules validés,
+ * leçons terminées), puis gardée en mémoire jusqu'au prochain {@link ProgressChangedEvent}
+ * de l'inscription ou jusqu'à la reconstruction du plan.
+ */
+@Service
+public class FormationAccessService {
+
+    @Autowired
+    private FormationEnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private FormationModuleProgressRepository moduleProgressRepository;
+
+    @Autowired
+    private LearningPathOutlineService learningPathOutlineService;
+
+    @Value("${progress.access-cache.max-size:5000}")
+    private int maxSize;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<String, AccessFrontier> frontiers = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, AccessFrontier> eldest) {
+            return size() > maxSize;
+        }
+    };
+    // Incrémenté à chaque invalidation : une frontière calculée avant n'est pas conservée
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Frontière de déblocage de l'inscription
+     * @throws IllegalArgumentException si l'inscription n'existe pas
+     */
+    public AccessFrontier getFrontier(String enrollmentId) {
+        AccessFrontier cached;
+        lock.lock();
+        try {
+            cached = frontiers.get(enrollmentId);
+        } finally {
+            lock.unlock();
+        }
+        // Si le plan de la formation a été reconstruit depuis, la frontière est obsolète
+        if (cached != null && cached.outline == learningPathOutlineService.getOutlineIfCached(cached.formationId)) {
+            return cached;
+        }
+
+        long computeGeneration = generation.get();
+        FormationEnrollment enrollment = enrollmentRepository.findById(enrollmentId)
+            .orElseThrow(() -> new IllegalArgumentException("Enrollment not found"));
+        AccessFrontier computed = compute(enrollment);
+        lock.lock();
+        try {
+            if (generation.get() == computeGeneration) {
+                frontiers.put(enrollmentId, computed);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return computed;
+    }
+
+    public boolean canAccessModule(String enrollmentId, String moduleId) {
+        return getFrontier(enrollmentId).isModuleAccessible(moduleId);
+    }
+
+    public boolean canAccessLesson(String enrollmentId, String lessonId) {
+        return getFrontier(enrollmentId).isLessonAccessible(lessonId);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProgressChanged(ProgressChangedEvent event) {
+        lock.lock();
+        try {
+            generation.incrementAndGet();
+            frontiers.remove(event.getEnrollmentId());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private AccessFrontier compute(FormationEnrollment enrollment) {
+        LearningPathOutlineService.FormationOutline outline = learningPathOutlineService.getOutline(enrollment.getFormation());
+        BitSet completed = learningPathOutlineService.getCompletion(outline, enrollment);
+        Set<String> validatedModules = new HashSet<>(moduleProgressRepository.findValidatedModuleIds(enrollment));
+
+        List<LearningPathOutlineService.ModuleOutline> modules = outline.getModules();
+        List<LessonOutlineDto> lessons = outline.getLessons();
+        BitSet accessibleLessons = new BitSet(lessons.size());
+
+        // Premier module verrouillé : celui dont le prédécesseur n'est pas validé
+        int firstLockedModule = modules.size();
+        for (int i = 1; i < modules.size(); i++) {
+            if (!validatedModules.contains(modules.get(i - 1).getId())) {
+                firstLockedModule = i;
+                break;
+            }
+        }
+
+        for (int m = 0; m < firstLockedModule; m++) {
+            String previousCourseId = null;
+            int previousIndex = -1;
+            for (int index : modules.get(m).getLessonIndexes()) {
+                String courseId = lessons.get(index).getCourseId();
+                boolean firstOfCourse = !courseId.equals(previousCourseId);
+                if (firstOfCourse || completed.get(previousIndex)) {
+                    accessibleLessons.set(index);
+                }
+                previousCourseId = courseId;
+                previousIndex = index;
+            }
+        }
+
+        return new AccessFrontier(enrollment.getFormation().getId(), enrollment.getUser().getId(), outline,
+            firstLockedModule, validatedModules, completed, accessibleLessons);
+    }
+
+    /**
+     * État d'accès d'une inscription : premier module verrouillé et leçons débloquées,
+     * indexées par leur position dans le plan de la formation
+     */
+    public static class AccessFrontier {
+        private final String formationId;
+        private final String userId;
+        private final LearningPathOutlineService.FormationOutline outline;
+        private final int firstLockedModule;
+        private final Set<String> validatedModules;
+        private final BitSet completedLessons;
+        private final BitSet accessibleLessons;
+
+        AccessFrontier(String formationId, String userId, LearningPathOutlineService.FormationOutline outline,
+                       int firstLockedModule, Set<String> validatedModules, BitSet completedLessons,
+                       BitSet accessibleLessons) {
+            this.formationId = formationId;
+            this.userId = userId;
+            this.outline = outline;
+            this.firstLockedModule = firstLockedModule;
+            this.validatedModules = validatedModules;
+            this.completedLessons = completedLessons;
+            this.accessibleLessons = accessibleLessons;
+        }
+
+        public String getFormationId() {
+            return formationId;
+        }
+
+        /**
+         * Propriétaire de l'inscription
+         */
+        public String getUserId() {
+            return userId;
+        }
+
+        public LearningPathOutlineService.FormationOutline getOutline() {
+            return outline;
+        }
+
+        /**
+         * Indique si la leçon fait partie de la formation de l'inscription (verrouillée ou non)
+         */
+        public boolean containsLesson(String lessonId) {
+            return outline.indexOf(lessonId) != null;
+        }
+
+        /**
+         * Identifiant du premier module verrouillé ; null si tous les modules sont débloqués
+         */
+        public String getFirstLockedModuleId() {
+            List<LearningPathOutlineService.ModuleOutline> modules = outline.getModules();
+            return firstLockedModule < modules.size() ? modules.get(firstLockedModule).getId() : null;
+        }
+
+        /**
+         * Un module absent de la formation de l'inscription n'est pas accessible
+         */
+        public boolean isModuleAccessible(String moduleId) {
+            List<LearningPathOutlineService.ModuleOutline> modules = outline.getModules();
+            for (int i = 0; i < firstLockedModule; i++) {
+                if (modules.get(i).getId().equals(moduleId)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public boolean isModuleValidated(String moduleId) {
+            return validatedModules.contains(moduleId);
+        }
+
+        /**
+         * Une leçon absente de la formation de l'inscription n'est pas accessible
+         */
+        public boolean isLessonAccessible(String lessonId) {
+            Integer index = outline.indexOf(lessonId);
+            return index != null && accessibleLessons.get(index);
+        }
+
+        public boolean isLessonAccessible(int index) {
+            return accessibleLessons.get(index);
+        }
+
+        public boolean isLessonCompleted(int index) {
+            return completedLessons.get(index);
+        }
+    }
+}
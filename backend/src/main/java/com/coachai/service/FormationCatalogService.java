@@ -0,0 +1,167 @@
+package com.coachai.service;
+
+import com.coachai.dto.FormationCardDto;
+import com.coachai.dto.FormationCountDto;
+import com.coachai.model.ContentStatus;
+import com.coachai.model.Formation;
+import com.coachai.repository.CourseRepository;
+import com.coachai.repository.FormationRepository;
+import com.coachai.repository.ModuleRepository;
+import com.coachai.repository.QuizRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Catalogue public des formations publiées, servi depuis la mémoire.
+ * Le catalogue est reconstruit en quatre requêtes (cartes + trois comptages groupés)
+ * puis invalidé après le commit de toute écriture sur une formation, un module,
+ * un cours ou un quiz ({@link ContentChangedEvent}). Une durée de vie maximale
+ * couvre les changements indirects (ex: profil du formateur).
+ */
+@Service
+public class FormationCatalogService {
+
+    @Autowired
+    private FormationRepository formationRepository;
+
+    @Autowired
+    private ModuleRepository moduleRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private QuizRepository quizRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${catalog.cache.max-age-ms:300000}")
+    private long maxAgeMs;
+
+    private final AtomicReference<CatalogSnapshot> snapshot = new AtomicReference<>();
+    // Incrémenté à chaque invalidation : un catalogue construit avant n'est pas conservé
+    private final AtomicLong generation = new AtomicLong();
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    /**
+     * Catalogue courant ; reconstruit par un seul thread si absent ou expiré
+     */
+    public CatalogSnapshot getCatalog() {
+        CatalogSnapshot current = snapshot.get();
+        if (current != null && !current.isExpired(maxAgeMs)) {
+            return current;
+        }
+
+        rebuildLock.lock();
+        try {
+            current = snapshot.get();
+            if (current != null && !current.isExpired(maxAgeMs)) {
+                return current;
+            }
+            long buildGeneration = generation.get();
+            CatalogSnapshot built = build();
+            if (generation.get() == buildGeneration) {
+                snapshot.set(built);
+            }
+            return built;
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onContentChanged(ContentChangedEvent event) {
+        if (event.getType() != ContentChangedEvent.ContentType.LESSON) {
+            generation.incrementAndGet();
+            snapshot.set(null);
+        }
+    }
+
+    private CatalogSnapshot build() {
+        List<FormationCardDto> cards = formationRepository.findCardsByStatus(ContentStatus.PUBLISHED);
+        Map<String, Long> modules = toMap(moduleRepository.countGroupedByFormation(ContentStatus.PUBLISHED));
+        Map<String, Long> courses = toMap(courseRepository.countGroupedByFormation(ContentStatus.PUBLISHED));
+        Map<String, Long> quizzes = toMap(quizRepository.countGroupedByFormation(ContentStatus.PUBLISHED));
+
+        for (FormationCardDto card : cards) {
+            card.setModulesCount(modules.getOrDefault(card.getId(), 0L).intValue());
+            card.setCoursesCount(courses.getOrDefault(card.getId(), 0L).intValue());
+            card.setQuizzesCount(quizzes.getOrDefault(card.getId(), 0L).intValue());
+        }
+        return new CatalogSnapshot(List.copyOf(cards), hash(cards), System.currentTimeMillis());
+    }
+
+    private static Map<String, Long> toMap(List<FormationCountDto> counts) {
+        Map<String, Long> map = new HashMap<>();
+        for (FormationCountDto count : counts) {
+            map.put(count.getFormationId(), count.getCount() != null ? count.getCount() : 0L);
+        }
+        return map;
+    }
+
+    private String hash(List<FormationCardDto> cards) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] bytes = digest.digest(objectMapper.writeValueAsBytes(cards));
+            return HexFormat.of().formatHex(bytes, 0, 12);
+        } catch (Exception e) {
+            // Repli : l'ETag change à chaque reconstruction
+            return Long.toHexString(System.nanoTime());
+        }
+    }
+
+    /**
+     * Instantané immuable du catalogue
+     */
+    public static class CatalogSnapshot {
+        private final List<FormationCardDto> cards;
+        private final String contentHash;
+        private final long builtAt;
+
+        CatalogSnapshot(List<FormationCardDto> cards, String contentHash, long builtAt) {
+            this.cards = cards;
+            this.contentHash = contentHash;
+            this.builtAt = builtAt;
+        }
+
+        boolean isExpired(long maxAgeMs) {
+            return System.currentTimeMillis() - builtAt > maxAgeMs;
+        }
+
+        /**
+         * Cartes filtrées par catégorie (égalité exacte) ou par niveau
+         */
+        public List<FormationCardDto> filter(String category, Formation.Level level) {
+            return cards.stream()
+                .filter(c -> category == null || category.equals(c.getCategory()))
+                .filter(c -> level == null || level.name().equals(c.getLevel()))
+                .toList();
+        }
+
+        /**
+         * ETag de la réponse : contenu du catalogue et filtres demandés
+         */
+        public String etag(String category, Formation.Level level) {
+            String filter = Integer.toHexString(Objects.hash(category, level != null ? level.name() : null));
+            return "\"" + contentHash + "-" + filter + "\"";
+        }
+
+        public List<FormationCardDto> getCards() {
+            return cards;
+        }
+    }
+}
@@ -1,15 +1,19 @@
 package com.coachai.service;
 
+import com.coachai.dto.CompletionCountDto;
 import com.coachai.model.*;
 import com.coachai.model.Module;
 import com.coachai.repository.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 
 /**
  * Service de gestion de la progression dans les formations
@@ -18,6 +22,8 @@ import java.util.Optional;
 @Service
 public class FormationProgressService {
     
+    private static final Logger logger = LoggerFactory.getLogger(FormationProgressService.class);
+    
     @Autowired
     private FormationEnrollmentRepository enrollmentRepository;
     
@@ -31,61 +37,26 @@ public class FormationProgressService {
     private FormationModuleProgressRepository moduleProgressRepository;
     
     @Autowired
-    private QuizAttemptRepository quizAttemptRepository;
+    private ModuleRepository moduleRepository;
     
     @Autowired
-    private ModuleRepository moduleRepository;
+    private LessonRepository lessonRepository;
     
     @Autowired
-    private CourseRepository courseRepository;
+    private QuizRepository quizRepository;
     
     @Autowired
-    private LessonRepository lessonRepository;
+    private FormationAccessService formationAccessService;
     
     @Autowired
-    private QuizRepository quizRepository;
+    private ApplicationEventPublisher eventPublisher;
     
     /**
      * Vérifie si un module peut être accessible
      * Règle: Un module est débloqué si le module précédent est validé (ou si c'est le premier module)
      */
     public boolean canAccessModule(String enrollmentId, String moduleId) {
-        FormationEnrollment enrollment = enrollmentRepository.findById(enrollmentId)
-            .orElseThrow(() -> new IllegalArgumentException("Enrollment not found"));
-        
-        Module module = moduleRepository.findById(moduleId)
-            .orElseThrow(() -> new IllegalArgumentException("Module not found"));
-        
-        Formation formation = module.getFormation();
-        List<Module> modules = moduleRepository.findByFormationOrderByOrderAsc(formation);
-        
-        int moduleIndex = -1;
-        for (int i = 0; i < modules.size(); i++) {
-            if (modules.get(i).getId().equals(moduleId)) {
-                moduleIndex = i;
-                break;
-            }
-        }
-        
-        // Le premier module est toujours accessible
-        if (moduleIndex == 0) {
-            return true;
-        }
-        
-        // Vérifier que le module précédent est validé
-        if (moduleIndex > 0) {
-            Module previousModule = modules.get(moduleIndex - 1);
-            FormationProgress progress = progressRepository.findByEnrollment(enrollment)
-                .orElseThrow(() -> new IllegalArgumentException("Formation progress not found"));
-            
-            FormationModuleProgress previousModuleProgress = moduleProgressRepository
-                .findByFormationProgressAndModule(progress, previousModule)
-                .orElse(null);
-            
-            return previousModuleProgress != null && previousModuleProgress.isModuleValidated();
-        }
-        
-        return false;
+        return formationAccessService.canAccessModule(enrollmentId, moduleId);
     }
     
     /**
@@ -119,77 +90,70 @@ public class FormationProgressService {
         // Mettre à jour la progression du module et de la formation
         updateModuleProgressInternal(enrollment, lesson.getCourse().getModule());
         updateFormationProgress(enrollment);
+        eventPublisher.publishEvent(new ProgressChangedEvent(enrollmentId));
     }
     
     /**
-     * Vérifie si une étape peut être débloquée
-     * Règles Coursera:
-     * 1. Une leçon doit être terminée pour débloquer la suivante
-     * 2. Un module doit être validé (contenu + quiz réussi) pour débloquer le suivant
+     * Applique en une transaction les progressions vidéo d'une inscription agrégées par
+     * {@link WatchProgressBuffer} (leçon -> pourcentage). Une transaction par inscription :
+     * l'échec d'une inscription ne bloque pas l'écriture des autres.
+     * Le pourcentage visionné ne fait que croître ; les progressions de module et de formation
+     * ne sont recalculées que pour les leçons qui passent à l'état terminé.
      */
-    public boolean canAccessLesson(String enrollmentId, String lessonId) {
-        FormationEnrollment enrollment = enrollmentRepository.findById(enrollmentId)
-            .orElseThrow(() -> new IllegalArgumentException("Enrollment not found"));
-        
-        Lesson lesson = lessonRepository.findById(lessonId)
-            .orElseThrow(() -> new IllegalArgumentException("Lesson not found"));
-        
-        Course course = lesson.getCourse();
-        Module module = course.getModule();
-        Formation formation = module.getFormation();
-        
-        // Vérifier que le module précédent est validé (si ce n'est pas le premier module)
-        List<Module> modules = moduleRepository.findByFormationOrderByOrderAsc(formation);
-        int moduleIndex = -1;
-        for (int i = 0; i < modules.size(); i++) {
-            if (modules.get(i).getId().equals(module.getId())) {
-                moduleIndex = i;
-                break;
-            }
+    @Transactional
+    public void applyWatchProgress(String enrollmentId, Map<String, Double> lessonUpdates) {
+        FormationEnrollment enrollment = enrollmentRepository.findById(enrollmentId).orElse(null);
+        if (enrollment == null) {
+            logger.warn("Ignoring watch progress for unknown enrollment {}", enrollmentId);
+            return;
         }
+        boolean changed = false;
         
-        // Si ce n'est pas le premier module, vérifier que le précédent est validé
-        if (moduleIndex > 0) {
-            Module previousModule = modules.get(moduleIndex - 1);
-            FormationProgress formationProgress = progressRepository.findByEnrollment(enrollment)
-                .orElseThrow(() -> new IllegalArgumentException("Formation progress not found"));
+        for (Map.Entry<String, Double> update : lessonUpdates.entrySet()) {
+            Lesson lesson = lessonRepository.findById(update.getKey()).orElse(null);
+            if (lesson == null) {
+                logger.warn("Ignoring watch progress for unknown lesson {}", update.getKey());
+                continue;
+            }
             
-            FormationModuleProgress previousModuleProgress = moduleProgressRepository
-                .findByFormationProgressAndModule(formationProgress, previousModule)
-                .orElse(null);
+            LessonProgress lessonProgress = lessonProgressRepository
+                .findByEnrollmentAndLesson(enrollment, lesson)
+                .orElse(new LessonProgress());
+            boolean wasCompleted = lessonProgress.isCompleted();
             
-            // Le module précédent doit être validé (contenu terminé + quiz réussi)
-            if (previousModuleProgress == null || !previousModuleProgress.isModuleValidated()) {
-                return false;
+            lessonProgress.setEnrollment(enrollment);
+            lessonProgress.setLesson(lesson);
+            lessonProgress.updateWatchPercentage(Math.max(lessonProgress.getWatchPercentage(), update.getValue()));
+            if (lessonProgress.getStartedAt() == null) {
+                lessonProgress.setStartedAt(LocalDateTime.now());
             }
-        }
-        
-        // Si c'est la première leçon du cours, elle est accessible
-        List<Lesson> lessons = lessonRepository.findByCourseOrderByOrderAsc(course);
-        if (lessons.isEmpty() || lessons.get(0).getId().equals(lessonId)) {
-            return true;
-        }
-        
-        // Trouver la leçon précédente
-        int currentIndex = -1;
-        for (int i = 0; i < lessons.size(); i++) {
-            if (lessons.get(i).getId().equals(lessonId)) {
-                currentIndex = i;
-                break;
+            lessonProgress.setLastWatchedAt(LocalDateTime.now());
+            lessonProgressRepository.save(lessonProgress);
+            
+            if (!wasCompleted && lessonProgress.isCompleted()) {
+                // Leçon hors module (cours détaché) : seule la progression de la leçon est écrite
+                Module module = lesson.getCourse() != null ? lesson.getCourse().getModule() : null;
+                if (module != null) {
+                    updateModuleProgressInternal(enrollment, module);
+                }
+                changed = true;
             }
         }
         
-        if (currentIndex <= 0) {
-            return true;
+        if (changed) {
+            updateFormationProgress(enrollment);
+            eventPublisher.publishEvent(new ProgressChangedEvent(enrollmentId));
         }
-        
-        Lesson previousLesson = lessons.get(currentIndex - 1);
-        
-        // Vérifier si la leçon précédente est terminée
-        Optional<LessonProgress> previousProgress = lessonProgressRepository
-            .findByEnrollmentAndLesson(enrollment, previousLesson);
-        
-        return previousProgress.isPresent() && previousProgress.get().isCompleted();
+    }
+    
+    /**
+     * Vérifie si une étape peut être débloquée
+     * Règles Coursera:
+     * 1. Une leçon doit être terminée pour débloquer la suivante
+     * 2. Un module doit être validé (contenu + quiz réussi) pour débloquer le suivant
+     */
+    public boolean canAccessLesson(String enrollmentId, String lessonId) {
+        return formationAccessService.canAccessLesson(enrollmentId, lessonId);
     }
     
     /**
@@ -214,43 +178,13 @@ public class FormationProgressService {
         moduleProgress.setFormationProgress(formationProgress);
         moduleProgress.setModule(module);
         
-        // Vérifier que toutes les leçons sont terminées
-        List<Course> courses = courseRepository.findByModuleOrderByOrderAsc(module);
-        int totalLessons = 0;
-        int completedLessons = 0;
-        
-        for (Course course : courses) {
-            List<Lesson> lessons = lessonRepository.findByCourseOrderByOrderAsc(course);
-            totalLessons += lessons.size();
-            
-            for (Lesson lesson : lessons) {
-                Optional<LessonProgress> lessonProgress = lessonProgressRepository
-                    .findByEnrollmentAndLesson(enrollment, lesson);
-                
-                if (lessonProgress.isPresent() && lessonProgress.get().isCompleted()) {
-                    completedLessons++;
-                }
-            }
-        }
-        
-        // Vérifier que tous les quiz sont réussi (score ≥ 60% - Règle pédagogique)
-        int totalQuizzes = 0;
-        int passedQuizzes = 0;
-        
-        for (Course course : courses) {
-            List<Quiz> quizzes = quizRepository.findByCourse(course);
-            totalQuizzes += quizzes.size();
-            
-            for (Quiz quiz : quizzes) {
-                List<QuizAttempt> attempts = quizAttemptRepository.findByUserAndQuiz(enrollment.getUser(), quiz);
-                boolean quizPassed = attempts.stream()
-                    .anyMatch(attempt -> attempt.getScore() >= 60.0 && attempt.isPassed());
-                
-                if (quizPassed) {
-                    passedQuizzes++;
-                }
-            }
-        }
+        // Leçons terminées et quiz réussis (score ≥ 60% - Règle pédagogique) : deux agrégats
+        CompletionCountDto lessonCounts = lessonRepository.countCompletionInModule(module, enrollment);
+        CompletionCountDto quizCounts = quizRepository.countPassedInModule(module, enrollment.getUser());
+        int totalLessons = lessonCounts.totalAsInt();
+        int completedLessons = lessonCounts.completedAsInt();
+        int totalQuizzes = quizCounts.totalAsInt();
+        int passedQuizzes = quizCounts.completedAsInt();
         
         // Le module est validé si toutes les leçons sont terminées ET tous les quiz sont réussi
         boolean allLessonsCompleted = totalLessons > 0 && completedLessons == totalLessons;
@@ -278,6 +212,7 @@ public class FormationProgressService {
         
         // Mettre à jour la progression globale
         updateFormationProgress(enrollment);
+        eventPublisher.publishEvent(new ProgressChangedEvent(enrollmentId));
         
         return isModuleValidated;
     }
@@ -300,48 +235,17 @@ public class FormationProgressService {
         moduleProgress.setFormationProgress(formationProgress);
         moduleProgress.setModule(module);
         
-        // Compter les leçons complétées
-        List<Course> courses = courseRepository.findByModuleOrderByOrderAsc(module);
-            int totalLessons = 0;
-            int completedLessons = 0;
-            
-            for (com.coachai.model.Course course : courses) {
-            List<Lesson> lessons = lessonRepository.findByCourseOrderByOrderAsc(course);
-            totalLessons += lessons.size();
-            
-            for (Lesson lesson : lessons) {
-                Optional<LessonProgress> lessonProgress = lessonProgressRepository
-                    .findByEnrollmentAndLesson(enrollment, lesson);
-                
-                if (lessonProgress.isPresent() && lessonProgress.get().isCompleted()) {
-                    completedLessons++;
-                }
-            }
-        }
+        // Compter les leçons complétées et les quiz réussis : deux agrégats
+        CompletionCountDto lessonCounts = lessonRepository.countCompletionInModule(module, enrollment);
+        CompletionCountDto quizCounts = quizRepository.countPassedInModule(module, enrollment.getUser());
+        int totalLessons = lessonCounts.totalAsInt();
+        int completedLessons = lessonCounts.completedAsInt();
+        int totalQuizzes = quizCounts.totalAsInt();
+        int completedQuizzes = quizCounts.completedAsInt();
         
         moduleProgress.setTotalLessons(totalLessons);
         moduleProgress.setCompletedLessons(completedLessons);
         
-        // Compter les quiz
-        int totalQuizzes = 0;
-        int completedQuizzes = 0;
-        
-        for (Course course : courses) {
-            List<Quiz> quizzes = quizRepository.findByCourse(course);
-            totalQuizzes += quizzes.size();
-            
-            for (Quiz quiz : quizzes) {
-                // Vérifier si le quiz est réussi (score ≥ 70%)
-                List<QuizAttempt> attempts = quizAttemptRepository.findByUserAndQuiz(enrollment.getUser(), quiz);
-                boolean quizPassed = attempts.stream()
-                    .anyMatch(attempt -> attempt.getScore() >= 60.0 && attempt.isPassed());
-                
-                if (quizPassed) {
-                    completedQuizzes++;
-                }
-            }
-        }
-        
         moduleProgress.setTotalQuizzes(totalQuizzes);
         moduleProgress.setCompletedQuizzes(completedQuizzes);
         
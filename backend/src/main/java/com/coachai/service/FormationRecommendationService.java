@@ -32,28 +32,47 @@ public class FormationRecommendationService {
     @Autowired
     private AIRecommendationRepository aiRecommendationRepository;
 
-    @Autowired
-    private ConversationRepository conversationRepository;
-
-    @Autowired
-    private ChatMessageRepository chatMessageRepository;
-
     @Autowired
     private com.coachai.repository.UserNotificationRepository notificationRepository;
 
+    /**
+     * Niveau prédit et topics détectés d'un étudiant, résultat des appels ML
+     */
+    public record FormationAnalysis(Map<String, Object> levelPrediction, Map<String, Integer> topicCounts) {
+    }
+
     /**
      * Génère une recommandation de formation pour un étudiant
-     * basée sur son niveau ML et sa spécialité détectée
+     * basée sur son niveau ML et sa spécialité détectée.
+     * Pas de transaction englobante : les appels ML ne retiennent pas de connexion JDBC.
      */
-    @Transactional
     public AIRecommendation generateFormationRecommendation(User student) {
+        return saveFormationRecommendation(student, analyzeStudent(student));
+    }
+
+    /**
+     * Appels ML d'une recommandation de formation, à faire hors transaction :
+     * chaque lecture des données de l'étudiant se fait dans sa propre transaction courte
+     */
+    public FormationAnalysis analyzeStudent(User student) {
         // 1. Prédire le niveau de l'étudiant avec le modèle ML
         Map<String, Object> levelPrediction = studentLevelAnalysisService.predictStudentLevel(student);
-        String predictedLevel = (String) levelPrediction.get("predicted_level");
-        Double confidence = ((Number) levelPrediction.get("confidence")).doubleValue();
 
-        // 2. Détecter la spécialité dominante dans les conversations (analyse contextuelle améliorée)
+        // 2. Détecter les topics des conversations (analyse contextuelle améliorée)
         Map<String, Integer> topicCounts = chatAnalysisService.analyzeChatTopics(student);
+        return new FormationAnalysis(levelPrediction, topicCounts);
+    }
+
+    /**
+     * Crée la recommandation de formation à partir de l'analyse ML, sans appel externe ;
+     * retourne null si les questions sont trop peu nombreuses ou si elle existe déjà
+     */
+    public AIRecommendation saveFormationRecommendation(User student, FormationAnalysis analysis) {
+        String predictedLevel = (String) analysis.levelPrediction().get("predicted_level");
+        Double confidence = ((Number) analysis.levelPrediction().get("confidence")).doubleValue();
+
+        // Spécialité dominante dans les conversations
+        Map<String, Integer> topicCounts = analysis.topicCounts();
         String specialty = detectDominantSpecialty(topicCounts);
         
         // Vérifier qu'on a au moins 5 questions dans le contexte
@@ -231,68 +250,10 @@ public class FormationRecommendationService {
      * Vérifie si une recommandation similaire existe déjà
      */
     private boolean recommendationExists(User student, String specialty, String level) {
-        List<AIRecommendation> existing = aiRecommendationRepository.findAll();
-        
-        for (AIRecommendation rec : existing) {
-            if (rec.getTargetStudents().contains(student.getId()) &&
-                rec.getSpecialty() != null && rec.getSpecialty().equals(specialty) &&
-                rec.getLevel() != null && rec.getLevel().equals(level) &&
-                (rec.getStatus() == AIRecommendation.RecommendationStatus.PENDING ||
-                 rec.getStatus() == AIRecommendation.RecommendationStatus.APPROVED)) {
-                return true;
-            }
-        }
-        
-        return false;
-    }
-
-    /**
-     * Analyse tous les étudiants et génère des recommandations
-     */
-    @Transactional
-    public List<AIRecommendation> analyzeAllStudentsAndGenerateRecommendations() {
-        List<AIRecommendation> allRecommendations = new ArrayList<>();
-        List<User> students = userRepository.findByRole(User.UserRole.USER);
-        
-        for (User student : students) {
-            try {
-                // Vérifier si l'étudiant a suffisamment de conversations
-                List<Conversation> conversations = conversationRepository.findByUser(student);
-                if (conversations.isEmpty()) {
-                    continue;
-                }
-                
-                // Compter les messages de l'utilisateur
-                long userMessageCount = 0;
-                List<String> userMessages = new ArrayList<>();
-                for (Conversation conv : conversations) {
-                    List<ChatMessage> messages = chatMessageRepository.findByConversationOrderByTimestampAsc(conv);
-                    List<String> convUserMessages = messages.stream()
-                        .filter(m -> m.getSender() == ChatMessage.MessageSender.USER)
-                        .map(ChatMessage::getContent)
-                        .collect(Collectors.toList());
-                    userMessageCount += convUserMessages.size();
-                    userMessages.addAll(convUserMessages);
-                }
-                
-                // Générer une recommandation seulement si l'étudiant a au moins 5 questions dans le contexte
-                if (userMessageCount >= 5) {
-                    AIRecommendation recommendation = generateFormationRecommendation(student);
-                    if (recommendation != null) {
-                        allRecommendations.add(recommendation);
-                        System.out.println("✅ Recommandation générée pour " + student.getEmail() + 
-                                         " - Spécialité: " + recommendation.getSpecialty() + 
-                                         " - Niveau: " + recommendation.getLevel());
-                    }
-                }
-            } catch (Exception e) {
-                System.err.println("❌ Erreur lors de la génération de recommandation pour " + 
-                                student.getEmail() + ": " + e.getMessage());
-                e.printStackTrace();
-            }
-        }
-        
-        return allRecommendations;
+        return aiRecommendationRepository.countForStudent(student.getId(), specialty, level, List.of(
+            AIRecommendation.RecommendationStatus.PENDING,
+            AIRecommendation.RecommendationStatus.APPROVED
+        )) > 0;
     }
 
     /**
@@ -0,0 +1,38 @@
+package com.coachai.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Broker local : les événements sont remis directement aux consommateurs de l'instance
+ */
+@Service
+@ConditionalOnProperty(name = "push.broker", havingValue = "memory", matchIfMissing = true)
+public class InMemoryPushBroker implements PushBroker {
+
+    private static final Logger logger = LoggerFactory.getLogger(InMemoryPushBroker.class);
+
+    private final List<Consumer<PushEvent>> consumers = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(PushEvent event) {
+        for (Consumer<PushEvent> consumer : consumers) {
+            try {
+                consumer.accept(event);
+            } catch (Exception e) {
+                logger.warn("Push consumer failed for {} event: {}", event.getType(), e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<PushEvent> consumer) {
+        consumers.add(consumer);
+    }
+}
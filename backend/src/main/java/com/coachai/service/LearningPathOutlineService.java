@@ -0,0 +1,189 @@
+package com.coachai.service;
+
+import com.coachai.dto.LessonOutlineDto;
+import com.coachai.model.Formation;
+import com.coachai.model.FormationEnrollment;
+import com.coachai.model.Module;
+import com.coachai.repository.LessonProgressRepository;
+import com.coachai.repository.LessonRepository;
+import com.coachai.repository.ModuleRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Plan des parcours d'apprentissage : modules, cours et leçons d'une formation, ordonnés.
+ * Le plan est immuable, construit en deux requêtes puis gardé en mémoire jusqu'à la
+ * prochaine écriture sur une formation, un module, un cours ou une leçon
+ * ({@link ContentChangedEvent}). La progression d'un apprenant s'y superpose sous
+ * forme d'un BitSet indexé par la position de la leçon dans le plan.
+ */
+@Service
+public class LearningPathOutlineService {
+
+    @Autowired
+    private ModuleRepository moduleRepository;
+
+    @Autowired
+    private LessonRepository lessonRepository;
+
+    @Autowired
+    private LessonProgressRepository lessonProgressRepository;
+
+    private final Map<String, FormationOutline> outlines = new ConcurrentHashMap<>();
+    // Incrémenté à chaque invalidation : un plan construit avant n'est pas conservé
+    private final AtomicLong generation = new AtomicLong();
+
+    public FormationOutline getOutline(Formation formation) {
+        FormationOutline outline = outlines.get(formation.getId());
+        if (outline != null) {
+            return outline;
+        }
+        long buildGeneration = generation.get();
+        FormationOutline built = build(formation);
+        if (generation.get() == buildGeneration) {
+            outlines.put(formation.getId(), built);
+        }
+        return built;
+    }
+
+    /**
+     * Plan déjà en mémoire, sans construction ; null s'il a été invalidé
+     */
+    public FormationOutline getOutlineIfCached(String formationId) {
+        return outlines.get(formationId);
+    }
+
+    /**
+     * Leçons terminées par l'inscription (bit i = i-ème leçon du plan) ; une seule requête
+     */
+    public BitSet getCompletion(FormationOutline outline, FormationEnrollment enrollment) {
+        BitSet completed = new BitSet(outline.getLessons().size());
+        if (enrollment == null) {
+            return completed;
+        }
+        for (String lessonId : lessonProgressRepository.findCompletedLessonIds(enrollment)) {
+            Integer index = outline.indexOf(lessonId);
+            if (index != null) {
+                completed.set(index);
+            }
+        }
+        return completed;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onContentChanged(ContentChangedEvent event) {
+        if (event.getType() != ContentChangedEvent.ContentType.QUIZ) {
+            // Une leçon ou un cours ne connaît pas sa formation sans requête : tout est invalidé
+            generation.incrementAndGet();
+            outlines.clear();
+        }
+    }
+
+    private FormationOutline build(Formation formation) {
+        // Même ordre que le plan des leçons, identifiant compris
+        List<Module> modules = moduleRepository.findByFormationOrderByOrderAscIdAsc(formation);
+        List<LessonOutlineDto> lessons = lessonRepository.findOutlineByFormation(formation);
+
+        Map<String, List<Integer>> lessonIndexesByModule = new HashMap<>();
+        for (int i = 0; i < lessons.size(); i++) {
+            lessonIndexesByModule.computeIfAbsent(lessons.get(i).getModuleId(), k -> new ArrayList<>()).add(i);
+        }
+
+        List<ModuleOutline> moduleOutlines = new ArrayList<>(modules.size());
+        for (Module module : modules) {
+            List<Integer> indexes = lessonIndexesByModule.getOrDefault(module.getId(), List.of());
+            moduleOutlines.add(new ModuleOutline(module.getId(), module.getTitle(), module.getDescription(),
+                module.getDuration(), module.getOrder(), indexes.stream().mapToInt(Integer::intValue).toArray()));
+        }
+        return new FormationOutline(List.copyOf(moduleOutlines), List.copyOf(lessons));
+    }
+
+    /**
+     * Plan immuable d'une formation
+     */
+    public static class FormationOutline {
+        private final List<ModuleOutline> modules;
+        private final List<LessonOutlineDto> lessons;
+        private final Map<String, Integer> lessonIndex;
+
+        FormationOutline(List<ModuleOutline> modules, List<LessonOutlineDto> lessons) {
+            this.modules = modules;
+            this.lessons = lessons;
+            this.lessonIndex = new LinkedHashMap<>();
+            for (int i = 0; i < lessons.size(); i++) {
+                lessonIndex.put(lessons.get(i).getId(), i);
+            }
+        }
+
+        public List<ModuleOutline> getModules() {
+            return modules;
+        }
+
+        public List<LessonOutlineDto> getLessons() {
+            return lessons;
+        }
+
+        public Integer indexOf(String lessonId) {
+            return lessonIndex.get(lessonId);
+        }
+    }
+
+    /**
+     * Module du plan et positions de ses leçons dans {@link FormationOutline#getLessons()}
+     */
+    public static class ModuleOutline {
+        private final String id;
+        private final String title;
+        private final String description;
+        private final double duration;
+        private final int order;
+        private final int[] lessonIndexes;
+
+        ModuleOutline(String id, String title, String description, double duration, int order, int[] lessonIndexes) {
+            this.id = id;
+            this.title = title;
+            this.description = description;
+            this.duration = duration;
+            this.order = order;
+            this.lessonIndexes = lessonIndexes;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public double getDuration() {
+            return duration;
+        }
+
+        public int getOrder() {
+            return order;
+        }
+
+        public int[] getLessonIndexes() {
+            return lessonIndexes.clone();
+        }
+
+        public int getLessonCount() {
+            return lessonIndexes.length;
+        }
+    }
+}
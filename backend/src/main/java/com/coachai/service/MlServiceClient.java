@@ -0,0 +1,561 @@
+package com.coachai.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+import jakarta.annotation.PostConstruct;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Client HTTP partagé pour tous les appels au service ML Python (serve_model.py).
+ * - un seul HttpClient JDK (connexions keep-alive mutualisées) avec timeout de connexion
+ * - timeout de lecture et bulkhead (nombre d'appels simultanés) par endpoint
+ * - circuit breaker par endpoint : après N échecs consécutifs, les appels échouent immédiatement
+ *   ({@link MlServiceUnavailableException}) pour que l'appelant bascule sur son fallback sans attendre
+ * - métriques par endpoint (appels, erreurs, rejets, latence, appels en cours)
+ * - appels en flux non bloquants ({@link #postStreaming}) pour les réponses générées au fil de l'eau
+ *
+ * Configuration : ai.client.* dans application.properties, surchargeable par endpoint
+ * (ex: ai.client.coach.read-timeout-ms=30000). Le timeout de lecture n'a pas de valeur globale :
+ * sans surcharge, chaque endpoint garde le sien (3 s pour la prédiction de niveau, 30 s pour le coach).
+ */
+@Service
+public class MlServiceClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(MlServiceClient.class);
+
+    public enum Endpoint {
+        COACH("coach", "/coach/hybrid", 30000),
+        COACH_STREAM("coach-stream", "/coach/hybrid/stream", 30000),
+        COACH_PREDICT("coach-predict", "/coach/predict", 5000),
+        TOPICS("topics", "/topics/detect", 5000),
+        STUDENT_LEVEL("level", "/student/level/predict", 3000),
+        STUDENT_LEVEL_BATCH("level-batch", "/student/level/predict/batch", 15000);
+
+        private final String key;
+        private final String path;
+        private final int defaultReadTimeoutMs;
+
+        Endpoint(String key, String path, int defaultReadTimeoutMs) {
+            this.key = key;
+            this.path = path;
+            this.defaultReadTimeoutMs = defaultReadTimeoutMs;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public String getPath() {
+            return path;
+        }
+    }
+
+    @Value("${ai.model.url:http://localhost:8000}")
+    private String aiModelUrl;
+
+    @Value("${ai.client.connect-timeout-ms:2000}")
+    private int connectTimeoutMs;
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    @Qualifier("mlHttpClientExecutor")
+    private Executor mlHttpClientExecutor;
+
+    private HttpClient httpClient;
+
+    private final Map<Endpoint, EndpointState> states = new EnumMap<>(Endpoint.class);
+
+    @PostConstruct
+    void init() {
+        httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+            // Exécuteur dédié, distinct de mlTaskExecutor qui porte les appels bloquants (voir ExecutionConfig)
+            .executor(mlHttpClientExecutor)
+            .build();
+
+        for (Endpoint endpoint : Endpoint.values()) {
+            // Pas de valeur globale : chaque endpoint a son propre timeout par défaut
+            int readTimeoutMs = endpointProperty(endpoint, "read-timeout-ms", endpoint.defaultReadTimeoutMs);
+            JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+            requestFactory.setReadTimeout(Duration.ofMillis(readTimeoutMs));
+
+            states.put(endpoint, new EndpointState(
+                new RestTemplate(requestFactory),
+                readTimeoutMs,
+                // Durée maximale d'un flux complet (en-têtes et corps)
+                endpointProperty(endpoint, "stream-timeout-ms", Math.max(readTimeoutMs, 120000)),
+                property(endpoint, "max-concurrent", 20),
+                property(endpoint, "bulkhead-wait-ms", 0),
+                property(endpoint, "failure-threshold", 5),
+                property(endpoint, "open-duration-ms", 30000)
+            ));
+        }
+    }
+
+    /**
+     * Lit ai.client.&lt;endpoint&gt;.&lt;name&gt;, puis ai.client.&lt;name&gt;, puis la valeur par défaut
+     */
+    private int property(Endpoint endpoint, String name, int defaultValue) {
+        Integer global = environment.getProperty("ai.client." + name, Integer.class, defaultValue);
+        return environment.getProperty("ai.client." + endpoint.getKey() + "." + name, Integer.class, global);
+    }
+
+    /**
+     * Lit ai.client.&lt;endpoint&gt;.&lt;name&gt;, puis la valeur par défaut propre à l'endpoint
+     */
+    private int endpointProperty(Endpoint endpoint, String name, int defaultValue) {
+        return environment.getProperty("ai.client." + endpoint.getKey() + "." + name, Integer.class, defaultValue);
+    }
+
+    public String getBaseUrl() {
+        return aiModelUrl;
+    }
+
+    /**
+     * Indique si le circuit de l'endpoint laisse passer les appels (permet un fallback immédiat)
+     */
+    public boolean isAvailable(Endpoint endpoint) {
+        return states.get(endpoint).breaker.isCallPermitted(false);
+    }
+
+    public <T> T post(Endpoint endpoint, Object body, Class<T> responseType) {
+        return execute(endpoint, restTemplate -> restTemplate.exchange(
+            aiModelUrl + endpoint.getPath(), HttpMethod.POST, jsonEntity(body), responseType));
+    }
+
+    public <T> T post(Endpoint endpoint, Object body, ParameterizedTypeReference<T> responseType) {
+        return execute(endpoint, restTemplate -> restTemplate.exchange(
+            aiModelUrl + endpoint.getPath(), HttpMethod.POST, jsonEntity(body), responseType));
+    }
+
+    private HttpEntity<Object> jsonEntity(Object body) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        return new HttpEntity<>(body, headers);
+    }
+
+    /**
+     * Appel non bloquant à un endpoint qui renvoie des lignes (NDJSON) au fil de l'eau.
+     * Chaque ligne est transmise à {@code onLine} dès sa réception, sur un thread du client HTTP ;
+     * le futur se termine à la fin du flux (ou en erreur). Aucun thread n'est bloqué pendant la génération.
+     * Le flux entier est borné par ai.client.&lt;endpoint&gt;.stream-timeout-ms (le timeout de la requête
+     * ne couvre que l'attente des en-têtes). Si {@code onLine} échoue (client SSE parti), le flux est
+     * annulé, la place du bulkhead libérée et le futur terminé normalement.
+     */
+    public CompletableFuture<Void> postStreaming(Endpoint endpoint, Object body, Consumer<String> onLine) {
+        EndpointState state = states.get(endpoint);
+
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialize ML request body", e);
+        }
+        HttpRequest request = HttpRequest.newBuilder(URI.create(aiModelUrl + endpoint.getPath()))
+            .timeout(Duration.ofMillis(state.readTimeoutMs))
+            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+            .POST(HttpRequest.BodyPublishers.ofString(json))
+            .build();
+
+        admit(endpoint, state);
+        long start = System.nanoTime();
+        state.inFlight.incrementAndGet();
+
+        // Fin d'appel enregistrée une seule fois : fin du flux, erreur, timeout ou annulation
+        AtomicBoolean finished = new AtomicBoolean();
+        Runnable finish = () -> {
+            if (finished.compareAndSet(false, true)) {
+                complete(state, start);
+            }
+        };
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        // Une annulation par le consommateur n'est pas un échec du service : il répondait
+        LineSubscriber subscriber = new LineSubscriber(onLine, () -> {
+            finish.run();
+            state.breaker.onSuccess();
+            result.complete(null);
+        });
+        HttpResponse.BodyHandler<Void> handler = responseInfo -> responseInfo.statusCode() >= 400
+            ? HttpResponse.BodySubscribers.<Void>replacing(null)
+            : HttpResponse.BodySubscribers.fromLineSubscriber(subscriber);
+
+        try {
+            httpClient.sendAsync(request, handler)
+                .orTimeout(state.streamTimeoutMs, TimeUnit.MILLISECONDS)
+                .whenComplete((response, error) -> {
+                    if (subscriber.isCancelled()) {
+                        return;
+                    }
+                    finish.run();
+                    if (error instanceof CompletionException && error.getCause() != null) {
+                        error = error.getCause();
+                    }
+                    if (error instanceof TimeoutException) {
+                        // Corps bloqué : fermer la connexion plutôt que de la laisser ouverte
+                        subscriber.cancel();
+                        error = new MlServiceUnavailableException(
+                            "ML stream " + endpoint.getPath() + " exceeded " + state.streamTimeoutMs + " ms");
+                    } else if (error == null && response.statusCode() >= 500) {
+                        error = new MlServiceUnavailableException(
+                            "ML endpoint " + endpoint.getPath() + " returned status " + response.statusCode());
+                    }
+                    if (error != null) {
+                        state.breaker.onFailure();
+                        state.errors.increment();
+                        result.completeExceptionally(error);
+                        return;
+                    }
+                    state.breaker.onSuccess();
+                    if (response.statusCode() >= 400) {
+                        state.errors.increment();
+                        result.completeExceptionally(new IllegalArgumentException(
+                            "ML endpoint " + endpoint.getPath() + " rejected request with status " + response.statusCode()));
+                        return;
+                    }
+                    result.complete(null);
+                });
+            return result;
+        } catch (RuntimeException e) {
+            finish.run();
+            state.breaker.onFailure();
+            state.errors.increment();
+            throw e;
+        }
+    }
+
+    /**
+     * Vérifie le circuit puis réserve une place dans le bulkhead de l'endpoint
+     */
+    private void admit(Endpoint endpoint, EndpointState state) {
+        if (!state.breaker.isCallPermitted(true)) {
+            state.rejected.increment();
+            throw new MlServiceUnavailableException("Circuit open for ML endpoint " + endpoint.getPath());
+        }
+        if (!state.acquire()) {
+            state.rejected.increment();
+            state.breaker.release();
+            throw new MlServiceUnavailableException("Too many concurrent calls to ML endpoint " + endpoint.getPath());
+        }
+    }
+
+    /**
+     * Enregistre les métriques de fin d'appel et libère la place du bulkhead
+     */
+    private void complete(EndpointState state, long start) {
+        long elapsed = System.nanoTime() - start;
+        state.inFlight.decrementAndGet();
+        state.calls.increment();
+        state.totalLatencyNanos.add(elapsed);
+        state.maxLatencyNanos.accumulateAndGet(elapsed, Math::max);
+        state.bulkhead.release();
+    }
+
+    private <T> T execute(Endpoint endpoint, Call<T> call) {
+        EndpointState state = states.get(endpoint);
+
+        admit(endpoint, state);
+        long start = System.nanoTime();
+        state.inFlight.incrementAndGet();
+        try {
+            ResponseEntity<T> response = call.exchange(state.restTemplate);
+            state.breaker.onSuccess();
+            return response.getBody();
+        } catch (HttpClientErrorException e) {
+            // Erreur 4xx : requête invalide, le service lui-même répond
+            state.breaker.onSuccess();
+            state.errors.increment();
+            throw e;
+        } catch (RuntimeException e) {
+            state.breaker.onFailure();
+            state.errors.increment();
+            throw e;
+        } finally {
+            complete(state, start);
+        }
+    }
+
+    /**
+     * Métriques par endpoint : appels, erreurs, rejets, latence moyenne/max, appels en cours, état du circuit
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        states.forEach((endpoint, state) -> {
+            long calls = state.calls.sum();
+            Map<String, Object> endpointMetrics = new LinkedHashMap<>();
+            endpointMetrics.put("path", endpoint.getPath());
+            endpointMetrics.put("calls", calls);
+            endpointMetrics.put("errors", state.errors.sum());
+            endpointMetrics.put("rejected", state.rejected.sum());
+            endpointMetrics.put("inFlight", state.inFlight.get());
+            endpointMetrics.put("avgLatencyMs", calls > 0 ? state.totalLatencyNanos.sum() / calls / 1_000_000.0 : 0.0);
+            endpointMetrics.put("maxLatencyMs", state.maxLatencyNanos.get() / 1_000_000.0);
+            endpointMetrics.put("circuitState", state.breaker.getState().name());
+            metrics.put(endpoint.getKey(), endpointMetrics);
+        });
+        return metrics;
+    }
+
+    @FunctionalInterface
+    private interface Call<T> {
+        ResponseEntity<T> exchange(RestTemplate restTemplate);
+    }
+
+    /**
+     * Transmet chaque ligne reçue ; annule le flux si le consommateur échoue (ex: client SSE déconnecté)
+     * et le signale aussitôt, car le client HTTP peut ne plus appeler onComplete/onError après une annulation
+     */
+    private static class LineSubscriber implements Flow.Subscriber<String> {
+        private final Consumer<String> onLine;
+        private final Runnable onConsumerCancel;
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+        private volatile Flow.Subscription subscription;
+
+        LineSubscriber(Consumer<String> onLine, Runnable onConsumerCancel) {
+            this.onLine = onLine;
+            this.onConsumerCancel = onConsumerCancel;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (cancelled.get()) {
+                subscription.cancel();
+                return;
+            }
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(String line) {
+            if (cancelled.get()) {
+                return;
+            }
+            try {
+                onLine.accept(line);
+            } catch (RuntimeException e) {
+                logger.debug("Stream consumer failed, cancelling ML stream: {}", e.getMessage());
+                if (cancel()) {
+                    onConsumerCancel.run();
+                }
+            }
+        }
+
+        /**
+         * Annule le flux (éventuellement avant l'abonnement) ; retourne false s'il l'était déjà
+         */
+        boolean cancel() {
+            if (!cancelled.compareAndSet(false, true)) {
+                return false;
+            }
+            Flow.Subscription current = subscription;
+            if (current != null) {
+                current.cancel();
+            }
+            return true;
+        }
+
+        boolean isCancelled() {
+            return cancelled.get();
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            // L'erreur est propagée par le futur de sendAsync
+        }
+
+        @Override
+        public void onComplete() {
+            // La fin du flux est signalée par le futur de sendAsync
+        }
+    }
+
+    private static class EndpointState {
+        private final RestTemplate restTemplate;
+        private final int readTimeoutMs;
+        private final int streamTimeoutMs;
+        private final Semaphore bulkhead;
+        private final int bulkheadWaitMs;
+        private final CircuitBreaker breaker;
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder totalLatencyNanos = new LongAdder();
+        private final AtomicLong maxLatencyNanos = new AtomicLong();
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        EndpointState(RestTemplate restTemplate, int readTimeoutMs, int streamTimeoutMs, int maxConcurrent,
+                      int bulkheadWaitMs, int failureThreshold, int openDurationMs) {
+            this.restTemplate = restTemplate;
+            this.readTimeoutMs = readTimeoutMs;
+            this.streamTimeoutMs = streamTimeoutMs;
+            this.bulkhead = new Semaphore(Math.max(1, maxConcurrent));
+            this.bulkheadWaitMs = bulkheadWaitMs;
+            this.breaker = new CircuitBreaker(failureThreshold, openDurationMs);
+        }
+
+        boolean acquire() {
+            try {
+                return bulkheadWaitMs > 0
+                    ? bulkhead.tryAcquire(bulkheadWaitMs, TimeUnit.MILLISECONDS)
+                    : bulkhead.tryAcquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Circuit breaker minimal : CLOSED -> OPEN après N échecs consécutifs,
+     * OPEN -> HALF_OPEN après la durée d'ouverture (un seul appel d'essai), puis CLOSED ou OPEN.
+     */
+    static class CircuitBreaker {
+        enum State { CLOSED, OPEN, HALF_OPEN }
+
+        // Verrou explicite plutôt que synchronized : pas d'épinglage des threads virtuels
+        private final ReentrantLock lock = new ReentrantLock();
+        private final int failureThreshold;
+        private final long openDurationMs;
+        private State state = State.CLOSED;
+        private int consecutiveFailures = 0;
+        private long openedAt = 0;
+        private boolean trialInProgress = false;
+
+        CircuitBreaker(int failureThreshold, long openDurationMs) {
+            this.failureThreshold = Math.max(1, failureThreshold);
+            this.openDurationMs = openDurationMs;
+        }
+
+        State getState() {
+            lock.lock();
+            try {
+                return state;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * @param acquire true pour réserver l'appel d'essai en HALF_OPEN, false pour une simple consultation
+         */
+        boolean isCallPermitted(boolean acquire) {
+            lock.lock();
+            try {
+                if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openDurationMs) {
+                    state = State.HALF_OPEN;
+                    trialInProgress = false;
+                }
+                if (state == State.CLOSED) {
+                    return true;
+                }
+                if (state == State.HALF_OPEN && !trialInProgress) {
+                    if (acquire) {
+                        trialInProgress = true;
+                    }
+                    return true;
+                }
+                return false;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Libère l'appel d'essai réservé lorsqu'il n'a finalement pas été émis
+         */
+        void release() {
+            lock.lock();
+            try {
+                trialInProgress = false;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void onSuccess() {
+            lock.lock();
+            try {
+                consecutiveFailures = 0;
+                trialInProgress = false;
+                state = State.CLOSED;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void onFailure() {
+            boolean opened = false;
+            int failures;
+            lock.lock();
+            try {
+                consecutiveFailures++;
+                failures = consecutiveFailures;
+                trialInProgress = false;
+                if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+                    opened = state != State.OPEN;
+                    state = State.OPEN;
+                    openedAt = System.currentTimeMillis();
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (opened) {
+                logger.warn("ML circuit opened after {} consecutive failures", failures);
+            }
+        }
+    }
+
+    /**
+     * Levée lorsque le circuit est ouvert ou que le bulkhead est plein : l'appelant doit utiliser son fallback
+     */
+    public static class MlServiceUnavailableException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public MlServiceUnavailableException(String message) {
+            super(message);
+        }
+    }
+}
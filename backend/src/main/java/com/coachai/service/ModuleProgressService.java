@@ -5,7 +5,6 @@ import com.coachai.model.FormationProgress;
 import com.coachai.model.Module;
 import com.coachai.model.ModuleProgress;
 import com.coachai.model.Quiz;
-import com.coachai.model.QuizQuestion;
 import com.coachai.model.Formation;
 import com.coachai.repository.*;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -34,6 +33,9 @@ public class ModuleProgressService {
     @Autowired
     private FormationProgressRepository formationProgressRepository;
 
+    @Autowired
+    private QuizAnswerKeyService quizAnswerKeyService;
+
     /**
      * Marque le texte d'un module comme complété
      */
@@ -117,7 +119,7 @@ public class ModuleProgressService {
         
         // Calculer le score du quiz
         Quiz quiz = module.getQuiz();
-        double score = calculateQuizScore(quiz, answers);
+        double score = quizAnswerKeyService.getAnswerKey(quiz).grade(answers).getScoreOnTotal();
         progress.setQuizScore(score);
         progress.setQuizCompleted(true);
         progress.setQuizCompletedAt(LocalDateTime.now());
@@ -159,47 +161,6 @@ public class ModuleProgressService {
         return moduleProgressRepository.save(progress);
     }
 
-    /**
-     * Calcule le score d'un quiz
-     */
-    private double calculateQuizScore(Quiz quiz, java.util.Map<String, Object> answers) {
-        if (quiz.getQuestions() == null || quiz.getQuestions().isEmpty()) {
-            return 0.0;
-        }
-        
-        int totalPoints = 0;
-        int earnedPoints = 0;
-        
-        for (QuizQuestion question : quiz.getQuestions()) {
-            totalPoints += question.getPoints();
-            
-            Object userAnswer = answers.get(question.getId());
-            if (userAnswer != null && isAnswerCorrect(question, userAnswer)) {
-                earnedPoints += question.getPoints();
-            }
-        }
-        
-        return totalPoints > 0 ? (earnedPoints * 100.0 / totalPoints) : 0.0;
-    }
-
-    /**
-     * Vérifie si une réponse est correcte
-     */
-    private boolean isAnswerCorrect(QuizQuestion question, Object userAnswer) {
-        if (question.getType() == QuizQuestion.QuestionType.MULTIPLE_CHOICE) {
-            // Pour MCQ, comparer l'index ou la valeur
-            if (userAnswer instanceof Number) {
-                return question.getCorrectAnswer().equals(((Number) userAnswer).intValue());
-            }
-            return question.getCorrectAnswer().toString().equals(userAnswer.toString());
-        } else if (question.getType() == QuizQuestion.QuestionType.TRUE_FALSE) {
-            return question.getCorrectAnswer().toString().equalsIgnoreCase(userAnswer.toString());
-        } else {
-            // Pour questions ouvertes, comparaison simple
-            return question.getCorrectAnswer().toString().equalsIgnoreCase(userAnswer.toString());
-        }
-    }
-
     /**
      * Débloque le module suivant après validation du module actuel
      */
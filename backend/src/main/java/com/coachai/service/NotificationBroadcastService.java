@@ -0,0 +1,214 @@
+package com.coachai.service;
+
+import com.coachai.dto.BroadcastReadCountDto;
+import com.coachai.model.NotificationBroadcast;
+import com.coachai.model.NotificationBroadcastReceipt;
+import com.coachai.model.User;
+import com.coachai.model.UserNotification;
+import com.coachai.repository.NotificationBroadcastReceiptRepository;
+import com.coachai.repository.NotificationBroadcastRepository;
+import com.coachai.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Notifications diffusées à une audience entière (tous les utilisateurs ou un rôle).
+ *
+ * L'envoi n'écrit qu'une ligne {@link NotificationBroadcast}, quel que soit le nombre de
+ * destinataires. La remise est résolue à la lecture : un utilisateur reçoit les diffusions
+ * de son rôle (ou adressées à tous) envoyées depuis son inscription. Seule la lecture crée
+ * une ligne par utilisateur ({@link NotificationBroadcastReceipt}) ; l'avancement d'une
+ * diffusion est le rapport entre ces accusés de lecture et l'audience au moment de l'envoi.
+ */
+@Service
+public class NotificationBroadcastService {
+
+    // Utilisateur sans date d'inscription : toutes les diffusions de son audience
+    private static final LocalDateTime NO_JOIN_DATE = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    @Autowired
+    private NotificationBroadcastRepository broadcastRepository;
+
+    @Autowired
+    private NotificationBroadcastReceiptRepository receiptRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    /**
+     * Enregistre une diffusion ; targetRole null pour tous les utilisateurs
+     */
+    public NotificationBroadcast createBroadcast(User.UserRole targetRole, UserNotification.NotificationType type,
+                                                 UserNotification.NotificationPriority priority, String title,
+                                                 String message, String actionUrl, String createdBy) {
+        NotificationBroadcast broadcast = new NotificationBroadcast();
+        broadcast.setTargetRole(targetRole);
+        broadcast.setType(type);
+        broadcast.setPriority(priority);
+        broadcast.setTitle(title);
+        broadcast.setMessage(message);
+        broadcast.setActionUrl(actionUrl);
+        broadcast.setCreatedBy(createdBy);
+        broadcast.setTotalRecipients(targetRole == null ? userRepository.count() : userRepository.countByRole(targetRole));
+        return broadcastRepository.save(broadcast);
+    }
+
+    /**
+     * Diffusions reçues par l'utilisateur, présentées comme des notifications (non persistées) :
+     * l'identifiant est celui de la diffusion, l'état de lecture celui de l'utilisateur
+     */
+    public List<UserNotification> getBroadcastNotifications(User user) {
+        List<NotificationBroadcast> broadcasts = broadcastRepository.findVisibleTo(user.getRole(), joinDate(user));
+        if (broadcasts.isEmpty()) {
+            return List.of();
+        }
+
+        Map<String, LocalDateTime> readAtByBroadcast = new HashMap<>();
+        for (NotificationBroadcastReceipt receipt : receiptRepository.findByUser(user)) {
+            readAtByBroadcast.put(receipt.getBroadcast().getId(), receipt.getReadAt());
+        }
+
+        List<UserNotification> notifications = new ArrayList<>(broadcasts.size());
+        for (NotificationBroadcast broadcast : broadcasts) {
+            notifications.add(toNotification(broadcast, readAtByBroadcast.get(broadcast.getId())));
+        }
+        return notifications;
+    }
+
+    public long countUnread(User user) {
+        return broadcastRepository.countUnreadVisibleTo(user, user.getRole(), joinDate(user));
+    }
+
+    /**
+     * Marque une diffusion comme lue par l'utilisateur (sans effet si elle l'est déjà) ;
+     * vide si la diffusion n'existe pas ou ne lui est pas adressée
+     */
+    public Optional<UserNotification> markRead(String broadcastId, User user) {
+        Optional<NotificationBroadcast> found = broadcastRepository.findById(broadcastId);
+        if (found.isEmpty() || !isVisibleTo(found.get(), user)) {
+            return Optional.empty();
+        }
+
+        NotificationBroadcast broadcast = found.get();
+        LocalDateTime readAt = LocalDateTime.now();
+        if (!receiptRepository.existsByBroadcastAndUser(broadcast, user)) {
+            try {
+                receiptRepository.save(new NotificationBroadcastReceipt(null, broadcast, user, readAt));
+            } catch (DataIntegrityViolationException e) {
+                // Lecture concurrente déjà enregistrée (contrainte unique diffusion/utilisateur)
+            }
+        }
+        return Optional.of(toNotification(broadcast, readAt));
+    }
+
+    public List<NotificationBroadcast> getAllBroadcasts() {
+        return broadcastRepository.findAllByOrderByCreatedAtDesc();
+    }
+
+    public Optional<NotificationBroadcast> getBroadcast(String broadcastId) {
+        return broadcastRepository.findById(broadcastId);
+    }
+
+    /**
+     * Nombre de lectures par diffusion, en une requête
+     */
+    public Map<String, Long> getReadCounts() {
+        Map<String, Long> readCounts = new HashMap<>();
+        for (BroadcastReadCountDto count : receiptRepository.countReadsByBroadcast()) {
+            readCounts.put(count.getBroadcastId(), count.getReadCount());
+        }
+        return readCounts;
+    }
+
+    /**
+     * Nombre de lectures des seules diffusions données (une page de la liste d'administration)
+     */
+    public Map<String, Long> getReadCounts(List<NotificationBroadcast> broadcasts) {
+        Map<String, Long> readCounts = new HashMap<>();
+        if (broadcasts.isEmpty()) {
+            return readCounts;
+        }
+        for (BroadcastReadCountDto count : receiptRepository.countReadsByBroadcastIn(broadcasts)) {
+            readCounts.put(count.getBroadcastId(), count.getReadCount());
+        }
+        return readCounts;
+    }
+
+    /**
+     * Remises totales : somme des audiences au moment de l'envoi
+     */
+    public long countDeliveries() {
+        return broadcastRepository.sumTotalRecipients();
+    }
+
+    public long countReads() {
+        return receiptRepository.count();
+    }
+
+    /**
+     * Avancement d'une diffusion : destinataires, lectures et taux de lecture (%)
+     */
+    public Map<String, Object> getProgress(NotificationBroadcast broadcast) {
+        long readCount = receiptRepository.countByBroadcast(broadcast);
+        long total = broadcast.getTotalRecipients();
+        double readRate = total > 0 ? (double) readCount / total * 100 : 0;
+
+        Map<String, Object> progress = new HashMap<>();
+        progress.put("id", broadcast.getId());
+        progress.put("targetAudience", audienceOf(broadcast));
+        progress.put("status", "sent");
+        progress.put("totalRecipients", total);
+        progress.put("deliveredCount", total);
+        progress.put("readCount", readCount);
+        progress.put("unreadCount", Math.max(0, total - readCount));
+        progress.put("readRate", Math.round(readRate * 100) / 100.0);
+        progress.put("sentAt", broadcast.getCreatedAt());
+        return progress;
+    }
+
+    /**
+     * Libellé d'audience utilisé par l'interface d'administration
+     */
+    public static String audienceOf(NotificationBroadcast broadcast) {
+        if (broadcast.getTargetRole() == null) {
+            return "all";
+        }
+        return switch (broadcast.getTargetRole()) {
+            case USER -> "apprenants";
+            case TRAINER -> "formateurs";
+            case ADMIN -> "administrateurs";
+        };
+    }
+
+    private boolean isVisibleTo(NotificationBroadcast broadcast, User user) {
+        boolean roleMatches = broadcast.getTargetRole() == null || broadcast.getTargetRole() == user.getRole();
+        return roleMatches && !broadcast.getCreatedAt().isBefore(joinDate(user));
+    }
+
+    private static LocalDateTime joinDate(User user) {
+        return user.getJoinedAt() != null ? user.getJoinedAt() : NO_JOIN_DATE;
+    }
+
+    private static UserNotification toNotification(NotificationBroadcast broadcast, LocalDateTime readAt) {
+        UserNotification notification = new UserNotification();
+        notification.setId(broadcast.getId());
+        notification.setType(broadcast.getType());
+        notification.setPriority(broadcast.getPriority());
+        notification.setTitle(broadcast.getTitle());
+        notification.setMessage(broadcast.getMessage());
+        notification.setActionUrl(broadcast.getActionUrl());
+        notification.setCreatedBy(broadcast.getCreatedBy());
+        notification.setCreatedAt(broadcast.getCreatedAt());
+        notification.setReadAt(readAt);
+        notification.setRead(readAt != null);
+        return notification;
+    }
+}
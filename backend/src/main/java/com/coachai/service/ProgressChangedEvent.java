@@ -0,0 +1,18 @@
+package com.coachai.service;
+
+/**
+ * Événement publié quand la progression d'une inscription change (leçon visionnée,
+ * module validé). Consommé après commit par le moteur d'accès séquentiel.
+ */
+public class ProgressChangedEvent {
+
+    private final String enrollmentId;
+
+    public ProgressChangedEvent(String enrollmentId) {
+        this.enrollmentId = enrollmentId;
+    }
+
+    public String getEnrollmentId() {
+        return enrollmentId;
+    }
+}
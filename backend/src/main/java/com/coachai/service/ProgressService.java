@@ -45,6 +45,9 @@ public class ProgressService {
     @Autowired
     private QuizAttemptRepository quizAttemptRepository;
 
+    @Autowired
+    private StudentFeatureService studentFeatureService;
+
     @Transactional
     public ModuleProgressResponseDto markLessonCompleted(LessonProgressDto dto) {
         Enrollment enrollment = enrollmentRepository.findById(dto.getEnrollmentId())
@@ -79,6 +82,7 @@ public class ProgressService {
         double progress = (double) courseProgress.getCompletedLessons() / courseProgress.getTotalLessons() * 100;
         courseProgress.setOverallProgress(progress);
         courseProgressRepository.save(courseProgress);
+        studentFeatureService.refreshAcademicMetrics(enrollment.getUser());
 
         // Obtenir le module de la leçon
         com.coachai.model.Module module = lesson.getCourse().getModule();
@@ -0,0 +1,22 @@
+package com.coachai.service;
+
+import java.util.function.Consumer;
+
+/**
+ * Acheminement des {@link PushEvent} vers les instances qui détiennent les connexions.
+ * L'implémentation par défaut ({@link InMemoryPushBroker}) reste dans le processus ; un
+ * déploiement sur plusieurs nœuds fournit une implémentation adossée à un broker partagé
+ * (propriété push.broker) sans changer les producteurs ni {@link PushService}.
+ */
+public interface PushBroker {
+
+    /**
+     * Publie un événement à destination de tous les abonnés, sur toutes les instances
+     */
+    void publish(PushEvent event);
+
+    /**
+     * Enregistre un consommateur local des événements publiés
+     */
+    void subscribe(Consumer<PushEvent> consumer);
+}
@@ -0,0 +1,67 @@
+package com.coachai.service;
+
+import com.coachai.model.User;
+
+import java.util.Map;
+
+/**
+ * Événement poussé aux clients connectés au flux temps réel ({@link PushService}).
+ * Destinataire : un utilisateur, ou une audience (un rôle, ou tous les utilisateurs si
+ * aucun rôle). La charge utile est une simple map afin de pouvoir traverser un broker
+ * partagé entre plusieurs instances.
+ */
+public class PushEvent {
+
+    public static final String NOTIFICATION = "notification";
+    public static final String CHAT_MESSAGE = "chat.message";
+    public static final String INBOX_MESSAGE = "inbox.message";
+
+    private final String userId;
+    private final User.UserRole role;
+    private final String type;
+    private final Map<String, Object> payload;
+
+    private PushEvent(String userId, User.UserRole role, String type, Map<String, Object> payload) {
+        this.userId = userId;
+        this.role = role;
+        this.type = type;
+        this.payload = payload;
+    }
+
+    public static PushEvent toUser(String userId, String type, Map<String, Object> payload) {
+        return new PushEvent(userId, null, type, payload);
+    }
+
+    /**
+     * Audience par rôle ; role null pour tous les utilisateurs connectés
+     */
+    public static PushEvent toRole(User.UserRole role, String type, Map<String, Object> payload) {
+        return new PushEvent(null, role, type, payload);
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public User.UserRole getRole() {
+        return role;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public Map<String, Object> getPayload() {
+        return payload;
+    }
+
+    /**
+     * Vrai si l'événement est destiné à cet abonné
+     */
+    public boolean isFor(String subscriberId, User.UserRole subscriberRole) {
+        if (userId != null) {
+            return userId.equals(subscriberId);
+        }
+        return role == null || role == subscriberRole;
+    }
+}
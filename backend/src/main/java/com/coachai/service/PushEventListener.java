@@ -0,0 +1,77 @@
+package com.coachai.service;
+
+import com.coachai.model.ChatMessage;
+import com.coachai.model.Conversation;
+import com.coachai.model.NotificationBroadcast;
+import com.coachai.model.UserNotification;
+import jakarta.persistence.PostPersist;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Listener JPA des notifications et messages : publie un {@link PushEvent} à chaque création,
+ * quel que soit le contrôleur ou le service à l'origine de l'écriture. L'événement n'est
+ * poussé aux clients qu'après commit ({@link PushService}).
+ * Un message n'est poussé qu'au propriétaire de la conversation ; la boîte de réception des
+ * formateurs est alimentée par {@link TrainerInboxService#publishInboxMessage}, pour les seules
+ * conversations avec un formateur.
+ * Instancié par Hibernate via le conteneur de beans Spring, comme {@link ContentChangeListener}.
+ */
+public class PushEventListener {
+
+    @Autowired
+    private ObjectProvider<ApplicationEventPublisher> eventPublisher;
+
+    @PostPersist
+    public void onCreate(Object entity) {
+        ApplicationEventPublisher publisher = eventPublisher.getIfAvailable();
+        if (publisher == null) {
+            return;
+        }
+        if (entity instanceof UserNotification notification) {
+            if (notification.getUser() != null) {
+                publisher.publishEvent(PushEvent.toUser(notification.getUser().getId(), PushEvent.NOTIFICATION,
+                    notificationPayload(notification.getId(), notification.getType(), notification.getPriority(),
+                        notification.getTitle(), notification.getMessage(), notification.getActionUrl(),
+                        notification.getCreatedAt())));
+            }
+        } else if (entity instanceof NotificationBroadcast broadcast) {
+            publisher.publishEvent(PushEvent.toRole(broadcast.getTargetRole(), PushEvent.NOTIFICATION,
+                notificationPayload(broadcast.getId(), broadcast.getType(), broadcast.getPriority(),
+                    broadcast.getTitle(), broadcast.getMessage(), broadcast.getActionUrl(), broadcast.getCreatedAt())));
+        } else if (entity instanceof ChatMessage message && message.getConversation() != null) {
+            Conversation conversation = message.getConversation();
+            Map<String, Object> payload = new HashMap<>();
+            payload.put("id", message.getId());
+            payload.put("conversationId", conversation.getId());
+            payload.put("sender", message.getSender() != null ? message.getSender().name() : null);
+            payload.put("content", message.getContent());
+            payload.put("timestamp", message.getTimestamp());
+            if (conversation.getUser() != null) {
+                String userId = conversation.getUser().getId();
+                payload.put("userId", userId);
+                publisher.publishEvent(PushEvent.toUser(userId, PushEvent.CHAT_MESSAGE, payload));
+            }
+        }
+    }
+
+    private static Map<String, Object> notificationPayload(String id, UserNotification.NotificationType type,
+                                                           UserNotification.NotificationPriority priority,
+                                                           String title, String message, String actionUrl,
+                                                           Object createdAt) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("id", id);
+        payload.put("type", type != null ? type.name() : null);
+        payload.put("priority", priority != null ? priority.name() : null);
+        payload.put("title", title);
+        payload.put("message", message);
+        payload.put("actionUrl", actionUrl);
+        payload.put("createdAt", createdAt);
+        payload.put("read", false);
+        return payload;
+    }
+}
@@ -0,0 +1,235 @@
+package com.coachai.service;
+
+import com.coachai.model.User;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Canal temps réel (Server-Sent Events) : notifications, messages de conversation et boîte
+ * de réception des formateurs, à la place du polling.
+ *
+ * Les {@link PushEvent} sont publiés après commit sur le {@link PushBroker}, qui les remet
+ * aux abonnés de chaque instance. Chaque connexion a sa propre file bornée, vidée par un
+ * pool d'envoi dédié : un client lent ne retarde que lui-même. Si sa file déborde, les
+ * événements en attente sont abandonnés et un unique événement "resync" lui demande de
+ * recharger son état. Un commentaire périodique maintient les connexions ouvertes à travers
+ * les proxys et détecte les clients partis.
+ */
+@Service
+public class PushService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PushService.class);
+
+    @Autowired
+    private PushBroker pushBroker;
+
+    @Value("${push.stream.timeout-ms:1800000}")
+    private long streamTimeoutMs;
+
+    @Value("${push.stream.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${push.stream.max-per-user:5}")
+    private int maxStreamsPerUser;
+
+    @Value("${push.sender-threads:4}")
+    private int senderThreads;
+
+    private final Map<String, List<Subscriber>> subscribersByUser = new ConcurrentHashMap<>();
+
+    // Écritures sur les connexions ; pas de mlTaskExecutor ici, réservé aux appels ML
+    private ExecutorService senderExecutor;
+
+    @PostConstruct
+    void init() {
+        AtomicInteger senderCount = new AtomicInteger();
+        senderExecutor = Executors.newFixedThreadPool(Math.max(1, senderThreads), r -> {
+            Thread thread = new Thread(r, "push-sender-" + senderCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        pushBroker.subscribe(this::deliver);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        subscribersByUser.values().forEach(subscribers -> subscribers.forEach(s -> s.emitter.complete()));
+        subscribersByUser.clear();
+        senderExecutor.shutdownNow();
+    }
+
+    /**
+     * Ouvre un flux pour l'utilisateur ; au-delà de push.stream.max-per-user connexions,
+     * la plus ancienne est fermée
+     * @param initialState état envoyé à l'ouverture (événement "ready")
+     */
+    public SseEmitter subscribe(String userId, User.UserRole role, Map<String, Object> initialState) {
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        Subscriber subscriber = new Subscriber(userId, role, emitter, queueCapacity);
+
+        List<Subscriber> subscribers = subscribersByUser.computeIfAbsent(userId, k -> new CopyOnWriteArrayList<>());
+        subscribers.add(subscriber);
+        while (subscribers.size() > Math.max(1, maxStreamsPerUser)) {
+            Subscriber oldest = subscribers.get(0);
+            remove(oldest);
+            oldest.emitter.complete();
+        }
+
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+
+        subscriber.offer(new Outgoing("ready", initialState));
+        return emitter;
+    }
+
+    /**
+     * Publication après commit : un événement d'une transaction annulée n'est jamais poussé
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPushEvent(PushEvent event) {
+        pushBroker.publish(event);
+    }
+
+    @Scheduled(fixedDelayString = "${push.heartbeat-interval-ms:25000}")
+    public void heartbeat() {
+        for (List<Subscriber> subscribers : subscribersByUser.values()) {
+            for (Subscriber subscriber : subscribers) {
+                subscriber.offer(Outgoing.HEARTBEAT);
+            }
+        }
+    }
+
+    /**
+     * Nombre de connexions ouvertes sur cette instance
+     */
+    public int getConnectionCount() {
+        return subscribersByUser.values().stream().mapToInt(List::size).sum();
+    }
+
+    private void deliver(PushEvent event) {
+        Outgoing outgoing = new Outgoing(event.getType(), event.getPayload());
+        if (event.getUserId() != null) {
+            List<Subscriber> subscribers = subscribersByUser.get(event.getUserId());
+            if (subscribers != null) {
+                subscribers.forEach(subscriber -> subscriber.offer(outgoing));
+            }
+            return;
+        }
+        for (List<Subscriber> subscribers : subscribersByUser.values()) {
+            for (Subscriber subscriber : subscribers) {
+                if (event.isFor(subscriber.userId, subscriber.role)) {
+                    subscriber.offer(outgoing);
+                }
+            }
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        subscriber.closed = true;
+        subscribersByUser.computeIfPresent(subscriber.userId, (k, subscribers) -> {
+            subscribers.remove(subscriber);
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+    }
+
+    /**
+     * Message à écrire sur une connexion ; type null pour un commentaire de maintien
+     */
+    private record Outgoing(String type, Object data) {
+        static final Outgoing HEARTBEAT = new Outgoing(null, null);
+    }
+
+    /**
+     * Connexion d'un utilisateur : file bornée et un seul envoi en cours à la fois
+     */
+    private class Subscriber {
+        private final String userId;
+        private final User.UserRole role;
+        private final SseEmitter emitter;
+        private final BlockingQueue<Outgoing> queue;
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private volatile boolean overflowed;
+        private volatile boolean closed;
+
+        Subscriber(String userId, User.UserRole role, SseEmitter emitter, int capacity) {
+            this.userId = userId;
+            this.role = role;
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        }
+
+        void offer(Outgoing outgoing) {
+            if (closed) {
+                return;
+            }
+            if (!queue.offer(outgoing) && outgoing != Outgoing.HEARTBEAT) {
+                // Client trop lent : il rechargera son état plutôt que de recevoir un arriéré
+                overflowed = true;
+                queue.clear();
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            if (sending.compareAndSet(false, true)) {
+                try {
+                    senderExecutor.execute(this::drain);
+                } catch (Exception e) {
+                    sending.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                while (!closed) {
+                    if (overflowed) {
+                        overflowed = false;
+                        emitter.send(SseEmitter.event().name("resync").data(Map.of("reason", "overflow")));
+                        continue;
+                    }
+                    Outgoing outgoing = queue.poll();
+                    if (outgoing == null) {
+                        break;
+                    }
+                    if (outgoing.type() == null) {
+                        emitter.send(SseEmitter.event().comment("heartbeat"));
+                    } else {
+                        emitter.send(SseEmitter.event().name(outgoing.type()).data(outgoing.data()));
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Client déconnecté ou flux déjà terminé
+                logger.debug("Push stream closed for user {}: {}", userId, e.getMessage());
+                remove(this);
+                emitter.completeWithError(e);
+            } finally {
+                sending.set(false);
+            }
+            if (!closed && (overflowed || !queue.isEmpty())) {
+                schedule();
+            }
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.coachai.service;
+
+import com.coachai.model.QuizQuestion;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Corrigé compilé d'un quiz : réponses attendues et barème, indexés par identifiant de
+ * question. Immuable, partagé entre toutes les corrections d'une même version du quiz
+ * ({@link QuizAnswerKeyService}).
+ *
+ * La correction d'une copie est un seul passage sur les réponses soumises, avec une
+ * recherche en O(1) de la question. La comparaison reste celle de l'ancienne correction
+ * question par question : réponse soumise sans espaces de bord, casse ignorée.
+ */
+public final class QuizAnswerKey {
+
+    private final String quizId;
+    private final long version;
+    private final Map<String, Integer> questionIndex;
+    private final String[] questionIds;
+    private final String[] expectedAnswers;
+    private final int[] points;
+    private final int totalPoints;
+
+    private QuizAnswerKey(String quizId, long version, List<QuizQuestion> questions) {
+        this.quizId = quizId;
+        this.version = version;
+        this.questionIndex = new HashMap<>(questions.size() * 2);
+        this.questionIds = new String[questions.size()];
+        this.expectedAnswers = new String[questions.size()];
+        this.points = new int[questions.size()];
+        int total = 0;
+        for (int i = 0; i < questions.size(); i++) {
+            QuizQuestion question = questions.get(i);
+            questionIndex.put(question.getId(), i);
+            questionIds[i] = question.getId();
+            expectedAnswers[i] = question.getCorrectAnswer();
+            points[i] = question.getPoints();
+            total += question.getPoints();
+        }
+        this.totalPoints = total;
+    }
+
+    static QuizAnswerKey compile(String quizId, long version, List<QuizQuestion> questions) {
+        return new QuizAnswerKey(quizId, version, questions);
+    }
+
+    /**
+     * Corrige les réponses soumises (identifiant de question → réponse), dans leur ordre.
+     * Les questions étrangères au quiz sont ignorées ; pour une question répondue
+     * plusieurs fois, seule la première réponse compte.
+     */
+    public GradedAttempt grade(Map<String, ?> answers) {
+        boolean[] answered = new boolean[questionIds.length];
+        boolean[] correct = new boolean[questionIds.length];
+        String[] submitted = new String[questionIds.length];
+        int[] order = new int[questionIds.length];
+        int answeredCount = 0;
+        int correctCount = 0;
+        int answeredPoints = 0;
+        int earnedPoints = 0;
+
+        for (Map.Entry<String, ?> entry : answers.entrySet()) {
+            Integer index = entry.getKey() != null ? questionIndex.get(entry.getKey()) : null;
+            if (index == null || answered[index]) {
+                continue;
+            }
+            answered[index] = true;
+            order[answeredCount++] = index;
+            answeredPoints += points[index];
+
+            Object value = entry.getValue();
+            submitted[index] = value != null ? value.toString() : "";
+            if (value != null && expectedAnswers[index] != null
+                    && expectedAnswers[index].equalsIgnoreCase(submitted[index].trim())) {
+                correct[index] = true;
+                correctCount++;
+                earnedPoints += points[index];
+            }
+        }
+
+        return new GradedAttempt(this, Arrays.copyOf(order, answeredCount), submitted, correct,
+            correctCount, answeredPoints, earnedPoints);
+    }
+
+    public String getQuizId() {
+        return quizId;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int getQuestionCount() {
+        return questionIds.length;
+    }
+
+    public int getTotalPoints() {
+        return totalPoints;
+    }
+
+    /**
+     * Résultat de la correction d'une copie
+     */
+    public static final class GradedAttempt {
+        private final QuizAnswerKey key;
+        private final int[] answeredIndexes;
+        private final String[] submitted;
+        private final boolean[] correct;
+        private final int correctCount;
+        private final int answeredPoints;
+        private final int earnedPoints;
+
+        private GradedAttempt(QuizAnswerKey key, int[] answeredIndexes, String[] submitted, boolean[] correct,
+                              int correctCount, int answeredPoints, int earnedPoints) {
+            this.key = key;
+            this.answeredIndexes = answeredIndexes;
+            this.submitted = submitted;
+            this.correct = correct;
+            this.correctCount = correctCount;
+            this.answeredPoints = answeredPoints;
+            this.earnedPoints = earnedPoints;
+        }
+
+        public int getAnsweredCount() {
+            return answeredIndexes.length;
+        }
+
+        /**
+         * Identifiant de la i-ème question répondue, dans l'ordre de soumission
+         */
+        public String getQuestionId(int i) {
+            return key.questionIds[answeredIndexes[i]];
+        }
+
+        public String getSubmittedAnswer(int i) {
+            return submitted[answeredIndexes[i]];
+        }
+
+        public boolean isCorrect(int i) {
+            return correct[answeredIndexes[i]];
+        }
+
+        public int getPointsEarned(int i) {
+            return correct[answeredIndexes[i]] ? key.points[answeredIndexes[i]] : 0;
+        }
+
+        public int getCorrectCount() {
+            return correctCount;
+        }
+
+        public int getAnsweredPoints() {
+            return answeredPoints;
+        }
+
+        public int getEarnedPoints() {
+            return earnedPoints;
+        }
+
+        /**
+         * Score sur 100 rapporté au barème des questions répondues
+         */
+        public double getScoreOnAnswered() {
+            return answeredPoints > 0 ? (double) earnedPoints / answeredPoints * 100.0 : 0.0;
+        }
+
+        /**
+         * Score sur 100 rapporté au barème complet du quiz
+         */
+        public double getScoreOnTotal() {
+            return key.totalPoints > 0 ? (double) earnedPoints / key.totalPoints * 100.0 : 0.0;
+        }
+    }
+}
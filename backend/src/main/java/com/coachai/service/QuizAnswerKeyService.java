@@ -0,0 +1,49 @@
+package com.coachai.service;
+
+import com.coachai.model.Quiz;
+import com.coachai.repository.QuizQuestionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Corrigés compilés des quiz ({@link QuizAnswerKey}), construits en une requête puis gardés
+ * en mémoire jusqu'à la prochaine écriture sur le quiz ou l'une de ses questions
+ * ({@link ContentChangedEvent} de type QUIZ).
+ */
+@Service
+public class QuizAnswerKeyService {
+
+    @Autowired
+    private QuizQuestionRepository quizQuestionRepository;
+
+    private final Map<String, QuizAnswerKey> keys = new ConcurrentHashMap<>();
+    // Incrémenté à chaque invalidation : un corrigé compilé avant n'est pas conservé
+    private final AtomicLong generation = new AtomicLong();
+
+    public QuizAnswerKey getAnswerKey(Quiz quiz) {
+        QuizAnswerKey key = keys.get(quiz.getId());
+        if (key != null) {
+            return key;
+        }
+        long buildGeneration = generation.get();
+        QuizAnswerKey compiled = QuizAnswerKey.compile(quiz.getId(), buildGeneration,
+            quizQuestionRepository.findByQuizOrderByOrderAsc(quiz));
+        if (generation.get() == buildGeneration) {
+            keys.put(quiz.getId(), compiled);
+        }
+        return compiled;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onContentChanged(ContentChangedEvent event) {
+        if (event.getType() == ContentChangedEvent.ContentType.QUIZ) {
+            generation.incrementAndGet();
+            keys.remove(event.getId());
+        }
+    }
+}
@@ -3,11 +3,15 @@ package com.coachai.service;
 import com.coachai.model.*;
 import com.coachai.repository.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -16,6 +20,10 @@ import java.util.Optional;
  * - Nombre de tentatives limité (ex: 3)
  * - Meilleur score conservé
  * - Quiz non validé bloque l'accès au module suivant
+ *
+ * La correction s'appuie sur le corrigé compilé du quiz ({@link QuizAnswerKeyService}) ;
+ * les réponses sont insérées par lots JDBC. Le nombre de tentatives est garanti par une
+ * contrainte d'unicité sur (utilisateur, quiz, numéro de tentative).
  */
 @Service
 public class QuizService {
@@ -32,6 +40,15 @@ public class QuizService {
     @Autowired
     private QuizAnswerRepository quizAnswerRepository;
     
+    @Autowired
+    private QuizQuestionRepository quizQuestionRepository;
+    
+    @Autowired
+    private QuizAnswerKeyService quizAnswerKeyService;
+    
+    @Autowired
+    private StudentFeatureService studentFeatureService;
+    
     /**
      * Vérifie si un utilisateur peut tenter un quiz
      * Règle: Nombre de tentatives limité (max 3 par défaut)
@@ -65,8 +82,18 @@ public class QuizService {
             throw new IllegalStateException("Nombre maximum de tentatives atteint (" + quiz.getMaxAttempts() + ")");
         }
         
-        // Calculer le score
-        double score = calculateScore(quiz, answers);
+        // Calculer le score : une réponse par question (la première), questions non pondérées
+        Map<String, String> answersByQuestion = new LinkedHashMap<>();
+        for (QuizAnswer answer : answers) {
+            if (answer.getQuestion() != null) {
+                answersByQuestion.putIfAbsent(answer.getQuestion().getId(), answer.getUserAnswer());
+            }
+        }
+        QuizAnswerKey key = quizAnswerKeyService.getAnswerKey(quiz);
+        QuizAnswerKey.GradedAttempt graded = key.grade(answersByQuestion);
+        double score = key.getQuestionCount() > 0
+            ? (double) graded.getCorrectCount() / key.getQuestionCount() * 100.0
+            : 0.0;
         boolean passed = score >= quiz.getPassingScore();
         
         // Créer la tentative
@@ -79,82 +106,103 @@ public class QuizService {
         attempt.setStartedAt(LocalDateTime.now());
         attempt.setSubmittedAt(LocalDateTime.now());
         
-        // Sauvegarder les réponses
+        QuizAttempt saved = attemptRepository.save(attempt);
+        
+        // Sauvegarder les réponses en un lot
         for (QuizAnswer answer : answers) {
-            answer.setAttempt(attempt);
-            quizAnswerRepository.save(answer);
+            answer.setAttempt(saved);
         }
-        
-        attempt.setAnswers(answers);
-        
-        QuizAttempt saved = attemptRepository.save(attempt);
+        quizAnswerRepository.saveAll(answers);
+        saved.setAnswers(answers);
+        studentFeatureService.refreshAcademicMetrics(user);
         
         return saved;
     }
     
     /**
-     * Récupère le meilleur score d'un utilisateur pour un quiz
+     * Démarre une tentative. Le numéro de tentative est unique par (utilisateur, quiz) en base :
+     * deux démarrages concurrents ne peuvent pas obtenir le même numéro, le perdant recompte
+     * et est refusé si le maximum est atteint.
+     * @throws IllegalStateException si le nombre maximum de tentatives est atteint
      */
-    public Optional<QuizAttempt> getBestAttempt(String userId, String quizId) {
-        User user = userRepository.findById(userId)
-            .orElseThrow(() -> new IllegalArgumentException("User not found"));
-        
-        Quiz quiz = quizRepository.findById(quizId)
-            .orElseThrow(() -> new IllegalArgumentException("Quiz not found"));
-        
-        return attemptRepository.findFirstByUserAndQuizOrderByScoreDesc(user, quiz);
+    public QuizAttempt startAttempt(User user, Quiz quiz) {
+        int maxAttempts = quiz.getMaxAttempts() > 0 ? quiz.getMaxAttempts() : 3;
+        for (int retry = 0; ; retry++) {
+            int attemptNumber = (int) attemptRepository.countByUserAndQuiz(user, quiz) + 1;
+            if (attemptNumber > maxAttempts) {
+                throw new IllegalStateException("Maximum attempts reached");
+            }
+            
+            QuizAttempt attempt = new QuizAttempt();
+            attempt.setQuiz(quiz);
+            attempt.setUser(user);
+            attempt.setAttemptNumber(attemptNumber);
+            attempt.setStartedAt(LocalDateTime.now());
+            attempt.setScore(0.0);
+            attempt.setPassed(false);
+            
+            try {
+                QuizAttempt saved = attemptRepository.saveAndFlush(attempt);
+                studentFeatureService.refreshAcademicMetrics(saved.getUser());
+                return saved;
+            } catch (DataIntegrityViolationException e) {
+                // Numéro pris par un démarrage concurrent
+                if (retry >= 2) {
+                    throw new IllegalStateException("Concurrent attempt start, please retry");
+                }
+            }
+        }
     }
     
     /**
-     * Calcule le score d'un quiz
+     * Corrige et enregistre une tentative démarrée : chaque réponse ("questionId", "userAnswer")
+     * est notée sur le barème de sa question, le score est rapporté aux questions répondues.
+     * Appelé par le pipeline de soumission ({@link QuizSubmissionService}), une fois par tentative.
      */
-    private double calculateScore(Quiz quiz, List<QuizAnswer> answers) {
-        List<QuizQuestion> questions = quiz.getQuestions();
-        if (questions == null || questions.isEmpty()) {
-            return 0.0;
+    @Transactional
+    public QuizAttempt gradeAttempt(QuizAttempt attempt, List<Map<String, Object>> answerData) {
+        Map<String, Object> answersByQuestion = new LinkedHashMap<>();
+        for (Map<String, Object> data : answerData) {
+            Object questionId = data.get("questionId");
+            if (questionId instanceof String id && !id.isEmpty()) {
+                answersByQuestion.putIfAbsent(id, data.get("userAnswer"));
+            }
         }
         
-        int correctAnswers = 0;
+        QuizAnswerKey.GradedAttempt graded = quizAnswerKeyService.getAnswerKey(attempt.getQuiz()).grade(answersByQuestion);
         
-        for (QuizQuestion question : questions) {
-            QuizAnswer userAnswer = answers.stream()
-                .filter(a -> a.getQuestion().getId().equals(question.getId()))
-                .findFirst()
-                .orElse(null);
-            
-            if (userAnswer != null && isAnswerCorrect(question, userAnswer)) {
-                correctAnswers++;
-            }
+        List<QuizAnswer> answers = new ArrayList<>(graded.getAnsweredCount());
+        for (int i = 0; i < graded.getAnsweredCount(); i++) {
+            QuizAnswer answer = new QuizAnswer();
+            answer.setAttempt(attempt);
+            answer.setQuestion(quizQuestionRepository.getReferenceById(graded.getQuestionId(i)));
+            answer.setUserAnswer(graded.getSubmittedAnswer(i));
+            answer.setCorrect(graded.isCorrect(i));
+            answer.setPointsEarned(graded.getPointsEarned(i));
+            answers.add(answer);
         }
+        quizAnswerRepository.saveAll(answers);
+        
+        double percentage = graded.getScoreOnAnswered();
+        attempt.setScore(percentage);
+        attempt.setPassed(percentage >= attempt.getQuiz().getPassingScore());
+        attempt.setSubmittedAt(LocalDateTime.now());
         
-        return (double) correctAnswers / questions.size() * 100.0;
+        QuizAttempt saved = attemptRepository.save(attempt);
+        studentFeatureService.refreshAcademicMetrics(saved.getUser());
+        return saved;
     }
     
     /**
-     * Vérifie si une réponse est correcte
+     * Récupère le meilleur score d'un utilisateur pour un quiz
      */
-    private boolean isAnswerCorrect(QuizQuestion question, QuizAnswer answer) {
-        // Pour QCM, vérifier si la réponse correspond à la bonne réponse
-        if (question.getType() == QuizQuestion.QuestionType.MULTIPLE_CHOICE) {
-            if (question.getCorrectAnswer() == null || answer.getUserAnswer() == null) {
-                return false;
-            }
-            return question.getCorrectAnswer().equalsIgnoreCase(answer.getUserAnswer().trim());
-        }
+    public Optional<QuizAttempt> getBestAttempt(String userId, String quizId) {
+        User user = userRepository.findById(userId)
+            .orElseThrow(() -> new IllegalArgumentException("User not found"));
         
-        // Pour vrai/faux
-        if (question.getType() == QuizQuestion.QuestionType.TRUE_FALSE) {
-            if (question.getCorrectAnswer() == null || answer.getUserAnswer() == null) {
-                return false;
-            }
-            return question.getCorrectAnswer().equalsIgnoreCase(answer.getUserAnswer().trim());
-        }
+        Quiz quiz = quizRepository.findById(quizId)
+            .orElseThrow(() -> new IllegalArgumentException("Quiz not found"));
         
-        // Pour les autres types, comparer directement
-        if (question.getCorrectAnswer() == null || answer.getUserAnswer() == null) {
-            return false;
-        }
-        return question.getCorrectAnswer().equalsIgnoreCase(answer.getUserAnswer().trim());
+        return attemptRepository.findFirstByUserAndQuizOrderByScoreDesc(user, quiz);
     }
 }
-
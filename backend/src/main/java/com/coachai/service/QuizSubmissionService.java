@@ -0,0 +1,370 @@
+package com.coachai.service;
+
+import com.coachai.model.QuizAttempt;
+import com.coachai.model.QuizSubmission;
+import com.coachai.repository.QuizAttemptRepository;
+import com.coachai.repository.QuizSubmissionRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pipeline de soumission des quiz, dimensionné pour les fins d'examen où toute une promotion
+ * soumet en quelques secondes.
+ *
+ * La requête ne fait qu'enregistrer la soumission (QUEUED) avec ses réponses puis la place
+ * dans une file bornée ; des correcteurs dédiés la prennent (QUEUED → GRADING par mise à
+ * jour conditionnelle), la corrigent et l'enregistrent (GRADED). Une soumission qui ne tient
+ * pas dans la file reste en base et est reprise par le balayage périodique ; au démarrage,
+ * les soumissions interrompues sont remises en file. Le résultat est consultable par
+ * {@link #getSubmission} et poussé sur le flux temps réel (événement "quiz.graded").
+ *
+ * Idempotence : une soumission par tentative et par clé d'idempotence (contraintes d'unicité) ;
+ * un renvoi retourne la soumission existante. Une clé déjà utilisée pour une autre tentative
+ * est refusée. Le renvoi d'une soumission en échec (FAILED) la remet en file avec les réponses
+ * renvoyées : une erreur passagère ne condamne pas la tentative.
+ */
+@Service
+public class QuizSubmissionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(QuizSubmissionService.class);
+
+    public static final String GRADED_EVENT = "quiz.graded";
+
+    @Autowired
+    private QuizSubmissionRepository submissionRepository;
+
+    @Autowired
+    private QuizAttemptRepository attemptRepository;
+
+    @Autowired
+    private QuizService quizService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${quiz.submissions.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${quiz.submissions.graders:4}")
+    private int graders;
+
+    @Value("${quiz.submissions.sweep-batch-size:500}")
+    private int sweepBatchSize;
+
+    private TransactionTemplate transaction;
+    private BlockingQueue<String> queue;
+    // Soumissions présentes dans la file : le balayage ne les ajoute pas une seconde fois
+    private final Set<String> enqueued = ConcurrentHashMap.newKeySet();
+    // Clients en attente du résultat d'une soumission (endpoint synchrone)
+    private final Map<String, CompletableFuture<QuizSubmission>> waiters = new ConcurrentHashMap<>();
+
+    private ExecutorService graderExecutor;
+
+    @PostConstruct
+    void init() {
+        transaction = new TransactionTemplate(transactionManager);
+        queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        int graderCount = Math.max(1, graders);
+        AtomicInteger threadCount = new AtomicInteger();
+        graderExecutor = Executors.newFixedThreadPool(graderCount, r -> {
+            Thread thread = new Thread(r, "quiz-grader-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < graderCount; i++) {
+            graderExecutor.execute(this::gradeLoop);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        // Les soumissions en file restent QUEUED en base et seront reprises au prochain démarrage
+        graderExecutor.shutdownNow();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeOnStartup() {
+        int interrupted = submissionRepository.updateAllStatus(QuizSubmission.SubmissionStatus.GRADING,
+            QuizSubmission.SubmissionStatus.QUEUED);
+        if (interrupted > 0) {
+            logger.info("Requeued {} quiz submissions interrupted during grading", interrupted);
+        }
+        sweep();
+    }
+
+    /**
+     * Enregistre une soumission et la met en file ; retourne la soumission existante pour un renvoi,
+     * remise en file si elle était en échec
+     * @throws IllegalArgumentException si la tentative n'existe pas ou n'appartient pas à l'utilisateur
+     * @throws IllegalStateException si la tentative a déjà été corrigée hors pipeline, ou si la clé
+     *         d'idempotence a déjà servi pour une autre tentative
+     */
+    public QuizSubmission submit(String userId, String attemptId, String submissionKey,
+                                 List<Map<String, Object>> answers) {
+        String key = submissionKey != null && !submissionKey.isBlank() ? submissionKey.trim() : null;
+        Optional<QuizSubmission> existing = findExisting(userId, attemptId, key);
+        if (existing.isPresent()) {
+            return resubmit(existing.get(), answers);
+        }
+
+        QuizAttempt attempt = attemptRepository.findById(attemptId)
+            .filter(a -> a.getUser() != null && userId.equals(a.getUser().getId()))
+            .orElseThrow(() -> new IllegalArgumentException("Attempt not found"));
+        if (attempt.getSubmittedAt() != null) {
+            throw new IllegalStateException("Attempt already submitted");
+        }
+
+        QuizSubmission submission = new QuizSubmission();
+        submission.setAttemptId(attemptId);
+        submission.setUserId(userId);
+        submission.setSubmissionKey(key);
+        submission.setStatus(QuizSubmission.SubmissionStatus.QUEUED);
+        submission.setAnswers(writeAnswers(answers));
+
+        QuizSubmission saved;
+        try {
+            saved = submissionRepository.saveAndFlush(submission);
+        } catch (DataIntegrityViolationException e) {
+            // Renvoi concurrent : l'autre requête a enregistré la soumission
+            return findExisting(userId, attemptId, key).orElseThrow(() -> e);
+        }
+        enqueue(saved.getId());
+        return saved;
+    }
+
+    /**
+     * Renvoi d'une soumission existante : inchangée, sauf en échec où elle repart en file
+     */
+    private QuizSubmission resubmit(QuizSubmission submission, List<Map<String, Object>> answers) {
+        if (submission.getStatus() != QuizSubmission.SubmissionStatus.FAILED) {
+            return submission;
+        }
+        // Mise à jour conditionnelle : deux renvois simultanés ne remettent la soumission en file qu'une fois
+        if (submissionRepository.requeue(submission.getId(), writeAnswers(answers),
+                QuizSubmission.SubmissionStatus.FAILED, QuizSubmission.SubmissionStatus.QUEUED) > 0) {
+            logger.info("Quiz submission {} requeued after failure", submission.getId());
+            enqueue(submission.getId());
+        }
+        return submissionRepository.findById(submission.getId()).orElse(submission);
+    }
+
+    public Optional<QuizSubmission> getSubmission(String submissionId) {
+        return submissionRepository.findById(submissionId);
+    }
+
+    /**
+     * Résultat de la soumission, complété dès qu'elle est corrigée (ou en échec)
+     */
+    public CompletableFuture<QuizSubmission> awaitResult(QuizSubmission submission) {
+        if (isFinished(submission)) {
+            return CompletableFuture.completedFuture(submission);
+        }
+        CompletableFuture<QuizSubmission> future = waiters.computeIfAbsent(submission.getId(), k -> new CompletableFuture<>());
+        // La correction a pu se terminer entre la lecture et l'enregistrement de l'attente
+        submissionRepository.findById(submission.getId())
+            .filter(QuizSubmissionService::isFinished)
+            .ifPresent(finished -> complete(finished));
+        return future;
+    }
+
+    /**
+     * Libère l'attente d'un client qui n'attend plus (délai dépassé)
+     */
+    public void cancelWait(String submissionId) {
+        waiters.remove(submissionId);
+    }
+
+    public static boolean isFinished(QuizSubmission submission) {
+        return submission.getStatus() == QuizSubmission.SubmissionStatus.GRADED
+            || submission.getStatus() == QuizSubmission.SubmissionStatus.FAILED;
+    }
+
+    /**
+     * Reprend les soumissions restées en base faute de place dans la file
+     */
+    @Scheduled(fixedDelayString = "${quiz.submissions.sweep-interval-ms:5000}")
+    public void sweep() {
+        int capacity = Math.min(queue.remainingCapacity(), Math.max(1, sweepBatchSize));
+        if (capacity <= 0) {
+            return;
+        }
+        List<QuizSubmission> pending = submissionRepository.findByStatusOrderByCreatedAtAsc(
+            QuizSubmission.SubmissionStatus.QUEUED, PageRequest.of(0, capacity));
+        for (QuizSubmission submission : pending) {
+            if (!enqueue(submission.getId())) {
+                break;
+            }
+        }
+    }
+
+    private boolean enqueue(String submissionId) {
+        if (!enqueued.add(submissionId)) {
+            return true;
+        }
+        if (!queue.offer(submissionId)) {
+            enqueued.remove(submissionId);
+            logger.warn("Quiz submission queue full, submission {} left for the next sweep", submissionId);
+            return false;
+        }
+        return true;
+    }
+
+    private void gradeLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            String submissionId;
+            try {
+                submissionId = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            enqueued.remove(submissionId);
+            try {
+                grade(submissionId);
+            } catch (Exception e) {
+                logger.error("Quiz submission {} failed: {}", submissionId, e.getMessage(), e);
+                markFailed(submissionId, e);
+            }
+        }
+    }
+
+    private void grade(String submissionId) {
+        // Prise atomique : une soumission n'est corrigée qu'une fois, même reprise par le balayage
+        if (submissionRepository.updateStatus(submissionId, QuizSubmission.SubmissionStatus.QUEUED,
+                QuizSubmission.SubmissionStatus.GRADING) == 0) {
+            return;
+        }
+
+        QuizSubmission graded = transaction.execute(status -> {
+            QuizSubmission submission = submissionRepository.findById(submissionId).orElseThrow();
+            QuizAttempt attempt = attemptRepository.findById(submission.getAttemptId())
+                .orElseThrow(() -> new IllegalStateException("Attempt not found"));
+
+            QuizAttempt result = quizService.gradeAttempt(attempt, readAnswers(submission.getAnswers()));
+            submission.setStatus(QuizSubmission.SubmissionStatus.GRADED);
+            submission.setScore(result.getScore());
+            submission.setPassed(result.isPassed());
+            submission.setGradedAt(LocalDateTime.now());
+            submission.setAnswers(null);
+            QuizSubmission saved = submissionRepository.save(submission);
+            eventPublisher.publishEvent(PushEvent.toUser(saved.getUserId(), GRADED_EVENT, statusPayload(saved)));
+            return saved;
+        });
+        if (graded != null) {
+            complete(graded);
+        }
+    }
+
+    private void markFailed(String submissionId, Exception error) {
+        try {
+            QuizSubmission failed = transaction.execute(status -> submissionRepository.findById(submissionId)
+                .map(submission -> {
+                    submission.setStatus(QuizSubmission.SubmissionStatus.FAILED);
+                    submission.setError(error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName());
+                    submission.setGradedAt(LocalDateTime.now());
+                    QuizSubmission saved = submissionRepository.save(submission);
+                    eventPublisher.publishEvent(PushEvent.toUser(saved.getUserId(), GRADED_EVENT, statusPayload(saved)));
+                    return saved;
+                })
+                .orElse(null));
+            if (failed != null) {
+                complete(failed);
+            }
+        } catch (Exception e) {
+            logger.error("Could not mark quiz submission {} as failed: {}", submissionId, e.getMessage());
+        }
+    }
+
+    private void complete(QuizSubmission submission) {
+        CompletableFuture<QuizSubmission> future = waiters.remove(submission.getId());
+        if (future != null) {
+            future.complete(submission);
+        }
+    }
+
+    private Optional<QuizSubmission> findExisting(String userId, String attemptId, String key) {
+        if (key != null) {
+            Optional<QuizSubmission> byKey = submissionRepository.findByUserIdAndSubmissionKey(userId, key);
+            if (byKey.isPresent()) {
+                // Clé réutilisée pour une autre tentative : ces réponses ne doivent pas être ignorées en silence
+                if (!attemptId.equals(byKey.get().getAttemptId())) {
+                    throw new IllegalStateException("Idempotency-Key already used for another attempt");
+                }
+                return byKey;
+            }
+        }
+        return submissionRepository.findByAttemptId(attemptId)
+            .filter(submission -> userId.equals(submission.getUserId()));
+    }
+
+    /**
+     * Représentation publique d'une soumission (endpoint de statut et événement poussé)
+     */
+    public static Map<String, Object> statusPayload(QuizSubmission submission) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("submissionId", submission.getId());
+        payload.put("attemptId", submission.getAttemptId());
+        payload.put("status", submission.getStatus().name());
+        payload.put("score", submission.getScore());
+        payload.put("passed", submission.getPassed());
+        payload.put("error", submission.getError());
+        payload.put("submittedAt", submission.getCreatedAt());
+        payload.put("gradedAt", submission.getGradedAt());
+        return payload;
+    }
+
+    private String writeAnswers(List<Map<String, Object>> answers) {
+        try {
+            return objectMapper.writeValueAsString(answers);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid answers");
+        }
+    }
+
+    private List<Map<String, Object>> readAnswers(String answers) {
+        if (answers == null) {
+            return List.of();
+        }
+        try {
+            return objectMapper.readValue(answers, new TypeReference<List<Map<String, Object>>>() {});
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored answers are not readable");
+        }
+    }
+}
@@ -0,0 +1,331 @@
+package com.coachai.service;
+
+import com.coachai.model.AIRecommendation;
+import com.coachai.model.ChatMessage;
+import com.coachai.model.RecommendationJob;
+import com.coachai.model.User;
+import com.coachai.repository.ChatMessageRepository;
+import com.coachai.repository.RecommendationJobRepository;
+import com.coachai.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Génération des recommandations en arrière-plan ({@link RecommendationJob}).
+ *
+ * Les étudiants éligibles (au moins {@link ChatAnalysisService#MIN_QUESTIONS_THRESHOLD} questions
+ * posées, et en mode incrémental au moins une depuis le dernier job réussi) sont sélectionnés par
+ * une requête d'agrégation, triés par identifiant puis traités par lots. Chaque lot est réparti
+ * sur {@code recommendation.jobs.parallelism} files parallèles, ce qui borne le nombre d'appels
+ * simultanés au service ML ; le checkpoint est enregistré après chaque lot. Aucune transaction
+ * n'est ouverte pendant les appels ML d'un étudiant.
+ * Les jobs s'exécutent un par un ; un job interrompu par un arrêt reprend au démarrage suivant.
+ */
+@Service
+public class RecommendationJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecommendationJobService.class);
+
+    private static final List<RecommendationJob.JobStatus> ACTIVE_STATUSES = List.of(
+        RecommendationJob.JobStatus.QUEUED,
+        RecommendationJob.JobStatus.RUNNING
+    );
+
+    @Autowired
+    private RecommendationJobRepository jobRepository;
+
+    @Autowired
+    private ChatMessageRepository chatMessageRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private FormationRecommendationService formationRecommendationService;
+
+    @Autowired
+    private ChatAnalysisService chatAnalysisService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${recommendation.jobs.batch-size:50}")
+    private int batchSize;
+
+    @Value("${recommendation.jobs.parallelism:4}")
+    private int parallelism;
+
+    private TransactionTemplate transaction;
+
+    private TransactionTemplate readOnlyTransaction;
+
+    // Coordination des jobs (un seul à la fois) et files de traitement des étudiants.
+    // Exécuteurs dédiés : un job long ne doit pas occuper mlTaskExecutor, utilisé par les appels ML du chat.
+    private ExecutorService jobExecutor;
+    private ExecutorService workerExecutor;
+
+    private final ReentrantLock startLock = new ReentrantLock();
+
+    @PostConstruct
+    void init() {
+        transaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        jobExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "recommendation-job");
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger workerCount = new AtomicInteger();
+        workerExecutor = Executors.newFixedThreadPool(Math.max(1, parallelism), r -> {
+            Thread thread = new Thread(r, "recommendation-worker-" + workerCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        // Le job en cours reste RUNNING avec son checkpoint : il sera repris au prochain démarrage
+        jobExecutor.shutdownNow();
+        workerExecutor.shutdownNow();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeOnStartup() {
+        for (RecommendationJob job : jobRepository.findByStatusInOrderByCreatedAtAsc(ACTIVE_STATUSES)) {
+            logger.info("Resuming recommendation job {} ({} students already processed)",
+                job.getId(), job.getProcessedStudents());
+            jobExecutor.execute(() -> run(job.getId()));
+        }
+    }
+
+    /**
+     * Met un job en file ; si un job du même type est déjà en file ou en cours, c'est lui qui est retourné
+     */
+    public RecommendationJob start(RecommendationJob.JobType type, RecommendationJob.JobMode mode, String requestedBy) {
+        startLock.lock();
+        try {
+            Optional<RecommendationJob> active = jobRepository.findFirstByTypeAndStatusInOrderByCreatedAtAsc(type, ACTIVE_STATUSES);
+            if (active.isPresent()) {
+                return active.get();
+            }
+
+            RecommendationJob job = new RecommendationJob();
+            job.setType(type);
+            job.setMode(mode);
+            job.setStatus(RecommendationJob.JobStatus.QUEUED);
+            job.setRequestedBy(requestedBy);
+            if (mode == RecommendationJob.JobMode.INCREMENTAL) {
+                // Sans job réussi auparavant, le mode incrémental analyse tous les étudiants
+                jobRepository.findFirstByTypeAndStatusOrderByStartedAtDesc(type, RecommendationJob.JobStatus.COMPLETED)
+                    .ifPresent(last -> job.setSince(last.getStartedAt()));
+            }
+            RecommendationJob saved = jobRepository.save(job);
+            jobExecutor.execute(() -> run(saved.getId()));
+            return saved;
+        } finally {
+            startLock.unlock();
+        }
+    }
+
+    /**
+     * Relance un job en échec à partir de son dernier checkpoint
+     * @throws IllegalArgumentException si le job n'existe pas
+     * @throws IllegalStateException si le job n'est pas en échec ou si un job du même type est actif
+     */
+    public RecommendationJob resume(String jobId) {
+        startLock.lock();
+        try {
+            RecommendationJob job = jobRepository.findById(jobId)
+                .orElseThrow(() -> new IllegalArgumentException("Job not found"));
+            if (job.getStatus() != RecommendationJob.JobStatus.FAILED) {
+                throw new IllegalStateException("Only failed jobs can be resumed");
+            }
+            if (jobRepository.findFirstByTypeAndStatusInOrderByCreatedAtAsc(job.getType(), ACTIVE_STATUSES).isPresent()) {
+                throw new IllegalStateException("Another job of this type is already active");
+            }
+
+            job.setStatus(RecommendationJob.JobStatus.QUEUED);
+            job.setError(null);
+            job.setFinishedAt(null);
+            RecommendationJob saved = jobRepository.save(job);
+            jobExecutor.execute(() -> run(saved.getId()));
+            return saved;
+        } finally {
+            startLock.unlock();
+        }
+    }
+
+    public Optional<RecommendationJob> getJob(String jobId) {
+        return jobRepository.findById(jobId);
+    }
+
+    public List<RecommendationJob> getRecentJobs() {
+        return jobRepository.findTop20ByOrderByCreatedAtDesc();
+    }
+
+    private void run(String jobId) {
+        RecommendationJob job = jobRepository.findById(jobId).orElse(null);
+        if (job == null || !ACTIVE_STATUSES.contains(job.getStatus())) {
+            return;
+        }
+
+        try {
+            List<String> remaining = selectRemainingStudents(job);
+            job.setStatus(RecommendationJob.JobStatus.RUNNING);
+            if (job.getStartedAt() == null) {
+                job.setStartedAt(LocalDateTime.now());
+            }
+            job.setTotalStudents(job.getProcessedStudents() + remaining.size());
+            job = jobRepository.save(job);
+
+            int size = Math.max(1, batchSize);
+            for (int from = 0; from < remaining.size(); from += size) {
+                List<String> batch = remaining.subList(from, Math.min(from + size, remaining.size()));
+                BatchResult result = processBatch(job.getType(), batch);
+
+                job.setProcessedStudents(job.getProcessedStudents() + batch.size());
+                job.setFailedStudents(job.getFailedStudents() + result.failed());
+                job.setRecommendationsCreated(job.getRecommendationsCreated() + result.created());
+                job.setLastProcessedStudentId(batch.get(batch.size() - 1));
+                job = jobRepository.save(job);
+            }
+
+            job.setStatus(RecommendationJob.JobStatus.COMPLETED);
+            job.setFinishedAt(LocalDateTime.now());
+            jobRepository.save(job);
+            logger.info("Recommendation job {} completed: {} students, {} recommendations, {} failures",
+                job.getId(), job.getProcessedStudents(), job.getRecommendationsCreated(), job.getFailedStudents());
+        } catch (InterruptedException e) {
+            // Arrêt de l'application : le job reste actif et reprendra depuis son checkpoint
+            Thread.currentThread().interrupt();
+            logger.info("Recommendation job {} interrupted after {} students", jobId, job.getProcessedStudents());
+        } catch (Exception e) {
+            logger.error("Recommendation job {} failed: {}", jobId, e.getMessage(), e);
+            job.setStatus(RecommendationJob.JobStatus.FAILED);
+            job.setError(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+            job.setFinishedAt(LocalDateTime.now());
+            jobRepository.save(job);
+        }
+    }
+
+    /**
+     * Étudiants éligibles d'identifiant supérieur au checkpoint, triés par identifiant
+     */
+    private List<String> selectRemainingStudents(RecommendationJob job) {
+        long minMessages = ChatAnalysisService.MIN_QUESTIONS_THRESHOLD;
+        List<String> ids = new ArrayList<>(job.getSince() == null
+            ? chatMessageRepository.findAuthorIds(User.UserRole.USER, ChatMessage.MessageSender.USER, minMessages)
+            : chatMessageRepository.findAuthorIdsActiveSince(User.UserRole.USER, ChatMessage.MessageSender.USER,
+                minMessages, job.getSince()));
+        // Tri côté Java : l'ordre ne dépend pas de la collation de la base, le checkpoint reste fiable
+        Collections.sort(ids);
+
+        String checkpoint = job.getLastProcessedStudentId();
+        if (checkpoint == null) {
+            return ids;
+        }
+        return ids.stream().filter(id -> id.compareTo(checkpoint) > 0).toList();
+    }
+
+    /**
+     * Traite un lot réparti sur au plus {@code parallelism} files
+     */
+    private BatchResult processBatch(RecommendationJob.JobType type, List<String> studentIds) throws InterruptedException {
+        int lanes = Math.min(Math.max(1, parallelism), studentIds.size());
+        List<List<String>> studentsByLane = new ArrayList<>();
+        for (int i = 0; i < lanes; i++) {
+            studentsByLane.add(new ArrayList<>());
+        }
+        for (int i = 0; i < studentIds.size(); i++) {
+            studentsByLane.get(i % lanes).add(studentIds.get(i));
+        }
+
+        List<CompletableFuture<BatchResult>> futures = new ArrayList<>();
+        for (List<String> laneStudents : studentsByLane) {
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                int created = 0;
+                int failed = 0;
+                for (String studentId : laneStudents) {
+                    try {
+                        created += processStudent(type, studentId);
+                    } catch (Exception e) {
+                        failed++;
+                        logger.warn("Recommendation generation failed for student {}: {}", studentId, e.getMessage());
+                    }
+                }
+                return new BatchResult(created, failed);
+            }, workerExecutor));
+        }
+
+        int created = 0;
+        int failed = 0;
+        for (CompletableFuture<BatchResult> future : futures) {
+            try {
+                BatchResult result = future.get();
+                created += result.created();
+                failed += result.failed();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+        return new BatchResult(created, failed);
+    }
+
+    /**
+     * Génère les recommandations d'un étudiant ; retourne le nombre de recommandations créées.
+     * Lecture dans une transaction courte, appels ML sans transaction, puis écriture dans une
+     * transaction courte : une file en attente du service ML ne retient pas de connexion JDBC.
+     */
+    private int processStudent(RecommendationJob.JobType type, String studentId) {
+        User student = readOnlyTransaction.execute(status -> userRepository.findById(studentId).orElse(null));
+        if (student == null) {
+            return 0;
+        }
+
+        return switch (type) {
+            case FORMATION -> {
+                // predictStudentLevel et analyzeChatTopics lisent chacun dans leur propre transaction courte
+                FormationRecommendationService.FormationAnalysis analysis =
+                    formationRecommendationService.analyzeStudent(student);
+                AIRecommendation created = transaction.execute(
+                    status -> formationRecommendationService.saveFormationRecommendation(student, analysis));
+                yield created != null ? 1 : 0;
+            }
+            case TOPIC -> {
+                List<String> messages = readOnlyTransaction.execute(
+                    status -> chatAnalysisService.loadUserMessages(student));
+                Map<String, Integer> topicCounts = chatAnalysisService.detectTopics(messages);
+                List<AIRecommendation> created = transaction.execute(
+                    status -> chatAnalysisService.saveTopicRecommendations(student, topicCounts));
+                yield created != null ? created.size() : 0;
+            }
+        };
+    }
+
+    private record BatchResult(int created, int failed) {
+    }
+}
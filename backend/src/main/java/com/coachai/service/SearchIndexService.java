@@ -0,0 +1,470 @@
+package com.coachai.service;
+
+import com.coachai.model.Course;
+import com.coachai.model.Lesson;
+import com.coachai.model.Module;
+import com.coachai.model.Quiz;
+import com.coachai.repository.CourseRepository;
+import com.coachai.repository.LessonRepository;
+import com.coachai.repository.ModuleRepository;
+import com.coachai.repository.QuizRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Index inversé en mémoire des contenus pédagogiques (cours, modules, leçons, quiz).
+ * Classement BM25 (titre pondéré), recherche insensible aux accents, préfixe sur le
+ * dernier terme saisi et tolérance aux fautes de frappe (distance d'édition 1 ou 2).
+ * L'index est construit au démarrage puis mis à jour après chaque commit touchant
+ * un contenu (voir {@link ContentChangedEvent}).
+ */
+@Service
+public class SearchIndexService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchIndexService.class);
+
+    public static final String TYPE_COURSE = "course";
+    public static final String TYPE_MODULE = "module";
+    public static final String TYPE_LESSON = "lesson";
+    public static final String TYPE_QUIZ = "quiz";
+
+    // Ordre d'affichage à score égal (historique : cours > module > leçon > quiz)
+    private static final List<String> TYPE_ORDER = List.of(TYPE_COURSE, TYPE_MODULE, TYPE_LESSON, TYPE_QUIZ);
+
+    // Paramètres BM25
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int TITLE_WEIGHT = 2;
+
+    // Poids des termes étendus par rapport à une correspondance exacte
+    private static final double PREFIX_WEIGHT = 0.7;
+    private static final double FUZZY_WEIGHT = 0.5;
+    private static final int MAX_EXPANSIONS = 30;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private ModuleRepository moduleRepository;
+
+    @Autowired
+    private LessonRepository lessonRepository;
+
+    @Autowired
+    private QuizRepository quizRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate readOnlyTransaction;
+
+    private ExecutorService indexExecutor;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, IndexedDocument> documents = new HashMap<>();
+    private final TreeMap<String, Map<String, Integer>> postings = new TreeMap<>();
+    private long totalLength = 0;
+
+    @PostConstruct
+    void init() {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        indexExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "search-index");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        indexExecutor.shutdown();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        indexExecutor.execute(this::rebuild);
+    }
+
+    /**
+     * Reconstruit l'index complet (un findAll par type, uniquement au démarrage)
+     */
+    public void rebuild() {
+        try {
+            List<IndexedDocument> built = readOnlyTransaction.execute(status -> {
+                List<IndexedDocument> docs = new ArrayList<>();
+                courseRepository.findAll().forEach(c -> docs.add(toDocument(c)));
+                moduleRepository.findAll().forEach(m -> docs.add(toDocument(m)));
+                lessonRepository.findAll().forEach(l -> docs.add(toDocument(l)));
+                quizRepository.findAll().forEach(q -> docs.add(toDocument(q)));
+                return docs;
+            });
+
+            lock.writeLock().lock();
+            try {
+                documents.clear();
+                postings.clear();
+                totalLength = 0;
+                for (IndexedDocument doc : built) {
+                    addDocument(doc);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            logger.info("Search index built: {} documents, {} terms", built.size(), postings.size());
+        } catch (Exception e) {
+            logger.error("Search index build failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Met l'index à jour après le commit de toute écriture sur un contenu indexé
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onContentChanged(ContentChangedEvent event) {
+        String id = event.getId();
+        switch (event.getType()) {
+            // Le niveau d'une formation apparaît dans les métadonnées de ses modules
+            case FORMATION -> indexExecutor.execute(() -> {
+                List<String> moduleIds = readOnlyTransaction.execute(status ->
+                    moduleRepository.findByFormationId(id).stream().map(Module::getId).toList());
+                if (moduleIds != null) {
+                    moduleIds.forEach(moduleId -> reindex(TYPE_MODULE, moduleId));
+                }
+            });
+            case MODULE -> scheduleReindex(TYPE_MODULE, id, event.isRemoved());
+            case COURSE -> scheduleReindex(TYPE_COURSE, id, event.isRemoved());
+            case LESSON -> scheduleReindex(TYPE_LESSON, id, event.isRemoved());
+            case QUIZ -> scheduleReindex(TYPE_QUIZ, id, event.isRemoved());
+        }
+    }
+
+    /**
+     * Recherche paginée
+     *
+     * @param types   types de contenu autorisés
+     * @param niveaux niveaux acceptés (metadata "niveau"), null ou vide pour tous
+     */
+    public SearchPage search(String query, Set<String> types, List<String> niveaux, int page, int size) {
+        List<String> queryTerms = new ArrayList<>(new LinkedHashSet<>(SearchTextAnalyzer.tokenize(query)));
+        if (queryTerms.isEmpty()) {
+            return new SearchPage(List.of(), 0);
+        }
+
+        Map<String, Double> scores = new HashMap<>();
+        List<IndexedDocument> ranked;
+
+        lock.readLock().lock();
+        try {
+            int documentCount = documents.size();
+            if (documentCount == 0) {
+                return new SearchPage(List.of(), 0);
+            }
+            double averageLength = (double) totalLength / documentCount;
+
+            for (int i = 0; i < queryTerms.size(); i++) {
+                boolean lastTerm = i == queryTerms.size() - 1;
+                Map<String, Double> termScores = new HashMap<>();
+
+                for (Map.Entry<String, Double> expansion : expand(queryTerms.get(i), lastTerm).entrySet()) {
+                    Map<String, Integer> postingList = postings.get(expansion.getKey());
+                    double idf = Math.log(1 + (documentCount - postingList.size() + 0.5) / (postingList.size() + 0.5));
+
+                    for (Map.Entry<String, Integer> posting : postingList.entrySet()) {
+                        IndexedDocument doc = documents.get(posting.getKey());
+                        if (!types.contains(doc.type)) {
+                            continue;
+                        }
+                        int tf = posting.getValue();
+                        double norm = tf + K1 * (1 - B + B * doc.length / averageLength);
+                        double score = expansion.getValue() * idf * tf * (K1 + 1) / norm;
+                        // Un terme de la requête compte une fois par document (meilleure expansion)
+                        termScores.merge(posting.getKey(), score, Math::max);
+                    }
+                }
+                termScores.forEach((docKey, score) -> scores.merge(docKey, score, Double::sum));
+            }
+
+            ranked = new ArrayList<>();
+            for (String docKey : scores.keySet()) {
+                IndexedDocument doc = documents.get(docKey);
+                if (niveaux == null || niveaux.isEmpty() || (doc.niveau != null && niveaux.contains(doc.niveau))) {
+                    ranked.add(doc);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        ranked.sort(Comparator.<IndexedDocument>comparingDouble(d -> -scores.get(d.key))
+            .thenComparingInt(d -> TYPE_ORDER.indexOf(d.type))
+            .thenComparing(d -> (String) d.payload.get("title")));
+
+        int from = Math.min(page * size, ranked.size());
+        int to = Math.min(from + size, ranked.size());
+        double bestScore = ranked.isEmpty() ? 1.0 : scores.get(ranked.get(0).key);
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (IndexedDocument doc : ranked.subList(from, to)) {
+            Map<String, Object> result = new LinkedHashMap<>(doc.payload);
+            result.put("relevance", (int) Math.round(scores.get(doc.key) / bestScore * 100));
+            results.add(result);
+        }
+        return new SearchPage(results, ranked.size());
+    }
+
+    /**
+     * Termes de l'index correspondant à un terme de requête, avec leur poids :
+     * exact, puis préfixe (dernier terme), puis faute de frappe si rien n'a été trouvé
+     */
+    private Map<String, Double> expand(String term, boolean allowPrefix) {
+        Map<String, Double> expansions = new LinkedHashMap<>();
+        if (postings.containsKey(term)) {
+            expansions.put(term, 1.0);
+        }
+
+        if (allowPrefix) {
+            for (String candidate : postings.subMap(term, false, term + Character.MAX_VALUE, false).keySet()) {
+                if (expansions.size() >= MAX_EXPANSIONS) {
+                    break;
+                }
+                expansions.put(candidate, PREFIX_WEIGHT);
+            }
+        }
+
+        if (expansions.isEmpty() && term.length() >= 4) {
+            int maxDistance = term.length() >= 8 ? 2 : 1;
+            // Hypothèse classique : la première lettre est correcte
+            String first = term.substring(0, 1);
+            NavigableMap<String, Map<String, Integer>> sameInitial =
+                postings.subMap(first, true, first + Character.MAX_VALUE, false);
+            for (String candidate : sameInitial.keySet()) {
+                if (expansions.size() >= MAX_EXPANSIONS) {
+                    break;
+                }
+                if (Math.abs(candidate.length() - term.length()) <= maxDistance
+                    && editDistance(term, candidate, maxDistance) <= maxDistance) {
+                    expansions.put(candidate, FUZZY_WEIGHT);
+                }
+            }
+        }
+        return expansions;
+    }
+
+    /**
+     * Distance de Damerau-Levenshtein restreinte, interrompue dès que maxDistance est dépassée
+     */
+    static int editDistance(String a, String b, int maxDistance) {
+        int[][] d = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) {
+            d[i][0] = i;
+        }
+        for (int j = 0; j <= b.length(); j++) {
+            d[0][j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            int rowMin = Integer.MAX_VALUE;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    d[i][j] = Math.min(d[i][j], d[i - 2][j - 2] + 1);
+                }
+                rowMin = Math.min(rowMin, d[i][j]);
+            }
+            if (rowMin > maxDistance) {
+                return rowMin;
+            }
+        }
+        return d[a.length()][b.length()];
+    }
+
+    private void reindex(String type, String id) {
+        try {
+            IndexedDocument doc = readOnlyTransaction.execute(status -> switch (type) {
+                case TYPE_COURSE -> courseRepository.findById(id).map(this::toDocument).orElse(null);
+                case TYPE_MODULE -> moduleRepository.findById(id).map(this::toDocument).orElse(null);
+                case TYPE_LESSON -> lessonRepository.findById(id).map(this::toDocument).orElse(null);
+                case TYPE_QUIZ -> quizRepository.findById(id).map(this::toDocument).orElse(null);
+                default -> null;
+            });
+
+            lock.writeLock().lock();
+            try {
+                removeDocument(key(type, id));
+                if (doc != null) {
+                    addDocument(doc);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } catch (Exception e) {
+            logger.warn("Could not reindex {} {}: {}", type, id, e.getMessage());
+        }
+    }
+
+    // Un seul thread d'indexation : les mises à jour sont appliquées dans l'ordre des commits
+    private void scheduleReindex(String type, String id, boolean removed) {
+        if (removed) {
+            indexExecutor.execute(() -> remove(key(type, id)));
+        } else {
+            indexExecutor.execute(() -> reindex(type, id));
+        }
+    }
+
+    private void remove(String docKey) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(docKey);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Appelé sous verrou d'écriture
+    private void addDocument(IndexedDocument doc) {
+        documents.put(doc.key, doc);
+        totalLength += doc.length;
+        doc.termFrequencies.forEach((term, tf) ->
+            postings.computeIfAbsent(term, t -> new HashMap<>()).put(doc.key, tf));
+    }
+
+    // Appelé sous verrou d'écriture
+    private void removeDocument(String docKey) {
+        IndexedDocument previous = documents.remove(docKey);
+        if (previous == null) {
+            return;
+        }
+        totalLength -= previous.length;
+        for (String term : previous.termFrequencies.keySet()) {
+            Map<String, Integer> postingList = postings.get(term);
+            if (postingList != null) {
+                postingList.remove(docKey);
+                if (postingList.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    private static String key(String type, String id) {
+        return type + ":" + id;
+    }
+
+    private IndexedDocument toDocument(Course course) {
+        return new IndexedDocument(TYPE_COURSE, course.getId(), course.getTitle(), course.getDescription(),
+            "/user/courses/" + course.getId(), "Cours", Map.of(
+                "niveau", "Moyen",
+                "duration", course.getDuration() != null ? course.getDuration() + "h" : "0h"
+            ));
+    }
+
+    private IndexedDocument toDocument(Module module) {
+        return new IndexedDocument(TYPE_MODULE, module.getId(), module.getTitle(), module.getDescription(),
+            "/user/learning-path/module/" + module.getId(), "Module", Map.of(
+                "niveau", module.getFormation() != null && module.getFormation().getLevel() != null ?
+                         module.getFormation().getLevel().toString() : "Moyen",
+                "duration", module.getDuration() + "h"
+            ));
+    }
+
+    private IndexedDocument toDocument(Lesson lesson) {
+        return new IndexedDocument(TYPE_LESSON, lesson.getId(), lesson.getTitle(), lesson.getDescription(),
+            "/user/lessons/" + lesson.getId(), "Leçon", Map.of(
+                "moduleTitle", lesson.getCourse() != null && lesson.getCourse().getModule() != null ?
+                              lesson.getCourse().getModule().getTitle() : ""
+            ));
+    }
+
+    private IndexedDocument toDocument(Quiz quiz) {
+        return new IndexedDocument(TYPE_QUIZ, quiz.getId(), quiz.getTitle(), quiz.getDescription(),
+            "/user/quiz/" + quiz.getId(), "Quiz", Map.of(
+                "difficulty", quiz.getDifficulty() != null ? quiz.getDifficulty().toString() : "Moyen",
+                "questionsCount", quiz.getQuestions() != null ? quiz.getQuestions().size() : 0
+            ));
+    }
+
+    /**
+     * Document indexé : réponse prête à renvoyer et fréquences des termes
+     */
+    private static final class IndexedDocument {
+        final String key;
+        final String type;
+        final String niveau;
+        final Map<String, Object> payload;
+        final Map<String, Integer> termFrequencies = new HashMap<>();
+        final int length;
+
+        IndexedDocument(String type, String id, String title, String description, String url,
+                        String category, Map<String, Object> metadata) {
+            this.key = key(type, id);
+            this.type = type;
+            this.niveau = (String) metadata.get("niveau");
+
+            payload = new LinkedHashMap<>();
+            payload.put("id", id);
+            payload.put("type", type);
+            payload.put("title", title != null ? title : "");
+            payload.put("description", description != null ? description : "");
+            payload.put("url", url);
+            payload.put("category", category);
+            payload.put("metadata", metadata);
+
+            // Le titre compte TITLE_WEIGHT fois (BM25F simplifié)
+            int tokenCount = 0;
+            for (String token : SearchTextAnalyzer.tokenize(title)) {
+                termFrequencies.merge(token, TITLE_WEIGHT, Integer::sum);
+                tokenCount += TITLE_WEIGHT;
+            }
+            for (String token : SearchTextAnalyzer.tokenize(description)) {
+                termFrequencies.merge(token, 1, Integer::sum);
+                tokenCount++;
+            }
+            this.length = Math.max(1, tokenCount);
+        }
+    }
+
+    /**
+     * Page de résultats et nombre total de correspondances
+     */
+    public static class SearchPage {
+        private final List<Map<String, Object>> results;
+        private final int total;
+
+        public SearchPage(List<Map<String, Object>> results, int total) {
+            this.results = results;
+            this.total = total;
+        }
+
+        public List<Map<String, Object>> getResults() {
+            return results;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+    }
+}
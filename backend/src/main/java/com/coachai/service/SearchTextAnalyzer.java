@@ -0,0 +1,73 @@
+package com.coachai.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Analyse de texte pour la recherche : minuscules, suppression des accents,
+ * découpage sur les caractères non alphanumériques, mots vides français
+ * et pluriels simples ("réseaux" → "reseau", "boucles" → "boucle").
+ */
+public final class SearchTextAnalyzer {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final Set<String> STOP_WORDS = Set.of(
+        "le", "la", "les", "l", "un", "une", "des", "de", "du", "d", "et", "ou", "a", "au", "aux",
+        "en", "dans", "par", "pour", "sur", "avec", "sans", "ce", "ces", "cet", "cette", "qui", "que",
+        "qu", "quoi", "est", "sont", "se", "sa", "son", "ses", "leur", "leurs", "ne", "pas", "plus",
+        "il", "elle", "ils", "elles", "on", "nous", "vous", "je", "tu", "y", "s", "n", "c", "j", "m", "t"
+    );
+
+    private SearchTextAnalyzer() {
+    }
+
+    /**
+     * Minuscules et suppression des accents ("Éléments" → "elements")
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Termes indexables d'un texte, dans l'ordre d'apparition (doublons conservés)
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return tokens;
+        }
+        for (String raw : SEPARATORS.split(normalize(text))) {
+            if (raw.isEmpty() || STOP_WORDS.contains(raw)) {
+                continue;
+            }
+            tokens.add(stem(raw));
+        }
+        return tokens;
+    }
+
+    /**
+     * Réduction des pluriels réguliers ; volontairement minimale pour rester prévisible
+     */
+    static String stem(String token) {
+        if (token.length() > 4 && token.endsWith("eaux")) {
+            return token.substring(0, token.length() - 1);
+        }
+        if (token.length() > 4 && token.endsWith("aux")) {
+            return token.substring(0, token.length() - 3) + "al";
+        }
+        if (token.length() > 3 && (token.endsWith("s") || token.endsWith("x")) && !token.endsWith("ss")) {
+            return token.substring(0, token.length() - 1);
+        }
+        return token;
+    }
+}
@@ -0,0 +1,317 @@
+package com.coachai.service;
+
+import com.coachai.model.ChatMessage;
+import com.coachai.model.Conversation;
+import com.coachai.model.ExerciseSubmission;
+import com.coachai.model.StudentFeatureVector;
+import com.coachai.model.User;
+import com.coachai.repository.ChatMessageRepository;
+import com.coachai.repository.ConversationRepository;
+import com.coachai.repository.CourseProgressRepository;
+import com.coachai.repository.ExerciseSubmissionRepository;
+import com.coachai.repository.QuizAttemptRepository;
+import com.coachai.repository.StudentFeatureVectorRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maintient le vecteur de features ML de chaque étudiant ({@link StudentFeatureVector}).
+ * Les écritures (messages, conversations, quiz, exercices, progression) mettent à jour
+ * l'agrégat au fil de l'eau ; la prédiction lit une seule ligne.
+ * Si la ligne n'existe pas encore, elle est reconstruite à partir de requêtes d'agrégation.
+ *
+ * Les mises à jour s'exécutent après le commit de la transaction appelante, chacune dans sa
+ * propre transaction : un échec est journalisé sans rendre la transaction métier (quiz,
+ * progression, message) rollback-only, et les agrégats lus voient les données déjà validées.
+ */
+@Service
+public class StudentFeatureService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StudentFeatureService.class);
+
+    private static final List<ExerciseSubmission.SubmissionStatus> COMPLETED_STATUSES = List.of(
+        ExerciseSubmission.SubmissionStatus.GRADED,
+        ExerciseSubmission.SubmissionStatus.VALIDATED
+    );
+
+    /**
+     * Noms des features attendues par le modèle, dans l'ordre de serve_model.py
+     */
+    public static final List<String> FEATURE_NAMES = List.of(
+        "total_conversations", "total_messages", "avg_messages_per_conversation",
+        "conversation_frequency", "avg_message_length", "avg_question_complexity",
+        "unique_topics_count", "quiz_average_score", "exercise_completion_rate",
+        "total_quizzes_taken", "total_exercises_completed", "days_active",
+        "avg_time_between_sessions", "last_activity_days_ago", "response_time_avg",
+        "follow_up_questions_rate", "content_consumption_rate"
+    );
+
+    @Autowired
+    private StudentFeatureVectorRepository featureVectorRepository;
+
+    @Autowired
+    private ConversationRepository conversationRepository;
+
+    @Autowired
+    private ChatMessageRepository chatMessageRepository;
+
+    @Autowired
+    private QuizAttemptRepository quizAttemptRepository;
+
+    @Autowired
+    private ExerciseSubmissionRepository exerciseSubmissionRepository;
+
+    @Autowired
+    private CourseProgressRepository courseProgressRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate newTransaction;
+
+    @PostConstruct
+    void init() {
+        newTransaction = new TransactionTemplate(transactionManager);
+        newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Retourne les 17 features attendues par le modèle ML de niveau
+     */
+    public Map<String, Object> getFeatures(User student) {
+        StudentFeatureVector vector = featureVectorRepository.findByUser(student)
+            .orElseGet(() -> rebuild(student));
+        return toFeatureMap(vector);
+    }
+
+    /**
+     * Retourne les features de plusieurs étudiants, indexées par identifiant d'étudiant.
+     * Une seule requête pour les agrégats existants ; les manquants sont reconstruits.
+     */
+    public Map<String, Map<String, Object>> getFeatures(List<User> students) {
+        Map<String, StudentFeatureVector> vectorsByUserId = new HashMap<>();
+        for (StudentFeatureVector vector : featureVectorRepository.findByUserIn(students)) {
+            vectorsByUserId.put(vector.getUser().getId(), vector);
+        }
+
+        Map<String, Map<String, Object>> featuresByUserId = new LinkedHashMap<>();
+        for (User student : students) {
+            StudentFeatureVector vector = vectorsByUserId.get(student.getId());
+            if (vector == null) {
+                vector = rebuild(student);
+            }
+            featuresByUserId.put(student.getId(), toFeatureMap(vector));
+        }
+        return featuresByUserId;
+    }
+
+    /**
+     * À appeler après l'enregistrement d'un message de chat
+     */
+    public void recordChatMessage(ChatMessage message) {
+        User student = message.getConversation().getUser();
+        boolean fromUser = message.getSender() == ChatMessage.MessageSender.USER;
+        long length = fromUser && message.getContent() != null ? message.getContent().length() : 0;
+        LocalDateTime timestamp = message.getTimestamp() != null ? message.getTimestamp() : LocalDateTime.now();
+
+        afterCommit("chat message", () -> {
+            Integer updated = newTransaction.execute(status ->
+                featureVectorRepository.incrementMessages(student, fromUser ? 1 : 0, length, timestamp));
+            if (updated == null || updated == 0) {
+                rebuild(student);
+            }
+        });
+    }
+
+    /**
+     * À appeler après la création d'une conversation
+     */
+    public void recordConversation(Conversation conversation) {
+        User student = conversation.getUser();
+        LocalDateTime createdAt = conversation.getCreatedAt() != null ? conversation.getCreatedAt() : LocalDateTime.now();
+
+        afterCommit("conversation creation", () -> {
+            Integer updated = newTransaction.execute(status ->
+                featureVectorRepository.incrementConversations(student, createdAt));
+            if (updated == null || updated == 0) {
+                rebuild(student);
+            }
+        });
+    }
+
+    /**
+     * À appeler après l'enregistrement d'une tentative de quiz, d'une soumission d'exercice
+     * ou d'une progression de cours. Ces écritures sont rares : les métriques académiques
+     * sont recalculées par quelques requêtes d'agrégation.
+     */
+    public void refreshAcademicMetrics(User student) {
+        afterCommit("academic activity", () -> {
+            Integer updated = newTransaction.execute(status -> featureVectorRepository.updateAcademicMetrics(
+                student,
+                (int) quizAttemptRepository.countByUser(student),
+                quizAttemptRepository.averageScoreByUser(student),
+                (int) exerciseSubmissionRepository.countByUser(student),
+                (int) exerciseSubmissionRepository.countByUserAndStatusIn(student, COMPLETED_STATUSES),
+                courseProgressRepository.averageProgressByUser(student),
+                LocalDateTime.now()
+            ));
+            if (updated == null || updated == 0) {
+                rebuild(student);
+            }
+        });
+    }
+
+    /**
+     * Supprime l'agrégat (ex: suppression de conversation) ; il sera reconstruit à la prochaine lecture
+     */
+    public void invalidate(User student) {
+        afterCommit("invalidation", () ->
+            newTransaction.executeWithoutResult(status -> featureVectorRepository.deleteByUser(student)));
+    }
+
+    /**
+     * Exécute la mise à jour après le commit de la transaction en cours (immédiatement s'il n'y en a pas).
+     * Les erreurs sont journalisées : l'agrégat sera reconstruit à la prochaine lecture si besoin.
+     */
+    private void afterCommit(String trigger, Runnable update) {
+        Runnable guarded = () -> {
+            try {
+                update.run();
+            } catch (Exception e) {
+                logger.warn("Could not update student features after {}: {}", trigger, e.getMessage());
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    guarded.run();
+                }
+            });
+        } else {
+            guarded.run();
+        }
+    }
+
+    /**
+     * Reconstruit complètement l'agrégat d'un étudiant à partir de requêtes d'agrégation,
+     * dans sa propre transaction. Si une reconstruction concurrente a créé la ligne entre-temps
+     * (contrainte unique sur user_id), la ligne créée est relue.
+     */
+    public StudentFeatureVector rebuild(User student) {
+        try {
+            return newTransaction.execute(status -> doRebuild(student));
+        } catch (DataIntegrityViolationException e) {
+            logger.debug("Concurrent feature rebuild for student {}, re-reading", student.getId());
+            return newTransaction.execute(status -> featureVectorRepository.findByUser(student))
+                .orElseThrow(() -> e);
+        }
+    }
+
+    private StudentFeatureVector doRebuild(User student) {
+        StudentFeatureVector vector = featureVectorRepository.findByUser(student)
+            .orElseGet(StudentFeatureVector::new);
+        vector.setUser(student);
+
+        List<Conversation> conversations = conversationRepository.findByUser(student);
+        LocalDateTime firstConversation = null;
+        LocalDateTime lastActivity = null;
+        for (Conversation conv : conversations) {
+            if (conv.getCreatedAt() != null
+                && (firstConversation == null || conv.getCreatedAt().isBefore(firstConversation))) {
+                firstConversation = conv.getCreatedAt();
+            }
+            if (conv.getLastMessageDate() != null
+                && (lastActivity == null || conv.getLastMessageDate().isAfter(lastActivity))) {
+                lastActivity = conv.getLastMessageDate();
+            }
+        }
+        vector.setTotalConversations(conversations.size());
+        vector.setFirstConversationAt(firstConversation);
+        vector.setLastActivityAt(lastActivity);
+
+        vector.setTotalMessages(chatMessageRepository.countByUser(student));
+        vector.setUserMessageCount(chatMessageRepository.countByUserAndSender(student, ChatMessage.MessageSender.USER));
+        vector.setTotalUserMessageLength(
+            chatMessageRepository.sumContentLengthByUserAndSender(student, ChatMessage.MessageSender.USER));
+
+        vector.setTotalQuizzesTaken((int) quizAttemptRepository.countByUser(student));
+        vector.setQuizAverageScore(quizAttemptRepository.averageScoreByUser(student));
+        vector.setTotalExerciseSubmissions((int) exerciseSubmissionRepository.countByUser(student));
+        vector.setTotalExercisesCompleted(
+            (int) exerciseSubmissionRepository.countByUserAndStatusIn(student, COMPLETED_STATUSES));
+        vector.setAverageCourseProgress(courseProgressRepository.averageProgressByUser(student));
+        vector.setUpdatedAt(LocalDateTime.now());
+
+        // Flush immédiat : une violation de contrainte est levée ici et non au commit
+        return featureVectorRepository.saveAndFlush(vector);
+    }
+
+    /**
+     * Convertit l'agrégat en features pour le modèle ML
+     */
+    private Map<String, Object> toFeatureMap(StudentFeatureVector vector) {
+        Map<String, Object> features = new HashMap<>();
+        int totalConversations = vector.getTotalConversations();
+        LocalDateTime first = vector.getFirstConversationAt();
+        LocalDateTime last = vector.getLastActivityAt();
+        long daysBetween = first != null && last != null ? ChronoUnit.DAYS.between(first, last) : 0;
+
+        // Sans conversation, toutes les features restent à zéro (comportement historique)
+        if (totalConversations == 0) {
+            for (String name : FEATURE_NAMES) {
+                features.put(name, 0.0);
+            }
+            return features;
+        }
+
+        features.put("total_conversations", (double) totalConversations);
+        features.put("total_messages", (double) vector.getTotalMessages());
+        features.put("avg_messages_per_conversation", totalConversations > 0 ?
+            (double) vector.getTotalMessages() / totalConversations : 0.0);
+        features.put("conversation_frequency", daysBetween > 0 ? (double) totalConversations / daysBetween : 0.0);
+        features.put("days_active", daysBetween > 0 ? (double) daysBetween : 0.0);
+
+        // Longueur moyenne des messages et complexité (normalisée)
+        double avgLength = vector.getUserMessageCount() > 0 ?
+            (double) vector.getTotalUserMessageLength() / vector.getUserMessageCount() : 0.0;
+        features.put("avg_message_length", avgLength);
+        features.put("avg_question_complexity", Math.min(avgLength / 50.0, 10.0));
+
+        // Nombre de sujets uniques (approximation basée sur les conversations)
+        features.put("unique_topics_count", (double) totalConversations);
+
+        features.put("quiz_average_score", vector.getQuizAverageScore());
+        features.put("total_quizzes_taken", (double) vector.getTotalQuizzesTaken());
+        features.put("exercise_completion_rate", vector.getTotalExerciseSubmissions() > 0 ?
+            (double) vector.getTotalExercisesCompleted() / vector.getTotalExerciseSubmissions() : 0.0);
+        features.put("total_exercises_completed", (double) vector.getTotalExercisesCompleted());
+
+        features.put("last_activity_days_ago", last != null ?
+            (double) ChronoUnit.DAYS.between(last, LocalDateTime.now()) : 0.0);
+        features.put("avg_time_between_sessions", totalConversations > 1 && daysBetween > 0 ?
+            (double) daysBetween / totalConversations : 0.0);
+
+        features.put("response_time_avg", 5.0); // Valeur par défaut (à améliorer)
+        features.put("follow_up_questions_rate", 0.2); // Valeur par défaut (à améliorer)
+        features.put("content_consumption_rate", vector.getAverageCourseProgress() / 100.0);
+
+        return features;
+    }
+}
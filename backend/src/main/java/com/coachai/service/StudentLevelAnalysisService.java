@@ -1,20 +1,22 @@
 package com.coachai.service;
 
+import com.coachai.dto.MessageTextDto;
+import com.coachai.dto.SenderMessageStatsDto;
 import com.coachai.model.*;
 import com.coachai.repository.*;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import jakarta.annotation.PostConstruct;
 
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Service pour analyser le niveau d'un étudiant en utilisant le modèle ML
@@ -41,14 +43,50 @@ public class StudentLevelAnalysisService {
     @Autowired
     private EnrollmentRepository enrollmentRepository;
 
-    @Value("${ml.model.url:http://localhost:8000}")
-    private String mlModelUrl;
+    @Autowired
+    private MlServiceClient mlServiceClient;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    private TransactionTemplate readOnlyTransaction;
+
+    @PostConstruct
+    void init() {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    // Technologies détectées dans les messages ; "*" : préfixe de mot
+    private static final TopicMatcher TOPIC_MATCHER = TopicMatcher.builder()
+        .topic("Java", "java")
+        .topic("Python", "python")
+        .topic("JavaScript", "javascript", "js")
+        .topic("Frontend", "react", "vue", "angular")
+        .topic("Java Framework", "spring", "hibernate")
+        .topic("Database", "sql", "database")
+        .topic("Algorithms", "algorithm*")
+        .topic("OOP", "oop", "object-oriented")
+        .build();
+
+    // Mots techniques comptés dans la complexité d'une question
+    private static final TopicMatcher TECH_WORDS = TopicMatcher.builder()
+        .keywords("class*", "method*", "function*", "variable*", "algorithm*",
+                  "complexity", "structure*", "pattern*", "design", "architecture*")
+        .build();
+
+    // Marqueurs de question de suivi
+    private static final TopicMatcher FOLLOW_UP_WORDS = TopicMatcher.builder()
+        .topic("follow-up", "pourquoi", "comment", "expliqu*", "détaill*")
+        .build();
 
     /**
-     * Calcule les features d'un étudiant pour la prédiction du niveau
+     * Calcule les features d'un étudiant pour la prédiction du niveau.
+     * Les compteurs viennent d'une agrégation SQL par émetteur ; les métriques qui dépendent
+     * du texte sont calculées en un passage sur un flux de projections (contenu, date),
+     * sans garder les messages en mémoire.
      */
+    @Transactional(readOnly = true)
     public Map<String, Object> calculateStudentFeatures(User student) {
         Map<String, Object> features = new HashMap<>();
 
@@ -57,41 +95,28 @@ public class StudentLevelAnalysisService {
         
         // Calculer les métriques de conversation
         int totalConversations = conversations.size();
-        int totalMessages = 0;
-        int userMessages = 0;
-        int totalMessageLength = 0;
-        List<String> allUserMessages = new ArrayList<>();
-        Set<String> uniqueTopics = new HashSet<>();
-        
+        long totalMessages = 0;
+        long userMessages = 0;
+        long totalMessageLength = 0;
         LocalDateTime firstMessageDate = null;
         LocalDateTime lastMessageDate = null;
-        List<LocalDateTime> messageDates = new ArrayList<>();
 
-        for (Conversation conv : conversations) {
-            List<ChatMessage> messages = chatMessageRepository.findByConversationOrderByTimestampAsc(conv);
-            totalMessages += messages.size();
-            
-            for (ChatMessage msg : messages) {
-                if (msg.getSender() == ChatMessage.MessageSender.USER) {
-                    userMessages++;
-                    String content = msg.getContent();
-                    totalMessageLength += content.length();
-                    allUserMessages.add(content);
-                    messageDates.add(msg.getTimestamp());
-                    
-                    if (firstMessageDate == null || msg.getTimestamp().isBefore(firstMessageDate)) {
-                        firstMessageDate = msg.getTimestamp();
-                    }
-                    if (lastMessageDate == null || msg.getTimestamp().isAfter(lastMessageDate)) {
-                        lastMessageDate = msg.getTimestamp();
-                    }
-                    
-                    // Détecter les topics dans le message
-                    detectTopics(content, uniqueTopics);
-                }
+        for (SenderMessageStatsDto stats : chatMessageRepository.aggregateByUserGroupedBySender(student)) {
+            totalMessages += stats.getCount();
+            if (stats.getSender() == ChatMessage.MessageSender.USER) {
+                userMessages = stats.getCount();
+                totalMessageLength = stats.getTotalLength() != null ? stats.getTotalLength() : 0;
+                firstMessageDate = stats.getFirstTimestamp();
+                lastMessageDate = stats.getLastTimestamp();
             }
         }
 
+        UserMessageScan scan = new UserMessageScan();
+        try (Stream<MessageTextDto> messages =
+                 chatMessageRepository.streamTextsByUserAndSender(student, ChatMessage.MessageSender.USER)) {
+            messages.forEach(scan::accept);
+        }
+
         // Calculer les features
         features.put("total_conversations", (double) totalConversations);
         features.put("total_messages", (double) totalMessages);
@@ -100,8 +125,8 @@ public class StudentLevelAnalysisService {
         features.put("conversation_frequency", calculateConversationFrequency(conversations));
         features.put("avg_message_length", userMessages > 0 ? 
             (double) totalMessageLength / userMessages : 0.0);
-        features.put("avg_question_complexity", calculateAverageComplexity(allUserMessages));
-        features.put("unique_topics_count", (double) uniqueTopics.size());
+        features.put("avg_question_complexity", scan.averageComplexity());
+        features.put("unique_topics_count", (double) scan.topics.size());
 
         // Calculer les métriques de quiz et exercices
         double quizAverageScore = calculateQuizAverageScore(student);
@@ -121,17 +146,7 @@ public class StudentLevelAnalysisService {
 
         if (firstMessageDate != null && lastMessageDate != null) {
             daysActive = ChronoUnit.DAYS.between(firstMessageDate, lastMessageDate) + 1;
-            
-            if (messageDates.size() > 1) {
-                Collections.sort(messageDates);
-                List<Long> intervals = new ArrayList<>();
-                for (int i = 1; i < messageDates.size(); i++) {
-                    long interval = ChronoUnit.HOURS.between(messageDates.get(i-1), messageDates.get(i));
-                    intervals.add(interval);
-                }
-                avgTimeBetweenSessions = intervals.isEmpty() ? 0.0 : 
-                    intervals.stream().mapToLong(Long::longValue).average().orElse(0.0);
-            }
+            avgTimeBetweenSessions = scan.averageIntervalHours();
             
             lastActivityDaysAgo = ChronoUnit.DAYS.between(lastMessageDate, LocalDateTime.now());
         }
@@ -142,38 +157,33 @@ public class StudentLevelAnalysisService {
 
         // Métriques supplémentaires
         features.put("response_time_avg", 0.0); // À implémenter si nécessaire
-        features.put("follow_up_questions_rate", calculateFollowUpRate(allUserMessages));
+        features.put("follow_up_questions_rate", scan.followUpRate());
         features.put("content_consumption_rate", calculateContentConsumptionRate(student));
 
         return features;
     }
 
     /**
-     * Prédit le niveau d'un étudiant en utilisant le modèle ML
+     * Prédit le niveau d'un étudiant en utilisant le modèle ML.
+     * Les features sont lues dans une transaction courte, close avant l'appel HTTP :
+     * aucune connexion JDBC n'est retenue pendant l'attente du modèle.
      */
     public Map<String, Object> predictStudentLevel(User student) {
+        Map<String, Object> features = readOnlyTransaction.execute(status -> calculateStudentFeatures(student));
         try {
-            // Calculer les features
-            Map<String, Object> features = calculateStudentFeatures(student);
-
             // Appeler le modèle ML
-            String url = mlModelUrl + "/student/level/predict";
-            
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            
-            HttpEntity<Map<String, Object>> request = new HttpEntity<>(features, headers);
-            
-            @SuppressWarnings("unchecked")
-            ResponseEntity<Map<String, Object>> response = (ResponseEntity<Map<String, Object>>) 
-                (ResponseEntity<?>) restTemplate.postForEntity(url, request, Map.class);
+            Map<String, Object> response = mlServiceClient.post(
+                MlServiceClient.Endpoint.STUDENT_LEVEL,
+                features,
+                new ParameterizedTypeReference<Map<String, Object>>() {}
+            );
             
-            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
+            if (response != null) {
                 Map<String, Object> result = new HashMap<>();
-                result.put("predicted_level", response.getBody().get("predicted_level"));
-                result.put("confidence", response.getBody().get("confidence"));
-                result.put("probabilities", response.getBody().get("probabilities"));
-                result.put("level_score", response.getBody().get("level_score"));
+                result.put("predicted_level", response.get("predicted_level"));
+                result.put("confidence", response.get("confidence"));
+                result.put("probabilities", response.get("probabilities"));
+                result.put("level_score", response.get("level_score"));
                 result.put("features", features);
                 return result;
             }
@@ -185,28 +195,10 @@ public class StudentLevelAnalysisService {
             System.err.println("Erreur lors de la prédiction du niveau: " + e.getMessage());
             e.printStackTrace();
             // Retourner un niveau par défaut
-            Map<String, Object> features = calculateStudentFeatures(student);
             return getFallbackLevel(features);
         }
     }
 
-    /**
-     * Détecte les topics dans un message
-     */
-    private void detectTopics(String content, Set<String> topics) {
-        String lowerContent = content.toLowerCase();
-        
-        // Détecter les technologies
-        if (lowerContent.contains("java")) topics.add("Java");
-        if (lowerContent.contains("python")) topics.add("Python");
-        if (lowerContent.contains("javascript") || lowerContent.contains("js")) topics.add("JavaScript");
-        if (lowerContent.contains("react") || lowerContent.contains("vue") || lowerContent.contains("angular")) topics.add("Frontend");
-        if (lowerContent.contains("spring") || lowerContent.contains("hibernate")) topics.add("Java Framework");
-        if (lowerContent.contains("sql") || lowerContent.contains("database")) topics.add("Database");
-        if (lowerContent.contains("algorithm") || lowerContent.contains("algorithme")) topics.add("Algorithms");
-        if (lowerContent.contains("oop") || lowerContent.contains("object-oriented")) topics.add("OOP");
-    }
-
     /**
      * Calcule la fréquence de conversation
      */
@@ -229,26 +221,10 @@ public class StudentLevelAnalysisService {
     }
 
     /**
-     * Calcule la complexité moyenne des questions
+     * Complexité d'une question (heuristique simple: longueur + mots techniques)
      */
-    private double calculateAverageComplexity(List<String> messages) {
-        if (messages.isEmpty()) return 0.0;
-        
-        double totalComplexity = 0.0;
-        for (String msg : messages) {
-            // Heuristique simple: longueur + mots techniques
-            double complexity = msg.length() * 0.1;
-            String[] techWords = {"class", "method", "function", "variable", "algorithm", 
-                                 "complexity", "structure", "pattern", "design", "architecture"};
-            for (String word : techWords) {
-                if (msg.toLowerCase().contains(word)) {
-                    complexity += 5.0;
-                }
-            }
-            totalComplexity += complexity;
-        }
-        
-        return totalComplexity / messages.size();
+    private static double questionComplexity(String message) {
+        return message.length() * 0.1 + TECH_WORDS.countTopics(message) * 5.0;
     }
 
     /**
@@ -267,26 +243,6 @@ public class StudentLevelAnalysisService {
         return 0.6; // Valeur par défaut
     }
 
-    /**
-     * Calcule le taux de questions de suivi
-     */
-    private double calculateFollowUpRate(List<String> messages) {
-        if (messages.size() < 2) return 0.0;
-        
-        int followUps = 0;
-        for (int i = 1; i < messages.size(); i++) {
-            String curr = messages.get(i).toLowerCase();
-            
-            // Détecter les mots de suivi
-            if (curr.contains("pourquoi") || curr.contains("comment") || 
-                curr.contains("explique") || curr.contains("détaille")) {
-                followUps++;
-            }
-        }
-        
-        return (double) followUps / (messages.size() - 1);
-    }
-
     /**
      * Calcule le taux de consommation de contenu
      */
@@ -340,5 +296,45 @@ public class StudentLevelAnalysisService {
         
         return result;
     }
-}
 
+    /**
+     * Métriques calculées en un passage sur les messages de l'étudiant (ordre chronologique)
+     */
+    private static final class UserMessageScan {
+        private final Set<String> topics = new HashSet<>();
+        private long count = 0;
+        private double totalComplexity = 0.0;
+        private long followUps = 0;
+        private long totalIntervalHours = 0;
+        private LocalDateTime previousTimestamp;
+
+        void accept(MessageTextDto message) {
+            String content = message.getContent() != null ? message.getContent() : "";
+            totalComplexity += questionComplexity(content);
+            topics.addAll(TOPIC_MATCHER.findTopics(content));
+            // Question de suivi : tout message après le premier contenant un marqueur
+            if (count > 0 && FOLLOW_UP_WORDS.countTopics(content) > 0) {
+                followUps++;
+            }
+            if (previousTimestamp != null && message.getTimestamp() != null) {
+                totalIntervalHours += ChronoUnit.HOURS.between(previousTimestamp, message.getTimestamp());
+            }
+            if (message.getTimestamp() != null) {
+                previousTimestamp = message.getTimestamp();
+            }
+            count++;
+        }
+
+        double averageComplexity() {
+            return count > 0 ? totalComplexity / count : 0.0;
+        }
+
+        double followUpRate() {
+            return count > 1 ? (double) followUps / (count - 1) : 0.0;
+        }
+
+        double averageIntervalHours() {
+            return count > 1 ? (double) totalIntervalHours / (count - 1) : 0.0;
+        }
+    }
+}
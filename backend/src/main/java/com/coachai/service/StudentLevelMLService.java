@@ -1,106 +1,66 @@
 package com.coachai.service;
 
 import com.coachai.model.User;
-import com.coachai.model.Conversation;
-import com.coachai.model.ChatMessage;
-import com.coachai.model.QuizAttempt;
-import com.coachai.model.ExerciseSubmission;
-import com.coachai.model.CourseProgress;
-import com.coachai.model.Enrollment;
-import com.coachai.repository.ConversationRepository;
-import com.coachai.repository.ChatMessageRepository;
-import com.coachai.repository.QuizAttemptRepository;
-import com.coachai.repository.ExerciseSubmissionRepository;
-import com.coachai.repository.CourseProgressRepository;
-import com.coachai.repository.EnrollmentRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.client.HttpClientErrorException;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.core.ParameterizedTypeReference;
 
-import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Service
 public class StudentLevelMLService {
     
-    @Value("${ai.model.url:http://localhost:8000}")
-    private String aiModelUrl;
+    @Value("${ai.model.level.batch-size:100}")
+    private int batchSize;
     
-    @Autowired
-    private ConversationRepository conversationRepository;
-    
-    @Autowired
-    private ChatMessageRepository chatMessageRepository;
+    @Value("${ai.model.level.batch-concurrency:4}")
+    private int batchConcurrency;
     
-    @Autowired
-    private QuizAttemptRepository quizAttemptRepository;
+    // Attente maximale de l'ensemble des lots ; au-delà, les étudiants restants passent par les règles
+    @Value("${ai.model.level.batch-timeout-ms:60000}")
+    private long batchTimeoutMs;
     
     @Autowired
-    private ExerciseSubmissionRepository exerciseSubmissionRepository;
+    private StudentFeatureService studentFeatureService;
     
     @Autowired
-    private CourseProgressRepository courseProgressRepository;
+    private MlServiceClient mlServiceClient;
     
     @Autowired
-    private EnrollmentRepository enrollmentRepository;
-    
-    private final RestTemplate restTemplate = new RestTemplate();
+    @Qualifier("mlTaskExecutor")
+    private AsyncTaskExecutor mlTaskExecutor;
     
     /**
      * Calcule le niveau d'un étudiant en utilisant le modèle ML (Gradient Boosting)
      */
     public StudentLevelService.StudentLevel predictStudentLevel(User student) {
+        // Circuit ouvert : fallback immédiat sans lire les features ni attendre un timeout
+        if (!mlServiceClient.isAvailable(MlServiceClient.Endpoint.STUDENT_LEVEL)) {
+            return null;
+        }
         try {
-            // Extraire les features de l'étudiant
-            Map<String, Object> features = extractStudentFeatures(student);
+            // Lire les features pré-agrégées de l'étudiant (une seule ligne)
+            Map<String, Object> features = studentFeatureService.getFeatures(student);
             
             // Appeler le modèle ML
-            Map<String, Object> request = new HashMap<>();
-            request.put("total_conversations", features.get("total_conversations"));
-            request.put("total_messages", features.get("total_messages"));
-            request.put("avg_messages_per_conversation", features.get("avg_messages_per_conversation"));
-            request.put("conversation_frequency", features.get("conversation_frequency"));
-            request.put("avg_message_length", features.get("avg_message_length"));
-            request.put("avg_question_complexity", features.get("avg_question_complexity"));
-            request.put("unique_topics_count", features.get("unique_topics_count"));
-            request.put("quiz_average_score", features.get("quiz_average_score"));
-            request.put("exercise_completion_rate", features.get("exercise_completion_rate"));
-            request.put("total_quizzes_taken", features.get("total_quizzes_taken"));
-            request.put("total_exercises_completed", features.get("total_exercises_completed"));
-            request.put("days_active", features.get("days_active"));
-            request.put("avg_time_between_sessions", features.get("avg_time_between_sessions"));
-            request.put("last_activity_days_ago", features.get("last_activity_days_ago"));
-            request.put("response_time_avg", features.get("response_time_avg"));
-            request.put("follow_up_questions_rate", features.get("follow_up_questions_rate"));
-            request.put("content_consumption_rate", features.get("content_consumption_rate"));
-            
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(request, headers);
-            
-            ParameterizedTypeReference<Map<String, Object>> responseType = 
-                new ParameterizedTypeReference<Map<String, Object>>() {};
-            ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
-                aiModelUrl + "/student/level/predict",
-                HttpMethod.POST,
-                entity,
-                responseType
+            Map<String, Object> result = mlServiceClient.post(
+                MlServiceClient.Endpoint.STUDENT_LEVEL,
+                features,
+                new ParameterizedTypeReference<Map<String, Object>>() {}
             );
             
-            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                Map<String, Object> result = response.getBody();
+            if (result != null) {
                 String predictedLevel = (String) result.get("predicted_level");
                 
                 // Convertir le niveau prédit en enum
@@ -118,144 +78,100 @@ public class StudentLevelMLService {
     }
     
     /**
-     * Extrait les features d'un étudiant pour le modèle ML
+     * Prédit le niveau de plusieurs étudiants via /student/level/predict/batch.
+     * Les étudiants sont découpés en lots de {@code ai.model.level.batch-size}, envoyés
+     * avec au plus {@code ai.model.level.batch-concurrency} appels simultanés.
+     * Les étudiants absents du résultat (lot en erreur, modèle indisponible) doivent
+     * être traités par la méthode basée sur des règles.
      */
-    private Map<String, Object> extractStudentFeatures(User student) {
-        List<Conversation> conversations = conversationRepository.findByUserOrderByLastMessageDateDesc(student);
-        
-        // Initialiser les valeurs par défaut
-        Map<String, Object> features = new HashMap<>();
-        features.put("total_conversations", 0.0);
-        features.put("total_messages", 0.0);
-        features.put("avg_messages_per_conversation", 0.0);
-        features.put("conversation_frequency", 0.0);
-        features.put("avg_message_length", 0.0);
-        features.put("avg_question_complexity", 0.0);
-        features.put("unique_topics_count", 0.0);
-        features.put("quiz_average_score", 0.0);
-        features.put("exercise_completion_rate", 0.0);
-        features.put("total_quizzes_taken", 0.0);
-        features.put("total_exercises_completed", 0.0);
-        features.put("days_active", 0.0);
-        features.put("avg_time_between_sessions", 0.0);
-        features.put("last_activity_days_ago", 0.0);
-        features.put("response_time_avg", 0.0);
-        features.put("follow_up_questions_rate", 0.0);
-        features.put("content_consumption_rate", 0.0);
-        
-        if (conversations == null || conversations.isEmpty()) {
-            return features;
-        }
-        
-        // 1. Métriques de conversation
-        int totalConversations = conversations.size();
-        int totalMessages = 0;
-        int totalUserMessageLength = 0;
-        int userMessageCount = 0;
-        LocalDateTime firstConversation = null;
-        LocalDateTime lastConversation = null;
-        
-        for (Conversation conv : conversations) {
-            long messageCount = chatMessageRepository.countByConversation(conv);
-            totalMessages += (int) messageCount;
-            
-            List<ChatMessage> messages = chatMessageRepository.findByConversationOrderByTimestampAsc(conv);
-            for (ChatMessage msg : messages) {
-                if (msg.getSender() == ChatMessage.MessageSender.USER) {
-                    userMessageCount++;
-                    totalUserMessageLength += msg.getContent().length();
-                }
-            }
-            
-            if (firstConversation == null || conv.getCreatedAt().isBefore(firstConversation)) {
-                firstConversation = conv.getCreatedAt();
-            }
-            if (lastConversation == null || 
-                (conv.getLastMessageDate() != null && conv.getLastMessageDate().isAfter(lastConversation))) {
-                lastConversation = conv.getLastMessageDate();
-            }
+    public Map<String, LevelPrediction> predictStudentLevels(List<User> students) {
+        Map<String, LevelPrediction> levels = new HashMap<>();
+        if (students == null || students.isEmpty()
+            || !mlServiceClient.isAvailable(MlServiceClient.Endpoint.STUDENT_LEVEL_BATCH)) {
+            return levels;
         }
         
-        features.put("total_conversations", (double) totalConversations);
-        features.put("total_messages", (double) totalMessages);
-        features.put("avg_messages_per_conversation", totalConversations > 0 ? 
-            (double) totalMessages / totalConversations : 0.0);
-        
-        // Fréquence de conversation
-        if (firstConversation != null && lastConversation != null) {
-            long daysBetween = ChronoUnit.DAYS.between(firstConversation, lastConversation);
-            if (daysBetween > 0) {
-                features.put("conversation_frequency", (double) totalConversations / daysBetween);
-                features.put("days_active", (double) daysBetween);
+        // Les features sont lues sur le thread appelant (session JPA), les appels HTTP en parallèle
+        Map<String, Map<String, Object>> featuresByStudent = studentFeatureService.getFeatures(students);
+        List<Map<String, Object>> items = new ArrayList<>();
+        featuresByStudent.forEach((studentId, features) -> {
+            Map<String, Object> item = new HashMap<>(features);
+            item.put("student_id", studentId);
+            items.add(item);
+        });
+        
+        // Répartition des lots sur au plus batchConcurrency files traitées en parallèle
+        int size = Math.max(1, batchSize);
+        int lanes = Math.max(1, batchConcurrency);
+        List<List<List<Map<String, Object>>>> batchesByLane = new ArrayList<>();
+        int batchIndex = 0;
+        for (int from = 0; from < items.size(); from += size, batchIndex++) {
+            if (batchesByLane.size() < lanes) {
+                batchesByLane.add(new ArrayList<>());
             }
+            batchesByLane.get(batchIndex % lanes).add(items.subList(from, Math.min(from + size, items.size())));
         }
         
-        // Longueur moyenne des messages
-        if (userMessageCount > 0) {
-            features.put("avg_message_length", (double) totalUserMessageLength / userMessageCount);
-            // Complexité basée sur la longueur (normalisée)
-            features.put("avg_question_complexity", Math.min((double) totalUserMessageLength / userMessageCount / 50.0, 10.0));
-        }
-        
-        // Nombre de sujets uniques (approximation basée sur les conversations)
-        features.put("unique_topics_count", (double) totalConversations);
-        
-        // 2. Métriques de performance académique
-        List<QuizAttempt> quizAttempts = quizAttemptRepository.findByUser(student);
-        if (quizAttempts != null && !quizAttempts.isEmpty()) {
-            double totalScore = quizAttempts.stream()
-                .mapToDouble(QuizAttempt::getScore)
-                .sum();
-            features.put("quiz_average_score", totalScore / quizAttempts.size());
-            features.put("total_quizzes_taken", (double) quizAttempts.size());
-        }
-        
-        List<ExerciseSubmission> exerciseSubmissions = exerciseSubmissionRepository.findByUser(student);
-        if (exerciseSubmissions != null && !exerciseSubmissions.isEmpty()) {
-            long completed = exerciseSubmissions.stream()
-                .filter(s -> s.getStatus() == ExerciseSubmission.SubmissionStatus.GRADED || 
-                            s.getStatus() == ExerciseSubmission.SubmissionStatus.VALIDATED)
-                .count();
-            features.put("exercise_completion_rate", (double) completed / exerciseSubmissions.size());
-            features.put("total_exercises_completed", (double) completed);
-        }
-        
-        // 3. Métriques temporelles
-        if (lastConversation != null) {
-            long daysSinceLastActivity = ChronoUnit.DAYS.between(lastConversation, LocalDateTime.now());
-            features.put("last_activity_days_ago", (double) daysSinceLastActivity);
+        List<CompletableFuture<Map<String, LevelPrediction>>> futures = new ArrayList<>();
+        for (List<List<Map<String, Object>>> laneBatches : batchesByLane) {
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                Map<String, LevelPrediction> laneLevels = new HashMap<>();
+                for (List<Map<String, Object>> batch : laneBatches) {
+                    laneLevels.putAll(predictBatch(batch));
+                }
+                return laneLevels;
+            }, mlTaskExecutor));
         }
         
-        // Temps moyen entre les sessions (approximation)
-        if (conversations.size() > 1 && firstConversation != null && lastConversation != null) {
-            long daysBetween = ChronoUnit.DAYS.between(firstConversation, lastConversation);
-            if (daysBetween > 0) {
-                features.put("avg_time_between_sessions", (double) daysBetween / totalConversations);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(batchTimeoutMs);
+        for (CompletableFuture<Map<String, LevelPrediction>> future : futures) {
+            try {
+                long remaining = Math.max(0, deadline - System.nanoTime());
+                levels.putAll(future.get(remaining, TimeUnit.NANOSECONDS));
+            } catch (TimeoutException e) {
+                System.err.println("ML batch prediction timed out, falling back to rule-based method");
+                future.cancel(true);
+            } catch (ExecutionException e) {
+                System.err.println("Error calling ML batch model, falling back to rule-based method: " + e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
             }
         }
-        
-        // 4. Métriques d'engagement
-        features.put("response_time_avg", 5.0); // Valeur par défaut (à améliorer)
-        features.put("follow_up_questions_rate", 0.2); // Valeur par défaut (à améliorer)
-        
-        // Taux de consommation de contenu
-        List<Enrollment> enrollments = enrollmentRepository.findByUser(student);
-        if (enrollments != null && !enrollments.isEmpty()) {
-            List<CourseProgress> progresses = enrollments.stream()
-                .map(e -> courseProgressRepository.findByEnrollment(e).orElse(null))
-                .filter(p -> p != null)
-                .collect(Collectors.toList());
+        return levels;
+    }
+    
+    /**
+     * Envoie un lot à /student/level/predict/batch ; retourne une map vide en cas d'erreur
+     */
+    private Map<String, LevelPrediction> predictBatch(List<Map<String, Object>> batch) {
+        Map<String, LevelPrediction> levels = new HashMap<>();
+        try {
+            Map<String, Object> response = mlServiceClient.post(
+                MlServiceClient.Endpoint.STUDENT_LEVEL_BATCH,
+                Map.of("students", batch),
+                new ParameterizedTypeReference<Map<String, Object>>() {}
+            );
             
-            if (!progresses.isEmpty()) {
-                double avgProgress = progresses.stream()
-                    .mapToDouble(CourseProgress::getOverallProgress)
-                    .average()
-                    .orElse(0.0);
-                features.put("content_consumption_rate", avgProgress / 100.0);
+            if (response != null) {
+                Object predictions = response.get("predictions");
+                if (predictions instanceof List<?> list) {
+                    for (Object p : list) {
+                        if (p instanceof Map<?, ?> prediction && prediction.get("student_id") != null) {
+                            Double levelScore = prediction.get("level_score") instanceof Number number
+                                ? number.doubleValue() : null;
+                            Double confidence = prediction.get("confidence") instanceof Number number
+                                ? number.doubleValue() : null;
+                            levels.put(prediction.get("student_id").toString(), new LevelPrediction(
+                                mapToStudentLevel((String) prediction.get("predicted_level")), levelScore, confidence));
+                        }
+                    }
+                }
             }
+        } catch (Exception e) {
+            System.err.println("Error calling ML batch model, falling back to rule-based method: " + e.getMessage());
         }
-        
-        return features;
+        return levels;
     }
     
     /**
@@ -279,5 +195,10 @@ public class StudentLevelMLService {
                 return StudentLevelService.StudentLevel.DEBUTANT;
         }
     }
+    
+    /**
+     * Niveau prédit par le modèle, son score (level_score) et sa confiance ; null si le modèle ne les fournit pas
+     */
+    public record LevelPrediction(StudentLevelService.StudentLevel level, Double levelScore, Double confidence) {
+    }
 }
-
@@ -10,7 +10,9 @@ import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class StudentLevelService {
@@ -74,6 +76,22 @@ public class StudentLevelService {
         return StudentLevel.fromScore(score);
     }
     
+    /**
+     * Prédit le niveau de plusieurs étudiants en un minimum d'appels au modèle ML (prédiction par lots).
+     * Seuls les étudiants prédits par le modèle figurent dans le résultat : pour les autres, l'appelant
+     * utilise le niveau basé sur des règles qu'il a déjà calculé (ex: {@link #getConversationStats}).
+     */
+    public Map<String, StudentLevelMLService.LevelPrediction> predictStudentLevels(List<User> students) {
+        if (studentLevelMLService != null) {
+            try {
+                return studentLevelMLService.predictStudentLevels(students);
+            } catch (Exception e) {
+                System.err.println("Error using ML batch model, falling back to rule-based method: " + e.getMessage());
+            }
+        }
+        return new HashMap<>();
+    }
+    
     /**
      * Calcule le score de niveau basé sur plusieurs critères
      */
@@ -0,0 +1,267 @@
+package com.coachai.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * Détection de topics par mots-clés, compilée une fois en automate d'Aho-Corasick :
+ * chaque message est parcouru une seule fois, quel que soit le nombre de mots-clés.
+ *
+ * Le texte et les mots-clés sont normalisés comme pour la recherche
+ * ({@link SearchTextAnalyzer#normalize} : minuscules, sans accents). Un mot-clé ne
+ * correspond qu'à un mot entier ("js" ne correspond pas à "json") ; suffixé par "*",
+ * il correspond à tout mot qui commence par lui ("algorithm*" : algorithme, algorithms).
+ *
+ * Les instances sont immuables et partageables entre threads.
+ */
+public final class TopicMatcher {
+
+    // Repli des caractères latins (ASCII, Latin-1, Latin étendu A et B) : "É" → "e"
+    private static final char[] FOLDED_CHARS = new char[0x250];
+
+    static {
+        for (char c = 0; c < FOLDED_CHARS.length; c++) {
+            String base = SearchTextAnalyzer.normalize(String.valueOf(c));
+            FOLDED_CHARS[c] = base.length() == 1 ? base.charAt(0) : Character.toLowerCase(c);
+        }
+    }
+
+    private final String[] topics;
+    // Automate : transitions complètes (échecs déjà résolus) par état et classe de caractère
+    private final int[][] transitions;
+    private final int[] charClasses;
+    // Mots-clés reconnus dans chaque état, y compris via les liens d'échec
+    private final int[][] outputs;
+    private final int[] keywordTopic;
+    private final int[] keywordLength;
+    private final boolean[] keywordPrefix;
+
+    private TopicMatcher(Builder builder) {
+        topics = builder.topics.keySet().toArray(new String[0]);
+
+        List<String> keywords = new ArrayList<>();
+        List<Integer> topicOfKeyword = new ArrayList<>();
+        List<Boolean> prefixOfKeyword = new ArrayList<>();
+        int topicIndex = 0;
+        for (List<String> topicKeywords : builder.topics.values()) {
+            for (String keyword : topicKeywords) {
+                boolean prefix = keyword.endsWith("*");
+                String normalized = SearchTextAnalyzer.normalize(prefix ? keyword.substring(0, keyword.length() - 1) : keyword).trim();
+                if (!normalized.isEmpty()) {
+                    keywords.add(normalized);
+                    topicOfKeyword.add(topicIndex);
+                    prefixOfKeyword.add(prefix);
+                }
+            }
+            topicIndex++;
+        }
+
+        keywordTopic = new int[keywords.size()];
+        keywordLength = new int[keywords.size()];
+        keywordPrefix = new boolean[keywords.size()];
+        for (int k = 0; k < keywords.size(); k++) {
+            keywordTopic[k] = topicOfKeyword.get(k);
+            keywordLength[k] = keywords.get(k).length();
+            keywordPrefix[k] = prefixOfKeyword.get(k);
+        }
+
+        // Alphabet réduit aux caractères des mots-clés ; tout autre caractère est la classe 0
+        int maxChar = 0;
+        for (String keyword : keywords) {
+            for (int i = 0; i < keyword.length(); i++) {
+                maxChar = Math.max(maxChar, keyword.charAt(i));
+            }
+        }
+        charClasses = new int[maxChar + 1];
+        int classCount = 1;
+        for (String keyword : keywords) {
+            for (int i = 0; i < keyword.length(); i++) {
+                char c = keyword.charAt(i);
+                if (charClasses[c] == 0) {
+                    charClasses[c] = classCount++;
+                }
+            }
+        }
+
+        // Trie
+        List<int[]> gotos = new ArrayList<>();
+        List<List<Integer>> matches = new ArrayList<>();
+        gotos.add(new int[classCount]);
+        matches.add(new ArrayList<>());
+        for (int k = 0; k < keywords.size(); k++) {
+            String keyword = keywords.get(k);
+            int state = 0;
+            for (int i = 0; i < keyword.length(); i++) {
+                int cls = charClasses[keyword.charAt(i)];
+                if (gotos.get(state)[cls] == 0) {
+                    gotos.get(state)[cls] = gotos.size();
+                    gotos.add(new int[classCount]);
+                    matches.add(new ArrayList<>());
+                }
+                state = gotos.get(state)[cls];
+            }
+            matches.get(state).add(k);
+        }
+
+        // Liens d'échec en largeur, transitions manquantes remplacées par celles de l'état d'échec
+        int[] failure = new int[gotos.size()];
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int cls = 0; cls < classCount; cls++) {
+            int next = gotos.get(0)[cls];
+            if (next != 0) {
+                queue.add(next);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            matches.get(state).addAll(matches.get(failure[state]));
+            for (int cls = 0; cls < classCount; cls++) {
+                int next = gotos.get(state)[cls];
+                if (next != 0) {
+                    failure[next] = gotos.get(failure[state])[cls];
+                    queue.add(next);
+                } else {
+                    gotos.get(state)[cls] = gotos.get(failure[state])[cls];
+                }
+            }
+        }
+
+        transitions = gotos.toArray(new int[0][]);
+        outputs = new int[matches.size()][];
+        for (int state = 0; state < matches.size(); state++) {
+            outputs[state] = matches.get(state).stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Topics mentionnés dans le texte, dans l'ordre de déclaration
+     */
+    public Set<String> findTopics(String text) {
+        boolean[] found = scan(text);
+        Set<String> result = new LinkedHashSet<>();
+        for (int t = 0; t < found.length; t++) {
+            if (found[t]) {
+                result.add(topics[t]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Nombre de topics distincts mentionnés dans le texte
+     */
+    public int countTopics(String text) {
+        int count = 0;
+        for (boolean topicFound : scan(text)) {
+            if (topicFound) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Nombre de messages mentionnant chaque topic (un message compte une fois par topic) ;
+     * les topics absents ne figurent pas dans le résultat
+     */
+    public Map<String, Integer> countMessagesByTopic(Collection<String> messages) {
+        int[] counts = new int[topics.length];
+        for (String message : messages) {
+            boolean[] found = scan(message);
+            for (int t = 0; t < found.length; t++) {
+                if (found[t]) {
+                    counts[t]++;
+                }
+            }
+        }
+        Map<String, Integer> result = new HashMap<>();
+        for (int t = 0; t < counts.length; t++) {
+            if (counts[t] > 0) {
+                result.put(topics[t], counts[t]);
+            }
+        }
+        return result;
+    }
+
+    private boolean[] scan(String text) {
+        boolean[] found = new boolean[topics.length];
+        if (text == null) {
+            return found;
+        }
+        char[] folded = new char[text.length()];
+        int length = fold(text, folded);
+        int state = 0;
+        for (int i = 0; i < length; i++) {
+            char c = folded[i];
+            state = transitions[state][c < charClasses.length ? charClasses[c] : 0];
+            for (int keyword : outputs[state]) {
+                int start = i - keywordLength[keyword] + 1;
+                boolean wordStart = start == 0 || !Character.isLetterOrDigit(folded[start - 1]);
+                boolean wordEnd = keywordPrefix[keyword] || i + 1 == length
+                    || !Character.isLetterOrDigit(folded[i + 1]);
+                if (wordStart && wordEnd) {
+                    found[keywordTopic[keyword]] = true;
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Équivalent caractère par caractère de {@link SearchTextAnalyzer#normalize}, sans
+     * expression régulière ni chaîne intermédiaire ; retourne la longueur du texte replié
+     */
+    private static int fold(String text, char[] folded) {
+        int length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < FOLDED_CHARS.length) {
+                folded[length++] = FOLDED_CHARS[c];
+            } else if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                folded[length++] = Character.toLowerCase(c);
+            }
+        }
+        return length;
+    }
+
+    public static final class Builder {
+        private final Map<String, List<String>> topics = new LinkedHashMap<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Ajoute des mots-clés à un topic ; un mot-clé suffixé par "*" est un préfixe de mot
+         */
+        public Builder topic(String topic, String... keywords) {
+            topics.computeIfAbsent(topic, k -> new ArrayList<>()).addAll(List.of(keywords));
+            return this;
+        }
+
+        /**
+         * Chaque mot-clé est son propre topic
+         */
+        public Builder keywords(String... keywords) {
+            for (String keyword : keywords) {
+                topic(keyword, keyword);
+            }
+            return this;
+        }
+
+        public TopicMatcher build() {
+            return new TopicMatcher(this);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.coachai.service;
+
+import com.coachai.dto.ConversationCountDto;
+import com.coachai.dto.InboxEntryDto;
+import com.coachai.model.ChatMessage;
+import com.coachai.model.Conversation;
+import com.coachai.model.User;
+import com.coachai.repository.ChatMessageRepository;
+import com.coachai.repository.ConversationRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Boîte de réception des formateurs : une entrée par conversation d'un apprenant inscrit à
+ * l'une de ses formations, portant le dernier message et le nombre de messages non lus.
+ *
+ * Le dernier message de chaque conversation est trouvé en base (jointure LATERAL sur l'index
+ * conversation_id, timestamp, id) ; la page est paginée par curseur sur (date du dernier message,
+ * id de conversation), Base64URL de "timestamp|conversationId". Les non-lus sont propres à chaque
+ * participant : le formateur lit les messages de l'apprenant (USER), l'apprenant ceux du
+ * formateur (enregistrés avec l'émetteur AI).
+ *
+ * Les nouveaux messages d'une conversation avec un formateur sont poussés en temps réel
+ * ({@link PushEvent#INBOX_MESSAGE}) aux seuls formateurs dont l'apprenant suit une formation.
+ */
+@Service
+public class TrainerInboxService {
+
+    @Autowired
+    private ConversationRepository conversationRepository;
+
+    @Autowired
+    private ChatMessageRepository chatMessageRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Page de la boîte de réception, conversations les plus récentes d'abord
+     * @throws IllegalArgumentException si le curseur est invalide
+     */
+    @Transactional(readOnly = true)
+    public AdminListService.KeysetPage<InboxEntryDto> getInbox(User trainer, String cursor, Integer limit) {
+        int size = limit == null || limit <= 0 ? AdminListService.DEFAULT_LIMIT : Math.min(limit, AdminListService.MAX_LIMIT);
+
+        // Un élément de plus pour savoir s'il reste des conversations au-delà de la page
+        List<String> messageIds;
+        if (cursor == null || cursor.isBlank()) {
+            messageIds = conversationRepository.findInboxMessageIds(trainer.getId(), size + 1);
+        } else {
+            Cursor position = decode(cursor);
+            messageIds = conversationRepository.findInboxMessageIdsBefore(
+                trainer.getId(), position.timestamp(), position.conversationId(), size + 1);
+        }
+
+        boolean hasMore = messageIds.size() > size;
+        List<String> pageIds = hasMore ? messageIds.subList(0, size) : messageIds;
+        if (pageIds.isEmpty()) {
+            return new AdminListService.KeysetPage<>(List.of(), null, false, null);
+        }
+
+        // Détails et non-lus de la page, remis dans l'ordre de la boîte de réception
+        Map<String, InboxEntryDto> byMessageId = chatMessageRepository.findInboxEntries(pageIds).stream()
+            .collect(Collectors.toMap(InboxEntryDto::getMessageId, Function.identity()));
+        List<InboxEntryDto> entries = new ArrayList<>();
+        for (String messageId : pageIds) {
+            InboxEntryDto entry = byMessageId.get(messageId);
+            if (entry != null) {
+                entries.add(entry);
+            }
+        }
+        Map<String, Long> unread = countUnread(
+            entries.stream().map(InboxEntryDto::getConversationId).collect(Collectors.toList()),
+            ChatMessage.MessageSender.USER);
+        entries.forEach(entry -> entry.setUnreadCount(unread.getOrDefault(entry.getConversationId(), 0L)));
+
+        String nextCursor = hasMore && !entries.isEmpty() ? encode(entries.get(entries.size() - 1)) : null;
+        return new AdminListService.KeysetPage<>(entries, nextCursor, hasMore, null);
+    }
+
+    /**
+     * Messages non lus par conversation, envoyés par "sender", en une requête
+     */
+    public Map<String, Long> countUnread(List<String> conversationIds, ChatMessage.MessageSender sender) {
+        Map<String, Long> counts = new HashMap<>();
+        if (conversationIds.isEmpty()) {
+            return counts;
+        }
+        for (ConversationCountDto count : chatMessageRepository.countUnreadByConversation(conversationIds, sender)) {
+            counts.put(count.getConversationId(), count.getCount());
+        }
+        return counts;
+    }
+
+    /**
+     * Marque lus, pour le formateur, les messages de l'apprenant
+     * @return nombre de messages marqués
+     */
+    public int markReadByTrainer(Conversation conversation) {
+        return chatMessageRepository.markRead(conversation, ChatMessage.MessageSender.USER);
+    }
+
+    /**
+     * Marque lus, pour l'apprenant, les messages du formateur
+     * @return nombre de messages marqués
+     */
+    public int markReadByStudent(Conversation conversation) {
+        return chatMessageRepository.markRead(conversation, ChatMessage.MessageSender.AI);
+    }
+
+    /**
+     * Pousse un message de conversation apprenant-formateur aux formateurs de l'apprenant
+     * (après commit). Jamais appelé pour les conversations avec le coach IA.
+     */
+    public void publishInboxMessage(ChatMessage message) {
+        Conversation conversation = message.getConversation();
+        if (conversation == null || conversation.getUser() == null) {
+            return;
+        }
+        String studentId = conversation.getUser().getId();
+        List<String> trainerIds = conversationRepository.findInboxTrainerIds(studentId);
+        if (trainerIds.isEmpty()) {
+            return;
+        }
+
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("id", message.getId());
+        payload.put("conversationId", conversation.getId());
+        payload.put("userId", studentId);
+        payload.put("sender", message.getSender() != null ? message.getSender().name() : null);
+        payload.put("content", message.getContent());
+        payload.put("timestamp", message.getTimestamp());
+        for (String trainerId : trainerIds) {
+            eventPublisher.publishEvent(PushEvent.toUser(trainerId, PushEvent.INBOX_MESSAGE, payload));
+        }
+    }
+
+    private static String encode(InboxEntryDto entry) {
+        String raw = entry.getTimestamp() + "|" + entry.getConversationId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Cursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            if (separator <= 0 || separator == raw.length() - 1) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new Cursor(LocalDateTime.parse(raw.substring(0, separator)), raw.substring(separator + 1));
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    private record Cursor(LocalDateTime timestamp, String conversationId) {
+    }
+}
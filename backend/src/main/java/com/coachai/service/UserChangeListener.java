@@ -0,0 +1,27 @@
+package com.coachai.service;
+
+import com.coachai.model.User;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * Listener JPA des utilisateurs : publie un {@link UserChangedEvent} à chaque modification
+ * ou suppression (profil, statut, rôle...), quel que soit le contrôleur à l'origine de l'écriture.
+ */
+public class UserChangeListener {
+
+    @Autowired
+    private ObjectProvider<ApplicationEventPublisher> eventPublisher;
+
+    @PostUpdate
+    @PostRemove
+    public void onChange(User user) {
+        ApplicationEventPublisher publisher = eventPublisher.getIfAvailable();
+        if (publisher != null && user.getId() != null) {
+            publisher.publishEvent(new UserChangedEvent(user.getId()));
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.coachai.service;
+
+/**
+ * Événement publié lors de la modification ou suppression d'un utilisateur,
+ * consommé après commit par le cache des utilisateurs authentifiés.
+ */
+public class UserChangedEvent {
+
+    private final String userId;
+
+    public UserChangedEvent(String userId) {
+        this.userId = userId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+}
@@ -0,0 +1,208 @@
+package com.coachai.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Tampon d'ingestion des progressions vidéo (heartbeats du lecteur).
+ * Chaque heartbeat ne fait que relever le maximum visionné par (inscription, leçon) en mémoire ;
+ * les valeurs sont écrites par lots à intervalle court, ou dès que possible quand le seuil de
+ * complétion (80%) est franchi afin de débloquer la leçon suivante sans attendre : la clé est
+ * alors confiée à un thread d'écriture dédié, jamais écrite sur le thread de la requête.
+ * Chaque inscription est écrite dans sa propre transaction ; une inscription en échec est
+ * retentée aux vidages suivants puis abandonnée après {@code progress.watch.max-attempts} essais.
+ * Le tampon est vidé à l'arrêt de l'application.
+ */
+@Service
+public class WatchProgressBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(WatchProgressBuffer.class);
+
+    public static final double COMPLETION_THRESHOLD = 80.0;
+
+    @Autowired
+    private FormationProgressService formationProgressService;
+
+    @Value("${progress.watch.idle-eviction-ms:600000}")
+    private long idleEvictionMs;
+
+    @Value("${progress.watch.max-attempts:5}")
+    private int maxAttempts;
+
+    private final Map<WatchKey, WatchState> states = new ConcurrentHashMap<>();
+    // Sérialise les écritures : vidage périodique, franchissement de seuil et arrêt
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    // Clés ayant franchi le seuil, en attente du thread d'écriture
+    private final Set<WatchKey> urgentKeys = ConcurrentHashMap.newKeySet();
+    private ExecutorService urgentExecutor;
+
+    @PostConstruct
+    void init() {
+        urgentExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "watch-progress-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Enregistre un heartbeat ; si la leçon devient terminée, son écriture est demandée au
+     * thread d'écriture sans attendre le prochain vidage périodique
+     */
+    public void record(String enrollmentId, String lessonId, double watchPercentage) {
+        double percentage = Math.min(100.0, Math.max(0.0, watchPercentage));
+        WatchKey key = new WatchKey(enrollmentId, lessonId);
+        long now = System.currentTimeMillis();
+        WatchState state = states.compute(key, (k, current) -> current == null
+            ? new WatchState(percentage, true, false, now, 0)
+            : current.merge(percentage, now));
+
+        if (!state.completed() && percentage >= COMPLETION_THRESHOLD && urgentKeys.add(key)) {
+            try {
+                urgentExecutor.execute(this::flushUrgent);
+            } catch (RejectedExecutionException e) {
+                // Arrêt en cours : la valeur reste en attente pour le vidage final
+                urgentKeys.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Écrit les clés urgentes ; une clé ajoutée pendant l'écriture déclenche sa propre tâche
+     */
+    private void flushUrgent() {
+        List<WatchKey> keys = new ArrayList<>();
+        for (Iterator<WatchKey> it = urgentKeys.iterator(); it.hasNext(); ) {
+            keys.add(it.next());
+            it.remove();
+        }
+        if (!keys.isEmpty()) {
+            flush(keys);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${progress.watch.flush-interval-ms:5000}")
+    public void flushAll() {
+        flush(new ArrayList<>(states.keySet()));
+        long idleBefore = System.currentTimeMillis() - idleEvictionMs;
+        states.entrySet().removeIf(e -> !e.getValue().dirty() && e.getValue().lastSeen() < idleBefore);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        urgentExecutor.shutdown();
+        try {
+            urgentExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushAll();
+        long pending = states.values().stream().filter(WatchState::dirty).count();
+        if (pending > 0) {
+            logger.warn("Watch progress could not be fully flushed on shutdown ({} pending)", pending);
+        }
+    }
+
+    private void flush(List<WatchKey> keys) {
+        flushLock.lock();
+        try {
+            // Valeurs à écrire, regroupées par inscription (une transaction chacune)
+            Map<String, Map<String, Double>> batches = new HashMap<>();
+            Map<WatchKey, Integer> failures = new HashMap<>();
+            for (WatchKey key : keys) {
+                states.computeIfPresent(key, (k, state) -> {
+                    if (!state.dirty()) {
+                        return state;
+                    }
+                    batches.computeIfAbsent(k.enrollmentId(), id -> new HashMap<>()).put(k.lessonId(), state.pending());
+                    failures.put(k, state.failures());
+                    return state.drained();
+                });
+            }
+
+            batches.forEach((enrollmentId, lessons) -> {
+                try {
+                    formationProgressService.applyWatchProgress(enrollmentId, lessons);
+                    lessons.forEach((lessonId, percentage) -> states.computeIfPresent(
+                        new WatchKey(enrollmentId, lessonId), (k, state) -> percentage >= COMPLETION_THRESHOLD
+                            ? state.markCompleted()
+                            : state.withFailures(0)));
+                } catch (Exception e) {
+                    logger.error("Watch progress flush failed for enrollment {} ({} lessons): {}",
+                        enrollmentId, lessons.size(), e.getMessage());
+                    lessons.forEach((lessonId, percentage) -> {
+                        WatchKey key = new WatchKey(enrollmentId, lessonId);
+                        requeue(key, percentage, failures.getOrDefault(key, 0) + 1);
+                    });
+                }
+            });
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Remet une valeur non écrite dans le tampon pour le prochain vidage, sauf après trop d'échecs
+     */
+    private void requeue(WatchKey key, double percentage, int failures) {
+        if (failures >= maxAttempts) {
+            logger.error("Dropping watch progress for enrollment {} lesson {} after {} failed attempts",
+                key.enrollmentId(), key.lessonId(), failures);
+            return;
+        }
+        long now = System.currentTimeMillis();
+        states.compute(key, (k, current) -> current == null
+            ? new WatchState(percentage, true, false, now, failures)
+            : current.merge(percentage, current.lastSeen()).withFailures(failures));
+    }
+
+    /**
+     * Couple (inscription à la formation, leçon)
+     */
+    public record WatchKey(String enrollmentId, String lessonId) {
+    }
+
+    /**
+     * État immuable d'une clé : maximum en attente d'écriture, si la leçon est déjà terminée,
+     * et nombre d'échecs d'écriture consécutifs
+     */
+    private record WatchState(double pending, boolean dirty, boolean completed, long lastSeen, int failures) {
+
+        WatchState merge(double percentage, long now) {
+            double max = dirty ? Math.max(pending, percentage) : percentage;
+            return new WatchState(max, true, completed, now, failures);
+        }
+
+        WatchState drained() {
+            return new WatchState(pending, false, completed, lastSeen, failures);
+        }
+
+        WatchState markCompleted() {
+            return new WatchState(pending, dirty, true, lastSeen, 0);
+        }
+
+        WatchState withFailures(int count) {
+            return new WatchState(pending, dirty, completed, lastSeen, count);
+        }
+    }
+}
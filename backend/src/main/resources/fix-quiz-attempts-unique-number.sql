@@ -0,0 +1,21 @@
+-- Numéros de tentative en double (démarrages concurrents avant la contrainte d'unicité) :
+-- renumérotation des tentatives de chaque (utilisateur, quiz) concerné, dans l'ordre de démarrage
+UPDATE quiz_attempts qa SET attempt_number = r.rn
+FROM (
+    SELECT id, ROW_NUMBER() OVER (PARTITION BY user_id, quiz_id ORDER BY attempt_number, started_at, id) AS rn
+    FROM quiz_attempts
+    WHERE (user_id, quiz_id) IN (
+        SELECT user_id, quiz_id FROM quiz_attempts
+        GROUP BY user_id, quiz_id, attempt_number HAVING COUNT(*) > 1
+    )
+) r
+WHERE qa.id = r.id AND qa.attempt_number <> r.rn;
+
+-- Contrainte d'unicité, si ddl-auto n'a pas pu la créer à cause des doublons
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'uk_quiz_attempts_user_quiz_number') THEN
+        ALTER TABLE quiz_attempts
+            ADD CONSTRAINT uk_quiz_attempts_user_quiz_number UNIQUE (user_id, quiz_id, attempt_number);
+    END IF;
+END $$;
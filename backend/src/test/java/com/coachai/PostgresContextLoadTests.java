@@ -0,0 +1,26 @@
+package com.coachai;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Démarre le contexte complet sur un PostgreSQL jetable : toutes les requêtes JPQL
+ * des repositories sont validées par Hibernate au démarrage. Ignoré sans Docker.
+ */
+@SpringBootTest
+@Testcontainers(disabledWithoutDocker = true)
+class PostgresContextLoadTests {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Test
+    void contextLoads() {
+        // Échoue si une requête d'un repository ne peut pas être interprétée
+    }
+}
@@ -0,0 +1,105 @@
+package com.coachai.service;
+
+import com.coachai.model.Quiz;
+import com.coachai.model.QuizQuestion;
+import com.coachai.repository.QuizQuestionRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class QuizAnswerKeyServiceTest {
+
+    @Mock
+    private QuizQuestionRepository quizQuestionRepository;
+
+    @InjectMocks
+    private QuizAnswerKeyService quizAnswerKeyService;
+
+    @Test
+    void compilesEachQuizOnce() {
+        Quiz quiz = quiz("quiz-1");
+        when(quizQuestionRepository.findByQuizOrderByOrderAsc(quiz)).thenReturn(List.of(question("q1", "a")));
+
+        QuizAnswerKey first = quizAnswerKeyService.getAnswerKey(quiz);
+        QuizAnswerKey second = quizAnswerKeyService.getAnswerKey(quiz);
+
+        assertSame(first, second);
+        verify(quizQuestionRepository, times(1)).findByQuizOrderByOrderAsc(quiz);
+    }
+
+    @Test
+    void questionEditEvictsTheKeyOfItsQuiz() {
+        Quiz quiz = quiz("quiz-1");
+        QuizQuestion question = question("q1", "a");
+        when(quizQuestionRepository.findByQuizOrderByOrderAsc(quiz)).thenReturn(List.of(question));
+        assertEquals(1, quizAnswerKeyService.getAnswerKey(quiz).grade(Map.of("q1", "a")).getCorrectCount());
+
+        // Modification du corrigé : ContentChangeListener publie un événement QUIZ pour le quiz parent
+        question.setCorrectAnswer("b");
+        quizAnswerKeyService.onContentChanged(
+            new ContentChangedEvent(ContentChangedEvent.ContentType.QUIZ, "quiz-1", false));
+
+        QuizAnswerKey rebuilt = quizAnswerKeyService.getAnswerKey(quiz);
+        assertEquals(0, rebuilt.grade(Map.of("q1", "a")).getCorrectCount());
+        assertEquals(1, rebuilt.grade(Map.of("q1", "b")).getCorrectCount());
+        verify(quizQuestionRepository, times(2)).findByQuizOrderByOrderAsc(quiz);
+    }
+
+    @Test
+    void otherContentChangesKeepTheKey() {
+        Quiz quiz = quiz("quiz-1");
+        when(quizQuestionRepository.findByQuizOrderByOrderAsc(quiz)).thenReturn(List.of(question("q1", "a")));
+        QuizAnswerKey key = quizAnswerKeyService.getAnswerKey(quiz);
+
+        quizAnswerKeyService.onContentChanged(
+            new ContentChangedEvent(ContentChangedEvent.ContentType.QUIZ, "quiz-2", false));
+        quizAnswerKeyService.onContentChanged(
+            new ContentChangedEvent(ContentChangedEvent.ContentType.COURSE, "quiz-1", false));
+
+        assertSame(key, quizAnswerKeyService.getAnswerKey(quiz));
+    }
+
+    @Test
+    void keyCompiledDuringAnInvalidationIsNotCached() {
+        Quiz quiz = quiz("quiz-1");
+        // L'invalidation survient pendant la lecture des questions : le corrigé lu peut être périmé
+        when(quizQuestionRepository.findByQuizOrderByOrderAsc(quiz)).thenAnswer(invocation -> {
+            quizAnswerKeyService.onContentChanged(
+                new ContentChangedEvent(ContentChangedEvent.ContentType.QUIZ, "quiz-1", false));
+            return List.of(question("q1", "a"));
+        });
+
+        QuizAnswerKey first = quizAnswerKeyService.getAnswerKey(quiz);
+        QuizAnswerKey second = quizAnswerKeyService.getAnswerKey(quiz);
+
+        assertNotSame(first, second);
+        verify(quizQuestionRepository, times(2)).findByQuizOrderByOrderAsc(quiz);
+    }
+
+    private static Quiz quiz(String id) {
+        Quiz quiz = new Quiz();
+        quiz.setId(id);
+        return quiz;
+    }
+
+    private static QuizQuestion question(String id, String correctAnswer) {
+        QuizQuestion question = new QuizQuestion();
+        question.setId(id);
+        question.setCorrectAnswer(correctAnswer);
+        question.setPoints(1);
+        return question;
+    }
+}
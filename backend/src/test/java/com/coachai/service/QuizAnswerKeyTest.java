@@ -0,0 +1,210 @@
+package com.coachai.service;
+
+import com.coachai.model.QuizQuestion;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QuizAnswerKeyTest {
+
+    @Test
+    void gradesEveryAnsweredQuestionInSubmissionOrder() {
+        QuizAnswerKey key = QuizAnswerKey.compile("quiz-1", 0, List.of(
+            question("q1", "Paris", 2),
+            question("q2", "true", 1),
+            question("q3", "2", 3),
+            question("q4", "O(n log n)", 4)));
+
+        Map<String, String> answers = new LinkedHashMap<>();
+        answers.put("q3", "2");
+        answers.put("q1", "  pARIS ");
+        answers.put("q2", "false");
+
+        QuizAnswerKey.GradedAttempt graded = key.grade(answers);
+
+        assertEquals(3, graded.getAnsweredCount());
+        assertEquals(List.of("q3", "q1", "q2"), List.of(graded.getQuestionId(0), graded.getQuestionId(1), graded.getQuestionId(2)));
+        assertTrue(graded.isCorrect(0));
+        assertTrue(graded.isCorrect(1));
+        assertFalse(graded.isCorrect(2));
+        assertEquals(3, graded.getPointsEarned(0));
+        assertEquals(2, graded.getPointsEarned(1));
+        assertEquals(0, graded.getPointsEarned(2));
+        // La réponse enregistrée est celle soumise, sans normalisation
+        assertEquals("  pARIS ", graded.getSubmittedAnswer(1));
+
+        assertEquals(2, graded.getCorrectCount());
+        assertEquals(6, graded.getAnsweredPoints());
+        assertEquals(5, graded.getEarnedPoints());
+        assertEquals(5.0 / 6 * 100.0, graded.getScoreOnAnswered(), 1e-9);
+        assertEquals(5.0 / 10 * 100.0, graded.getScoreOnTotal(), 1e-9);
+    }
+
+    @Test
+    void missingAnswersCountOnlyAgainstTheWholeQuiz() {
+        QuizAnswerKey key = QuizAnswerKey.compile("quiz-1", 0, List.of(
+            question("q1", "a", 1),
+            question("q2", "b", 1),
+            question("q3", "c", 2)));
+
+        QuizAnswerKey.GradedAttempt graded = key.grade(Map.of("q1", "a"));
+
+        assertEquals(1, graded.getAnsweredCount());
+        assertEquals(100.0, graded.getScoreOnAnswered(), 1e-9);
+        assertEquals(25.0, graded.getScoreOnTotal(), 1e-9);
+
+        QuizAnswerKey.GradedAttempt empty = key.grade(Map.of());
+        assertEquals(0, empty.getAnsweredCount());
+        assertEquals(0.0, empty.getScoreOnAnswered());
+        assertEquals(0.0, empty.getScoreOnTotal());
+    }
+
+    @Test
+    void nullAnswersAndQuestionsWithoutExpectedAnswerAreNeverCorrect() {
+        QuizAnswerKey key = QuizAnswerKey.compile("quiz-1", 0, List.of(
+            question("q1", "a", 1),
+            question("q2", null, 1)));
+
+        Map<String, Object> answers = new LinkedHashMap<>();
+        answers.put("q1", null);
+        answers.put("q2", "anything");
+        QuizAnswerKey.GradedAttempt graded = key.grade(answers);
+
+        assertEquals(2, graded.getAnsweredCount());
+        assertEquals("", graded.getSubmittedAnswer(0));
+        assertFalse(graded.isCorrect(0));
+        assertFalse(graded.isCorrect(1));
+        assertEquals(2, graded.getAnsweredPoints());
+        assertEquals(0.0, graded.getScoreOnAnswered());
+    }
+
+    @Test
+    void ignoresAnswersToQuestionsOfOtherQuizzes() {
+        QuizAnswerKey key = QuizAnswerKey.compile("quiz-1", 0, List.of(question("q1", "a", 1)));
+
+        Map<String, Object> answers = new LinkedHashMap<>();
+        answers.put("other-quiz-question", "a");
+        answers.put(null, "a");
+        answers.put("q1", "A");
+        QuizAnswerKey.GradedAttempt graded = key.grade(answers);
+
+        assertEquals(1, graded.getAnsweredCount());
+        assertEquals("q1", graded.getQuestionId(0));
+        assertEquals(100.0, graded.getScoreOnTotal(), 1e-9);
+    }
+
+    @Test
+    void gradesNonStringAnswersByTheirTextForm() {
+        QuizAnswerKey key = QuizAnswerKey.compile("quiz-1", 0, List.of(
+            question("q1", "2", 1),
+            question("q2", "TRUE", 1)));
+
+        QuizAnswerKey.GradedAttempt graded = key.grade(Map.of("q1", 2, "q2", true));
+
+        assertEquals(2, graded.getCorrectCount());
+    }
+
+    @Test
+    void scoresExactlyLikeTheLegacyPerQuestionLookup() {
+        List<String> expected = List.of("Paris", "true", "FALSE", "2", "O(n log n)", " padded ", "Élève", "");
+        Random random = new Random(20241017L);
+
+        for (int run = 0; run < 500; run++) {
+            List<QuizQuestion> questions = new ArrayList<>();
+            int questionCount = 1 + random.nextInt(20);
+            for (int i = 0; i < questionCount; i++) {
+                String correct = random.nextInt(10) == 0 ? null : expected.get(random.nextInt(expected.size()));
+                questions.add(question("q" + i, correct, 1 + random.nextInt(5)));
+            }
+
+            // Chaque question répondue au plus une fois, dans un ordre quelconque
+            Map<String, String> answers = new LinkedHashMap<>();
+            List<QuizQuestion> shuffled = new ArrayList<>(questions);
+            Collections.shuffle(shuffled, random);
+            for (QuizQuestion question : shuffled) {
+                if (random.nextInt(4) != 0) {
+                    answers.put(question.getId(), variant(question.getCorrectAnswer(), expected, random));
+                }
+            }
+
+            QuizAnswerKey.GradedAttempt graded = QuizAnswerKey.compile("quiz", 0, questions).grade(answers);
+            LegacyResult legacy = legacyGrade(questions, answers);
+
+            String context = questions.stream().map(QuizQuestion::getCorrectAnswer).toList() + " / " + answers;
+            assertEquals(legacy.correct(), correctFlags(graded), context);
+            assertEquals(legacy.percentage(), graded.getScoreOnAnswered(), 1e-9, context);
+            // Score de submitQuizAttempt : questions non pondérées, rapporté au nombre de questions
+            assertEquals(legacy.correctCount(), graded.getCorrectCount(), context);
+        }
+    }
+
+    private static String variant(String correct, List<String> expected, Random random) {
+        String base = correct == null || random.nextInt(3) == 0
+            ? expected.get(random.nextInt(expected.size()))
+            : correct;
+        return switch (random.nextInt(5)) {
+            case 0 -> base.toUpperCase();
+            case 1 -> base.toLowerCase();
+            case 2 -> " " + base + "\t";
+            case 3 -> base + "x";
+            default -> base;
+        };
+    }
+
+    private static List<Boolean> correctFlags(QuizAnswerKey.GradedAttempt graded) {
+        List<Boolean> flags = new ArrayList<>();
+        for (int i = 0; i < graded.getAnsweredCount(); i++) {
+            flags.add(graded.isCorrect(i));
+        }
+        return flags;
+    }
+
+    /**
+     * Ancienne correction de POST /attempts/{id}/submit : une recherche de question par réponse,
+     * barème des questions répondues, comparaison sans casse de la réponse sans espaces de bord
+     */
+    private static LegacyResult legacyGrade(List<QuizQuestion> questions, Map<String, String> answers) {
+        Map<String, QuizQuestion> byId = new HashMap<>();
+        questions.forEach(question -> byId.put(question.getId(), question));
+
+        List<Boolean> correct = new ArrayList<>();
+        int correctCount = 0;
+        double totalScore = 0.0;
+        double maxScore = 0.0;
+        for (Map.Entry<String, String> answer : answers.entrySet()) {
+            QuizQuestion question = byId.get(answer.getKey());
+            maxScore += question.getPoints();
+            boolean isCorrect = question.getCorrectAnswer() != null
+                && question.getCorrectAnswer().equalsIgnoreCase(answer.getValue().trim());
+            correct.add(isCorrect);
+            if (isCorrect) {
+                correctCount++;
+                totalScore += question.getPoints();
+            }
+        }
+        double percentage = maxScore > 0 ? (totalScore / maxScore) * 100 : 0.0;
+        return new LegacyResult(correct, correctCount, percentage);
+    }
+
+    private record LegacyResult(List<Boolean> correct, int correctCount, double percentage) {
+    }
+
+    private static QuizQuestion question(String id, String correctAnswer, int points) {
+        QuizQuestion question = new QuizQuestion();
+        question.setId(id);
+        question.setCorrectAnswer(correctAnswer);
+        question.setPoints(points);
+        question.setType(QuizQuestion.QuestionType.SHORT_ANSWER);
+        return question;
+    }
+}
@@ -0,0 +1,172 @@
+package com.coachai.service;
+
+import com.coachai.model.Course;
+import com.coachai.model.Quiz;
+import com.coachai.repository.CourseRepository;
+import com.coachai.repository.LessonRepository;
+import com.coachai.repository.ModuleRepository;
+import com.coachai.repository.QuizRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SearchIndexServiceTest {
+
+    private static final Set<String> ALL_TYPES = Set.of(SearchIndexService.TYPE_COURSE, SearchIndexService.TYPE_MODULE,
+        SearchIndexService.TYPE_LESSON, SearchIndexService.TYPE_QUIZ);
+
+    @Mock
+    private CourseRepository courseRepository;
+
+    @Mock
+    private ModuleRepository moduleRepository;
+
+    @Mock
+    private LessonRepository lessonRepository;
+
+    @Mock
+    private QuizRepository quizRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private SearchIndexService searchIndexService;
+
+    @Test
+    void ranksTitleMatchesAboveDescriptionMatches() {
+        index(course("c1", "Bases de données", "Requêtes et modélisation avec Java"),
+            course("c2", "Java pour débutants", "Requêtes et modélisation"));
+
+        assertEquals(List.of("c2", "c1"), ids(search("java")));
+    }
+
+    @Test
+    void weighsRareTermsAboveCommonOnes() {
+        index(course("c1", "Java", "spring"),
+            course("c2", "Java", "maven"),
+            course("c3", "Java", "gradle"),
+            course("c4", "Python", "django"));
+
+        // "java" apparaît partout : c'est "django", rare, qui départage
+        List<Map<String, Object>> results = search("java django");
+        assertEquals("c4", results.get(0).get("id"));
+        assertEquals(100, results.get(0).get("relevance"));
+        assertEquals(4, results.size());
+    }
+
+    @Test
+    void normalizesTermFrequencyByDocumentLength() {
+        index(course("c1", "Sécurité", "docker"),
+            course("c2", "Sécurité", "docker kubernetes terraform ansible helm prometheus grafana"));
+
+        assertEquals(List.of("c1", "c2"), ids(search("docker")));
+    }
+
+    @Test
+    void matchesAcrossAccentsCaseAndPlurals() {
+        index(course("c1", "Les Réseaux", "Protocoles"));
+
+        assertEquals(List.of("c1"), ids(search("RESEAU")));
+        assertEquals(List.of("c1"), ids(search("protocole")));
+    }
+
+    @Test
+    void expandsOnlyTheLastTermAsPrefix() {
+        index(course("c1", "Algorithmes de tri", "Complexité"),
+            course("c2", "Java", "Collections"));
+
+        assertEquals(List.of("c1"), ids(search("algo")));
+        // "algo" n'est pas le dernier terme : pas de préfixe, et trop loin pour une faute de frappe
+        assertEquals(List.of("c2"), ids(search("algo java")));
+    }
+
+    @Test
+    void prefersExactMatchesOverPrefixMatches() {
+        index(course("c1", "Java", "Introduction"),
+            course("c2", "JavaScript", "Introduction"));
+
+        List<Map<String, Object>> results = search("java");
+        assertEquals(List.of("c1", "c2"), ids(results));
+        assertTrue((int) results.get(1).get("relevance") < 100);
+    }
+
+    @Test
+    void toleratesTyposWhenNothingMatches() {
+        index(course("c1", "Réseau", "TCP/IP"),
+            course("c2", "Programmation", "Fonctions récursives"));
+
+        // Transposition : distance 1 pour un terme de 6 lettres
+        assertEquals(List.of("c1"), ids(search("reseua")));
+        // Deux fautes acceptées à partir de 8 lettres
+        assertEquals(List.of("c2"), ids(search("porgramation")));
+        // La première lettre doit être correcte
+        assertEquals(List.of(), ids(search("eseau")));
+    }
+
+    @Test
+    void filtersByType() {
+        Quiz quiz = new Quiz();
+        quiz.setId("q1");
+        quiz.setTitle("Quiz Java");
+        quiz.setDescription("Évaluation");
+        when(quizRepository.findAll()).thenReturn(List.of(quiz));
+        index(course("c1", "Java", "Cours"));
+
+        assertEquals(List.of("c1", "q1"), ids(search("java")));
+        assertEquals(List.of("q1"), ids(searchIndexService.search("java", Set.of(SearchIndexService.TYPE_QUIZ),
+            null, 0, 10).getResults()));
+    }
+
+    @Test
+    void editDistanceCountsTranspositionsAsOneEdit() {
+        assertEquals(0, SearchIndexService.editDistance("reseau", "reseau", 2));
+        assertEquals(1, SearchIndexService.editDistance("reseau", "reseua", 2));
+        assertEquals(1, SearchIndexService.editDistance("boucle", "boucles", 2));
+        assertEquals(2, SearchIndexService.editDistance("programmation", "porgramation", 2));
+        assertEquals(3, SearchIndexService.editDistance("kitten", "sitting", 3));
+    }
+
+    @Test
+    void editDistanceStopsOnceMaxDistanceIsExceeded() {
+        // Distance réelle 8 : le calcul s'arrête à la deuxième ligne, dont le minimum dépasse déjà 1
+        assertEquals(2, SearchIndexService.editDistance("abcdefgh", "zzzzzzzz", 1));
+        assertEquals(8, SearchIndexService.editDistance("abcdefgh", "zzzzzzzz", 8));
+        // Le résultat dépasse toujours maxDistance quand la vraie distance la dépasse
+        assertTrue(SearchIndexService.editDistance("algorithme", "architecture", 2) > 2);
+    }
+
+    private void index(Course... courses) {
+        when(courseRepository.findAll()).thenReturn(List.of(courses));
+        searchIndexService.init();
+        searchIndexService.rebuild();
+    }
+
+    private List<Map<String, Object>> search(String query) {
+        return searchIndexService.search(query, ALL_TYPES, null, 0, 10).getResults();
+    }
+
+    private static List<Object> ids(List<Map<String, Object>> results) {
+        return results.stream().map(result -> result.get("id")).toList();
+    }
+
+    private static Course course(String id, String title, String description) {
+        Course course = new Course();
+        course.setId(id);
+        course.setTitle(title);
+        course.setDescription(description);
+        return course;
+    }
+}
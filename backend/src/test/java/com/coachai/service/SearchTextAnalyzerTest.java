@@ -0,0 +1,55 @@
+package com.coachai.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SearchTextAnalyzerTest {
+
+    @Test
+    void stemsRegularPlurals() {
+        assertEquals("boucle", SearchTextAnalyzer.stem("boucles"));
+        assertEquals("index", SearchTextAnalyzer.stem("indexs"));
+        assertEquals("reseau", SearchTextAnalyzer.stem("reseaux"));
+        assertEquals("tableau", SearchTextAnalyzer.stem("tableaux"));
+        assertEquals("cheval", SearchTextAnalyzer.stem("chevaux"));
+        assertEquals("journal", SearchTextAnalyzer.stem("journaux"));
+    }
+
+    @Test
+    void stemsShortEauxAndAuxEdgeCases() {
+        // Trop court pour la règle "eaux" : seul le x final tombe
+        assertEquals("eau", SearchTextAnalyzer.stem("eaux"));
+        assertEquals("aux", SearchTextAnalyzer.stem("aux"));
+        // Quatre lettres en "aux" : règle du x final, pas de réécriture en "al"
+        assertEquals("tau", SearchTextAnalyzer.stem("taux"));
+        assertEquals("boyal", SearchTextAnalyzer.stem("boyaux"));
+    }
+
+    @Test
+    void keepsDoubleSAndShortWords() {
+        assertEquals("class", SearchTextAnalyzer.stem("class"));
+        assertEquals("process", SearchTextAnalyzer.stem("process"));
+        assertEquals("bus", SearchTextAnalyzer.stem("bus"));
+        assertEquals("jsx", SearchTextAnalyzer.stem("jsx"));
+        assertEquals("java", SearchTextAnalyzer.stem("java"));
+    }
+
+    @Test
+    void normalizesCaseAndAccents() {
+        assertEquals("elements", SearchTextAnalyzer.normalize("Éléments"));
+        assertEquals("ecole", SearchTextAnalyzer.normalize("école"));
+        assertEquals("", SearchTextAnalyzer.normalize(null));
+    }
+
+    @Test
+    void tokenizesWithoutStopWordsAndKeepsDuplicates() {
+        assertEquals(List.of("introduction", "reseau", "reseau", "java"),
+            SearchTextAnalyzer.tokenize("Introduction aux réseaux : les réseaux et Java"));
+        assertEquals(List.of("api", "rest"), SearchTextAnalyzer.tokenize("l'API REST"));
+        assertEquals(List.of(), SearchTextAnalyzer.tokenize("   "));
+        assertEquals(List.of(), SearchTextAnalyzer.tokenize(null));
+    }
+}
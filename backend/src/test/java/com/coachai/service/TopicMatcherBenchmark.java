@@ -0,0 +1,111 @@
+package com.coachai.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Détection de topics sur un historique de chat : automate {@link TopicMatcher} contre l'ancienne
+ * boucle contains (un parcours du message par mot-clé).
+ *
+ * Hors tests unitaires ; lancement :
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.coachai.service.TopicMatcherBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TopicMatcherBenchmark {
+
+    // Vocabulaire de ChatAnalysisService
+    private static final Map<String, List<String>> TOPICS = new LinkedHashMap<>();
+
+    static {
+        TOPICS.put("Java", List.of("java", "jvm", "spring", "hibernate", "maven", "gradle"));
+        TOPICS.put("Python", List.of("python", "django", "flask", "numpy", "pandas", "pytest"));
+        TOPICS.put("JavaScript", List.of("javascript", "js", "node", "react", "vue", "angular", "typescript"));
+        TOPICS.put("Développement Web", List.of("html", "css", "web", "frontend", "backend", "api", "rest"));
+        TOPICS.put("Base de données", List.of("sql", "database", "mysql", "postgresql", "mongodb", "nosql"));
+        TOPICS.put("Algorithmes", List.of("algorithm*", "structure*", "complexité", "tri", "recherche*"));
+    }
+
+    private static final List<String> WORDS = List.of("comment", "configurer", "spring", "avec", "maven",
+        "erreur", "python", "pandas", "différence", "entre", "react", "angular", "requête", "sql", "lente",
+        "complexité", "algorithmes", "tri", "bonjour", "merci", "pour", "votre", "aide", "une", "api", "rest",
+        "mongodb", "database", "structure", "recherche", "fonction", "boucle", "variable", "classe", "objet");
+
+    @Param({"100", "1000"})
+    private int messageCount;
+
+    private List<String> messages;
+    private TopicMatcher matcher;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(20241017L);
+        messages = new ArrayList<>();
+        for (int m = 0; m < messageCount; m++) {
+            StringBuilder message = new StringBuilder();
+            int words = 5 + random.nextInt(40);
+            for (int w = 0; w < words; w++) {
+                message.append(w > 0 ? " " : "").append(WORDS.get(random.nextInt(WORDS.size())));
+            }
+            messages.add(message.toString());
+        }
+
+        TopicMatcher.Builder builder = TopicMatcher.builder();
+        TOPICS.forEach((topic, keywords) -> builder.topic(topic, keywords.toArray(new String[0])));
+        matcher = builder.build();
+    }
+
+    @Benchmark
+    public Map<String, Integer> topicMatcher() {
+        return matcher.countMessagesByTopic(messages);
+    }
+
+    /**
+     * Ancienne détection : un contains par mot-clé, préfixes compris comme sous-chaînes
+     */
+    @Benchmark
+    public Map<String, Integer> legacyContainsLoop() {
+        Map<String, Integer> counts = new HashMap<>();
+        for (String message : messages) {
+            String content = message.toLowerCase();
+            for (Map.Entry<String, List<String>> entry : TOPICS.entrySet()) {
+                for (String keyword : entry.getValue()) {
+                    String body = keyword.endsWith("*") ? keyword.substring(0, keyword.length() - 1) : keyword;
+                    if (content.contains(body)) {
+                        counts.merge(entry.getKey(), 1, Integer::sum);
+                        break;
+                    }
+                }
+            }
+        }
+        return counts;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(TopicMatcherBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,200 @@
+package com.coachai.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TopicMatcherTest {
+
+    // Vocabulaire historique de ChatAnalysisService (boucle contains avant TopicMatcher)
+    private static final Map<String, List<String>> LEGACY_TOPICS = new LinkedHashMap<>();
+
+    static {
+        LEGACY_TOPICS.put("Java", List.of("java", "jvm", "spring", "hibernate", "maven", "gradle"));
+        LEGACY_TOPICS.put("Python", List.of("python", "django", "flask", "numpy", "pandas", "pytest"));
+        LEGACY_TOPICS.put("JavaScript", List.of("javascript", "js", "node", "react", "vue", "angular", "typescript"));
+        LEGACY_TOPICS.put("Développement Web", List.of("html", "css", "web", "frontend", "backend", "api", "rest"));
+        LEGACY_TOPICS.put("Base de données", List.of("sql", "database", "mysql", "postgresql", "mongodb", "nosql"));
+        LEGACY_TOPICS.put("Algorithmes", List.of("algorithme", "algorithm", "structure", "complexité", "tri", "recherche"));
+    }
+
+    @Test
+    void reportsEveryOverlappingKeyword() {
+        TopicMatcher matcher = TopicMatcher.builder()
+            .keywords("he*", "her*", "hers", "machine learning", "learning")
+            .build();
+
+        assertEquals(Set.of("he*", "her*", "hers"), matcher.findTopics("hers"));
+        assertEquals(Set.of("machine learning", "learning"), matcher.findTopics("un cours de machine learning"));
+        assertEquals(5, matcher.countTopics("hers : machine learning"));
+    }
+
+    @Test
+    void findsSharedSuffixesThroughFailureLinks() {
+        TopicMatcher matcher = TopicMatcher.builder()
+            .keywords("data structure", "structure", "spring boot", "boot camp", "nosql", "sql")
+            .build();
+
+        // "structure" n'est atteint que par le lien d'échec de "data structure"
+        assertEquals(Set.of("data structure", "structure"), matcher.findTopics("une data structure"));
+        // Après "spring boot", l'automate repart de "boot" pour reconnaître "boot camp"
+        assertEquals(Set.of("spring boot", "boot camp"), matcher.findTopics("spring boot camp"));
+        // "sql" suffixe de "nosql" : reconnu par l'automate mais rejeté hors début de mot
+        assertEquals(Set.of("nosql"), matcher.findTopics("base nosql"));
+        assertEquals(Set.of("nosql", "sql"), matcher.findTopics("nosql ou sql ?"));
+    }
+
+    @Test
+    void matchesWholeWordsOrWordPrefixes() {
+        TopicMatcher matcher = TopicMatcher.builder()
+            .topic("JavaScript", "js", "javascript")
+            .topic("Java", "java")
+            .topic("Tri", "tri")
+            .topic("Algorithmes", "algorithm*")
+            .build();
+
+        assertEquals(Set.of(), matcher.findTopics("un fichier json"));
+        assertEquals(Set.of(), matcher.findTopics("une string"));
+        assertEquals(Set.of("JavaScript"), matcher.findTopics("javascript"));
+        assertEquals(Set.of("JavaScript"), matcher.findTopics("(js), vraiment ?"));
+        assertEquals(Set.of(), matcher.findTopics("java8 et js6"));
+        assertEquals(Set.of("Tri"), matcher.findTopics("tri rapide"));
+        assertEquals(Set.of("Algorithmes", "Tri"), matcher.findTopics("les algorithmes de tri-fusion"));
+        assertEquals(Set.of(), matcher.findTopics("polyalgorithm"));
+    }
+
+    @Test
+    void foldsCaseAndAccents() {
+        TopicMatcher matcher = TopicMatcher.builder()
+            .topic("Complexité", "complexité")
+            .topic("École", "ecole")
+            .topic("Suivi", "détaill*")
+            .build();
+
+        assertEquals(Set.of("Complexité"), matcher.findTopics("COMPLEXITE"));
+        assertEquals(Set.of("Complexité"), matcher.findTopics("la Complexité temporelle"));
+        assertEquals(Set.of("École"), matcher.findTopics("École"));
+        // Accent décomposé (e + accent aigu combinant)
+        assertEquals(Set.of("École"), matcher.findTopics("e\u0301cole"));
+        assertEquals(Set.of("Suivi"), matcher.findTopics("Détaillez svp"));
+        assertEquals(Set.of("Suivi"), matcher.findTopics("DETAILLE"));
+    }
+
+    @Test
+    void ignoresNullAndEmptyText() {
+        TopicMatcher matcher = TopicMatcher.builder().keywords("java").build();
+
+        assertEquals(Set.of(), matcher.findTopics(null));
+        assertEquals(0, matcher.countTopics(""));
+        assertEquals(Map.of(), matcher.countMessagesByTopic(List.of("", "python")));
+    }
+
+    @Test
+    void agreesWithLegacyContainsLoopOnWholeWordCorpus() {
+        // Messages où chaque mot-clé présent est un mot entier : l'ancienne boucle et l'automate concordent
+        List<String> corpus = List.of(
+            "Comment configurer spring avec maven ?",
+            "J'ai une erreur python avec pandas et numpy",
+            "Quelle différence entre react et angular ?",
+            "Je débute en html et css pour le web",
+            "Requête sql lente sur postgresql",
+            "Expliquez la complexité d'un algorithme de tri",
+            "Une api rest avec django",
+            "Bonjour, merci pour votre aide",
+            "node et typescript côté backend",
+            "mongodb ou mysql pour ma database ?",
+            "Le ramasse-miettes de la jvm",
+            "Quelle structure pour une recherche efficace ?"
+        );
+
+        TopicMatcher.Builder builder = TopicMatcher.builder();
+        LEGACY_TOPICS.forEach((topic, keywords) -> builder.topic(topic, keywords.toArray(new String[0])));
+        TopicMatcher matcher = builder.build();
+
+        assertEquals(legacyCounts(corpus), matcher.countMessagesByTopic(corpus));
+    }
+
+    @Test
+    void agreesWithWordBoundaryReferenceOnGeneratedCorpus() {
+        List<String> keywords = List.of("java", "javascript", "js", "sql", "nosql", "tri", "string", "api",
+            "data structure", "structure*", "algorithm*", "complexité", "réseau*");
+        TopicMatcher matcher = TopicMatcher.builder().keywords(keywords.toArray(new String[0])).build();
+
+        List<String> vocabulary = List.of("java", "Javascript", "json", "js", "JS,", "nosql", "sql", "mysql", "tri",
+            "string", "strings", "api", "apis", "data", "structure", "structures", "Algorithmes", "algorithm",
+            "polyalgorithm", "complexite", "COMPLEXITÉ", "réseaux", "reseau", "-", "(", ")", "?", "42", "java8");
+        Random random = new Random(20241017L);
+        for (int m = 0; m < 2000; m++) {
+            StringBuilder message = new StringBuilder();
+            int words = 1 + random.nextInt(12);
+            for (int w = 0; w < words; w++) {
+                if (w > 0) {
+                    message.append(random.nextInt(5) == 0 ? "" : " ");
+                }
+                message.append(vocabulary.get(random.nextInt(vocabulary.size())));
+            }
+            String text = message.toString();
+            assertEquals(referenceTopics(keywords, text), matcher.findTopics(text), text);
+        }
+    }
+
+    @Test
+    void countsEachMessageOncePerTopic() {
+        TopicMatcher matcher = TopicMatcher.builder()
+            .topic("Java", "java", "jvm")
+            .topic("Python", "python")
+            .build();
+
+        Map<String, Integer> counts = matcher.countMessagesByTopic(List.of(
+            "java java jvm", "python et java", "rien"));
+
+        assertEquals(Map.of("Java", 2, "Python", 1), counts);
+    }
+
+    /**
+     * Ancienne détection : un message compte pour un topic si l'un de ses mots-clés y apparaît
+     */
+    private static Map<String, Integer> legacyCounts(List<String> messages) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (String message : messages) {
+            String content = message.toLowerCase();
+            for (Map.Entry<String, List<String>> entry : LEGACY_TOPICS.entrySet()) {
+                for (String keyword : entry.getValue()) {
+                    if (content.contains(keyword.toLowerCase())) {
+                        counts.merge(entry.getKey(), 1, Integer::sum);
+                        break;
+                    }
+                }
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Référence par expressions régulières : mot-clé normalisé précédé d'une frontière de mot,
+     * et suivi d'une frontière sauf pour les préfixes ("*")
+     */
+    private static Set<String> referenceTopics(List<String> keywords, String text) {
+        String normalized = SearchTextAnalyzer.normalize(text);
+        Set<String> found = new LinkedHashSet<>();
+        for (String keyword : keywords) {
+            boolean prefix = keyword.endsWith("*");
+            String body = SearchTextAnalyzer.normalize(prefix ? keyword.substring(0, keyword.length() - 1) : keyword);
+            Pattern pattern = Pattern.compile("(?<![\\p{L}\\p{N}])" + Pattern.quote(body)
+                + (prefix ? "" : "(?![\\p{L}\\p{N}])"));
+            if (pattern.matcher(normalized).find()) {
+                found.add(keyword);
+            }
+        }
+        return found;
+    }
+}
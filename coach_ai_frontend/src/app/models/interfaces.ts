@@ -53,6 +53,12 @@ export interface User {
   hoursStudied: number;
 }
 
+// Page d'historique de chat : curseur et indicateur lus dans les en-têtes X-Before-Cursor / X-Has-More
+export interface ChatHistoryPage<T> {
+  messages: T[];
+  beforeCursor: string | null;
+  hasEarlier: boolean;
+}
 
 
 
@@ -28,6 +28,11 @@ export class CommunicationComponent implements OnInit {
   upcomingReminders = 0;
   isLoadingMessages = false;
 
+  // Historique paginé de la conversation sélectionnée
+  conversationBeforeCursor: string | null = null;
+  hasEarlierMessages = false;
+  isLoadingEarlier = false;
+
   constructor(private trainerService: TrainerService) {}
 
   ngOnInit(): void {
@@ -67,14 +72,18 @@ export class CommunicationComponent implements OnInit {
   selectMessage(message: TrainerMessage): void {
     this.selectedMessage = message;
     this.selectedConversationMessages = [];
+    this.conversationBeforeCursor = null;
+    this.hasEarlierMessages = false;
     this.isLoadingMessages = true;
     
     // Load conversation messages - use conversationId from the message
     const conversationId = (message as any).conversationId;
     if (conversationId) {
-      this.trainerService.getConversationMessages(conversationId).subscribe({
-        next: (messages) => {
-          this.selectedConversationMessages = messages || [];
+      this.trainerService.getConversationMessagePage(conversationId).subscribe({
+        next: (page) => {
+          this.selectedConversationMessages = page.messages;
+          this.conversationBeforeCursor = page.beforeCursor;
+          this.hasEarlierMessages = page.hasEarlier;
           this.isLoadingMessages = false;
         },
         error: (error) => {
@@ -106,6 +115,25 @@ export class CommunicationComponent implements OnInit {
     }
   }
 
+  loadEarlierMessages(): void {
+    const conversationId = (this.selectedMessage as any)?.conversationId;
+    if (!conversationId || !this.conversationBeforeCursor || this.isLoadingEarlier) {
+      return;
+    }
+
+    this.isLoadingEarlier = true;
+    this.trainerService.getConversationMessagePage(conversationId, this.conversationBeforeCursor).subscribe(page => {
+      this.isLoadingEarlier = false;
+      if ((this.selectedMessage as any)?.conversationId !== conversationId) {
+        return;
+      }
+      this.selectedConversationMessages = [...page.messages, ...this.selectedConversationMessages];
+      this.conversationBeforeCursor = page.beforeCursor;
+      this.hasEarlierMessages = page.hasEarlier;
+    });
+  }
+
+
   // Modal state
   showNewMessageModal = false;
   showAnswerModal = false;
@@ -1,7 +1,8 @@
 import { Injectable } from '@angular/core';
-import { HttpClient } from '@angular/common/http';
+import { HttpClient, HttpParams, HttpResponse } from '@angular/common/http';
 import { Observable, of, throwError } from 'rxjs';
 import { map, catchError } from 'rxjs/operators';
+import { ChatHistoryPage } from '../../models/interfaces';
 import { 
   TrainerProfile, 
   TrainerStats, 
@@ -877,10 +878,23 @@ export class TrainerService {
   }
 
   getConversationMessages(conversationId: string): Observable<any[]> {
-    return this.http.get<any[]>(`${this.apiUrl}/messages/conversation/${conversationId}`).pipe(
+    return this.getConversationMessagePage(conversationId).pipe(
+      map(page => page.messages)
+    );
+  }
+
+  // Page de messages : la plus récente, ou celle qui précède le curseur "before" (charger les messages précédents)
+  getConversationMessagePage(conversationId: string, before?: string): Observable<ChatHistoryPage<any>> {
+    const params = before ? new HttpParams().set('before', before) : undefined;
+    return this.http.get<any[]>(`${this.apiUrl}/messages/conversation/${conversationId}`, { params, observe: 'response' }).pipe(
+      map((response: HttpResponse<any[]>) => ({
+        messages: response.body || [],
+        beforeCursor: response.headers.get('X-Before-Cursor'),
+        hasEarlier: response.headers.get('X-Has-More') === 'true'
+      })),
       catchError((error) => {
         console.error('Error fetching conversation messages:', error);
-        return of([]);
+        return of({ messages: [], beforeCursor: null, hasEarlier: false });
       })
     );
   }
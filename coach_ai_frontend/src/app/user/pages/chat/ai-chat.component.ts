@@ -24,6 +24,13 @@ export class AiChatComponent implements OnInit, AfterViewChecked, OnDestroy {
   showNewConversationModal = false;
   newConversationTitle = '';
   showConversationsList = true;
+
+  // Historique paginé : page la plus récente, puis pages précédentes à la demande
+  beforeCursor: string | null = null;
+  hasEarlierMessages = false;
+  isLoadingEarlier = false;
+  private keepScrollPosition = false;
+  private scrollHeightBeforePrepend: number | null = null;
   
   // AI metadata
   useDirectAI = true; // Toggle pour utiliser l'IA directe ou via backend
@@ -61,7 +68,16 @@ export class AiChatComponent implements OnInit, AfterViewChecked, OnDestroy {
   }
 
   ngAfterViewChecked(): void {
-    this.scrollToBottom();
+    if (this.scrollHeightBeforePrepend !== null && this.messagesContainer) {
+      // Messages précédents insérés en tête : la lecture reste sur le même message
+      const element = this.messagesContainer.nativeElement;
+      element.scrollTop = element.scrollHeight - this.scrollHeightBeforePrepend;
+      this.scrollHeightBeforePrepend = null;
+      return;
+    }
+    if (!this.keepScrollPosition) {
+      this.scrollToBottom();
+    }
   }
 
   loadConversations(): void {
@@ -88,30 +104,64 @@ export class AiChatComponent implements OnInit, AfterViewChecked, OnDestroy {
   }
 
   loadMessages(conversationId: string): void {
-    this.chatService.getMessages(conversationId).subscribe(messages => {
-      this.messages = messages;
-      
-      // Try to extract AI metadata from messages if available
-      messages.forEach(msg => {
-        if (msg.sender === 'ai' && msg.aiMetadata) {
-          const recommendation: CoachRecommendation = {
-            response: msg.content,
-            predictedDifficulty: msg.aiMetadata.predictedDifficulty || 'unknown',
-            confidence: msg.aiMetadata.confidence || 0,
-            source: msg.aiMetadata.source || 'backend'
-          };
-          this.aiMetadata.set(msg.id, recommendation);
-        }
-      });
+    this.keepScrollPosition = false;
+    this.chatService.getMessagePage(conversationId).subscribe(page => {
+      this.messages = page.messages;
+      this.beforeCursor = page.beforeCursor;
+      this.hasEarlierMessages = page.hasEarlier;
+      this.storeAiMetadata(page.messages);
       
       setTimeout(() => this.scrollToBottom(), 100);
     });
   }
 
+  loadEarlierMessages(): void {
+    if (!this.activeConversation || !this.beforeCursor || this.isLoadingEarlier) {
+      return;
+    }
+
+    const conversationId = this.activeConversation.id;
+    this.isLoadingEarlier = true;
+    this.chatService.getMessagePage(conversationId, this.beforeCursor).subscribe({
+      next: (page) => {
+        this.isLoadingEarlier = false;
+        if (this.activeConversation?.id !== conversationId) {
+          return;
+        }
+        this.keepScrollPosition = true;
+        this.scrollHeightBeforePrepend = this.messagesContainer ? this.messagesContainer.nativeElement.scrollHeight : null;
+        this.messages = [...page.messages, ...this.messages];
+        this.beforeCursor = page.beforeCursor;
+        this.hasEarlierMessages = page.hasEarlier;
+        this.storeAiMetadata(page.messages);
+      },
+      error: (error) => {
+        console.error('Error loading earlier messages:', error);
+        this.isLoadingEarlier = false;
+      }
+    });
+  }
+
+  // Try to extract AI metadata from messages if available
+  private storeAiMetadata(messages: ChatMessage[]): void {
+    messages.forEach(msg => {
+      if (msg.sender === 'ai' && msg.aiMetadata) {
+        const recommendation: CoachRecommendation = {
+          response: msg.content,
+          predictedDifficulty: msg.aiMetadata.predictedDifficulty || 'unknown',
+          confidence: msg.aiMetadata.confidence || 0,
+          source: msg.aiMetadata.source || 'backend'
+        };
+        this.aiMetadata.set(msg.id, recommendation);
+      }
+    });
+  }
+
   sendMessage(): void {
     if ((!this.newMessage.trim() && !this.audioBlob) || !this.activeConversation) {
       return;
     }
+    this.keepScrollPosition = false;
 
     // If there's an audio blob, send it
     if (this.audioBlob) {
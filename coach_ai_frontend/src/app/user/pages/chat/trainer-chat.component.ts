@@ -23,6 +23,13 @@ export class TrainerChatComponent implements OnInit, AfterViewChecked {
   showConversationsList = true;
   isLoading = false;
 
+  // Historique paginé : page la plus récente, puis pages précédentes à la demande
+  beforeCursor: string | null = null;
+  hasEarlierMessages = false;
+  isLoadingEarlier = false;
+  private keepScrollPosition = false;
+  private scrollHeightBeforePrepend: number | null = null;
+
   constructor(
     private trainerChatService: TrainerChatService,
     private route: ActivatedRoute
@@ -46,7 +53,16 @@ export class TrainerChatComponent implements OnInit, AfterViewChecked {
   }
 
   ngAfterViewChecked(): void {
-    this.scrollToBottom();
+    if (this.scrollHeightBeforePrepend !== null && this.messagesContainer) {
+      // Messages précédents insérés en tête : la lecture reste sur le même message
+      const element = this.messagesContainer.nativeElement;
+      element.scrollTop = element.scrollHeight - this.scrollHeightBeforePrepend;
+      this.scrollHeightBeforePrepend = null;
+      return;
+    }
+    if (!this.keepScrollPosition) {
+      this.scrollToBottom();
+    }
   }
 
   async loadConversations(): Promise<void> {
@@ -77,9 +93,12 @@ export class TrainerChatComponent implements OnInit, AfterViewChecked {
   }
 
   loadMessages(conversationId: string): void {
-    this.trainerChatService.getConversationMessages(conversationId).subscribe({
-      next: (messages) => {
-        this.messages = messages;
+    this.keepScrollPosition = false;
+    this.trainerChatService.getMessagePage(conversationId).subscribe({
+      next: (page) => {
+        this.messages = page.messages;
+        this.beforeCursor = page.beforeCursor;
+        this.hasEarlierMessages = page.hasEarlier;
         setTimeout(() => this.scrollToBottom(), 100);
       },
       error: (error) => {
@@ -88,10 +107,37 @@ export class TrainerChatComponent implements OnInit, AfterViewChecked {
     });
   }
 
+  loadEarlierMessages(): void {
+    if (!this.activeConversation || !this.beforeCursor || this.isLoadingEarlier) {
+      return;
+    }
+
+    const conversationId = this.activeConversation.id;
+    this.isLoadingEarlier = true;
+    this.trainerChatService.getMessagePage(conversationId, this.beforeCursor).subscribe({
+      next: (page) => {
+        this.isLoadingEarlier = false;
+        if (this.activeConversation?.id !== conversationId) {
+          return;
+        }
+        this.keepScrollPosition = true;
+        this.scrollHeightBeforePrepend = this.messagesContainer ? this.messagesContainer.nativeElement.scrollHeight : null;
+        this.messages = [...page.messages, ...this.messages];
+        this.beforeCursor = page.beforeCursor;
+        this.hasEarlierMessages = page.hasEarlier;
+      },
+      error: (error) => {
+        console.error('Error loading earlier messages:', error);
+        this.isLoadingEarlier = false;
+      }
+    });
+  }
+
   sendMessage(): void {
     if (!this.newMessage.trim() || !this.activeConversation) {
       return;
     }
+    this.keepScrollPosition = false;
 
     const content = this.newMessage;
     this.newMessage = '';
@@ -1,8 +1,9 @@
 import { Injectable } from '@angular/core';
-import { HttpClient } from '@angular/common/http';
+import { HttpClient, HttpParams, HttpResponse } from '@angular/common/http';
 import { Observable, BehaviorSubject, throwError } from 'rxjs';
 import { map, catchError, tap } from 'rxjs/operators';
 import { ChatMessage, Conversation } from '../models/user.interfaces';
+import { ChatHistoryPage } from '../../models/interfaces';
 
 @Injectable({
   providedIn: 'root'
@@ -49,11 +50,19 @@ export class AiChatService {
     );
   }
 
-  // Récupérer les messages d'une conversation
+  // Récupérer les messages d'une conversation (page la plus récente)
   getMessages(conversationId: string): Observable<ChatMessage[]> {
-    return this.http.get<any[]>(`${this.apiUrl}/conversations/${conversationId}/messages`).pipe(
-      map((messages: any[]) => {
-        const chatMessages: ChatMessage[] = messages.map(msg => ({
+    return this.getMessagePage(conversationId).pipe(
+      map(page => page.messages)
+    );
+  }
+
+  // Page de messages : la plus récente, ou celle qui précède le curseur "before" (charger les messages précédents)
+  getMessagePage(conversationId: string, before?: string): Observable<ChatHistoryPage<ChatMessage>> {
+    const params = before ? new HttpParams().set('before', before) : undefined;
+    return this.http.get<any[]>(`${this.apiUrl}/conversations/${conversationId}/messages`, { params, observe: 'response' }).pipe(
+      map((response: HttpResponse<any[]>) => {
+        const chatMessages: ChatMessage[] = (response.body || []).map(msg => ({
           id: msg.id,
           conversationId: msg.conversationId || conversationId,
           sender: msg.sender === 'AI' || msg.sender === 'ai' ? 'ai' : 'user',
@@ -67,8 +76,14 @@ export class AiChatService {
             url: att.url || ''
           })) : []
         }));
-        this.messagesCache[conversationId] = chatMessages;
-        return chatMessages;
+        this.messagesCache[conversationId] = before
+          ? [...chatMessages, ...(this.messagesCache[conversationId] || [])]
+          : chatMessages;
+        return {
+          messages: chatMessages,
+          beforeCursor: response.headers.get('X-Before-Cursor'),
+          hasEarlier: response.headers.get('X-Has-More') === 'true'
+        };
       }),
       catchError((error) => {
         console.error('Error fetching messages:', error);
@@ -1,7 +1,8 @@
 import { Injectable } from '@angular/core';
-import { HttpClient } from '@angular/common/http';
+import { HttpClient, HttpParams, HttpResponse } from '@angular/common/http';
 import { Observable, throwError } from 'rxjs';
 import { map, catchError } from 'rxjs/operators';
+import { ChatHistoryPage } from '../../models/interfaces';
 
 export interface TrainerConversation {
   id: string;
@@ -44,14 +45,26 @@ export class TrainerChatService {
   }
 
   getConversationMessages(conversationId: string): Observable<TrainerMessage[]> {
-    return this.http.get<any[]>(`${this.apiUrl}/conversation/${conversationId}/messages`).pipe(
-      map((messages: any[]): TrainerMessage[] => messages.map(m => ({
-        id: m.id,
-        content: m.content,
-        sender: (m.sender === 'USER' ? 'USER' : 'AI') as 'USER' | 'AI',
-        timestamp: new Date(m.timestamp),
-        read: m.read || false
-      }))),
+    return this.getMessagePage(conversationId).pipe(
+      map(page => page.messages)
+    );
+  }
+
+  // Page de messages : la plus récente, ou celle qui précède le curseur "before" (charger les messages précédents)
+  getMessagePage(conversationId: string, before?: string): Observable<ChatHistoryPage<TrainerMessage>> {
+    const params = before ? new HttpParams().set('before', before) : undefined;
+    return this.http.get<any[]>(`${this.apiUrl}/conversation/${conversationId}/messages`, { params, observe: 'response' }).pipe(
+      map((response: HttpResponse<any[]>) => ({
+        messages: (response.body || []).map((m): TrainerMessage => ({
+          id: m.id,
+          content: m.content,
+          sender: (m.sender === 'USER' ? 'USER' : 'AI') as 'USER' | 'AI',
+          timestamp: new Date(m.timestamp),
+          read: m.read || false
+        })),
+        beforeCursor: response.headers.get('X-Before-Cursor'),
+        hasEarlier: response.headers.get('X-Has-More') === 'true'
+      })),
       catchError((error) => {
         console.error('Error fetching messages:', error);
         return throwError(() => error);
@@ -0,0 +1,86 @@
+#!/bin/bash
+# Compare le débit du backend en mode threads plateforme et en mode threads virtuels
+# sur les endpoints de chat et de statistiques formateur.
+#
+# Usage :
+#   1. Démarrer le backend en mode classique :  mvn spring-boot:run
+#      puis lancer :                            ./compare-execution-modes.sh platform
+#   2. Redémarrer en threads virtuels (JDK 21) : mvn -Pjava21 spring-boot:run
+#      puis lancer :                            ./compare-execution-modes.sh virtual
+#   3. Comparer les deux :                      ./compare-execution-modes.sh compare
+#
+# Variables d'environnement : STATS_THREADS, CHAT_THREADS, RAMP_UP, DURATION,
+# TRAINER_EMAIL, TRAINER_PASSWORD, USER_EMAIL, USER_PASSWORD, HOST, PORT
+
+TEST_PLAN="Coach_AI_Execution_Mode_Load_Test.jmx"
+OUTPUT_DIR="jmeter-results/execution-modes"
+MODE="$1"
+
+summarize() {
+    python3 - "$@" <<'PY'
+import json, sys
+labels = ["GET /api/trainer/stats", "POST chat message"]
+runs = {}
+for path in sys.argv[1:]:
+    mode = path.split("/")[-3]
+    with open(path) as f:
+        runs[mode] = json.load(f)
+print(f"{'Endpoint':<26}{'Mode':<10}{'Req/s':>10}{'Moy (ms)':>10}{'p95 (ms)':>10}{'Erreurs %':>11}")
+for label in labels:
+    for mode, stats in runs.items():
+        s = stats.get(label)
+        if not s:
+            continue
+        print(f"{label:<26}{mode:<10}{s['throughput']:>10.1f}{s['meanResTime']:>10.0f}"
+              f"{s['pct2ResTime']:>10.0f}{s['errorPct']:>11.2f}")
+PY
+}
+
+if [ "$MODE" == "compare" ]; then
+    FILES=$(ls "$OUTPUT_DIR"/*/html-report/statistics.json 2>/dev/null)
+    if [ -z "$FILES" ]; then
+        echo "❌ Aucun résultat dans $OUTPUT_DIR : lancer d'abord les modes platform et virtual"
+        exit 1
+    fi
+    summarize $FILES
+    exit 0
+fi
+
+if [ "$MODE" != "platform" ] && [ "$MODE" != "virtual" ]; then
+    echo "Usage: $0 platform|virtual|compare"
+    exit 1
+fi
+
+if ! command -v jmeter &> /dev/null; then
+    echo "❌ JMeter not found in PATH!"
+    exit 1
+fi
+
+HOST="${HOST:-localhost}"
+PORT="${PORT:-8081}"
+if ! curl -s -o /dev/null "http://$HOST:$PORT/api/formations"; then
+    echo "❌ Backend non joignable sur http://$HOST:$PORT"
+    exit 1
+fi
+
+RESULTS_DIR="$OUTPUT_DIR/$MODE"
+rm -rf "$RESULTS_DIR"
+mkdir -p "$RESULTS_DIR"
+
+echo "🚀 Mode $MODE : ${STATS_THREADS:-200} threads stats, ${CHAT_THREADS:-200} threads chat, ${DURATION:-120}s"
+
+jmeter -n -t "$TEST_PLAN" \
+    -l "$RESULTS_DIR/results.jtl" \
+    -e -o "$RESULTS_DIR/html-report" \
+    -JHOST="$HOST" \
+    -JPORT="$PORT" \
+    -JSTATS_THREADS="${STATS_THREADS:-200}" \
+    -JCHAT_THREADS="${CHAT_THREADS:-200}" \
+    -JRAMP_UP="${RAMP_UP:-10}" \
+    -JDURATION="${DURATION:-120}" \
+    -JTRAINER_EMAIL="${TRAINER_EMAIL:-trainer@form.com}" \
+    -JTRAINER_PASSWORD="${TRAINER_PASSWORD:-test123}" \
+    -JUSER_EMAIL="${USER_EMAIL:-user@etud.com}" \
+    -JUSER_PASSWORD="${USER_PASSWORD:-test123}" || exit 1
+
+summarize "$RESULTS_DIR/html-report/statistics.json"
@@ -11,6 +11,7 @@ import joblib
 import numpy as np
 import pandas as pd
 from fastapi import FastAPI, HTTPException
+from fastapi.responses import StreamingResponse
 from fastapi.middleware.cors import CORSMiddleware
 from pydantic import BaseModel, Field
 
@@ -203,15 +204,9 @@ def predict(request: PredictionRequest):
     )
 
 
-async def call_ollama(question: str, difficulty: str, confidence: float) -> str:
-    """Call Ollama API for educational response with context."""
-    max_retries = 2
-    
-    for attempt in range(max_retries):
-        try:
-            # Increased timeout for cold starts (60s)
-            async with httpx.AsyncClient(timeout=60.0) as client:
-                prompt = f"""You are an educational AI coach. Answer directly and concisely without introductory phrases.
+def _build_coach_prompt(question: str, difficulty: str, confidence: float) -> str:
+    """Build the Ollama prompt used by both the blocking and streaming coach endpoints."""
+    return f"""You are an educational AI coach. Answer directly and concisely without introductory phrases.
 
 Student question: "{question}"
 
@@ -226,6 +221,17 @@ Instructions:
 
 Response:"""
 
+
+async def call_ollama(question: str, difficulty: str, confidence: float) -> str:
+    """Call Ollama API for educational response with context."""
+    max_retries = 2
+    
+    for attempt in range(max_retries):
+        try:
+            # Increased timeout for cold starts (60s)
+            async with httpx.AsyncClient(timeout=60.0) as client:
+                prompt = _build_coach_prompt(question, difficulty, confidence)
+
                 response = await client.post(
                     "http://localhost:11434/api/generate",
                     json={
@@ -323,6 +329,79 @@ async def hybrid_coach(request: PredictionRequest):
         raise HTTPException(status_code=500, detail=str(exc)) from exc
 
 
+async def stream_ollama(question: str, difficulty: str, confidence: float):
+    """Stream the Ollama response chunk by chunk (Ollama NDJSON streaming API)."""
+    async with httpx.AsyncClient(timeout=60.0) as client:
+        async with client.stream(
+            "POST",
+            "http://localhost:11434/api/generate",
+            json={
+                "model": "qwen2.5:0.5b",
+                "prompt": _build_coach_prompt(question, difficulty, confidence),
+                "stream": True,
+                "options": {
+                    "temperature": 0.7,
+                    "top_p": 0.9,
+                    "max_tokens": 500
+                }
+            }
+        ) as response:
+            if response.status_code != 200:
+                raise RuntimeError(f"Ollama API error: {response.status_code}")
+            async for line in response.aiter_lines():
+                if not line:
+                    continue
+                data = json.loads(line)
+                chunk = data.get("response", "")
+                if chunk:
+                    yield chunk
+                if data.get("done"):
+                    break
+
+
+@app.post("/coach/hybrid/stream")
+async def hybrid_coach_stream(request: PredictionRequest):
+    """Streaming variant of /coach/hybrid.
+
+    Emits NDJSON lines: {"chunk": "..."} as Ollama generates text, then a final
+    {"done": true, "predicted_difficulty": ..., "confidence": ..., "source": ...}.
+    """
+    try:
+        feature_vector = _preprocess_payload(request)
+        prediction = model.predict([feature_vector])[0]
+        probabilities = model.predict_proba([feature_vector])[0].tolist()
+        labels = model.classes_.tolist()
+        confidence = float(
+            probabilities[labels.index(prediction)] if prediction in labels else max(probabilities)
+        )
+    except Exception as exc:
+        logger.exception("Failed to preprocess streaming hybrid request")
+        raise HTTPException(status_code=500, detail=str(exc)) from exc
+
+    async def events():
+        source = "hybrid_ai_coach"
+        sent_any = False
+        try:
+            async for chunk in stream_ollama(request.question, str(prediction), confidence):
+                sent_any = True
+                yield json.dumps({"chunk": chunk}, ensure_ascii=False) + "\n"
+        except Exception as exc:
+            logger.warning("Streaming from Ollama failed: %s", exc)
+            if not sent_any:
+                # Same fallback text as the blocking endpoint
+                fallback = await call_ollama(request.question, str(prediction), confidence)
+                yield json.dumps({"chunk": fallback}, ensure_ascii=False) + "\n"
+                source = "fallback"
+        yield json.dumps({
+            "done": True,
+            "predicted_difficulty": str(prediction),
+            "confidence": round(confidence, 4),
+            "source": source,
+        }) + "\n"
+
+    return StreamingResponse(events(), media_type="application/x-ndjson")
+
+
 @app.post("/generate/quiz")
 async def generate_quiz(topic: str, difficulty: str = "MOYEN", count: int = 3):
     """Generate quiz questions at a specific difficulty level using Ollama."""
@@ -543,6 +622,72 @@ def predict_student_level(request: StudentLevelRequest):
     )
 
 
+class StudentLevelBatchItem(StudentLevelRequest):
+    student_id: str = Field(..., min_length=1)
+
+
+class StudentLevelBatchRequest(BaseModel):
+    students: List[StudentLevelBatchItem] = Field(default_factory=list)
+
+
+class StudentLevelBatchPrediction(StudentLevelResponse):
+    student_id: str
+
+
+class StudentLevelBatchResponse(BaseModel):
+    predictions: List[StudentLevelBatchPrediction]
+
+
+STUDENT_LEVEL_SCORES = {
+    'DEBUTANT': 25,
+    'INTERMEDIAIRE': 100,
+    'AVANCE': 225,
+    'EXPERT': 300
+}
+
+
+@app.post("/student/level/predict/batch", response_model=StudentLevelBatchResponse)
+def predict_student_level_batch(request: StudentLevelBatchRequest):
+    """Prédit le niveau de plusieurs étudiants en un seul appel (scaling et prédiction vectorisés)"""
+    if student_level_model is None:
+        raise HTTPException(
+            status_code=503,
+            detail="Student level model not available. Please train the model first."
+        )
+    if student_level_scaler is None or student_level_feature_names is None:
+        raise HTTPException(status_code=503, detail="Student level model not loaded")
+    
+    if not request.students:
+        return StudentLevelBatchResponse(predictions=[])
+    
+    try:
+        df = pd.DataFrame([
+            item.dict(exclude={"student_id"}) for item in request.students
+        ])[list(StudentLevelRequest.__fields__.keys())]
+        df_scaled = pd.DataFrame(student_level_scaler.transform(df), columns=df.columns)
+        matrix = df_scaled[student_level_feature_names].astype(float).values
+    except Exception as exc:
+        logger.exception("Failed to preprocess student features batch")
+        raise HTTPException(status_code=400, detail=str(exc)) from exc
+    
+    predictions = student_level_model.predict(matrix)
+    probabilities = student_level_model.predict_proba(matrix)
+    labels = student_level_model.classes_.tolist()
+    
+    results = []
+    for item, prediction, probs in zip(request.students, predictions, probabilities):
+        confidence = float(probs[labels.index(prediction)] if prediction in labels else max(probs))
+        results.append(StudentLevelBatchPrediction(
+            student_id=item.student_id,
+            predicted_level=str(prediction),
+            confidence=round(confidence, 4),
+            probabilities={label: float(prob) for label, prob in zip(labels, probs)},
+            level_score=STUDENT_LEVEL_SCORES.get(prediction, 0)
+        ))
+    
+    return StudentLevelBatchResponse(predictions=results)
+
+
 # ==================== DÉTECTION DE TOPICS ====================
 
 class TopicDetectionRequest(BaseModel):